@@ -2,13 +2,23 @@ package de.eldecker.dhbw.spring.weblesezeichen;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 
 /**
  * Einstiegsklasse. Für Debugging kann diese Klasse
  * im Debug-Modus in Eclipse gestartet werden.
+ * <br><br>
+ *
+ * Mit {@code EnableCaching} werden die Annotationen {@code Cacheable}
+ * und {@code CacheEvict} ausgewertet, siehe {@code OrdnerService}.
+ * Mit {@code EnableScheduling} wird die Annotation {@code Scheduled}
+ * ausgewertet, siehe {@code AenderungsProtokoll}.
  */
 @SpringBootApplication
+@EnableCaching
+@EnableScheduling
 public class WebLesezeichenApplication {
 
 	public static void main( String[] args ) {
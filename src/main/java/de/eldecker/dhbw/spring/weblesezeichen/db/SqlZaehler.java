@@ -0,0 +1,247 @@
+package de.eldecker.dhbw.spring.weblesezeichen.db;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+import javax.sql.DataSource;
+
+
+/**
+ * Zählt pro Thread die abgesetzten JDBC-Statements, die gelesenen Zeilen und
+ * die Zeit, die in JDBC-Aufrufen verbracht wurde. Gezählt wird nur zwischen
+ * {@link #starten()} und {@link #beenden()}, also z.B. während eines
+ * HTTP-Requests.
+ * <br><br>
+ *
+ * Dafür wird die {@link DataSource} mit {@link #umhuellen(DataSource)} in
+ * einen Proxy verpackt, der auch die gelieferten Connections, Statements und
+ * ResultSets verpackt (dynamische Proxies des JDK, keine zusätzliche
+ * Bibliothek nötig).
+ */
+public final class SqlZaehler {
+
+    /**
+     * Ergebnis einer Messung.
+     *
+     * @param statements Anzahl ausgeführter Statements (ein Batch zählt einmal)
+     *
+     * @param zeilen Anzahl gelesener Zeilen aus allen ResultSets
+     *
+     * @param dbZeitNanos Zeit in JDBC-Aufrufen (Ausführen und Lesen) in Nanosekunden
+     */
+    public record Messung( long statements, long zeilen, long dbZeitNanos ) {
+
+        /**
+         * DB-Zeit in Millisekunden.
+         *
+         * @return Zeit in ms
+         */
+        public long dbZeitMs() {
+
+            return dbZeitNanos / 1_000_000;
+        }
+    }
+
+
+    /** Veränderliche Zähler für laufende Messung. */
+    private static final class Zaehler {
+
+        long statements;
+        long zeilen;
+        long dbZeitNanos;
+    }
+
+
+    /** Laufende Messung des aktuellen Threads; {@code null}, wenn nicht gemessen wird. */
+    private static final ThreadLocal<Zaehler> MESSUNG = new ThreadLocal<>();
+
+
+    /** Keine Instanzen. */
+    private SqlZaehler() {}
+
+
+    /**
+     * Beginnt eine Messung für den aktuellen Thread; eine evtl. laufende
+     * Messung wird verworfen.
+     */
+    public static void starten() {
+
+        MESSUNG.set( new Zaehler() );
+    }
+
+
+    /**
+     * Beendet die Messung für den aktuellen Thread.
+     *
+     * @return Ergebnis; alle Werte 0, wenn keine Messung lief
+     */
+    public static Messung beenden() {
+
+        final Zaehler zaehler = MESSUNG.get();
+        MESSUNG.remove();
+
+        return zaehler == null
+               ? new Messung( 0, 0, 0 )
+               : new Messung( zaehler.statements, zaehler.zeilen, zaehler.dbZeitNanos );
+    }
+
+
+    /**
+     * Aktueller Stand der laufenden Messung, ohne sie zu beenden.
+     *
+     * @return Zwischenstand; alle Werte 0, wenn keine Messung läuft
+     */
+    public static Messung zwischenstand() {
+
+        final Zaehler zaehler = MESSUNG.get();
+
+        return zaehler == null
+               ? new Messung( 0, 0, 0 )
+               : new Messung( zaehler.statements, zaehler.zeilen, zaehler.dbZeitNanos );
+    }
+
+
+    /**
+     * Verpackt eine DataSource, damit deren Statements gezählt werden.
+     *
+     * @param dataSource Zu verpackende DataSource
+     *
+     * @return Proxy, implementiert nur das Interface {@link DataSource} und ggf.
+     *         {@link AutoCloseable} (damit Spring den Connection-Pool beim
+     *         Herunterfahren schließt); {@code unwrap()} liefert weiterhin die
+     *         ursprüngliche Klasse
+     */
+    public static DataSource umhuellen( DataSource dataSource ) {
+
+        final Class<?>[] schnittstellen = dataSource instanceof AutoCloseable
+                                          ? new Class<?>[] { DataSource.class, AutoCloseable.class }
+                                          : new Class<?>[] { DataSource.class };
+
+        final InvocationHandler handler = ( proxy, methode, args ) -> {
+
+            final Object ergebnis = aufrufen( dataSource, methode, args );
+
+            return ergebnis instanceof Connection connection
+                   ? proxy( Connection.class, connection, SqlZaehler::connectionAufruf )
+                   : ergebnis;
+        };
+
+        return (DataSource) Proxy.newProxyInstance( SqlZaehler.class.getClassLoader(), schnittstellen, handler );
+    }
+
+
+    /**
+     * Aufruf auf einer Connection: erzeugte Statements werden verpackt.
+     */
+    private static Object connectionAufruf( Object ziel, Method methode, Object[] args ) throws Throwable {
+
+        final Object ergebnis = aufrufen( ziel, methode, args );
+
+        if ( ergebnis instanceof CallableStatement statement ) {
+
+            return proxy( CallableStatement.class, statement, SqlZaehler::statementAufruf );
+        }
+        if ( ergebnis instanceof PreparedStatement statement ) {
+
+            return proxy( PreparedStatement.class, statement, SqlZaehler::statementAufruf );
+        }
+        if ( ergebnis instanceof Statement statement ) {
+
+            return proxy( Statement.class, statement, SqlZaehler::statementAufruf );
+        }
+
+        return ergebnis;
+    }
+
+
+    /**
+     * Aufruf auf einem Statement: {@code execute...}-Methoden werden gezählt
+     * und gemessen, gelieferte ResultSets werden verpackt.
+     */
+    private static Object statementAufruf( Object ziel, Method methode, Object[] args ) throws Throwable {
+
+        final Zaehler zaehler = MESSUNG.get();
+        if ( zaehler == null ) { return aufrufen( ziel, methode, args ); }
+
+        final boolean ausfuehren = methode.getName().startsWith( "execute" );
+
+        final long   zeitStart = System.nanoTime();
+        final Object ergebnis  = aufrufen( ziel, methode, args );
+        if ( ausfuehren ) {
+
+            zaehler.statements++;
+            zaehler.dbZeitNanos += System.nanoTime() - zeitStart;
+        }
+
+        return ergebnis instanceof ResultSet resultSet
+               ? proxy( ResultSet.class, resultSet, SqlZaehler::resultSetAufruf )
+               : ergebnis;
+    }
+
+
+    /**
+     * Aufruf auf einem ResultSet: jede gelesene Zeile ({@code next()} liefert
+     * {@code true}) wird gezählt, die Zeit für {@code next()} wird gemessen.
+     */
+    private static Object resultSetAufruf( Object ziel, Method methode, Object[] args ) throws Throwable {
+
+        final Zaehler zaehler = MESSUNG.get();
+        if ( zaehler == null || !methode.getName().equals( "next" ) ) {
+
+            return aufrufen( ziel, methode, args );
+        }
+
+        final long   zeitStart = System.nanoTime();
+        final Object ergebnis  = aufrufen( ziel, methode, args );
+        zaehler.dbZeitNanos += System.nanoTime() - zeitStart;
+
+        if ( Boolean.TRUE.equals( ergebnis ) ) { zaehler.zeilen++; }
+
+        return ergebnis;
+    }
+
+
+    /** Funktionales Interface für die Behandlung eines Aufrufs auf dem Ziel-Objekt. */
+    @FunctionalInterface
+    private interface Aufruf {
+
+        Object behandeln( Object ziel, Method methode, Object[] args ) throws Throwable;
+    }
+
+
+    /**
+     * Erzeugt dynamischen Proxy für {@code ziel}.
+     */
+    private static <T> T proxy( Class<T> schnittstelle, T ziel, Aufruf aufruf ) {
+
+        final InvocationHandler handler = ( proxy, methode, args ) -> aufruf.behandeln( ziel, methode, args );
+
+        return schnittstelle.cast( Proxy.newProxyInstance( SqlZaehler.class.getClassLoader(),
+                                                           new Class<?>[] { schnittstelle },
+                                                           handler ) );
+    }
+
+
+    /**
+     * Ruft Methode auf dem Ziel-Objekt auf und reicht Exceptions unverändert weiter.
+     */
+    private static Object aufrufen( Object ziel, Method methode, Object[] args ) throws Throwable {
+
+        try {
+
+            return methode.invoke( ziel, args );
+        }
+        catch ( InvocationTargetException ex ) {
+
+            throw ex.getCause();
+        }
+    }
+
+}
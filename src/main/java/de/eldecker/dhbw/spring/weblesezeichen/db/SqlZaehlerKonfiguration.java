@@ -0,0 +1,40 @@
+package de.eldecker.dhbw.spring.weblesezeichen.db;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+
+/**
+ * Konfiguration für {@link SqlZaehler}: Die DataSource-Bean wird nach ihrer
+ * Initialisierung verpackt, damit alle Zugriffe (JPA, Spring Data, JdbcTemplate)
+ * gezählt werden. Nur mit {@code lesezeichen.sql-statistik.aktiv=true}
+ * (z.B. im Profil "diagnose") wird die DataSource verpackt.
+ */
+@Configuration
+@ConditionalOnProperty( name = "lesezeichen.sql-statistik.aktiv", havingValue = "true" )
+public class SqlZaehlerKonfiguration {
+
+    /**
+     * Bean-Postprozessor, der die DataSource verpackt; ist {@code static},
+     * damit er vor allen anderen Beans erzeugt werden kann.
+     *
+     * @return Bean-Postprozessor
+     */
+    @Bean
+    public static BeanPostProcessor sqlZaehlerPostProcessor() {
+
+        return new BeanPostProcessor() {
+
+            @Override
+            public Object postProcessAfterInitialization( Object bean, String beanName ) {
+
+                return bean instanceof DataSource dataSource ? SqlZaehler.umhuellen( dataSource ) : bean;
+            }
+        };
+    }
+
+}
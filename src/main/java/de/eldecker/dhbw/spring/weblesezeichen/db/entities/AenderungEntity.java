@@ -0,0 +1,196 @@
+package de.eldecker.dhbw.spring.weblesezeichen.db.entities;
+
+import static jakarta.persistence.EnumType.STRING;
+import static jakarta.persistence.GenerationType.AUTO;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+
+/**
+ * Eintrag im Änderungsprotokoll für die Delta-Synchronisation: Ein Ordner oder
+ * Lesezeichen wurde angelegt oder geändert. Jeder Eintrag enthält
+ * den vollständigen Stand des Objekts nach der Änderung (Name, URL, Ordner),
+ * ein Client kann ihn also ohne die vorherigen Einträge anwenden.
+ * <br><br>
+ *
+ * Alle Einträge einer Transaktion haben dieselbe {@link #revision}, die
+ * Einträge sind nach Revision und ID sortiert. Der Index über Objekt-Typ und
+ * Objekt-ID wird für die Kompaktierung (nur neuesten Eintrag pro Objekt
+ * behalten) benötigt.
+ */
+@Entity
+@Table( name = "Aenderung",
+        indexes = { @Index( name = "idx_aenderung_revision_id", columnList = "revision, id"             ),
+                    @Index( name = "idx_aenderung_objekt"     , columnList = "objekt_typ, objekt_id" ) } )
+public class AenderungEntity {
+
+    /** Art des geänderten Objekts. */
+    public enum ObjektTyp { ORDNER, LESEZEICHEN }
+
+    /** Art der Änderung. */
+    public enum Aktion { ANGELEGT, GEAENDERT }
+
+
+    /**
+     * Primärschlüssel, wird von JPA verwaltet; legt Reihenfolge innerhalb
+     * einer Revision fest.
+     */
+    @Id
+    @GeneratedValue( strategy = AUTO )
+    private Long id;
+
+    /** Revision der Transaktion, in der die Änderung gemacht wurde. */
+    @Column( nullable = false )
+    private long revision;
+
+    /** Ordner oder Lesezeichen. */
+    @Enumerated( STRING )
+    @Column( name = "objekt_typ", nullable = false, length = 16 )
+    private ObjektTyp objektTyp;
+
+    /** Angelegt oder geändert. */
+    @Enumerated( STRING )
+    @Column( nullable = false, length = 16 )
+    private Aktion aktion;
+
+    /** ID des Ordners bzw. Lesezeichens. */
+    @Column( name = "objekt_id", nullable = false )
+    private long objektId;
+
+    /** Name nach der Änderung. */
+    private String name;
+
+    /** URL nach der Änderung; {@code null} für Ordner. */
+    private String url;
+
+    /**
+     * ID des Vaterordners (bei Ordnern) bzw. des Ordners, in dem das
+     * Lesezeichen enthalten ist; {@code null} für den Wurzelordner.
+     */
+    @Column( name = "ordner_id" )
+    private Long ordnerId;
+
+
+    /**
+     * Default-Konstruktor, obligatorisch für JPA!
+     */
+    public AenderungEntity() {}
+
+
+    /**
+     * Konstruktor für neuen Eintrag.
+     *
+     * @param revision Revision der Transaktion
+     *
+     * @param objektTyp Ordner oder Lesezeichen
+     *
+     * @param aktion Art der Änderung
+     *
+     * @param objektId ID des Ordners bzw. Lesezeichens
+     *
+     * @param name Name nach der Änderung
+     *
+     * @param url URL nach der Änderung, {@code null} für Ordner
+     *
+     * @param ordnerId ID des (Vater-)Ordners
+     */
+    public AenderungEntity( long revision, ObjektTyp objektTyp, Aktion aktion,
+                            long objektId, String name, String url, Long ordnerId ) {
+
+        this.revision  = revision;
+        this.objektTyp = objektTyp;
+        this.aktion    = aktion;
+        this.objektId  = objektId;
+        this.name      = name;
+        this.url       = url;
+        this.ordnerId  = ordnerId;
+    }
+
+
+    /**
+     * Getter für ID.
+     *
+     * @return ID des Eintrags
+     */
+    public Long getId() {
+
+        return id;
+    }
+
+    /**
+     * Getter für Revision.
+     *
+     * @return Revision der Transaktion
+     */
+    public long getRevision() {
+
+        return revision;
+    }
+
+    /**
+     * Getter für Objekt-Typ.
+     *
+     * @return Ordner oder Lesezeichen
+     */
+    public ObjektTyp getObjektTyp() {
+
+        return objektTyp;
+    }
+
+    /**
+     * Getter für Aktion.
+     *
+     * @return Art der Änderung
+     */
+    public Aktion getAktion() {
+
+        return aktion;
+    }
+
+    /**
+     * Getter für Objekt-ID.
+     *
+     * @return ID des Ordners bzw. Lesezeichens
+     */
+    public long getObjektId() {
+
+        return objektId;
+    }
+
+    /**
+     * Getter für Name.
+     *
+     * @return Name nach der Änderung
+     */
+    public String getName() {
+
+        return name;
+    }
+
+    /**
+     * Getter für URL.
+     *
+     * @return URL nach der Änderung, {@code null} für Ordner
+     */
+    public String getUrl() {
+
+        return url;
+    }
+
+    /**
+     * Getter für Ordner-ID.
+     *
+     * @return ID des (Vater-)Ordners, {@code null} für Wurzelordner
+     */
+    public Long getOrdnerId() {
+
+        return ordnerId;
+    }
+
+}
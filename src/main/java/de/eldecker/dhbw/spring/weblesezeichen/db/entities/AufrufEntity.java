@@ -0,0 +1,60 @@
+package de.eldecker.dhbw.spring.weblesezeichen.db.entities;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+
+/**
+ * Anzahl der Aufrufe eines Lesezeichens über {@code /app/go/{id}}.
+ * <br><br>
+ *
+ * Die Anzahl steht in einer eigenen Tabelle und nicht in der Tabelle
+ * {@code Lesezeichen}, damit die Lesezeichen im Second-Level-Cache nicht
+ * bei jedem Schreiben der Zähler ungültig werden. Geschrieben wird nicht
+ * über JPA, sondern gebündelt mit einem {@code MERGE}-Statement, siehe
+ * {@code AufrufZaehler}.
+ */
+@Entity
+@Table( name = "Aufruf" )
+public class AufrufEntity {
+
+    /** Primärschlüssel ist die ID des Lesezeichens. */
+    @Id
+    @Column( name = "lesezeichen_id" )
+    private Long lesezeichenId;
+
+    /** Anzahl der Aufrufe. */
+    @Column( nullable = false )
+    private long anzahl;
+
+
+    /**
+     * Default-Konstruktor, obligatorisch für JPA!
+     */
+    public AufrufEntity() {}
+
+
+    /**
+     * Getter für ID des Lesezeichens.
+     *
+     * @return ID des Lesezeichens
+     */
+    public Long getLesezeichenId() {
+
+        return lesezeichenId;
+    }
+
+
+    /**
+     * Getter für Anzahl der Aufrufe.
+     *
+     * @return Anzahl der Aufrufe, die schon in die Datenbank geschrieben wurden
+     */
+    public long getAnzahl() {
+
+        return anzahl;
+    }
+
+}
@@ -0,0 +1,57 @@
+package de.eldecker.dhbw.spring.weblesezeichen.db.entities;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+
+/**
+ * Erzeugt die fachlichen Schlüssel, auf denen {@code equals()} und
+ * {@code hashCode()} der Entity-Klassen beruhen. Der Schlüssel wird schon beim
+ * Erzeugen des Objekts vergeben (also vor dem Speichern) und ändert sich danach
+ * nie; damit bleibt der Hashcode eines Objekts auch beim Speichern gleich.
+ * <br><br>
+ *
+ * Es werden zufällige UUIDs der Version 4 erzeugt; statt {@link UUID#randomUUID()}
+ * wird {@link ThreadLocalRandom} verwendet, weil kein kryptographisch sicherer
+ * Zufall benötigt wird und der Schlüssel auch für jedes von Hibernate aus der
+ * DB geladene Objekt (über den Default-Konstruktor) erzeugt und danach
+ * überschrieben wird.
+ */
+public final class EntitySchluessel {
+
+    /** Keine Instanzen. */
+    private EntitySchluessel() {}
+
+
+    /**
+     * Neuen zufälligen Schlüssel erzeugen.
+     *
+     * @return UUID der Version 4 (Variante nach RFC 4122)
+     */
+    public static UUID neu() {
+
+        final ThreadLocalRandom zufall = ThreadLocalRandom.current();
+
+        return aus( zufall.nextLong(), zufall.nextLong() );
+    }
+
+
+    /**
+     * Schlüssel aus vorgegebenen Zufallszahlen erzeugen, z.B. für
+     * reproduzierbare Testdaten mit festem Startwert.
+     *
+     * @param zufallOben Zufallszahl für die oberen 64 Bit
+     *
+     * @param zufallUnten Zufallszahl für die unteren 64 Bit
+     *
+     * @return UUID der Version 4 (Variante nach RFC 4122)
+     */
+    public static UUID aus( long zufallOben, long zufallUnten ) {
+
+        final long oben  = ( zufallOben  & 0xFFFF_FFFF_FFFF_0FFFL ) | 0x0000_0000_0000_4000L; // Version 4
+        final long unten = ( zufallUnten & 0x3FFF_FFFF_FFFF_FFFFL ) | 0x8000_0000_0000_0000L; // Variante RFC 4122
+
+        return new UUID( oben, unten );
+    }
+
+}
@@ -3,11 +3,27 @@ package de.eldecker.dhbw.spring.weblesezeichen.db.entities;
 import static jakarta.persistence.FetchType.EAGER;
 import static jakarta.persistence.GenerationType.AUTO;
 
+import java.util.HashSet;
 import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
 
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import de.eldecker.dhbw.spring.weblesezeichen.logik.UrlNormalisierung;
+
+import jakarta.persistence.Cacheable;
+import jakarta.persistence.CollectionTable;
+import jakarta.persistence.Column;
+import jakarta.persistence.ElementCollection;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
@@ -15,9 +31,27 @@ import jakarta.persistence.Table;
 
 /**
  * Eigentliches Lesezeichen, ist in genau einem Ordner enhalten.
+ * <br><br>
+ *
+ * Der Index über Name und ID wird für <i>Keyset Pagination</i> der
+ * Lesezeichenliste benötigt, der Index über {@code url_hash} für die Suche
+ * nach Duplikaten.
+ * <br><br>
+ *
+ * Lesezeichen werden im <i>Second-Level-Cache</i> von Hibernate gehalten
+ * (Region {@code lesezeichen}).
+ * <br><br>
+ *
+ * {@link #equals(Object)} und {@link #hashCode()} beruhen wie bei
+ * {@link OrdnerEntity} nur auf {@link #schluessel}; auch für Proxies gilt
+ * dasselbe wie dort.
  */
 @Entity
-@Table(name = "Lesezeichen")
+@Cacheable
+@Cache( usage = CacheConcurrencyStrategy.READ_WRITE, region = "lesezeichen" )
+@Table( name = "Lesezeichen",
+        indexes = { @Index( name = "idx_lesezeichen_name_id" , columnList = "name, id" ),
+                    @Index( name = "idx_lesezeichen_url_hash", columnList = "url_hash"  ) } )
 public class LesezeichenEntity {
 
     /**
@@ -33,6 +67,15 @@ public class LesezeichenEntity {
     /** URL des Lesezeichen, z.B. "http://www.heise.de". */
     private String url;
 
+    /**
+     * Hashwert der kanonischen Form von {@link #url}, siehe
+     * {@link UrlNormalisierung}; wird mit der URL gesetzt. Kann bei Altdaten
+     * bis zur Migration {@code null} sein.
+     */
+    @JsonIgnore
+    @Column( name = "url_hash" )
+    private Long urlHash;
+
     /**
      * Referenz auf Ordner, in dem dieses Lesezeichen enthalten ist.
      * Diese Beziehung wird durch die Spalte {@code ordner_fk} in der
@@ -44,6 +87,30 @@ public class LesezeichenEntity {
     @JoinColumn( name = "ordner_fk", referencedColumnName = "id" )
     private OrdnerEntity ordner;
 
+    /**
+     * Fachlicher Schlüssel für {@link #equals(Object)} und {@link #hashCode()},
+     * siehe {@link EntitySchluessel}.
+     */
+    @Column( unique = true, updatable = false )
+    private UUID schluessel = EntitySchluessel.neu();
+
+    /**
+     * Tags (Schlagwörter) des Lesezeichens, kleingeschrieben, z.B. "java";
+     * werden in der Tabelle {@code Lesezeichen_Tag} gespeichert. Gesucht wird
+     * nicht über diese Tabelle, sondern über den Index im Speicher
+     * ({@code TagIndex}). Für Spring Data REST ausgeblendet, damit nicht pro
+     * Lesezeichen eine Query abgesetzt wird; die Tags gibt es unter
+     * {@code /api/tags}.
+     */
+    @JsonIgnore
+    @ElementCollection
+    @BatchSize( size = 50 )
+    @CollectionTable( name = "Lesezeichen_Tag",
+                      joinColumns = @JoinColumn( name = "lesezeichen_fk" ),
+                      indexes = @Index( name = "idx_lesezeichen_tag_tag", columnList = "tag" ) )
+    @Column( name = "tag", nullable = false, length = 50 )
+    private Set<String> tags = new HashSet<>();
+
 
     /**
      * Für JPA obligatorisches Default-Konstruktor.
@@ -66,9 +133,10 @@ public class LesezeichenEntity {
      */
     public LesezeichenEntity( String name, String url, OrdnerEntity ordner ) {
 
-        this.name   = name;
-        this.url    = url;
-        this.ordner = ordner;
+        this.name    = name;
+        this.url     = url;
+        this.urlHash = UrlNormalisierung.hash( url );
+        this.ordner  = ordner;
     }
 
 
@@ -124,7 +192,19 @@ public class LesezeichenEntity {
      */
     public void setUrl( String url ) {
 
-        this.url = url;
+        this.url     = url;
+        this.urlHash = UrlNormalisierung.hash( url );
+    }
+
+
+    /**
+     * Getter für Hashwert der kanonischen URL.
+     *
+     * @return Hashwert, siehe {@link UrlNormalisierung#hash(String)}
+     */
+    public Long getUrlHash() {
+
+        return urlHash;
     }
 
 
@@ -150,6 +230,17 @@ public class LesezeichenEntity {
     }
 
 
+    /**
+     * Getter für Tags des Lesezeichens.
+     *
+     * @return Veränderbares Set mit Tags, kann leer sein
+     */
+    public Set<String> getTags() {
+
+        return tags;
+    }
+
+
     /**
      * Methode liefert String-Repräsentation des Objekts zurück.
      *
@@ -162,36 +253,49 @@ public class LesezeichenEntity {
     }
 
 
+    /**
+     * Getter für fachlichen Schlüssel.
+     *
+     * @return Schlüssel, der sich nach dem Erzeugen des Objekts nicht mehr ändert
+     */
+    public UUID getSchluessel() {
+
+        return schluessel;
+    }
+
+
     /**
      * Hashcode von Objekt berechnen.
      *
-     * @return Hashcode, berücksichtigt Attribute "name" und "ordner".
+     * @return Hashcode, berücksichtigt nur den Schlüssel
      */
     @Override
     public int hashCode() {
 
-        return Objects.hash( name, ordner );
+        return Objects.hashCode( getSchluessel() );
     }
 
 
     /**
-     * Prüft aufrufendes Objekt auf Gleichheit mit {@code obj}.
+     * Prüft aufrufendes Objekt auf Gleichheit mit {@code obj}; verglichen wird
+     * wie bei {@link #hashCode()} nur der Schlüssel, bei {@code obj} über den
+     * Getter (für Hibernate-Proxies).
      *
      * @return {@code true} gdw. {@code obj} auch eine Instanz von
-     *         {@link LesezeichenEntity} ist und die Attribute "name"
-     *         und "ordner" dieselben Werte haben
+     *         {@link LesezeichenEntity} (oder ein Proxy dafür) mit demselben
+     *         Schlüssel ist
      */
     @Override
     public boolean equals( Object obj ) {
 
         if ( this == obj ) { return true; }
 
-        if ( obj == null ) { return false; }
-
         if ( obj instanceof LesezeichenEntity anderesLesezeichen ) {
 
-            return Objects.equals( name  , anderesLesezeichen.name   ) &&
-                   Objects.equals( ordner, anderesLesezeichen.ordner );
+            final UUID schluessel = getSchluessel();
+
+            return schluessel != null && schluessel.equals( anderesLesezeichen.getSchluessel() );
+
         } else {
 
             return false;
@@ -5,25 +5,52 @@ import static jakarta.persistence.GenerationType.AUTO;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 import java.util.Objects;
+import java.util.UUID;
 
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.OrderBy;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 
 
 /**
  * Ein Ordner mit Lesezeichen, der 0 bis n Unterordner haben kann;
  * die Ordner bilden also eine Baumstruktur.
+ * <br><br>
+ *
+ * Die Ordner und die Listen der darin enthaltenen Lesezeichen werden im
+ * <i>Second-Level-Cache</i> von Hibernate gehalten (Regionen {@code ordner}
+ * und {@code ordnerLesezeichen}, konfiguriert in {@code application.conf}).
+ * <br><br>
+ *
+ * {@link #equals(Object)} und {@link #hashCode()} beruhen nur auf
+ * {@link #schluessel}, brauchen also konstante Zeit und lösen bei geladenen
+ * Objekten nie ein Nachladen aus der Datenbank aus. Ein noch nicht
+ * initialisierter Hibernate-Proxy (z.B. {@link #getVater()}) kennt nur die ID,
+ * nicht aber den Schlüssel; er wird deshalb beim ersten Aufruf von
+ * {@code equals()} oder {@code hashCode()} initialisiert, und zwar wegen
+ * des Second-Level-Caches meist ohne SQL-Statement.
  */
 @Entity
-@Table( name = "Ordner" )
+@Cacheable
+@Cache( usage = CacheConcurrencyStrategy.READ_WRITE, region = "ordner" )
+@Table( name = "Ordner",
+        indexes = { @Index( name = "idx_ordner_pfad"   , columnList = "pfad"     ),
+                    @Index( name = "idx_ordner_name_id", columnList = "name, id" ) } )
 public class OrdnerEntity {
 
     /**
@@ -43,6 +70,18 @@ public class OrdnerEntity {
     private String name;
 
 
+    /**
+     * {@link #name} in Kleinbuchstaben, wird mit dem Namen gesetzt (siehe
+     * {@link #nameKlein(String)}). Die {@code unique}-Constraint auf dieser
+     * Spalte stellt in der Datenbank sicher, dass es jeden Ordnernamen
+     * unabhängig von Groß-/Kleinschreibung nur einmal gibt, auch bei
+     * gleichzeitigem Anlegen und während eines Imports. Für Altdaten wird
+     * der Wert beim Start von {@code DatenMigration} nachgetragen.
+     */
+    @Column( name = "name_klein", unique = true )
+    private String nameKlein;
+
+
     /**
      * Direkter Vorgängerknoten, also der Ordner, in dem
      * der vorliegende Ordner als Unterordner enthalten ist.
@@ -52,13 +91,60 @@ public class OrdnerEntity {
     private OrdnerEntity vater;
 
 
+    /**
+     * Materialisierter Pfad von der Wurzel bis zu diesem Ordner, bestehend aus
+     * den IDs aller Vorgängerknoten und der eigenen ID, jeweils durch "/" getrennt,
+     * z.B. {@code /1/3/7/}. Damit können der Pfad zur Wurzel und die Abfrage,
+     * ob ein Ordner unterhalb eines anderen Ordners liegt, mit einer einzigen
+     * Query beantwortet werden, ohne {@link #vater} Ebene für Ebene nachzuladen.
+     * <br><br>
+     *
+     * Da die ID erst beim Speichern vergeben wird, wird der Pfad von
+     * {@code OrdnerService} unmittelbar nach dem Speichern gesetzt; für
+     * Altdaten wird er beim Start von {@code DatenMigration} nachgetragen.
+     */
+    @Column( length = 1024 )
+    private String pfad;
+
+
+    /**
+     * Fachlicher Schlüssel für {@link #equals(Object)} und {@link #hashCode()},
+     * wird beim Erzeugen des Objekts vergeben (siehe {@link EntitySchluessel})
+     * und nie geändert. Für Altdaten wird er beim Start von {@code DatenMigration}
+     * nachgetragen.
+     */
+    @Column( unique = true, updatable = false )
+    private UUID schluessel = EntitySchluessel.neu();
+
+    /**
+     * Version für <i>Optimistic Locking</i>, wird von Hibernate bei jeder Änderung
+     * hochgezählt. Damit sich die Version auch ändert, wenn im Ordner ein
+     * Lesezeichen oder Unterordner angelegt wird, wird sie dabei mit einem
+     * atomaren UPDATE hochgezählt (siehe {@code OrdnerService.versionHochzaehlen()}),
+     * gleichzeitige Schreibzugriffe schlagen also nicht fehl. Die Version ist Grundlage
+     * für das ETag der Ordnerseite und von {@code /rest/ordner/{id}}.
+     * <br><br>
+     *
+     * Für Altdaten wird sie beim Start von {@code DatenMigration} auf 0 gesetzt.
+     */
+    @Version
+    private Long version;
+
+
     /**
      * Im Ordner enthaltene Lesezeichen, welche aufsteigend nach Name
      * sortiert sind; kann leer sein, weil ein Ordner evtl. noch
      * keine Lesezeichen enthält oder nur Unterordner enthalten soll.
+     * <br><br>
+     *
+     * Wegen {@code BatchSize} werden die Lesezeichen von bis zu 50 Ordnern
+     * im Persistenzkontext mit einer Query nachgeladen, z.B. für die Projektion
+     * {@code InlineLesezeichen} unter {@code /rest/ordner}.
      */
     @OneToMany( mappedBy = "ordner" )
     @OrderBy( "name ASC" )
+    @BatchSize( size = 50 )
+    @Cache( usage = CacheConcurrencyStrategy.READ_WRITE, region = "ordnerLesezeichen" )
     private List<LesezeichenEntity> lesezeichen = new ArrayList<>( 10 );
 
 
@@ -67,7 +153,7 @@ public class OrdnerEntity {
      */
     public OrdnerEntity() {
 
-        name = "";
+        setName( "" );
     }
 
 
@@ -78,7 +164,7 @@ public class OrdnerEntity {
      */
     public OrdnerEntity( String name ) {
 
-        this.name = name;
+        setName( name );
     }
     
     
@@ -92,7 +178,7 @@ public class OrdnerEntity {
      */
     public OrdnerEntity( String name, OrdnerEntity vaterOrdner ) {
     
-        this.name  = name;
+        setName( name );
         this.vater = vaterOrdner;
     }
 
@@ -126,7 +212,23 @@ public class OrdnerEntity {
      */
     public void setName( String name ) {
 
-        this.name = name;
+        this.name      = name;
+        this.nameKlein = nameKlein( name );
+    }
+
+
+    /**
+     * Normalisiert einen Ordnernamen für den Vergleich ohne Berücksichtigung
+     * von Groß-/Kleinschreibung, so wie er in der Spalte {@code name_klein}
+     * gespeichert wird.
+     *
+     * @param name Ordnername, darf {@code null} sein
+     *
+     * @return Name in Kleinbuchstaben oder {@code null}
+     */
+    public static String nameKlein( String name ) {
+
+        return name == null ? null : name.toLowerCase( Locale.ROOT );
     }
 
     
@@ -154,6 +256,29 @@ public class OrdnerEntity {
     }
 
 
+    /**
+     * Getter für materialisierten Pfad.
+     *
+     * @return Pfad von Wurzel bis zu diesem Ordner, z.B. {@code /1/3/7/};
+     *         ist {@code null}, solange der Ordner noch nicht gespeichert wurde
+     */
+    public String getPfad() {
+
+        return pfad;
+    }
+
+
+    /**
+     * Setter für materialisierten Pfad.
+     *
+     * @param pfad Pfad von Wurzel bis zu diesem Ordner, z.B. {@code /1/3/7/}
+     */
+    public void setPfad( String pfad ) {
+
+        this.pfad = pfad;
+    }
+
+
     /**
      * Convenience-Methode zur Abfrage, ob Ordner der Wurzelordner
      * ist (oberster Ordner in der Ordnerhierarchie).
@@ -184,6 +309,29 @@ public class OrdnerEntity {
     }
 
 
+    /**
+     * Getter für Version.
+     *
+     * @return Version, wird bei jeder Änderung am Ordner und seinen direkten
+     *         Lesezeichen und Unterordnern hochgezählt
+     */
+    public Long getVersion() {
+
+        return version;
+    }
+
+
+    /**
+     * Getter für fachlichen Schlüssel.
+     *
+     * @return Schlüssel, der sich nach dem Erzeugen des Objekts nicht mehr ändert
+     */
+    public UUID getSchluessel() {
+
+        return schluessel;
+    }
+
+
     /**
      * String-Repräsentation des Objekts zurückgeben.
      *
@@ -198,39 +346,41 @@ public class OrdnerEntity {
 
     /**
      * Hashcode von Objekt berechnen.
-     * 
-     * @return Hashcode, berücksichtigt Attribute "name", "vater" und "lesezeichen".
+     *
+     * @return Hashcode, berücksichtigt nur den Schlüssel; ändert sich also
+     *         beim Speichern nicht
      */
     @Override
     public int hashCode() {
-        
-        return Objects.hash( name, vater, lesezeichen );
+
+        return Objects.hashCode( getSchluessel() );
     }
 
 
     /**
-     * Prüft aufrufendes Objekt auf Gleichheit mit {@code obj}. 
-     * 
+     * Prüft aufrufendes Objekt auf Gleichheit mit {@code obj}; verglichen wird
+     * wie bei {@link #hashCode()} nur der Schlüssel. Der Schlüssel von {@code obj}
+     * wird über den Getter gelesen, damit auch ein Hibernate-Proxy (Unterklasse
+     * von {@link OrdnerEntity}) den Schlüssel des eigentlichen Objekts liefert.
+     *
      * @return {@code true} gdw. {@code obj} auch eine Instanz von {@link OrdnerEntity}
-     *         ist und die Attribute "name", "vater" und "lesezeichen" denselben Wert
-     *         haben.
+     *         (oder ein Proxy dafür) mit demselben Schlüssel ist
      */
     @Override
     public boolean equals( Object obj ) {
-        
+
         if ( this == obj ) { return true; }
-        
-        if ( obj == null ) { return false; }
-        
+
         if ( obj instanceof OrdnerEntity andererOrdner ) {
-        
-            return Objects.equals( name       , andererOrdner.name        ) && 
-                   Objects.equals( vater      , andererOrdner.vater       ) &&
-                   Objects.equals( lesezeichen, andererOrdner.lesezeichen );            
+
+            final UUID schluessel = getSchluessel();
+
+            return schluessel != null && schluessel.equals( andererOrdner.getSchluessel() );
+
         } else {
-            
+
             return false;
-        }               
+        }
     }
 
 }
@@ -0,0 +1,64 @@
+package de.eldecker.dhbw.spring.weblesezeichen.db.entities;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+
+/**
+ * Tabelle mit genau einer Zeile (ID {@value #ID}), die die zuletzt vergebene
+ * Revision des Änderungsprotokolls (siehe {@link AenderungEntity}) enthält.
+ * <br><br>
+ *
+ * Die Zeile wird von jeder schreibenden Transaktion mit einem UPDATE
+ * hochgezählt; die Zeilensperre wird bis zum Commit gehalten. Damit werden
+ * die Transaktionen in der Reihenfolge ihrer Revisionen committet und ein
+ * Client, der bis Revision n gelesen hat, verpasst nie eine Änderung mit
+ * kleinerer Revision.
+ */
+@Entity
+@Table( name = "Revisionszaehler" )
+public class RevisionsZaehlerEntity {
+
+    /** ID der einzigen Zeile. */
+    public static final long ID = 1L;
+
+    /** Primärschlüssel, immer {@value #ID}. */
+    @Id
+    private Long id;
+
+    /** Zuletzt vergebene Revision. */
+    @Column( nullable = false )
+    private long wert;
+
+
+    /**
+     * Default-Konstruktor, obligatorisch für JPA!
+     */
+    public RevisionsZaehlerEntity() {}
+
+
+    /**
+     * Konstruktor für die erste Zeile.
+     *
+     * @param wert Erste vergebene Revision
+     */
+    public RevisionsZaehlerEntity( long wert ) {
+
+        this.id   = ID;
+        this.wert = wert;
+    }
+
+
+    /**
+     * Getter für Wert.
+     *
+     * @return Zuletzt vergebene Revision
+     */
+    public long getWert() {
+
+        return wert;
+    }
+
+}
@@ -0,0 +1,71 @@
+package de.eldecker.dhbw.spring.weblesezeichen.db.repos;
+
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.data.rest.core.annotation.RepositoryRestResource;
+
+import de.eldecker.dhbw.spring.weblesezeichen.db.entities.AenderungEntity;
+
+
+/**
+ * Repo-Bean für Zugriff auf das Änderungsprotokoll ({@link AenderungEntity}).
+ * Das Protokoll wird nicht über Spring Data REST bereitgestellt, sondern
+ * kompakt unter {@code /api/aenderungen}.
+ */
+@RepositoryRestResource( exported = false )
+public interface AenderungRepo extends JpaRepository<AenderungEntity, Long> {
+
+    /**
+     * Query-Methode mit JPQL für <i>Keyset Pagination</i>: Holt die Einträge,
+     * die in der Sortierung nach Revision und ID auf den Eintrag mit
+     * {@code revision} und {@code id} folgen.
+     *
+     * @param revision Revision des letzten schon gelesenen Eintrags; 0 für Anfang
+     *
+     * @param id ID des letzten schon gelesenen Eintrags; 0 für Anfang
+     *
+     * @param pageable Nur die Seitengröße wird ausgewertet
+     *
+     * @return Einträge, aufsteigend sortiert nach Revision und ID
+     */
+    @Query( "SELECT a FROM AenderungEntity a " +
+            "WHERE a.revision >= :revision AND ( a.revision > :revision OR a.id > :id ) " +
+            "ORDER BY a.revision ASC, a.id ASC" )
+    List<AenderungEntity> findSeiteNach( @Param( "revision" ) long revision,
+                                         @Param( "id"       ) long id,
+                                         Pageable pageable );
+
+
+    /**
+     * Derived Query Method: Neuester Eintrag, dessen Revision und ID als
+     * Token für "alle Änderungen bis jetzt" dienen.
+     *
+     * @return Neuester Eintrag, oder {@code null} wenn das Protokoll leer ist
+     */
+    AenderungEntity findFirstByOrderByRevisionDescIdDesc();
+
+
+    /**
+     * Native Query für die Kompaktierung: Löscht alle Einträge bis Revision
+     * {@code grenze}, für deren Objekt es einen neueren Eintrag gibt. Da jeder
+     * Eintrag den vollständigen Stand des Objekts enthält, geht dabei für
+     * keinen Client eine Information verloren.
+     *
+     * @param grenze Höchste Revision, deren Einträge gelöscht werden dürfen
+     *
+     * @return Anzahl gelöschter Einträge
+     */
+    @Modifying
+    @Query( nativeQuery = true,
+            value = "DELETE FROM Aenderung a WHERE a.revision <= :grenze AND EXISTS ( " +
+                    "SELECT 1 FROM Aenderung b " +
+                    "WHERE b.objekt_typ = a.objekt_typ AND b.objekt_id = a.objekt_id " +
+                    "AND ( b.revision > a.revision OR ( b.revision = a.revision AND b.id > a.id ) ) )" )
+    int kompaktieren( @Param( "grenze" ) long grenze );
+
+}
@@ -0,0 +1,58 @@
+package de.eldecker.dhbw.spring.weblesezeichen.db.repos;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.data.rest.core.annotation.RepositoryRestResource;
+
+import de.eldecker.dhbw.spring.weblesezeichen.db.entities.AufrufEntity;
+import de.eldecker.dhbw.spring.weblesezeichen.model.LesezeichenMitAufrufen;
+
+import jakarta.persistence.QueryHint;
+
+
+/**
+ * Repo-Bean für Lesezugriff auf die Anzahl der Aufrufe ({@link AufrufEntity});
+ * geschrieben wird gebündelt von {@code AufrufZaehler}. Die Anzahlen werden
+ * nicht über Spring Data REST bereitgestellt, sondern als Rangliste unter
+ * {@code /api/top}.
+ */
+@RepositoryRestResource( exported = false )
+public interface AufrufRepo extends JpaRepository<AufrufEntity, Long> {
+
+    /**
+     * Query-Methode mit JPQL: Alle aufgerufenen Lesezeichen mit Ordner, Pfad
+     * und Anzahl als Stream, für den Aufbau der Ranglisten beim Start.
+     * Der Aufrufer muss in einer Transaktion laufen und den Stream schließen.
+     *
+     * @return Stream mit einem Element pro aufgerufenem Lesezeichen
+     */
+    @QueryHints( @QueryHint( name = HINT_FETCH_SIZE, value = "1000" ) )
+    @Query( "SELECT new de.eldecker.dhbw.spring.weblesezeichen.model.LesezeichenMitAufrufen" +
+            "( l.id, l.name, l.url, o.id, o.name, o.pfad, a.anzahl ) " +
+            "FROM AufrufEntity a JOIN LesezeichenEntity l ON l.id = a.lesezeichenId JOIN l.ordner o" )
+    Stream<LesezeichenMitAufrufen> streamAlle();
+
+
+    /**
+     * Query-Methode mit JPQL: Lesezeichen mit Ordner, Pfad und Anzahl für die
+     * gegebenen IDs.
+     *
+     * @param idListe IDs der Lesezeichen
+     *
+     * @return Liste, nicht sortiert; Lesezeichen ohne Aufruf fehlen
+     */
+    @Query( "SELECT new de.eldecker.dhbw.spring.weblesezeichen.model.LesezeichenMitAufrufen" +
+            "( l.id, l.name, l.url, o.id, o.name, o.pfad, a.anzahl ) " +
+            "FROM AufrufEntity a JOIN LesezeichenEntity l ON l.id = a.lesezeichenId JOIN l.ordner o " +
+            "WHERE a.lesezeichenId IN :idListe" )
+    List<LesezeichenMitAufrufen> findByLesezeichenIds( @Param( "idListe" ) Collection<Long> idListe );
+
+}
@@ -16,6 +16,9 @@ import de.eldecker.dhbw.spring.weblesezeichen.db.entities.OrdnerEntity;
 @Projection(name = "inlineLesezeichen", types = { OrdnerEntity.class })
 public interface InlineLesezeichen {
 
+    /** ID des Ordners wird als Cursor für die Keyset Pagination benötigt. */
+    Long getId();
+
     /** Name des Ordners soll in der REST-Antwort enthalten sein. */ 
     String getName();
     
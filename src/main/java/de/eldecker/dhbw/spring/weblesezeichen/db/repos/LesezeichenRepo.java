@@ -1,11 +1,26 @@
 package de.eldecker.dhbw.spring.weblesezeichen.db.repos;
 
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.data.rest.core.annotation.RestResource;
 
 import de.eldecker.dhbw.spring.weblesezeichen.db.entities.LesezeichenEntity;
+import de.eldecker.dhbw.spring.weblesezeichen.model.LesezeichenMitOrdner;
+
+import jakarta.persistence.QueryHint;
 
 
 
@@ -23,12 +38,216 @@ public interface LesezeichenRepo extends JpaRepository<LesezeichenEntity, Long>
 
     /**
      * Derived Query Method: Gibt Liste aller Lesezeichen zurück.
+     * <br><br>
+     *
+     * Über die Annotation {@code EntityGraph} wird der Ordner, in dem ein
+     * Lesezeichen enthalten ist, mit einem JOIN in derselben Query geladen;
+     * ohne diese Annotation würde für jeden Ordner eine eigene Query
+     * abgesetzt werden (N+1-Problem).
      *
      * @return Liste aller Lesezeichen, aufsteigend sortiert nach Name.
      */
+    @EntityGraph( attributePaths = "ordner" )
     List<LesezeichenEntity> findAllByOrderByNameAsc();
-    
-    
+
+
+    /**
+     * Query-Methode mit JPQL und Konstruktor-Ausdruck: Gibt flache Liste aller
+     * Lesezeichen jeweils mit ID und Name des Ordners zurück. Es wird genau eine
+     * Query abgesetzt, egal wie viele Lesezeichen und Ordner es gibt; außerdem
+     * werden keine Entity-Objekte im Persistenzkontext angelegt.
+     *
+     * @return Liste aller Lesezeichen, aufsteigend sortiert nach Name.
+     */
+    @RestResource( exported = false )
+    @Query( "SELECT new de.eldecker.dhbw.spring.weblesezeichen.model.LesezeichenMitOrdner" +
+            "( l.id, l.name, l.url, o.id, o.name ) " +
+            "FROM LesezeichenEntity l JOIN l.ordner o " +
+            "ORDER BY l.name ASC" )
+    List<LesezeichenMitOrdner> findAlleMitOrdnername();
+
+
+    /**
+     * Query-Methode mit JPQL für <i>Keyset Pagination</i>: Holt die Lesezeichen,
+     * die in der Sortierung nach Name und ID auf das Lesezeichen mit {@code name}
+     * und {@code id} folgen. Die redundante Bedingung {@code l.name >= :name}
+     * ermöglicht der Datenbank einen Bereichs-Scan auf dem Index über Name und ID.
+     * <br><br>
+     *
+     * Für die erste Seite kann {@code name=""} und {@code id=0} übergeben werden.
+     *
+     * @param name Name des letzten Lesezeichens der vorherigen Seite
+     *
+     * @param id ID des letzten Lesezeichens der vorherigen Seite
+     *
+     * @param pageable Nur die Seitengröße wird ausgewertet, es muss immer
+     *                 Seite 0 angefordert werden
+     *
+     * @return Lesezeichen, aufsteigend sortiert nach Name und ID
+     */
+    @RestResource( exported = false )
+    @Query( "SELECT new de.eldecker.dhbw.spring.weblesezeichen.model.LesezeichenMitOrdner" +
+            "( l.id, l.name, l.url, o.id, o.name ) " +
+            "FROM LesezeichenEntity l JOIN l.ordner o " +
+            "WHERE l.name >= :name AND ( l.name > :name OR l.id > :id ) " +
+            "ORDER BY l.name ASC, l.id ASC" )
+    List<LesezeichenMitOrdner> findSeiteNach( @Param( "name" ) String name,
+                                              @Param( "id"   ) Long   id,
+                                              Pageable pageable );
+
+
+    /**
+     * Query-Methode mit JPQL für <i>Keyset Pagination</i>: Holt die Lesezeichen,
+     * die in der Sortierung nach Name und ID vor dem Lesezeichen mit {@code name}
+     * und {@code id} liegen (für "Vorherige Seite").
+     *
+     * @param name Name des ersten Lesezeichens der aktuellen Seite
+     *
+     * @param id ID des ersten Lesezeichens der aktuellen Seite
+     *
+     * @param pageable Nur die Seitengröße wird ausgewertet, es muss immer
+     *                 Seite 0 angefordert werden
+     *
+     * @return Lesezeichen, <b>absteigend</b> sortiert nach Name und ID
+     */
+    @RestResource( exported = false )
+    @Query( "SELECT new de.eldecker.dhbw.spring.weblesezeichen.model.LesezeichenMitOrdner" +
+            "( l.id, l.name, l.url, o.id, o.name ) " +
+            "FROM LesezeichenEntity l JOIN l.ordner o " +
+            "WHERE l.name <= :name AND ( l.name < :name OR l.id < :id ) " +
+            "ORDER BY l.name DESC, l.id DESC" )
+    List<LesezeichenMitOrdner> findSeiteVor( @Param( "name" ) String name,
+                                             @Param( "id"   ) Long   id,
+                                             Pageable pageable );
+
+
+
+    /**
+     * Native Query für Migration: Setzt einen zufälligen fachlichen Schlüssel
+     * für alle Lesezeichen, die noch keinen haben (Altdaten).
+     *
+     * @return Anzahl der geänderten Zeilen
+     */
+    @RestResource( exported = false )
+    @Modifying
+    @Query( nativeQuery = true,
+            value = "UPDATE Lesezeichen SET schluessel = RANDOM_UUID() WHERE schluessel IS NULL" )
+    int schluesselBefuellen();
+
+
+    /**
+     * Query-Methode mit JPQL: Holt nur die URL eines Lesezeichens, ohne
+     * (wegen {@code FetchType.EAGER}) auch den Ordner zu laden; für
+     * Weiterleitung über {@code /app/go/{id}}.
+     *
+     * @param id ID des Lesezeichens
+     *
+     * @return URL; leer, wenn es kein Lesezeichen mit {@code id} gibt
+     */
+    @RestResource( exported = false )
+    @Query( "SELECT l.url FROM LesezeichenEntity l WHERE l.id = :id" )
+    Optional<String> findUrlById( @Param( "id" ) Long id );
+
+
+    /**
+     * Query-Methode mit JPQL und Konstruktor-Ausdruck: Lesezeichen mit ID und
+     * Name des Ordners für die gegebenen IDs, z.B. für eine Seite mit
+     * Treffern aus dem Tag-Index.
+     *
+     * @param idListe IDs der Lesezeichen
+     *
+     * @return Liste aufsteigend sortiert nach ID; IDs ohne Lesezeichen fehlen
+     */
+    @RestResource( exported = false )
+    @Query( "SELECT new de.eldecker.dhbw.spring.weblesezeichen.model.LesezeichenMitOrdner" +
+            "( l.id, l.name, l.url, o.id, o.name ) " +
+            "FROM LesezeichenEntity l JOIN l.ordner o " +
+            "WHERE l.id IN :idListe ORDER BY l.id ASC" )
+    List<LesezeichenMitOrdner> findMitOrdnerByIds( @Param( "idListe" ) Collection<Long> idListe );
+
+
+    /**
+     * Query-Methode mit JPQL für den Aufbau des Tag-Index: Liefert pro Tag
+     * eines Lesezeichens eine Zeile mit ID des Lesezeichens, Pfad des Ordners
+     * und Tag. Der Aufrufer muss in einer Transaktion laufen und den Stream
+     * schließen.
+     *
+     * @return Stream mit Zeilen, aufsteigend sortiert nach ID des Lesezeichens
+     */
+    @RestResource( exported = false )
+    @QueryHints( @QueryHint( name = HINT_FETCH_SIZE, value = "1000" ) )
+    @Query( "SELECT l.id, o.pfad, t " +
+            "FROM LesezeichenEntity l JOIN l.ordner o JOIN l.tags t " +
+            "ORDER BY l.id ASC" )
+    Stream<Object[]> streamTags();
+
+
+    /**
+     * Query-Methode mit JPQL für den Aufbau des Domain-Index: Liefert nur ID
+     * und URL aller Lesezeichen, ohne Entities und Ordner zu laden. Der
+     * Aufrufer muss in einer Transaktion laufen und den Stream schließen.
+     *
+     * @return Stream mit Zeilen aus ID und URL
+     */
+    @RestResource( exported = false )
+    @QueryHints( @QueryHint( name = HINT_FETCH_SIZE, value = "1000" ) )
+    @Query( "SELECT l.id, l.url FROM LesezeichenEntity l" )
+    Stream<Object[]> streamIdUndUrl();
+
+
+    /**
+     * Query-Methode mit JPQL für die Prüfung auf Duplikate beim Anlegen:
+     * Lesezeichen mit dem Hashwert der kanonischen URL (Index
+     * {@code idx_lesezeichen_url_hash}). Wegen möglicher Kollisionen muss der
+     * Aufrufer noch die kanonischen URLs vergleichen.
+     *
+     * @param urlHash Hashwert, siehe {@code UrlNormalisierung.hash()}
+     *
+     * @return Liste der Lesezeichen mit diesem Hashwert, meist leer
+     */
+    @RestResource( exported = false )
+    @Query( "SELECT new de.eldecker.dhbw.spring.weblesezeichen.model.LesezeichenMitOrdner" +
+            "( l.id, l.name, l.url, o.id, o.name ) " +
+            "FROM LesezeichenEntity l JOIN l.ordner o " +
+            "WHERE l.urlHash = :urlHash ORDER BY l.id ASC" )
+    List<LesezeichenMitOrdner> findByUrlHash( @Param( "urlHash" ) long urlHash );
+
+
+    /**
+     * Query-Methode mit JPQL für den Bericht über Duplikate: Liefert nur die
+     * Lesezeichen, deren Hashwert mindestens zweimal vorkommt; die Gruppierung
+     * erledigt die Datenbank über den Index. Sortiert nach Hashwert, so dass
+     * Lesezeichen mit derselben kanonischen URL direkt aufeinander folgen.
+     * Der Aufrufer muss in einer Transaktion laufen und den Stream schließen.
+     *
+     * @return Stream mit Kandidaten, sortiert nach Hashwert und ID
+     */
+    @RestResource( exported = false )
+    @QueryHints( @QueryHint( name = HINT_FETCH_SIZE, value = "1000" ) )
+    @Query( "SELECT new de.eldecker.dhbw.spring.weblesezeichen.model.LesezeichenMitOrdner" +
+            "( l.id, l.name, l.url, o.id, o.name ) " +
+            "FROM LesezeichenEntity l JOIN l.ordner o " +
+            "WHERE l.urlHash IN ( SELECT d.urlHash FROM LesezeichenEntity d " +
+                                 "GROUP BY d.urlHash HAVING COUNT(d) > 1 ) " +
+            "ORDER BY l.urlHash ASC, l.id ASC" )
+    Stream<LesezeichenMitOrdner> streamDuplikatKandidaten();
+
+
+    /**
+     * Seitenweises Lesen, wird von Spring Data REST für
+     * {@code /rest/lesezeichenEntities} verwendet. Der Ordner wird wie bei
+     * {@link #findAllByOrderByNameAsc()} mit einem JOIN geladen, sonst
+     * würde wegen {@code FetchType.EAGER} pro Ordner eine Query abgesetzt.
+     *
+     * @param pageable Seite, Seitengröße und Sortierung
+     *
+     * @return Seite mit Lesezeichen
+     */
+    @Override
+    @EntityGraph( attributePaths = "ordner" )
+    Page<LesezeichenEntity> findAll( Pageable pageable );
+
+
     /** Schreibenden Zugriff über REST abschalten. */
     @SuppressWarnings("unchecked")
     @Override
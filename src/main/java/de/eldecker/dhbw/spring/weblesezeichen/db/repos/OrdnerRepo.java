@@ -1,15 +1,28 @@
 package de.eldecker.dhbw.spring.weblesezeichen.db.repos;
 
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.data.rest.core.annotation.RepositoryRestResource;
 import org.springframework.data.rest.core.annotation.RestResource;
 
 import de.eldecker.dhbw.spring.weblesezeichen.db.entities.LesezeichenEntity;
 import de.eldecker.dhbw.spring.weblesezeichen.db.entities.OrdnerEntity;
+import de.eldecker.dhbw.spring.weblesezeichen.model.ExportZeile;
+import de.eldecker.dhbw.spring.weblesezeichen.model.OrdnerKurzInfo;
+import de.eldecker.dhbw.spring.weblesezeichen.model.OrdnerMitAnzahl;
+
+import jakarta.persistence.QueryHint;
 
 
 /**
@@ -36,11 +49,21 @@ import de.eldecker.dhbw.spring.weblesezeichen.db.entities.OrdnerEntity;
  *  ermöglich, auch gleich die Werte der im Ordner enthaltenen
  *  {@link LesezeichenEntity}-Objekte anzuzeigen.
  * </li>
+ * <li>
+ *  Neben der Paginierung mit {@code page} gibt es auch einen Cursor-basierten Modus
+ *  (<i>Keyset Pagination</i>), bei dem auch weit hinten liegende Seiten so schnell wie
+ *  die erste Seite geholt werden, siehe Methode {@link #findSeiteNach(String, Long, Pageable)}:
+ *  http://localhost:8080/rest/ordner/search/seite?nachName=&amp;nachId=0&amp;size=5
+ * </li>
  * </ul>
  */
 @RepositoryRestResource( path = "ordner", excerptProjection = InlineLesezeichen.class)
 public interface OrdnerRepo extends JpaRepository<OrdnerEntity, Long> {
 
+    /** JPQL für {@link #versionHochzaehlen(Collection)}, wird auch von {@code ImportSchreiber} verwendet. */
+    String JPQL_VERSION_HOCHZAEHLEN = "UPDATE OrdnerEntity o SET o.version = o.version + 1 WHERE o.id IN :idListe";
+
+
     /**
      * Query-Methode mit JPQL, gibt eine flache Liste aller Ordner zurück.
      *
@@ -50,6 +73,95 @@ public interface OrdnerRepo extends JpaRepository<OrdnerEntity, Long> {
     List<OrdnerEntity> findAllByOrderByNameIgnoreCase();
 
 
+    /**
+     * Query-Methode mit JPQL für <i>Keyset Pagination</i>, wird auch über REST
+     * bereitgestellt: Holt die Ordner, die in der Sortierung nach Name (ohne
+     * Groß-/Kleinschreibung) und ID auf den Ordner mit {@code nachName} und
+     * {@code nachId} folgen.
+     * <br><br>
+     *
+     * Schlüssel ist die Spalte {@code name_klein}, auf der es wegen der
+     * {@code unique}-Constraint einen Index gibt; der übergebene Name wird
+     * dafür in der Query kleingeschrieben. Ordner, für die
+     * {@code DatenMigration} keinen kleingeschriebenen Namen eintragen konnte
+     * (Name in anderer Groß-/Kleinschreibung doppelt), fehlen in der Liste.
+     * <br><br>
+     *
+     * Für die erste Seite ist {@code nachName} leer und {@code nachId=0}, oder
+     * beide Parameter fehlen ({@code null}); für die nächste Seite werden Name
+     * und ID des letzten Ordners der aktuellen Seite übergeben. Über REST
+     * werden Requests mit nur einem der beiden Parameter mit HTTP-Status 400
+     * abgewiesen, siehe {@code KeysetParameterFilter}.
+     *
+     * @param nachName Name des letzten Ordners der vorherigen Seite
+     *
+     * @param nachId ID des letzten Ordners der vorherigen Seite
+     *
+     * @param pageable Nur die Seitengröße (Parameter {@code size}) wird ausgewertet,
+     *                 es muss immer Seite 0 angefordert werden
+     *
+     * @return Ordner, aufsteigend sortiert nach kleingeschriebenem Name und ID
+     */
+    @RestResource( path = "seite", rel = "seite" )
+    @Query( "SELECT o FROM OrdnerEntity o " +
+            "WHERE o.nameKlein >= LOWER( COALESCE( :nachName, '' ) ) " +
+            "AND ( o.nameKlein > LOWER( COALESCE( :nachName, '' ) ) OR o.id > COALESCE( :nachId, 0 ) ) " +
+            "ORDER BY o.nameKlein ASC, o.id ASC" )
+    List<OrdnerEntity> findSeiteNach( @Param( "nachName" ) String nachName,
+                                      @Param( "nachId"   ) Long   nachId,
+                                      Pageable pageable );
+
+
+    /**
+     * Query-Methode mit JPQL für <i>Keyset Pagination</i> der Ordnerliste in der
+     * Web-Oberfläche: Holt die Ordner (mit Anzahl Lesezeichen), die in der Sortierung
+     * nach Name (ohne Groß-/Kleinschreibung, Spalte {@code name_klein}) und ID auf
+     * den Ordner mit {@code name} und {@code id} folgen.
+     *
+     * @param name Name des letzten Ordners der vorherigen Seite; leer für erste Seite
+     *
+     * @param id ID des letzten Ordners der vorherigen Seite; 0 für erste Seite
+     *
+     * @param pageable Nur die Seitengröße wird ausgewertet
+     *
+     * @return Ordner, aufsteigend sortiert nach kleingeschriebenem Name und ID
+     */
+    @RestResource( exported = false )
+    @Query( "SELECT new de.eldecker.dhbw.spring.weblesezeichen.model.OrdnerMitAnzahl" +
+            "( o.id, o.name, ( SELECT COUNT(l) FROM LesezeichenEntity l WHERE l.ordner = o ) ) " +
+            "FROM OrdnerEntity o " +
+            "WHERE o.nameKlein >= LOWER( :name ) AND ( o.nameKlein > LOWER( :name ) OR o.id > :id ) " +
+            "ORDER BY o.nameKlein ASC, o.id ASC" )
+    List<OrdnerMitAnzahl> findSeiteMitAnzahlNach( @Param( "name" ) String name,
+                                                  @Param( "id"   ) Long   id,
+                                                  Pageable pageable );
+
+
+    /**
+     * Query-Methode mit JPQL für <i>Keyset Pagination</i> der Ordnerliste in der
+     * Web-Oberfläche: Holt die Ordner (mit Anzahl Lesezeichen), die in der Sortierung
+     * nach Name (ohne Groß-/Kleinschreibung, Spalte {@code name_klein}) und ID vor
+     * dem Ordner mit {@code name} und {@code id} liegen.
+     *
+     * @param name Name des ersten Ordners der aktuellen Seite
+     *
+     * @param id ID des ersten Ordners der aktuellen Seite
+     *
+     * @param pageable Nur die Seitengröße wird ausgewertet
+     *
+     * @return Ordner, <b>absteigend</b> sortiert nach kleingeschriebenem Name und ID
+     */
+    @RestResource( exported = false )
+    @Query( "SELECT new de.eldecker.dhbw.spring.weblesezeichen.model.OrdnerMitAnzahl" +
+            "( o.id, o.name, ( SELECT COUNT(l) FROM LesezeichenEntity l WHERE l.ordner = o ) ) " +
+            "FROM OrdnerEntity o " +
+            "WHERE o.nameKlein <= LOWER( :name ) AND ( o.nameKlein < LOWER( :name ) OR o.id < :id ) " +
+            "ORDER BY o.nameKlein DESC, o.id DESC" )
+    List<OrdnerMitAnzahl> findSeiteMitAnzahlVor( @Param( "name" ) String name,
+                                                 @Param( "id"   ) Long   id,
+                                                 Pageable pageable );
+
+
     /**
      * Derived Query Method: Suche nach allen direkten Unterordnern eines über
      * die ID spezifizierten Ordners.
@@ -67,16 +179,19 @@ public interface OrdnerRepo extends JpaRepository<OrdnerEntity, Long> {
 
 
     /**
-     * Derived Query Method: Suche nach allen Ordnern mit {@code name} (case-insensitive).
-     * Diese Methode ist erforderlich, um zu überprüfen, ob es einen neu anzulegenden
-     * Ordner schon gibt (weil für das Attribut {@code name} in der Klasse {@code OrdnerEntity}
-     * eine {@code unique}-Constraint definiert ist).
+     * Query-Methode mit JPQL: Holt ID und Name aller direkten Unterordner eines
+     * Ordners. Anders als bei {@link #findByVater_IdOrderByNameAsc(Long)} werden
+     * keine Entities erzeugt, das Ergebnis kann deshalb in einem Cache gehalten
+     * werden (siehe {@code OrdnerService}).
      *
-     * @param name Name des Ordners
+     * @param vaterId ID des Ordners, dessen Unterordner gesucht werden
      *
-     * @return Liste der Ordner mit dem gesuchten Namen; kann leer sein.
+     * @return Unterordner, sortiert aufsteigend nach Name
      */
-    List<OrdnerEntity> findByNameIgnoreCase( String name );
+    @RestResource( exported = false )
+    @Query( "SELECT new de.eldecker.dhbw.spring.weblesezeichen.model.OrdnerKurzInfo( o.id, o.name ) " +
+            "FROM OrdnerEntity o WHERE o.vater.id = :vaterId ORDER BY o.name ASC" )
+    List<OrdnerKurzInfo> findUnterordnerKurzInfo( @Param( "vaterId" ) Long vaterId );
 
 
     /**
@@ -94,6 +209,208 @@ public interface OrdnerRepo extends JpaRepository<OrdnerEntity, Long> {
     Optional<OrdnerEntity> findByVaterIsNull();
 
 
+    /**
+     * Native Query mit rekursiver <i>Common Table Expression</i> (CTE): Holt den
+     * Ordner mit {@code wurzelId} und alle (direkten und indirekten) Unterordner
+     * zusammen mit den darin enthaltenen Lesezeichen in einer einzigen Abfrage.
+     * <br><br>
+     *
+     * Jede Ergebniszeile enthält die folgenden Spalten:
+     * <ol>
+     * <li>ID des Ordners</li>
+     * <li>Name des Ordners</li>
+     * <li>ID des Vaterordners</li>
+     * <li>ID des Lesezeichens ({@code null}, wenn Ordner leer ist)</li>
+     * <li>Name des Lesezeichens</li>
+     * <li>URL des Lesezeichens</li>
+     * </ol>
+     *
+     * @param wurzelId ID des Ordners, der die Wurzel des Teilbaums ist
+     *
+     * @return Zeilen sortiert nach Ordnername und dann nach Lesezeichenname;
+     *         leer, wenn es keinen Ordner mit {@code wurzelId} gibt
+     */
+    @RestResource( exported = false )
+    @Query( nativeQuery = true,
+            value = "WITH RECURSIVE teilbaum( id ) AS ( " +
+                    "  SELECT id FROM Ordner WHERE id = :wurzelId " +
+                    "  UNION ALL " +
+                    "  SELECT o.id FROM Ordner o JOIN teilbaum t ON o.vater_knoten_fk = t.id " +
+                    ") " +
+                    "SELECT o.id, o.name, o.vater_knoten_fk, l.id, l.name, l.url " +
+                    "FROM teilbaum t JOIN Ordner o ON o.id = t.id " +
+                    "LEFT JOIN Lesezeichen l ON l.ordner_fk = o.id " +
+                    "ORDER BY o.name ASC, l.name ASC" )
+    List<Object[]> findTeilbaum( @Param( "wurzelId" ) Long wurzelId );
+
+
+    /**
+     * Query-Methode mit JPQL für den Export: Liefert alle Ordner mit den darin
+     * enthaltenen Lesezeichen als Stream, also ohne alle Zeilen auf einmal in den
+     * Speicher zu laden. Es werden keine Entities, sondern {@link ExportZeile}-Objekte
+     * erzeugt, der Persistenzkontext wächst also nicht mit. Über den Hint für die
+     * {@code fetchSize} holt der JDBC-Treiber die Zeilen blockweise.
+     * <br><br>
+     *
+     * Da im materialisierten Pfad das Zeichen {@code /} vor allen Ziffern einsortiert
+     * wird, folgen bei Sortierung nach Pfad auf jeden Ordner unmittelbar alle
+     * seine (direkten und indirekten) Unterordner (Tiefensuche, <i>pre-order</i>).
+     * <br><br>
+     *
+     * Der Aufrufer muss in einer Transaktion laufen und den Stream schließen.
+     *
+     * @return Stream mit Zeilen, sortiert nach Pfad des Ordners und dann nach
+     *         Name des Lesezeichens
+     */
+    @RestResource( exported = false )
+    @QueryHints( @QueryHint( name = HINT_FETCH_SIZE, value = "1000" ) )
+    @Query( "SELECT new de.eldecker.dhbw.spring.weblesezeichen.model.ExportZeile" +
+            "( o.id, o.name, o.pfad, o.version, l.id, l.name, l.url ) " +
+            "FROM OrdnerEntity o LEFT JOIN o.lesezeichen l " +
+            "ORDER BY o.pfad ASC, l.name ASC, l.id ASC" )
+    Stream<ExportZeile> streamExportZeilen();
+
+
+    /**
+     * ID, Name und materialisierter Pfad aller Ordner für den Aufbau des
+     * Index der Ordnernamen ({@code OrdnerNamenIndex}), ohne Entities zu laden.
+     * <br><br>
+     *
+     * Der Aufrufer muss in einer Transaktion laufen und den Stream schließen.
+     *
+     * @return Stream mit Zeilen {@code [Long id, String name, String pfad]}
+     */
+    @RestResource( exported = false )
+    @QueryHints( @QueryHint( name = HINT_FETCH_SIZE, value = "1000" ) )
+    @Query( "SELECT o.id, o.name, o.pfad FROM OrdnerEntity o" )
+    Stream<Object[]> streamIdNamePfad();
+
+
+    /**
+     * Zählt die Version der Ordner mit einem atomaren UPDATE hoch (Grundlage
+     * für das ETag der Ordnerseite). Anders als mit
+     * {@code LockModeType.OPTIMISTIC_FORCE_INCREMENT} wird dabei nicht mit
+     * der gelesenen Version verglichen: Gleichzeitige Transaktionen warten
+     * auf die Zeilensperre und zählen dann weiter, statt mit einer
+     * {@code OptimisticLockException} abzubrechen.
+     * <br><br>
+     *
+     * Hibernate entfernt dabei die Region von {@link OrdnerEntity} aus dem
+     * Second-Level-Cache; schon geladene Objekte im Persistenzkontext
+     * behalten die alte Version.
+     *
+     * @param idListe IDs der Ordner
+     *
+     * @return Anzahl der geänderten Zeilen
+     */
+    @RestResource( exported = false )
+    @Modifying
+    @Query( JPQL_VERSION_HOCHZAEHLEN )
+    int versionHochzaehlen( @Param( "idListe" ) Collection<Long> idListe );
+
+
+    /**
+     * Native Query für Migration: Setzt den materialisierten Pfad für
+     * den Wurzelordner, falls dieser noch keinen Pfad hat.
+     *
+     * @return Anzahl der geänderten Zeilen (0 oder 1)
+     */
+    @RestResource( exported = false )
+    @Modifying
+    @Query( nativeQuery = true,
+            value = "UPDATE Ordner SET pfad = '/' || CAST( id AS VARCHAR ) || '/' " +
+                    "WHERE pfad IS NULL AND vater_knoten_fk IS NULL" )
+    int wurzelPfadBefuellen();
+
+
+    /**
+     * Native Query für Migration: Setzt den materialisierten Pfad für alle Ordner
+     * ohne Pfad, deren Vaterordner schon einen Pfad hat. Ein Aufruf befüllt also
+     * eine Ebene der Hierarchie; die Methode muss so oft aufgerufen werden, bis
+     * sie 0 zurückgibt.
+     *
+     * @return Anzahl der geänderten Zeilen
+     */
+    @RestResource( exported = false )
+    @Modifying
+    @Query( nativeQuery = true,
+            value = "UPDATE Ordner o " +
+                    "SET pfad = ( SELECT v.pfad FROM Ordner v WHERE v.id = o.vater_knoten_fk ) " +
+                    "           || CAST( o.id AS VARCHAR ) || '/' " +
+                    "WHERE o.pfad IS NULL AND EXISTS " +
+                    "( SELECT 1 FROM Ordner v WHERE v.id = o.vater_knoten_fk AND v.pfad IS NOT NULL )" )
+    int unterordnerPfadeBefuellen();
+
+
+    /**
+     * Native Query für Migration: Setzt einen zufälligen fachlichen Schlüssel
+     * für alle Ordner, die noch keinen haben (Altdaten).
+     *
+     * @return Anzahl der geänderten Zeilen
+     */
+    @RestResource( exported = false )
+    @Modifying
+    @Query( nativeQuery = true,
+            value = "UPDATE Ordner SET schluessel = RANDOM_UUID() WHERE schluessel IS NULL" )
+    int schluesselBefuellen();
+
+
+    /**
+     * Native Query für Migration: Setzt die Version aller Ordner, die noch
+     * keine haben (Altdaten), auf 0.
+     *
+     * @return Anzahl der geänderten Zeilen
+     */
+    @RestResource( exported = false )
+    @Modifying
+    @Query( nativeQuery = true,
+            value = "UPDATE Ordner SET version = 0 WHERE version IS NULL" )
+    int versionBefuellen();
+
+
+    /**
+     * Native Query für Migration: Setzt den kleingeschriebenen Namen für alle
+     * Ordner, die noch keinen haben (Altdaten). Gibt es einen Namen in
+     * verschiedener Groß-/Kleinschreibung mehrfach, dann bekommt nur der
+     * Ordner mit der kleinsten ID den Wert, damit die {@code unique}-Constraint
+     * nicht verletzt wird.
+     *
+     * @return Anzahl der geänderten Zeilen
+     */
+    @RestResource( exported = false )
+    @Modifying
+    @Query( nativeQuery = true,
+            value = "UPDATE Ordner o SET name_klein = LOWER( o.name ) " +
+                    "WHERE o.name_klein IS NULL AND NOT EXISTS " +
+                    "( SELECT 1 FROM Ordner a WHERE LOWER( a.name ) = LOWER( o.name ) AND a.id < o.id )" )
+    int nameKleinBefuellen();
+
+
+    /**
+     * Native Query für Migration: Anzahl der Ordner ohne kleingeschriebenen
+     * Namen nach {@link #nameKleinBefuellen()}, also mit einem Namen, den
+     * es in anderer Groß-/Kleinschreibung schon gibt.
+     *
+     * @return Anzahl der Ordner
+     */
+    @RestResource( exported = false )
+    @Query( nativeQuery = true,
+            value = "SELECT COUNT(*) FROM Ordner WHERE name_klein IS NULL" )
+    long countOhneNameKlein();
+
+
+    /**
+     * Query-Methode mit JPQL: Holt nur den materialisierten Pfad eines Ordners.
+     *
+     * @param id ID des Ordners
+     *
+     * @return Pfad, z.B. {@code /1/3/7/}; leer, wenn es keinen Ordner mit {@code id} gibt
+     */
+    @RestResource( exported = false )
+    @Query( "SELECT o.pfad FROM OrdnerEntity o WHERE o.id = :id" )
+    Optional<String> findPfadById( @Param( "id" ) Long id );
+
+
     /** Schreibenden Zugriff über REST abschalten. */
     @SuppressWarnings("unchecked")
     @Override
@@ -0,0 +1,41 @@
+package de.eldecker.dhbw.spring.weblesezeichen.db.repos;
+
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.rest.core.annotation.RepositoryRestResource;
+
+import de.eldecker.dhbw.spring.weblesezeichen.db.entities.RevisionsZaehlerEntity;
+
+
+/**
+ * Repo-Bean für den Zähler der Revisionen des Änderungsprotokolls, siehe
+ * {@link RevisionsZaehlerEntity}. Wird nicht über REST bereitgestellt.
+ */
+@RepositoryRestResource( exported = false )
+public interface RevisionsZaehlerRepo extends JpaRepository<RevisionsZaehlerEntity, Long> {
+
+    /**
+     * Zählt die Revision hoch; die Zeile bleibt bis zum Ende der Transaktion
+     * gesperrt.
+     *
+     * @return Anzahl geänderter Zeilen; 0, wenn es die Zeile noch nicht gibt
+     */
+    @Modifying
+    @Query( "UPDATE RevisionsZaehlerEntity r SET r.wert = r.wert + 1 " +
+            "WHERE r.id = 1" )
+    int erhoehen();
+
+
+    /**
+     * Zuletzt vergebene Revision.
+     *
+     * @return Revision, leer wenn es noch keine gibt
+     */
+    @Query( "SELECT r.wert FROM RevisionsZaehlerEntity r " +
+            "WHERE r.id = 1" )
+    Optional<Long> findWert();
+
+}
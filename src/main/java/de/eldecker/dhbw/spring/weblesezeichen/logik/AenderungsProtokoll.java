@@ -0,0 +1,259 @@
+package de.eldecker.dhbw.spring.weblesezeichen.logik;
+
+import static org.springframework.transaction.annotation.Propagation.MANDATORY;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import de.eldecker.dhbw.spring.weblesezeichen.db.entities.AenderungEntity;
+import de.eldecker.dhbw.spring.weblesezeichen.db.entities.AenderungEntity.Aktion;
+import de.eldecker.dhbw.spring.weblesezeichen.db.entities.AenderungEntity.ObjektTyp;
+import de.eldecker.dhbw.spring.weblesezeichen.db.entities.LesezeichenEntity;
+import de.eldecker.dhbw.spring.weblesezeichen.db.entities.OrdnerEntity;
+import de.eldecker.dhbw.spring.weblesezeichen.db.entities.RevisionsZaehlerEntity;
+import de.eldecker.dhbw.spring.weblesezeichen.db.repos.AenderungRepo;
+import de.eldecker.dhbw.spring.weblesezeichen.db.repos.RevisionsZaehlerRepo;
+import de.eldecker.dhbw.spring.weblesezeichen.model.Aenderung;
+import de.eldecker.dhbw.spring.weblesezeichen.model.AenderungsSeite;
+
+
+/**
+ * Service-Bean für das Änderungsprotokoll, über das Clients (z.B.
+ * Browser-Erweiterungen) nur die Änderungen seit ihrer letzten Abfrage
+ * holen können, statt jedes Mal alle Ordner zu laden.
+ * <br><br>
+ *
+ * Die Methoden zum Protokollieren müssen in der Transaktion aufgerufen werden,
+ * in der die Änderung gemacht wird; beim ersten Aufruf in einer Transaktion
+ * wird die nächste Revision vergeben (siehe {@link RevisionsZaehlerEntity}).
+ * <br><br>
+ *
+ * Ablauf für einen neuen Client: {@link #getAenderungen(String, int)} ohne
+ * Token aufrufen (liefert nur das aktuelle Token), danach alle Ordner über
+ * {@code /rest/ordner} laden und ab dann nur noch mit dem Token abfragen.
+ * Änderungen zwischen den beiden ersten Schritten werden doppelt geliefert,
+ * was wegen "Upsert" unschädlich ist. Ordner und Lesezeichen, die vor
+ * Einführung des Protokolls oder mit {@code DatenGenerator} bzw.
+ * {@code BeispielDatenImporter} angelegt wurden, sind nicht im Protokoll.
+ * <br><br>
+ *
+ * Alte Einträge werden regelmäßig kompaktiert: Pro Objekt bleibt nur der
+ * neueste Eintrag übrig.
+ */
+@Service
+public class AenderungsProtokoll {
+
+    private final static Logger LOG = LoggerFactory.getLogger( AenderungsProtokoll.class );
+
+    /** Repo-Bean für Einträge im Protokoll. */
+    private AenderungRepo _aenderungRepo;
+
+    /** Repo-Bean für Zähler der Revisionen. */
+    private RevisionsZaehlerRepo _zaehlerRepo;
+
+    /** Einträge der letzten {@code abstand} Revisionen werden nicht kompaktiert. */
+    private long _kompaktierungAbstand;
+
+
+    /**
+     * Konstruktor für <i>Dependency Injection</i>.
+     */
+    @Autowired
+    public AenderungsProtokoll( AenderungRepo aenderungRepo,
+                                RevisionsZaehlerRepo zaehlerRepo,
+                                @Value( "${lesezeichen.aenderungen.kompaktierung-abstand:1000}" ) long kompaktierungAbstand ) {
+
+        _aenderungRepo        = aenderungRepo;
+        _zaehlerRepo          = zaehlerRepo;
+        _kompaktierungAbstand = kompaktierungAbstand;
+    }
+
+
+    /**
+     * Protokolliert einen neu angelegten Ordner.
+     *
+     * @param ordner Neuer Ordner (mit ID)
+     */
+    @Transactional( propagation = MANDATORY )
+    public void ordnerAngelegt( OrdnerEntity ordner ) {
+
+        ordnerProtokollieren( Aktion.ANGELEGT, ordner );
+    }
+
+
+    /**
+     * Protokolliert einen umbenannten Ordner, z.B. einen Ordner, dessen Name
+     * beim Import erst nach seinem Inhalt bekannt wird.
+     *
+     * @param ordner Geänderter Ordner
+     */
+    @Transactional( propagation = MANDATORY )
+    public void ordnerGeaendert( OrdnerEntity ordner ) {
+
+        ordnerProtokollieren( Aktion.GEAENDERT, ordner );
+    }
+
+
+    /**
+     * Protokolliert ein neu angelegtes Lesezeichen.
+     *
+     * @param lesezeichen Neues Lesezeichen (mit ID)
+     */
+    @Transactional( propagation = MANDATORY )
+    public void lesezeichenAngelegt( LesezeichenEntity lesezeichen ) {
+
+        lesezeichenProtokollieren( Aktion.ANGELEGT, lesezeichen );
+    }
+
+
+    private void ordnerProtokollieren( Aktion aktion, OrdnerEntity ordner ) {
+
+        final Long vaterId = ordner.getVater() == null ? null : ordner.getVater().getId();
+
+        _aenderungRepo.save( new AenderungEntity( revisionDerTransaktion(), ObjektTyp.ORDNER, aktion,
+                                                  ordner.getId(), ordner.getName(), null, vaterId ) );
+    }
+
+
+    private void lesezeichenProtokollieren( Aktion aktion, LesezeichenEntity lesezeichen ) {
+
+        _aenderungRepo.save( new AenderungEntity( revisionDerTransaktion(), ObjektTyp.LESEZEICHEN, aktion,
+                                                  lesezeichen.getId(), lesezeichen.getName(), lesezeichen.getUrl(),
+                                                  lesezeichen.getOrdner().getId() ) );
+    }
+
+
+    /**
+     * Liefert die Revision der laufenden Transaktion; beim ersten Aufruf in
+     * der Transaktion wird der Zähler hochgezählt (und damit bis zum Commit
+     * gesperrt) und die Revision an die Transaktion gebunden.
+     */
+    private long revisionDerTransaktion() {
+
+        final Long gebunden = (Long) TransactionSynchronizationManager.getResource( this );
+        if ( gebunden != null ) { return gebunden; }
+
+        if ( _zaehlerRepo.erhoehen() == 0 ) {
+
+            _zaehlerRepo.saveAndFlush( new RevisionsZaehlerEntity( 1L ) );
+        }
+        final long revision = _zaehlerRepo.findWert().orElseThrow();
+
+        TransactionSynchronizationManager.bindResource( this, revision );
+        TransactionSynchronizationManager.registerSynchronization( new TransactionSynchronization() {
+
+            @Override
+            public void afterCompletion( int status ) {
+
+                TransactionSynchronizationManager.unbindResourceIfPossible( AenderungsProtokoll.this );
+            }
+        });
+
+        return revision;
+    }
+
+
+    /**
+     * Änderungen nach {@code token} für Delta-Synchronisation.
+     *
+     * @param token Token aus der letzten Antwort, z.B. {@code 17.4711};
+     *              {@code 0} für alle Änderungen; {@code null} oder leer,
+     *              um nur das aktuelle Token zu holen
+     *
+     * @param max Maximale Anzahl Änderungen
+     *
+     * @return Seite mit Änderungen und neuem Token
+     *
+     * @throws LesezeichenException Token ungültig
+     */
+    @Transactional( readOnly = true )
+    public AenderungsSeite getAenderungen( String token, int max ) throws LesezeichenException {
+
+        if ( token == null || token.isBlank() ) {
+
+            final AenderungEntity neuester = _aenderungRepo.findFirstByOrderByRevisionDescIdDesc();
+            final String aktuell = neuester == null ? "0" : token( neuester );
+
+            return new AenderungsSeite( List.of(), aktuell, false );
+        }
+
+        long revision = 0;
+        long id       = 0;
+        try {
+
+            final int punkt = token.indexOf( '.' );
+            if ( punkt < 0 ) {
+
+                revision = Long.parseLong( token.trim() );
+
+            } else {
+
+                revision = Long.parseLong( token.substring( 0, punkt ) );
+                id       = Long.parseLong( token.substring( punkt + 1 ) );
+            }
+        }
+        catch ( NumberFormatException ex ) {
+
+            throw new LesezeichenException( "Ungültiges Token für Änderungen: " + token );
+        }
+
+        final List<AenderungEntity> eintragListe =
+                _aenderungRepo.findSeiteNach( revision, id, PageRequest.of( 0, max + 1 ) );
+
+        final boolean weitere = eintragListe.size() > max;
+
+        final List<Aenderung> aenderungListe = new ArrayList<>( Math.min( eintragListe.size(), max ) );
+        for ( AenderungEntity eintrag : weitere ? eintragListe.subList( 0, max ) : eintragListe ) {
+
+            aenderungListe.add( new Aenderung( eintrag.getRevision(), eintrag.getObjektTyp().name(),
+                                               eintrag.getAktion().name(), eintrag.getObjektId(),
+                                               eintrag.getName(), eintrag.getUrl(), eintrag.getOrdnerId() ) );
+        }
+
+        final String neuesToken = aenderungListe.isEmpty()
+                                  ? token.trim()
+                                  : token( eintragListe.get( aenderungListe.size() - 1 ) );
+
+        return new AenderungsSeite( aenderungListe, neuesToken, weitere );
+    }
+
+
+    private static String token( AenderungEntity eintrag ) {
+
+        return eintrag.getRevision() + "." + eintrag.getId();
+    }
+
+
+    /**
+     * Kompaktiert das Protokoll: Für alle Einträge, die mindestens
+     * {@code lesezeichen.aenderungen.kompaktierung-abstand} Revisionen alt sind,
+     * bleibt pro Objekt nur der neueste Eintrag übrig.
+     */
+    @Scheduled( fixedDelayString = "${lesezeichen.aenderungen.kompaktierung-intervall:PT1H}",
+                initialDelayString = "${lesezeichen.aenderungen.kompaktierung-intervall:PT1H}" )
+    @Transactional
+    public void kompaktieren() {
+
+        final long grenze = _zaehlerRepo.findWert().orElse( 0L ) - _kompaktierungAbstand;
+        if ( grenze <= 0 ) { return; }
+
+        final int anzahl = _aenderungRepo.kompaktieren( grenze );
+        if ( anzahl > 0 ) {
+
+            LOG.info( "Änderungsprotokoll kompaktiert, {} Einträge bis Revision {} gelöscht.", anzahl, grenze );
+        }
+    }
+
+}
@@ -0,0 +1,258 @@
+package de.eldecker.dhbw.spring.weblesezeichen.logik;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import de.eldecker.dhbw.spring.weblesezeichen.db.entities.AufrufEntity;
+
+import jakarta.annotation.PreDestroy;
+
+
+/**
+ * Zählt die Aufrufe von Lesezeichen über {@code /app/go/{id}}.
+ * <br><br>
+ *
+ * Pro Aufruf wird nicht in die Datenbank geschrieben, sondern nur ein
+ * {@link LongAdder} im Speicher erhöht; dieser verteilt gleichzeitige
+ * Erhöhungen auf mehrere Zellen, so dass sich die Request-Threads auch
+ * bei einem sehr oft aufgerufenen Lesezeichen nicht gegenseitig bremsen.
+ * <br><br>
+ *
+ * Im Abstand von {@code lesezeichen.aufrufe.schreib-intervall} werden alle
+ * seit dem letzten Schreiben gezählten Aufrufe mit einem einzigen
+ * JDBC-Batch in die Tabelle von {@link AufrufEntity} addiert. Dafür wird
+ * die Map mit den Zählern gegen eine leere ausgetauscht und die alte Map
+ * ausgelesen; sie enthält also nur die Lesezeichen, die seit dem letzten
+ * Schreiben aufgerufen wurden. Ein Request-Thread, der die alte Map kurz vor
+ * dem Austausch geholt hat, kann danach noch einen ihrer Zähler erhöhen;
+ * deshalb wird die alte Map beim nächsten Schreiben noch einmal ausgelesen
+ * und erst dann verworfen.
+ * <br><br>
+ *
+ * Schlägt das Schreiben fehl, dann werden die Anzahlen beim nächsten Mal
+ * zusammen mit den neuen Aufrufen geschrieben, aber höchstens
+ * {@code lesezeichen.aufrufe.max-versuche} Mal hintereinander; danach
+ * werden sie verworfen (und protokolliert), damit sie sich bei dauerhaft
+ * nicht erreichbarer Datenbank nicht unbegrenzt ansammeln. Bei einem
+ * Absturz gehen also höchstens die Aufrufe der letzten Intervalle verloren;
+ * beim regulären Herunterfahren wird vorher noch einmal geschrieben.
+ * <br><br>
+ *
+ * Nach dem Schreiben wird ein {@link AufrufeGeschriebenEreignis} mit den
+ * neuen Aufrufen veröffentlicht.
+ */
+@Service
+public class AufrufZaehler {
+
+    private final static Logger LOG = LoggerFactory.getLogger( AufrufZaehler.class );
+
+    /**
+     * Addiert die Anzahl zu einer vorhandenen Zeile oder legt eine neue Zeile an;
+     * Platzhalter sind ID des Lesezeichens und Anzahl.
+     */
+    private static final String SQL_ADDIEREN =
+            "MERGE INTO Aufruf a " +
+            "USING ( VALUES ( CAST( ? AS BIGINT ), CAST( ? AS BIGINT ) ) ) AS n( lesezeichen_id, anzahl ) " +
+            "ON a.lesezeichen_id = n.lesezeichen_id " +
+            "WHEN MATCHED THEN UPDATE SET anzahl = a.anzahl + n.anzahl " +
+            "WHEN NOT MATCHED THEN INSERT ( lesezeichen_id, anzahl ) VALUES ( n.lesezeichen_id, n.anzahl )";
+
+    /** Für gebündeltes Schreiben der Zähler. */
+    private JdbcTemplate _jdbcTemplate;
+
+    /** Eine Transaktion pro Schreibvorgang. */
+    private TransactionTemplate _txTemplate;
+
+    /** Für Ereignis nach dem Schreiben. */
+    private ApplicationEventPublisher _eventPublisher;
+
+    /** Maximale Anzahl fehlgeschlagener Schreibversuche hintereinander. */
+    private int _maxVersuche;
+
+    /** Zähler pro Lesezeichen-ID für Aufrufe seit dem letzten Schreiben; wird beim Schreiben ausgetauscht. */
+    private final AtomicReference<ConcurrentMap<Long, LongAdder>> _zaehler =
+            new AtomicReference<>( new ConcurrentHashMap<>() );
+
+    /** Beim letzten Schreiben ausgetauschte Map, wird beim nächsten Schreiben noch einmal ausgelesen. */
+    private Map<Long, LongAdder> _ausgetauscht = Map.of();
+
+    /** Anzahlen, deren Schreiben fehlgeschlagen ist. */
+    private Map<Long, Long> _offen = new HashMap<>();
+
+    /** Anzahl fehlgeschlagener Schreibversuche für {@link #_offen} hintereinander. */
+    private int _fehlversuche = 0;
+
+    /**
+     * Sperre, damit nicht zwei Schreibvorgänge (Intervall und Herunterfahren)
+     * gleichzeitig laufen; schützt {@link #_ausgetauscht}, {@link #_offen}
+     * und {@link #_fehlversuche}.
+     */
+    private final ReentrantLock _sperre = new ReentrantLock();
+
+
+    /**
+     * Konstruktor für <i>Dependency Injection</i>.
+     */
+    @Autowired
+    public AufrufZaehler( JdbcTemplate jdbcTemplate,
+                          PlatformTransactionManager txManager,
+                          ApplicationEventPublisher eventPublisher,
+                          @Value( "${lesezeichen.aufrufe.schreib-intervall:PT10S}" ) Duration schreibIntervall,
+                          @Value( "${lesezeichen.aufrufe.max-versuche:5}"          ) int      maxVersuche ) {
+
+        _jdbcTemplate   = jdbcTemplate;
+        _txTemplate     = new TransactionTemplate( txManager );
+        _eventPublisher = eventPublisher;
+        _maxVersuche    = maxVersuche;
+
+        LOG.info( "Aufrufe von Lesezeichen werden alle {} Sekunden geschrieben.", schreibIntervall.toSeconds() );
+    }
+
+
+    /**
+     * Einen Aufruf zählen; blockiert nicht und greift nicht auf die Datenbank zu.
+     *
+     * @param lesezeichenId ID des aufgerufenen Lesezeichens
+     */
+    public void zaehlen( long lesezeichenId ) {
+
+        final ConcurrentMap<Long, LongAdder> zaehlerMap = _zaehler.get();
+
+        LongAdder zaehler = zaehlerMap.get( lesezeichenId );
+        if ( zaehler == null ) {
+
+            zaehler = zaehlerMap.computeIfAbsent( lesezeichenId, id -> new LongAdder() );
+        }
+        zaehler.increment();
+    }
+
+
+    /**
+     * Schreibt alle seit dem letzten Aufruf gezählten Aufrufe in einem Batch
+     * und veröffentlicht danach ein {@link AufrufeGeschriebenEreignis}.
+     *
+     * @return Anzahl der geschriebenen Lesezeichen
+     */
+    @Scheduled( fixedDelayString   = "${lesezeichen.aufrufe.schreib-intervall:PT10S}",
+                initialDelayString = "${lesezeichen.aufrufe.schreib-intervall:PT10S}" )
+    public int schreiben() {
+
+        final Map<Long, Long> anzahlProLesezeichen = schreibenIntern();
+        if ( !anzahlProLesezeichen.isEmpty() ) {
+
+            _eventPublisher.publishEvent( new AufrufeGeschriebenEreignis( anzahlProLesezeichen ) );
+        }
+
+        return anzahlProLesezeichen.size();
+    }
+
+
+    /**
+     * Eigentliches Schreiben: Zähler-Map austauschen, die ausgetauschten Maps
+     * und die noch offenen Anzahlen zusammenfassen und mit einem Batch schreiben.
+     *
+     * @return Lesezeichen-ID auf Anzahl der geschriebenen Aufrufe; leer, wenn
+     *         es keine neuen Aufrufe gab oder das Schreiben fehlgeschlagen ist
+     */
+    private Map<Long, Long> schreibenIntern() {
+
+        _sperre.lock();
+        try {
+
+            final Map<Long, Long>      anzahlProLesezeichen = _offen;
+            final Map<Long, LongAdder> vorletzte            = _ausgetauscht;
+
+            _ausgetauscht = _zaehler.getAndSet( new ConcurrentHashMap<>() );
+            _offen        = new HashMap<>();
+
+            auslesen( vorletzte    , anzahlProLesezeichen ); // späte Erhöhungen seit dem letzten Schreiben
+            auslesen( _ausgetauscht, anzahlProLesezeichen );
+
+            if ( anzahlProLesezeichen.isEmpty() ) { return anzahlProLesezeichen; }
+
+            final List<Object[]> block = new ArrayList<>( anzahlProLesezeichen.size() );
+            anzahlProLesezeichen.forEach( ( id, anzahl ) -> block.add( new Object[] { id, anzahl } ) );
+            try {
+
+                _txTemplate.executeWithoutResult( status -> _jdbcTemplate.batchUpdate( SQL_ADDIEREN, block ) );
+                LOG.debug( "Aufrufe für {} Lesezeichen geschrieben.", block.size() );
+
+                _fehlversuche = 0;
+                return anzahlProLesezeichen;
+            }
+            catch ( DataAccessException ex ) {
+
+                _fehlversuche++;
+                if ( _fehlversuche < _maxVersuche ) {
+
+                    LOG.error( "Aufrufe für {} Lesezeichen konnten nicht geschrieben werden ({}. Versuch).",
+                               block.size(), _fehlversuche, ex );
+                    _offen = anzahlProLesezeichen;
+
+                } else {
+
+                    final long anzahlAufrufe = anzahlProLesezeichen.values().stream().mapToLong( Long::longValue ).sum();
+                    LOG.error( "Aufrufe für {} Lesezeichen konnten auch im {}. Versuch nicht geschrieben werden, " +
+                               "{} Aufrufe werden verworfen.", block.size(), _fehlversuche, anzahlAufrufe, ex );
+                    _fehlversuche = 0;
+                }
+
+                return Map.of();
+            }
+        }
+        finally {
+
+            _sperre.unlock();
+        }
+    }
+
+
+    /**
+     * Addiert die Zähler aus {@code zaehlerMap} zu {@code anzahlProLesezeichen}
+     * und setzt sie dabei auf 0 zurück.
+     */
+    private static void auslesen( Map<Long, LongAdder> zaehlerMap, Map<Long, Long> anzahlProLesezeichen ) {
+
+        for ( Map.Entry<Long, LongAdder> eintrag : zaehlerMap.entrySet() ) {
+
+            final long anzahl = eintrag.getValue().sumThenReset();
+            if ( anzahl > 0 ) {
+
+                anzahlProLesezeichen.merge( eintrag.getKey(), anzahl, Long::sum );
+            }
+        }
+    }
+
+
+    /**
+     * Beim Herunterfahren der Anwendung die restlichen Aufrufe schreiben;
+     * zweimal, damit auch die zuletzt ausgetauschte Map leer ist.
+     */
+    @PreDestroy
+    public void beenden() {
+
+        schreibenIntern();
+        schreibenIntern();
+    }
+
+}
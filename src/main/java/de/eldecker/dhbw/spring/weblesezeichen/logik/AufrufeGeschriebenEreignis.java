@@ -0,0 +1,14 @@
+package de.eldecker.dhbw.spring.weblesezeichen.logik;
+
+import java.util.Map;
+
+
+/**
+ * Ereignis, das von {@link AufrufZaehler} veröffentlicht wird, nachdem die
+ * gezählten Aufrufe eines Intervalls in die Datenbank geschrieben wurden;
+ * damit werden z.B. die Ranglisten in {@link TopLesezeichen} fortgeschrieben.
+ *
+ * @param anzahlProLesezeichen Lesezeichen-ID auf Anzahl der neuen Aufrufe
+ */
+public record AufrufeGeschriebenEreignis( Map<Long, Long> anzahlProLesezeichen ) {
+}
@@ -9,6 +9,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.ApplicationArguments;
 import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 
 import de.eldecker.dhbw.spring.weblesezeichen.db.entities.LesezeichenEntity;
@@ -20,8 +21,13 @@ import de.eldecker.dhbw.spring.weblesezeichen.db.repos.OrdnerRepo;
 /**
  * Die Bean dieser Klasse importiert bei Bedarf unmittelbar nach dem Start
  * der Anwendung einige Beispieldaten.
+ * <br><br>
+ *
+ * Der materialisierte Pfad der Ordner wird nicht hier gesetzt, sondern
+ * von {@link DatenMigration} nachgetragen, die danach ausgeführt wird.
  */
 @Component
+@Order( 1 )
 public class BeispielDatenImporter implements ApplicationRunner {
 
     private final static Logger LOG = LoggerFactory.getLogger( BeispielDatenImporter.class );
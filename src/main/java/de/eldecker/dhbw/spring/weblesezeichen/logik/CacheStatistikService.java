@@ -0,0 +1,95 @@
+package de.eldecker.dhbw.spring.weblesezeichen.logik;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.stereotype.Service;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import de.eldecker.dhbw.spring.weblesezeichen.model.CacheStatistik;
+
+import jakarta.persistence.EntityManagerFactory;
+
+
+/**
+ * Service-Bean, die Treffer und Fehlschläge aller Caches sammelt: die Regionen
+ * des <i>Second-Level-Caches</i> von Hibernate (erfordert
+ * {@code hibernate.generate_statistics=true}, nur im Profil "diagnose") und
+ * die Spring Caches (erfordert {@code recordStats} in {@code spring.cache.caffeine.spec}).
+ */
+@Service
+public class CacheStatistikService {
+
+    /** Namen der Regionen im Second-Level-Cache, siehe Annotationen {@code Cache} an den Entities. */
+    private static final List<String> HIBERNATE_REGIONEN = List.of( "ordner", "ordnerLesezeichen", "lesezeichen" );
+
+    /** Statistik von Hibernate. */
+    private Statistics _hibernateStatistik;
+
+    /** Für Zugriff auf Spring Caches. */
+    private CacheManager _cacheManager;
+
+
+    /**
+     * Konstruktor für <i>Dependency Injection</i>.
+     */
+    @Autowired
+    public CacheStatistikService( EntityManagerFactory entityManagerFactory,
+                                  CacheManager cacheManager ) {
+
+        _hibernateStatistik = entityManagerFactory.unwrap( SessionFactory.class ).getStatistics();
+        _cacheManager       = cacheManager;
+    }
+
+
+    /**
+     * Aktuelle Statistik aller Caches.
+     *
+     * @return Liste mit einem Eintrag pro Hibernate-Region (nur wenn die Statistik
+     *         von Hibernate eingeschaltet ist) und pro Spring Cache
+     */
+    public List<CacheStatistik> getStatistik() {
+
+        final List<CacheStatistik> ergebnisListe = new ArrayList<>();
+
+        final List<String> regionen = _hibernateStatistik.isStatisticsEnabled() ? HIBERNATE_REGIONEN : List.of();
+        for ( String region : regionen ) {
+
+            final CacheRegionStatistics regionStatistik = _hibernateStatistik.getDomainDataRegionStatistics( region );
+            if ( regionStatistik == null ) { continue; }
+
+            final long eintraege = regionStatistik.getElementCountInMemory();
+
+            ergebnisListe.add( new CacheStatistik( region, "hibernate",
+                                                   regionStatistik.getHitCount(),
+                                                   regionStatistik.getMissCount(),
+                                                   eintraege < 0 ? -1 : eintraege ) );
+        }
+
+        for ( String name : _cacheManager.getCacheNames() ) {
+
+            final Cache cache = _cacheManager.getCache( name );
+            if ( cache instanceof CaffeineCache caffeineCache ) {
+
+                final CacheStats stats = caffeineCache.getNativeCache().stats();
+
+                ergebnisListe.add( new CacheStatistik( name, "spring",
+                                                       stats.hitCount(),
+                                                       stats.missCount(),
+                                                       caffeineCache.getNativeCache().estimatedSize() ) );
+            }
+        }
+
+        return ergebnisListe;
+    }
+
+}
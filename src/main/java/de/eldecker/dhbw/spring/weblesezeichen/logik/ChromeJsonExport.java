@@ -0,0 +1,94 @@
+package de.eldecker.dhbw.spring.weblesezeichen.logik;
+
+import java.io.Writer;
+
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.databind.ObjectMapper;
+
+
+/**
+ * Export als JSON-Datei im Format der Datei {@code Bookmarks} von Chrome
+ * (kann von {@link ChromeJsonParser} wieder gelesen werden). Der Wurzelordner
+ * wird als {@code bookmark_bar} geschrieben. Die Datei wird mit der
+ * <i>Streaming API</i> von Jackson erzeugt, es wird also kein Objektbaum
+ * aufgebaut.
+ */
+public class ChromeJsonExport implements ExportAusgabe {
+
+    /** Generator für die Streaming API. */
+    private final JsonGenerator _generator;
+
+    /** Wurde schon ein Ordner geschrieben? Sonst ist {@code bookmark_bar} leer. */
+    private boolean _ordnerGeschrieben = false;
+
+
+    /**
+     * Konstruktor.
+     *
+     * @param objectMapper Objekt, mit dem der Generator erzeugt wird
+     *
+     * @param writer Ziel der Ausgabe
+     */
+    public ChromeJsonExport( ObjectMapper objectMapper, Writer writer ) {
+
+        _generator = objectMapper.createGenerator( writer );
+    }
+
+
+    @Override
+    public void beginn() {
+
+        _generator.writeStartObject();
+        _generator.writeName( "roots" );
+        _generator.writeStartObject();
+        _generator.writeName( "bookmark_bar" );
+    }
+
+
+    @Override
+    public void ordnerBeginn( long id, String name ) {
+
+        _ordnerGeschrieben = true;
+
+        _generator.writeStartObject();
+        _generator.writeName( "id"   ); _generator.writeString( Long.toString( id ) );
+        _generator.writeName( "name" ); _generator.writeString( name );
+        _generator.writeName( "type" ); _generator.writeString( "folder" );
+        _generator.writeName( "children" );
+        _generator.writeStartArray();
+    }
+
+
+    @Override
+    public void ordnerEnde() {
+
+        _generator.writeEndArray();
+        _generator.writeEndObject();
+    }
+
+
+    @Override
+    public void lesezeichen( long id, String name, String url ) {
+
+        _generator.writeStartObject();
+        _generator.writeName( "id"   ); _generator.writeString( Long.toString( id ) );
+        _generator.writeName( "name" ); _generator.writeString( name );
+        _generator.writeName( "type" ); _generator.writeString( "url" );
+        _generator.writeName( "url"  ); _generator.writeString( url );
+        _generator.writeEndObject();
+    }
+
+
+    @Override
+    public void ende() {
+
+        if ( !_ordnerGeschrieben ) { _generator.writeNull(); }
+
+        _generator.writeEndObject(); // roots
+        _generator.writeName( "version" );
+        _generator.writeNumber( 1 );
+        _generator.writeEndObject();
+        _generator.flush();
+    }
+
+}
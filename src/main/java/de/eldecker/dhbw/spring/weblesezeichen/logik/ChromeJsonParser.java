@@ -0,0 +1,172 @@
+package de.eldecker.dhbw.spring.weblesezeichen.logik;
+
+import java.io.InputStream;
+
+import tools.jackson.core.JacksonException;
+import tools.jackson.core.JsonParser;
+import tools.jackson.core.JsonToken;
+import tools.jackson.databind.ObjectMapper;
+
+
+/**
+ * Parser für die JSON-Datei {@code Bookmarks}, in der Chrome (und andere Browser
+ * auf Basis von Chromium) die Lesezeichen speichern:
+ * <pre>
+ * { "roots": { "bookmark_bar": { "children": [ ... ], "name": "Lesezeichenleiste", "type": "folder" },
+ *              "other": { ... } },
+ *   "version": 1 }
+ * </pre>
+ *
+ * Die Datei wird mit der <i>Streaming API</i> von Jackson Token für Token gelesen,
+ * es wird also kein Objektbaum im Speicher aufgebaut. Da Chrome die Attribute
+ * alphabetisch sortiert schreibt, steht der Name eines Ordners erst nach dessen
+ * Inhalt ({@code children}); er wird dann mit {@link ImportEmpfaenger#ordnerEnde(String)}
+ * nachgeliefert.
+ */
+public class ChromeJsonParser implements ImportParser {
+
+    /** Objekt, mit dem der Parser für die Streaming API erzeugt wird. */
+    private final ObjectMapper _objectMapper;
+
+
+    /**
+     * Konstruktor.
+     *
+     * @param objectMapper Objekt, mit dem der Parser erzeugt wird
+     */
+    public ChromeJsonParser( ObjectMapper objectMapper ) {
+
+        _objectMapper = objectMapper;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void parse( InputStream eingabe, ImportEmpfaenger empfaenger ) throws LesezeichenException {
+
+        try ( JsonParser parser = _objectMapper.createParser( eingabe ) ) {
+
+            if ( parser.nextToken() != JsonToken.START_OBJECT ) {
+
+                throw new LesezeichenException( "JSON-Datei enthält kein Objekt auf oberster Ebene." );
+            }
+            objektLesen( parser, empfaenger );
+        }
+        catch ( JacksonException ex ) {
+
+            // Jackson meldet vorzeitiges Dateiende innerhalb von Objekt/Array und Syntaxfehler selbst
+            throw new LesezeichenException( "JSON-Datei ist unvollständig oder fehlerhaft: " +
+                                            ex.getOriginalMessage() );
+        }
+    }
+
+
+    /**
+     * Liest ein JSON-Objekt einschließlich aller darin enthaltenen Objekte.
+     * Ein Objekt mit Attribut {@code children} ist ein Ordner, ein Objekt mit
+     * Attribut {@code url} ist ein Lesezeichen; alle anderen Objekte (z.B.
+     * {@code roots}) werden nur nach enthaltenen Ordnern durchsucht.
+     *
+     * @param parser Parser, der auf {@code START_OBJECT} steht; steht danach
+     *               auf dem zugehörigen {@code END_OBJECT}
+     *
+     * @param empfaenger Callback-Objekt für gefundene Ordner und Lesezeichen
+     *
+     * @throws LesezeichenException Datei ist vorzeitig zu Ende
+     */
+    private void objektLesen( JsonParser parser, ImportEmpfaenger empfaenger ) throws LesezeichenException {
+
+        String  name          = null;
+        String  url           = null;
+        String  typ           = null;
+        boolean istOrdner     = false;
+        boolean nameGemeldet  = false;
+
+        while ( naechstesToken( parser ) == JsonToken.PROPERTY_NAME ) {
+
+            final String    attribut  = parser.currentName();
+            final JsonToken wertToken = naechstesToken( parser );
+
+            switch ( attribut ) {
+
+                case "name" -> name = parser.getValueAsString();
+                case "url"  -> url  = parser.getValueAsString();
+                case "type" -> typ  = parser.getValueAsString();
+
+                case "children" -> {
+
+                    if ( wertToken != JsonToken.START_ARRAY ) {
+
+                        parser.skipChildren();
+                        break;
+                    }
+
+                    istOrdner    = true;
+                    nameGemeldet = name != null;
+                    empfaenger.ordnerBeginn( name );
+
+                    JsonToken token;
+                    while ( ( token = naechstesToken( parser ) ) != JsonToken.END_ARRAY ) {
+
+                        if ( token == JsonToken.START_OBJECT ) {
+
+                            objektLesen( parser, empfaenger );
+
+                        } else {
+
+                            parser.skipChildren();
+                        }
+                    }
+                }
+
+                case "meta_info" -> parser.skipChildren();
+
+                default -> {
+
+                    if ( wertToken == JsonToken.START_OBJECT ) {
+
+                        objektLesen( parser, empfaenger );
+
+                    } else {
+
+                        parser.skipChildren();
+                    }
+                }
+            }
+        }
+
+        if ( istOrdner ) {
+
+            empfaenger.ordnerEnde( nameGemeldet ? null : name );
+
+        } else if ( url != null && ( typ == null || typ.equals( "url" ) ) ) {
+
+            empfaenger.lesezeichen( name, url );
+        }
+    }
+
+
+    /**
+     * Liest nächstes Token und prüft dabei auf vorzeitiges Dateiende.
+     *
+     * @param parser Parser
+     *
+     * @return Nächstes Token, nie {@code null}
+     *
+     * @throws LesezeichenException Datei ist vorzeitig zu Ende (außerhalb von
+     *                              Objekt/Array, sonst meldet das Jackson selbst)
+     */
+    private static JsonToken naechstesToken( JsonParser parser ) throws LesezeichenException {
+
+        final JsonToken token = parser.nextToken();
+        if ( token == null ) {
+
+            throw new LesezeichenException( "JSON-Datei ist unvollständig." );
+        }
+
+        return token;
+    }
+
+}
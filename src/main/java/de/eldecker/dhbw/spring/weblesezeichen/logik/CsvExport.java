@@ -0,0 +1,101 @@
+package de.eldecker.dhbw.spring.weblesezeichen.logik;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * Export als CSV-Datei (RFC 4180, Trennzeichen Komma) mit einer Zeile pro
+ * Lesezeichen. Der Ordner wird als Pfad der Ordnernamen ab der Wurzel
+ * angegeben, z.B. {@code Wurzel/Nachrichten/Sport}; leere Ordner tauchen
+ * in der Datei nicht auf.
+ */
+public class CsvExport implements ExportAusgabe {
+
+    /** Ziel der Ausgabe. */
+    private final Writer _writer;
+
+    /** Namen der gerade offenen Ordner, beginnend mit der Wurzel. */
+    private final List<String> _ordnerNamen = new ArrayList<>();
+
+    /** Pfad der Ordnernamen für den aktuellen Ordner, wird bei Ordnerwechsel berechnet. */
+    private String _ordnerPfad = "";
+
+    /** ID des aktuellen Ordners. */
+    private long _ordnerId = 0;
+
+
+    /**
+     * Konstruktor.
+     *
+     * @param writer Ziel der Ausgabe, sollte gepuffert sein
+     */
+    public CsvExport( Writer writer ) {
+
+        _writer = writer;
+    }
+
+
+    @Override
+    public void beginn() throws IOException {
+
+        _writer.write( "id,name,url,ordner_id,ordner\r\n" );
+    }
+
+
+    @Override
+    public void ordnerBeginn( long id, String name ) {
+
+        _ordnerNamen.add( name );
+        _ordnerPfad = String.join( "/", _ordnerNamen );
+        _ordnerId   = id;
+    }
+
+
+    @Override
+    public void ordnerEnde() {
+
+        _ordnerNamen.remove( _ordnerNamen.size() - 1 );
+        _ordnerPfad = String.join( "/", _ordnerNamen );
+    }
+
+
+    @Override
+    public void lesezeichen( long id, String name, String url ) throws IOException {
+
+        _writer.write( id + "," + feld( name ) + "," + feld( url ) + "," +
+                       _ordnerId + "," + feld( _ordnerPfad ) + "\r\n" );
+    }
+
+
+    @Override
+    public void ende() throws IOException {
+
+        _writer.flush();
+    }
+
+
+    /**
+     * Setzt einen Wert in Anführungszeichen, falls er Komma, Anführungszeichen
+     * oder Zeilenumbruch enthält; enthaltene Anführungszeichen werden verdoppelt.
+     *
+     * @param wert Wert für ein Feld
+     *
+     * @return Wert für CSV-Datei
+     */
+    private static String feld( String wert ) {
+
+        if ( wert == null ) { return ""; }
+
+        if ( wert.indexOf( ',' ) < 0 && wert.indexOf( '"' ) < 0 &&
+             wert.indexOf( '\n' ) < 0 && wert.indexOf( '\r' ) < 0 ) {
+
+            return wert;
+        }
+
+        return "\"" + wert.replace( "\"", "\"\"" ) + "\"";
+    }
+
+}
@@ -0,0 +1,377 @@
+package de.eldecker.dhbw.spring.weblesezeichen.logik;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import de.eldecker.dhbw.spring.weblesezeichen.db.entities.EntitySchluessel;
+import de.eldecker.dhbw.spring.weblesezeichen.db.entities.OrdnerEntity;
+
+
+/**
+ * Die Bean dieser Klasse erzeugt beim Start der Anwendung eine große Menge
+ * synthetischer Ordner und Lesezeichen, z.B. für Lasttests und Benchmarks.
+ * Sie ist nur aktiv, wenn {@code lesezeichen.generator.aktiv=true} gesetzt
+ * ist (z.B. mit dem Profil {@code generator}), und läuft vor
+ * {@link BeispielDatenImporter}, der danach wegen der vorhandenen Ordner
+ * keine Beispieldaten mehr anlegt.
+ * <br><br>
+ *
+ * Form der Daten:
+ * <ul>
+ * <li>Der Ordnerbaum wird in Breitensuche aufgebaut; die Anzahl der
+ *     Unterordner pro Ordner ist geometrisch verteilt mit Mittelwert
+ *     {@code lesezeichen.generator.verzweigung}, höchstens bis zur Tiefe
+ *     {@code lesezeichen.generator.max-tiefe}.</li>
+ * <li>Die Lesezeichen werden schief auf die Ordner verteilt (obere Ordner
+ *     bekommen mehr), gesteuert über {@code lesezeichen.generator.schiefe}.</li>
+ * <li>Wörter in Namen und Domains der URLs sind Zipf-verteilt.</li>
+ * </ul>
+ *
+ * Alle Zufallszahlen kommen aus einem Generator mit festem Startwert
+ * {@code lesezeichen.generator.seed}, damit bei gleicher Konfiguration
+ * immer genau dieselben Daten (inkl. IDs) erzeugt werden.
+ * <br><br>
+ *
+ * Die Zeilen werden nicht über JPA, sondern mit JDBC-Batch-Inserts in Blöcken
+ * zu {@link #BLOCKGROESSE} Zeilen geschrieben (eine Transaktion pro Block).
+ * Da die IDs selbst vergeben werden, werden danach die Sequenzen von
+ * Hibernate hinter die höchste ID gesetzt.
+ */
+@Component
+@Order( 0 )
+@ConditionalOnProperty( name = "lesezeichen.generator.aktiv", havingValue = "true" )
+public class DatenGenerator implements ApplicationRunner {
+
+    private final static Logger LOG = LoggerFactory.getLogger( DatenGenerator.class );
+
+    /** Anzahl Zeilen pro Batch-Insert und Transaktion. */
+    private static final int BLOCKGROESSE = 10_000;
+
+    /** Anzahl der Domains, aus denen die URLs gebildet werden. */
+    private static final int ANZAHL_DOMAINS = 20_000;
+
+    /** Wörter für Namen von Ordnern und Lesezeichen sowie Pfade der URLs. */
+    private static final String[] WOERTER = {
+            "java", "spring", "news", "tutorial", "blog", "docs", "api", "reference", "guide", "video",
+            "nachrichten", "wetter", "sport", "musik", "rezepte", "reisen", "finanzen", "boerse", "wissen", "studium",
+            "datenbank", "jpa", "hibernate", "kotlin", "python", "linux", "cloud", "docker", "kubernetes", "security",
+            "performance", "cache", "index", "query", "release", "update", "download", "forum", "wiki", "shop",
+            "angebot", "test", "vergleich", "anleitung", "podcast", "konferenz", "vortrag", "folien", "buch", "artikel",
+            "maven", "gradle", "git", "github", "testing", "junit", "web", "html", "css", "javascript",
+            "react", "angular", "rest", "json", "http", "server", "client", "mobile", "android", "ios",
+            "fussball", "basketball", "bundesliga", "kino", "serien", "games", "fotografie", "garten", "auto", "fahrrad",
+            "politik", "wirtschaft", "kultur", "gesundheit", "familie", "job", "karriere", "bewerbung", "uni", "mensa" };
+
+    /** Silben für Domainnamen. */
+    private static final String[] SILBEN = {
+            "ka", "lo", "mi", "ne", "ro", "ti", "sa", "ve", "du", "po", "ha", "ri", "go", "le", "mu", "xa",
+            "tech", "net", "web", "info", "data", "soft", "media", "press", "hub", "lab", "box", "zone" };
+
+    /** Top-Level-Domains, nach Häufigkeit sortiert. */
+    private static final String[] TLDS = { "com", "de", "org", "net", "io", "eu", "dev", "info", "ch", "at" };
+
+    /** Für Batch-Inserts. */
+    private JdbcTemplate _jdbcTemplate;
+
+    /** Eine Transaktion pro Block. */
+    private TransactionTemplate _txTemplate;
+
+    /** Anzahl der zu erzeugenden Ordner (inkl. Wurzel). */
+    private int _anzahlOrdner;
+
+    /** Anzahl der zu erzeugenden Lesezeichen. */
+    private long _anzahlLesezeichen;
+
+    /** Mittlere Anzahl Unterordner pro Ordner. */
+    private double _verzweigung;
+
+    /** Maximale Tiefe des Ordnerbaums (Wurzel hat Tiefe 0). */
+    private int _maxTiefe;
+
+    /** Exponent für Verteilung der Lesezeichen auf Ordner; 1 = gleichverteilt. */
+    private double _schiefe;
+
+    /** Startwert für Zufallsgenerator. */
+    private long _seed;
+
+
+    /**
+     * Konstruktor für <i>Dependency Injection</i>.
+     */
+    @Autowired
+    public DatenGenerator( JdbcTemplate jdbcTemplate,
+                           PlatformTransactionManager txManager,
+                           @Value( "${lesezeichen.generator.ordner:10000}"      ) int    anzahlOrdner,
+                           @Value( "${lesezeichen.generator.lesezeichen:100000}" ) long   anzahlLesezeichen,
+                           @Value( "${lesezeichen.generator.verzweigung:5}"      ) double verzweigung,
+                           @Value( "${lesezeichen.generator.max-tiefe:8}"        ) int    maxTiefe,
+                           @Value( "${lesezeichen.generator.schiefe:2.0}"        ) double schiefe,
+                           @Value( "${lesezeichen.generator.seed:42}"            ) long   seed ) {
+
+        _jdbcTemplate      = jdbcTemplate;
+        _txTemplate        = new TransactionTemplate( txManager );
+        _anzahlOrdner      = Math.max( anzahlOrdner, 1 );
+        _anzahlLesezeichen = Math.max( anzahlLesezeichen, 0 );
+        _verzweigung       = verzweigung;
+        _maxTiefe          = Math.max( maxTiefe, 1 );
+        _schiefe           = Math.max( schiefe, 1.0 );
+        _seed              = seed;
+    }
+
+
+    /**
+     * Erzeugt die Daten, wenn die Ordner-Tabelle leer ist.
+     *
+     * @param args Wird nicht ausgewertet
+     */
+    @Override
+    public void run( ApplicationArguments args ) {
+
+        final Long anzahlVorhanden = _jdbcTemplate.queryForObject( "SELECT COUNT(*) FROM Ordner", Long.class );
+        if ( anzahlVorhanden != null && anzahlVorhanden > 0 ) {
+
+            LOG.info( "Es sind schon {} Ordner vorhanden, deshalb keine Daten generiert.", anzahlVorhanden );
+            return;
+        }
+
+        final long zeitStart = System.currentTimeMillis();
+        LOG.info( "Generiere {} Ordner und {} Lesezeichen mit Seed {} ...", _anzahlOrdner, _anzahlLesezeichen, _seed );
+
+        final SplittableRandom zufall = new SplittableRandom( _seed );
+
+        ordnerErzeugen( zufall );
+        LOG.info( "{} Ordner nach {} ms geschrieben.", _anzahlOrdner, System.currentTimeMillis() - zeitStart );
+
+        lesezeichenErzeugen( zufall );
+
+        sequenzAnpassen( "Ordner"     , "ORDNER"      );
+        sequenzAnpassen( "Lesezeichen", "LESEZEICHEN" );
+
+        LOG.info( "{} Ordner und {} Lesezeichen in {} ms generiert.",
+                  _anzahlOrdner, _anzahlLesezeichen, System.currentTimeMillis() - zeitStart );
+    }
+
+
+    /**
+     * Erzeugt den Ordnerbaum in Breitensuche, die IDs sind {@code 1 .. anzahlOrdner}.
+     * Da jeder Vaterordner eine kleinere ID als seine Unterordner hat, werden
+     * die Vaterordner immer vorher geschrieben.
+     *
+     * @param zufall Zufallsgenerator
+     */
+    private void ordnerErzeugen( SplittableRandom zufall ) {
+
+        final String   sql   = "INSERT INTO Ordner ( id, name, name_klein, pfad, vater_knoten_fk, schluessel, version ) VALUES ( ?, ?, ?, ?, ?, ?, 0 )";
+        final String[] pfade = new String[ _anzahlOrdner + 1 ];
+        final int[]    tiefe = new int[ _anzahlOrdner + 1 ];
+
+        final ZipfVerteilung woerter = new ZipfVerteilung( WOERTER.length, 1.0 );
+
+        final List<Object[]> block = new ArrayList<>( BLOCKGROESSE );
+
+        pfade[ 1 ] = OrdnerService.berechnePfad( (String) null, 1 );
+        block.add( new Object[] { 1L, "Wurzel", OrdnerEntity.nameKlein( "Wurzel" ), pfade[ 1 ], null, schluessel( zufall ) } );
+
+        // Wahrscheinlichkeit für "kein weiterer Unterordner" bei geometrischer Verteilung
+        final double p = 1.0 / ( 1.0 + _verzweigung );
+
+        int anzahl = 1;
+        int vater  = 1;
+        while ( anzahl < _anzahlOrdner ) {
+
+            int vaterId;
+            int anzahlKinder;
+            if ( vater <= anzahl ) {
+
+                vaterId      = vater++;
+                anzahlKinder = tiefe[ vaterId ] >= _maxTiefe
+                               ? 0
+                               : (int) Math.floor( Math.log( 1.0 - zufall.nextDouble() ) / Math.log( 1.0 - p ) );
+            } else {
+
+                // alle Ordner abgearbeitet, aber noch nicht genug: zufälligen Ordner erweitern
+                vaterId      = 1 + zufall.nextInt( anzahl );
+                anzahlKinder = tiefe[ vaterId ] >= _maxTiefe ? 0 : 1;
+            }
+
+            for ( int i = 0; i < anzahlKinder && anzahl < _anzahlOrdner; i++ ) {
+
+                final int id = ++anzahl;
+                tiefe[ id ] = tiefe[ vaterId ] + 1;
+                pfade[ id ] = OrdnerService.berechnePfad( pfade[ vaterId ], id );
+
+                final String name = gross( WOERTER[ woerter.ziehen( zufall ) ] ) + " " + id;
+
+                block.add( new Object[] { (long) id, name, OrdnerEntity.nameKlein( name ), pfade[ id ], (long) vaterId,
+                                          schluessel( zufall ) } );
+                if ( block.size() == BLOCKGROESSE ) {
+
+                    schreiben( sql, block );
+                }
+            }
+        }
+
+        schreiben( sql, block );
+    }
+
+
+    /**
+     * Erzeugt die Lesezeichen mit IDs {@code 1 .. anzahlLesezeichen}.
+     *
+     * @param zufall Zufallsgenerator
+     */
+    private void lesezeichenErzeugen( SplittableRandom zufall ) {
+
+        final String sql = "INSERT INTO Lesezeichen ( id, name, url, url_hash, ordner_fk, schluessel ) VALUES ( ?, ?, ?, ?, ?, ? )";
+
+        final ZipfVerteilung woerter = new ZipfVerteilung( WOERTER.length, 1.0 );
+        final ZipfVerteilung domains = new ZipfVerteilung( ANZAHL_DOMAINS, 1.1 );
+        final ZipfVerteilung tlds    = new ZipfVerteilung( TLDS.length   , 1.5 );
+
+        // Domainnamen einmal erzeugen, damit dieselbe Domain oft vorkommt
+        final String[] domainListe = new String[ ANZAHL_DOMAINS ];
+        for ( int i = 0; i < ANZAHL_DOMAINS; i++ ) {
+
+            final StringBuilder domain = new StringBuilder();
+            final int anzahlSilben = 2 + zufall.nextInt( 2 );
+            for ( int j = 0; j < anzahlSilben; j++ ) {
+
+                domain.append( SILBEN[ zufall.nextInt( SILBEN.length ) ] );
+            }
+            domain.append( '.' ).append( TLDS[ tlds.ziehen( zufall ) ] );
+            domainListe[ i ] = domain.toString();
+        }
+
+        final List<Object[]> block = new ArrayList<>( BLOCKGROESSE );
+        for ( long id = 1; id <= _anzahlLesezeichen; id++ ) {
+
+            final StringBuilder name = new StringBuilder();
+            final int anzahlWoerter = 2 + zufall.nextInt( 4 );
+            for ( int i = 0; i < anzahlWoerter; i++ ) {
+
+                final String wort = WOERTER[ woerter.ziehen( zufall ) ];
+                name.append( i == 0 ? gross( wort ) : wort ).append( ' ' );
+            }
+            name.append( id );
+
+            final StringBuilder url = new StringBuilder( "https://" );
+            if ( zufall.nextInt( 2 ) == 0 ) { url.append( "www." ); }
+            url.append( domainListe[ domains.ziehen( zufall ) ] ).append( '/' );
+
+            final int anzahlSegmente = zufall.nextInt( 4 );
+            for ( int i = 0; i < anzahlSegmente; i++ ) {
+
+                url.append( WOERTER[ woerter.ziehen( zufall ) ] ).append( '/' );
+            }
+            if ( zufall.nextInt( 10 ) == 0 ) { url.append( "?id=" ).append( zufall.nextInt( 1_000_000 ) ); }
+
+            // obere (kleine IDs) Ordner bekommen mehr Lesezeichen
+            final long ordnerId = 1 + (long) ( _anzahlOrdner * Math.pow( zufall.nextDouble(), _schiefe ) );
+
+            final String urlString = url.toString();
+            block.add( new Object[] { id, name.toString(), urlString, UrlNormalisierung.hash( urlString ),
+                                      ordnerId, schluessel( zufall ) } );
+            if ( block.size() == BLOCKGROESSE ) {
+
+                schreiben( sql, block );
+
+                if ( id % ( 100L * BLOCKGROESSE ) == 0 ) {
+
+                    LOG.info( "{} von {} Lesezeichen geschrieben.", id, _anzahlLesezeichen );
+                }
+            }
+        }
+
+        schreiben( sql, block );
+    }
+
+
+    /**
+     * Schreibt einen Block mit einem Batch-Insert in einer eigenen Transaktion
+     * und leert die Liste danach.
+     *
+     * @param sql INSERT-Statement mit Platzhaltern
+     *
+     * @param block Zeilen; wird geleert
+     */
+    private void schreiben( String sql, List<Object[]> block ) {
+
+        if ( block.isEmpty() ) { return; }
+
+        _txTemplate.executeWithoutResult( status -> _jdbcTemplate.batchUpdate( sql, block ) );
+        block.clear();
+    }
+
+
+    /**
+     * Setzt die Sequenz von Hibernate für eine Tabelle hinter die höchste ID.
+     * Der Name der Sequenz hängt von der Namensstrategie von Hibernate ab
+     * (z.B. {@code ORDNERENTITY_SEQ}), deshalb wird er im
+     * {@code INFORMATION_SCHEMA} gesucht. Bei der Optimierung "pooled" vergibt
+     * Hibernate IDs bis zu ein Inkrement unterhalb des Sequenzwerts, deshalb wird
+     * die Sequenz auf höchste ID plus zwei Inkremente gesetzt.
+     *
+     * @param tabelle Name der Tabelle
+     *
+     * @param praefix Anfang des Sequenznamens in Großbuchstaben
+     */
+    private void sequenzAnpassen( String tabelle, String praefix ) {
+
+        final Long maxId = _jdbcTemplate.queryForObject( "SELECT COALESCE( MAX( id ), 0 ) FROM " + tabelle, Long.class );
+
+        final List<Map<String, Object>> sequenzListe =
+                _jdbcTemplate.queryForList( "SELECT SEQUENCE_NAME, INCREMENT FROM INFORMATION_SCHEMA.SEQUENCES " +
+                                            "WHERE UPPER( SEQUENCE_NAME ) LIKE ?", praefix + "%SEQ" );
+        if ( sequenzListe.isEmpty() ) {
+
+            LOG.warn( "Keine Sequenz für Tabelle {} gefunden, IDs können kollidieren.", tabelle );
+            return;
+        }
+
+        for ( Map<String, Object> sequenz : sequenzListe ) {
+
+            final String name      = (String) sequenz.get( "SEQUENCE_NAME" );
+            final long   inkrement = Long.parseLong( String.valueOf( sequenz.get( "INCREMENT" ) ) );
+            final long   neuerWert = maxId + 2 * inkrement;
+
+            _jdbcTemplate.execute( "ALTER SEQUENCE \"" + name + "\" RESTART WITH " + neuerWert );
+            LOG.info( "Sequenz {} auf {} gesetzt.", name, neuerWert );
+        }
+    }
+
+
+    /**
+     * Reproduzierbaren Schlüssel für {@code equals()}/{@code hashCode()} erzeugen.
+     */
+    private static Object schluessel( SplittableRandom zufall ) {
+
+        return EntitySchluessel.aus( zufall.nextLong(), zufall.nextLong() );
+    }
+
+
+    /**
+     * Ersten Buchstaben groß schreiben.
+     */
+    private static String gross( String wort ) {
+
+        return wort.substring( 0, 1 ).toUpperCase( Locale.ROOT ) + wort.substring( 1 );
+    }
+
+}
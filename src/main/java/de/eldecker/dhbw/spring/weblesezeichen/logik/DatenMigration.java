@@ -0,0 +1,210 @@
+package de.eldecker.dhbw.spring.weblesezeichen.logik;
+
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import de.eldecker.dhbw.spring.weblesezeichen.db.entities.LesezeichenEntity;
+import de.eldecker.dhbw.spring.weblesezeichen.db.entities.OrdnerEntity;
+import de.eldecker.dhbw.spring.weblesezeichen.db.repos.LesezeichenRepo;
+import de.eldecker.dhbw.spring.weblesezeichen.db.repos.OrdnerRepo;
+
+import jakarta.persistence.EntityManagerFactory;
+
+
+/**
+ * Die Bean dieser Klasse befüllt nach dem Start der Anwendung Spalten, die
+ * nachträglich zu den Entity-Klassen hinzugefügt wurden und deshalb in
+ * bestehenden H2-Datenbanken noch leer sind. Die Spalten selbst werden
+ * wegen {@code spring.jpa.hibernate.ddl-auto=update} von Hibernate angelegt.
+ * <br><br>
+ *
+ * Die Migration läuft nach {@link BeispielDatenImporter}, damit auch
+ * die Beispieldaten erfasst werden.
+ */
+@Component
+@Order( 2 )
+public class DatenMigration implements ApplicationRunner {
+
+    private final static Logger LOG = LoggerFactory.getLogger( DatenMigration.class );
+
+    /** Anzahl Lesezeichen pro Block beim Nachtragen des URL-Hashwerts. */
+    private static final int BLOCKGROESSE = 1_000;
+
+    /** Nächster Block von Lesezeichen ohne URL-Hashwert (Keyset über ID). */
+    private static final String SQL_OHNE_URL_HASH =
+            "SELECT id, url FROM Lesezeichen WHERE url_hash IS NULL AND id > ? ORDER BY id LIMIT " + BLOCKGROESSE;
+
+    /** Setzt den URL-Hashwert für ein Lesezeichen. */
+    private static final String SQL_URL_HASH_SETZEN = "UPDATE Lesezeichen SET url_hash = ? WHERE id = ?";
+
+    /** Repo-Bean für Zugriff auf Ordner. */
+    private OrdnerRepo _ordnerRepo;
+
+    /** Repo-Bean für Zugriff auf Lesezeichen. */
+    private LesezeichenRepo _lesezeichenRepo;
+
+    /** Für blockweises Nachtragen des URL-Hashwerts per JDBC-Batch. */
+    private JdbcTemplate _jdbcTemplate;
+
+    /** Für Invalidierung des Second-Level-Caches nach Änderungen per JDBC. */
+    private EntityManagerFactory _entityManagerFactory;
+
+
+    /**
+     * Konstruktor für <i>Dependency Injection</i>.
+     */
+    @Autowired
+    public DatenMigration( OrdnerRepo ordnerRepo,
+                           LesezeichenRepo lesezeichenRepo,
+                           JdbcTemplate jdbcTemplate,
+                           EntityManagerFactory entityManagerFactory ) {
+
+        _ordnerRepo           = ordnerRepo;
+        _lesezeichenRepo      = lesezeichenRepo;
+        _jdbcTemplate         = jdbcTemplate;
+        _entityManagerFactory = entityManagerFactory;
+    }
+
+
+    /**
+     * Führt alle Migrationsschritte in einer Transaktion aus.
+     *
+     * @param args Wird nicht ausgewertet
+     */
+    @Override
+    @Transactional
+    public void run( ApplicationArguments args ) {
+
+        pfadeBefuellen();
+        schluesselBefuellen();
+        versionBefuellen();
+        nameKleinBefuellen();
+        urlHashBefuellen();
+    }
+
+
+    /**
+     * Befüllt den materialisierten Pfad {@code OrdnerEntity.pfad} für alle
+     * Ordner, die noch keinen haben. Pro Ebene der Hierarchie wird ein
+     * UPDATE-Statement abgesetzt, es wird also nicht jeder Ordner einzeln geladen.
+     */
+    private void pfadeBefuellen() {
+
+        int anzahlGesamt = _ordnerRepo.wurzelPfadBefuellen();
+
+        int anzahlEbene = 0;
+        do {
+
+            anzahlEbene    = _ordnerRepo.unterordnerPfadeBefuellen();
+            anzahlGesamt  += anzahlEbene;
+
+        } while ( anzahlEbene > 0 );
+
+        if ( anzahlGesamt > 0 ) {
+
+            LOG.info( "Materialisierter Pfad für {} Ordner nachgetragen.", anzahlGesamt );
+        }
+    }
+
+
+    /**
+     * Befüllt den fachlichen Schlüssel (Grundlage für {@code equals()} und
+     * {@code hashCode()}) für alle Ordner und Lesezeichen, die noch keinen haben.
+     */
+    private void schluesselBefuellen() {
+
+        final int anzahlOrdner      = _ordnerRepo.schluesselBefuellen();
+        final int anzahlLesezeichen = _lesezeichenRepo.schluesselBefuellen();
+
+        if ( anzahlOrdner + anzahlLesezeichen > 0 ) {
+
+            LOG.info( "Schlüssel für {} Ordner und {} Lesezeichen nachgetragen.", anzahlOrdner, anzahlLesezeichen );
+        }
+    }
+
+
+    /**
+     * Setzt die Version (Grundlage für Optimistic Locking und ETags) für alle
+     * Ordner, die noch keine haben; ohne Version würde Spring Data einen
+     * gespeicherten Ordner für neu halten.
+     */
+    private void versionBefuellen() {
+
+        final int anzahl = _ordnerRepo.versionBefuellen();
+        if ( anzahl > 0 ) {
+
+            LOG.info( "Version für {} Ordner nachgetragen.", anzahl );
+        }
+    }
+
+
+    /**
+     * Trägt den kleingeschriebenen Ordnernamen (Grundlage für die
+     * {@code unique}-Constraint ohne Groß-/Kleinschreibung) für alle Ordner
+     * nach, die noch keinen haben. Ordner, deren Name sich nur in der
+     * Groß-/Kleinschreibung von einem anderen unterscheidet, werden nur
+     * gemeldet und müssen umbenannt werden.
+     */
+    private void nameKleinBefuellen() {
+
+        final int anzahl = _ordnerRepo.nameKleinBefuellen();
+        if ( anzahl > 0 ) {
+
+            _entityManagerFactory.getCache().evict( OrdnerEntity.class );
+            LOG.info( "Kleingeschriebener Name für {} Ordner nachgetragen.", anzahl );
+        }
+
+        final long anzahlDoppelt = _ordnerRepo.countOhneNameKlein();
+        if ( anzahlDoppelt > 0 ) {
+
+            LOG.warn( "{} Ordner haben einen Namen, den es in anderer Groß-/Kleinschreibung schon gibt.",
+                      anzahlDoppelt );
+        }
+    }
+
+
+    /**
+     * Trägt den Hashwert der kanonischen URL (siehe {@link UrlNormalisierung})
+     * für alle Lesezeichen nach, die noch keinen haben. Der Hashwert wird in
+     * Java berechnet, deshalb werden die Lesezeichen blockweise gelesen und
+     * mit einem JDBC-Batch pro Block geschrieben. Danach werden die
+     * Lesezeichen aus dem Second-Level-Cache entfernt, damit dort kein
+     * Lesezeichen ohne Hashwert mehr liegt.
+     */
+    private void urlHashBefuellen() {
+
+        int  anzahl   = 0;
+        long letzteId = Long.MIN_VALUE;
+        while ( true ) {
+
+            final List<Object[]> block =
+                    _jdbcTemplate.query( SQL_OHNE_URL_HASH,
+                                         ( rs, zeile ) -> new Object[] { UrlNormalisierung.hash( rs.getString( 2 ) ),
+                                                                         rs.getLong( 1 ) },
+                                         letzteId );
+            if ( block.isEmpty() ) { break; }
+
+            _jdbcTemplate.batchUpdate( SQL_URL_HASH_SETZEN, block );
+
+            anzahl  += block.size();
+            letzteId = (Long) block.get( block.size() - 1 )[ 1 ];
+        }
+
+        if ( anzahl > 0 ) {
+
+            _entityManagerFactory.getCache().evict( LesezeichenEntity.class );
+            LOG.info( "URL-Hashwert für {} Lesezeichen nachgetragen.", anzahl );
+        }
+    }
+
+}
@@ -0,0 +1,413 @@
+package de.eldecker.dhbw.spring.weblesezeichen.logik;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import org.roaringbitmap.longlong.Roaring64Bitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import de.eldecker.dhbw.spring.weblesezeichen.db.repos.LesezeichenRepo;
+import de.eldecker.dhbw.spring.weblesezeichen.model.DomainAnzahl;
+import de.eldecker.dhbw.spring.weblesezeichen.model.DomainErgebnis;
+import de.eldecker.dhbw.spring.weblesezeichen.model.LesezeichenMitOrdner;
+
+
+/**
+ * Index der Lesezeichen nach Host der URL im Hauptspeicher, als Trie über die
+ * umgekehrten Teile des Hostnamens: {@code docs.spring.io} liegt unter
+ * {@code io} &rarr; {@code spring} &rarr; {@code docs}. Alle Lesezeichen
+ * unterhalb von {@code *.spring.io} sind damit genau der Teilbaum des Knotens
+ * {@code spring.io}.
+ * <br><br>
+ *
+ * Jeder Knoten kennt die Anzahl der Lesezeichen in seinem Teilbaum, so dass
+ * die Anzahl pro Domain ohne Zählen und eine Seite mit Lesezeichen ohne
+ * Durchlaufen der übersprungenen Teilbäume geliefert werden kann; die
+ * Datenbank wird nur für Name und Ordner der Lesezeichen auf der Seite
+ * abgefragt, nicht mit {@code LIKE} über alle URLs.
+ * <br><br>
+ *
+ * Hosts werden wie in {@link UrlNormalisierung#host(String)} normalisiert,
+ * also z.B. ohne {@code www.}; IP-Adressen bilden einen einzigen Knoten
+ * unter der Wurzel. Lesezeichen ohne erkennbaren Host werden nicht
+ * aufgenommen.
+ * <br><br>
+ *
+ * Der Index wird beim Start der Anwendung aus der Datenbank aufgebaut und
+ * danach bei jedem neuen Lesezeichen inkrementell ergänzt.
+ */
+@Service
+public class DomainIndex {
+
+    private final static Logger LOG = LoggerFactory.getLogger( DomainIndex.class );
+
+    /** IPv4-Adresse, wird nicht in Teile zerlegt. */
+    private static final Pattern IPV4_MUSTER = Pattern.compile( "\\d{1,3}(\\.\\d{1,3}){3}" );
+
+    /** Sortierung der Subdomains: absteigend nach Anzahl, dann nach Name. */
+    private static final Comparator<DomainAnzahl> SORTIERUNG =
+            Comparator.comparingInt( DomainAnzahl::anzahl ).reversed()
+                      .thenComparing( DomainAnzahl::domain );
+
+    /** Knoten des Tries für einen Teil des Hostnamens. */
+    private static final class Knoten {
+
+        /** Kindknoten pro Teil des Hostnamens, sortiert für stabile Reihenfolge beim Blättern. */
+        private final Map<String, Knoten> _kinder = new TreeMap<>();
+
+        /** IDs der Lesezeichen mit genau diesem Host; nur die ersten {@link #_anzahlDirekt} sind belegt. */
+        private long[] _ids = new long[ 0 ];
+
+        /** Anzahl der Lesezeichen mit genau diesem Host. */
+        private int _anzahlDirekt;
+
+        /** Anzahl der Lesezeichen im ganzen Teilbaum einschließlich {@link #_anzahlDirekt}. */
+        private int _anzahl;
+    }
+
+    /** Sammelt beim Blättern die IDs einer Seite. */
+    private static final class Sammler {
+
+        /** Anzahl Lesezeichen, die noch übersprungen werden müssen. */
+        private int _ueberspringen;
+
+        /** Gesammelte IDs; voll, wenn {@link #_anzahl} die Länge erreicht. */
+        private final long[] _ids;
+
+        /** Anzahl gesammelter IDs. */
+        private int _anzahl;
+
+        private Sammler( int ueberspringen, int maxAnzahl ) {
+
+            _ueberspringen = ueberspringen;
+            _ids           = new long[ maxAnzahl ];
+        }
+
+        private boolean istVoll() { return _anzahl == _ids.length; }
+    }
+
+    /** Repo-Bean für Zugriff auf Lesezeichen. */
+    private LesezeichenRepo _lesezeichenRepo;
+
+    /** Für Lese-Transaktion beim Aufbau, da die Query einen Stream liefert. */
+    private TransactionTemplate _txTemplate;
+
+    /** Wurzel des Tries, steht für alle Lesezeichen mit Host. */
+    private Knoten _wurzel = new Knoten();
+
+    /** IDs aller aufgenommenen Lesezeichen, damit keines doppelt gezählt wird. */
+    private Roaring64Bitmap _aufgenommen = new Roaring64Bitmap();
+
+    /** Viele gleichzeitige Abfragen, aber nur ein schreibender Zugriff. */
+    private final ReentrantReadWriteLock _lock = new ReentrantReadWriteLock();
+
+
+    /**
+     * Konstruktor für <i>Dependency Injection</i>.
+     */
+    @Autowired
+    public DomainIndex( LesezeichenRepo lesezeichenRepo,
+                        PlatformTransactionManager txManager ) {
+
+        _lesezeichenRepo = lesezeichenRepo;
+
+        _txTemplate = new TransactionTemplate( txManager );
+        _txTemplate.setReadOnly( true );
+    }
+
+
+    /**
+     * Baut den Index nach dem Start der Anwendung neu auf.
+     */
+    @EventListener( ApplicationReadyEvent.class )
+    public void neuAufbauen() {
+
+        final long zeitStart = System.currentTimeMillis();
+
+        _lock.writeLock().lock();
+        try {
+
+            _wurzel      = new Knoten();
+            _aufgenommen = new Roaring64Bitmap();
+
+            _txTemplate.executeWithoutResult( status -> {
+
+                try ( Stream<Object[]> stream = _lesezeichenRepo.streamIdUndUrl() ) {
+
+                    stream.forEach( zeile -> hinzufuegenIntern( (Long) zeile[ 0 ], (String) zeile[ 1 ] ) );
+                }
+            });
+
+        } finally {
+
+            _lock.writeLock().unlock();
+        }
+
+        LOG.info( "Domain-Index mit {} Lesezeichen in {} ms aufgebaut.",
+                  _wurzel._anzahl, System.currentTimeMillis() - zeitStart );
+    }
+
+
+    /**
+     * Neues Lesezeichen nach dem Commit der Transaktion in den Index aufnehmen.
+     *
+     * @param ereignis Ereignis mit neuem Lesezeichen
+     */
+    @TransactionalEventListener( fallbackExecution = true )
+    public void onLesezeichenAngelegt( LesezeichenAngelegtEreignis ereignis ) {
+
+        _lock.writeLock().lock();
+        try {
+
+            hinzufuegenIntern( ereignis.lesezeichen().id(), ereignis.lesezeichen().url() );
+
+        } finally {
+
+            _lock.writeLock().unlock();
+        }
+    }
+
+
+    /**
+     * Lesezeichen in den Trie aufnehmen, falls es noch nicht enthalten ist;
+     * Aufrufer muss Schreibsperre haben.
+     *
+     * @param id ID des Lesezeichens
+     *
+     * @param url URL des Lesezeichens
+     */
+    private void hinzufuegenIntern( long id, String url ) {
+
+        final String[] teile = teile( UrlNormalisierung.host( url ) );
+        if ( teile.length == 0 || _aufgenommen.contains( id ) ) { return; }
+
+        _aufgenommen.addLong( id );
+
+        Knoten knoten = _wurzel;
+        knoten._anzahl++;
+        for ( String teil : teile ) {
+
+            knoten = knoten._kinder.computeIfAbsent( teil, t -> new Knoten() );
+            knoten._anzahl++;
+        }
+
+        if ( knoten._anzahlDirekt == knoten._ids.length ) {
+
+            knoten._ids = Arrays.copyOf( knoten._ids, Math.max( 4, knoten._anzahlDirekt * 2 ) );
+        }
+        knoten._ids[ knoten._anzahlDirekt++ ] = id;
+    }
+
+
+    /**
+     * Zerlegt einen Host in die Teile in der Reihenfolge des Tries.
+     *
+     * @param host Host, z.B. "docs.spring.io"
+     *
+     * @return Teile von hinten nach vorne, z.B. {@code ["io", "spring", "docs"]};
+     *         leer für leeren Host
+     */
+    private static String[] teile( String host ) {
+
+        if ( host.isEmpty() ) { return new String[ 0 ]; }
+
+        if ( host.startsWith( "[" ) || IPV4_MUSTER.matcher( host ).matches() ) {
+
+            return new String[] { host };
+        }
+
+        final String[] teile = host.split( "\\." );
+        for ( int i = 0, j = teile.length - 1; i < j; i++, j-- ) {
+
+            final String temp = teile[ i ];
+            teile[ i ] = teile[ j ];
+            teile[ j ] = temp;
+        }
+
+        return teile;
+    }
+
+
+    /**
+     * Bringt eine vom Nutzer eingegebene Domain in die Form des Index.
+     *
+     * @param domain z.B. {@code "*.Spring.IO"} oder {@code null}
+     *
+     * @return z.B. {@code "spring.io"}; leer für alle Lesezeichen
+     */
+    private static String domainNormalisieren( String domain ) {
+
+        if ( domain == null ) { return ""; }
+
+        String ergebnis = domain.trim().toLowerCase( Locale.ROOT );
+        if ( ergebnis.startsWith( "*." ) ) { ergebnis = ergebnis.substring( 2 ); }
+        if ( ergebnis.startsWith( "www." ) ) { ergebnis = ergebnis.substring( 4 ); }
+        while ( ergebnis.endsWith( "." ) ) { ergebnis = ergebnis.substring( 0, ergebnis.length() - 1 ); }
+
+        return ergebnis;
+    }
+
+
+    /**
+     * Abfrage für eine Domain: Anzahl der Lesezeichen, Subdomains mit Anzahl
+     * und eine Seite mit Lesezeichen unterhalb der Domain.
+     *
+     * @param domain Domain, z.B. "spring.io" oder "*.spring.io"; leer oder
+     *               {@code null} für alle Lesezeichen
+     *
+     * @param maxUnterdomains Maximale Anzahl Subdomains im Ergebnis (die mit
+     *                        den meisten Lesezeichen)
+     *
+     * @param seite Nummer der Seite mit Lesezeichen, beginnend mit 0
+     *
+     * @param seitengroesse Anzahl Lesezeichen pro Seite
+     *
+     * @return Ergebnis; Anzahl 0, wenn es keine Lesezeichen unter der Domain gibt
+     */
+    public DomainErgebnis abfrage( String domain, int maxUnterdomains, int seite, int seitengroesse ) {
+
+        final String normalisiert = domainNormalisieren( domain );
+
+        final List<DomainAnzahl> unterdomainListe;
+        final int                anzahl;
+        final long[]             idSeite;
+
+        _lock.readLock().lock();
+        try {
+
+            Knoten knoten = _wurzel;
+            for ( String teil : teile( normalisiert ) ) {
+
+                knoten = knoten._kinder.get( teil );
+                if ( knoten == null ) {
+
+                    return new DomainErgebnis( normalisiert, 0, List.of(), seite, seitengroesse, List.of() );
+                }
+            }
+
+            anzahl           = knoten._anzahl;
+            unterdomainListe = unterdomains( knoten, normalisiert, maxUnterdomains );
+
+            final long ueberspringen = (long) seite * seitengroesse;
+            final Sammler sammler = new Sammler( (int) Math.min( ueberspringen, anzahl ),
+                                                 Math.clamp( anzahl - ueberspringen, 0, seitengroesse ) );
+            sammeln( knoten, sammler );
+            idSeite = sammler._ids;
+
+        } finally {
+
+            _lock.readLock().unlock();
+        }
+
+        return new DomainErgebnis( normalisiert, anzahl, unterdomainListe, seite, seitengroesse, laden( idSeite ) );
+    }
+
+
+    /**
+     * Die direkten Kindknoten mit den meisten Lesezeichen, ausgewählt mit
+     * einer Prioritätswarteschlange der Größe {@code max}; Aufrufer muss
+     * Lesesperre haben.
+     */
+    private static List<DomainAnzahl> unterdomains( Knoten knoten, String domain, int max ) {
+
+        if ( max <= 0 ) { return List.of(); }
+
+        final PriorityQueue<DomainAnzahl> auswahl = new PriorityQueue<>( max + 1, SORTIERUNG.reversed() );
+        for ( Map.Entry<String, Knoten> eintrag : knoten._kinder.entrySet() ) {
+
+            final String unterdomain = domain.isEmpty() ? eintrag.getKey() : eintrag.getKey() + "." + domain;
+            final Knoten kind        = eintrag.getValue();
+
+            auswahl.add( new DomainAnzahl( unterdomain, kind._anzahl, kind._anzahlDirekt ) );
+            if ( auswahl.size() > max ) { auswahl.poll(); }
+        }
+
+        final List<DomainAnzahl> ergebnisListe = new ArrayList<>( auswahl );
+        ergebnisListe.sort( SORTIERUNG );
+
+        return ergebnisListe;
+    }
+
+
+    /**
+     * Sammelt IDs im Teilbaum von {@code knoten} (erst die direkten, dann die
+     * der Kindknoten in alphabetischer Reihenfolge); Teilbäume, die ganz
+     * übersprungen werden, werden nicht durchlaufen. Aufrufer muss Lesesperre haben.
+     */
+    private static void sammeln( Knoten knoten, Sammler sammler ) {
+
+        if ( sammler._ueberspringen >= knoten._anzahlDirekt ) {
+
+            sammler._ueberspringen -= knoten._anzahlDirekt;
+
+        } else {
+
+            final int von    = sammler._ueberspringen;
+            final int anzahl = Math.min( knoten._anzahlDirekt - von, sammler._ids.length - sammler._anzahl );
+
+            System.arraycopy( knoten._ids, von, sammler._ids, sammler._anzahl, anzahl );
+            sammler._anzahl       += anzahl;
+            sammler._ueberspringen = 0;
+        }
+
+        for ( Knoten kind : knoten._kinder.values() ) {
+
+            if ( sammler.istVoll() ) { return; }
+
+            if ( sammler._ueberspringen >= kind._anzahl ) {
+
+                sammler._ueberspringen -= kind._anzahl;
+                continue;
+            }
+            sammeln( kind, sammler );
+        }
+    }
+
+
+    /**
+     * Name und Ordner für die Lesezeichen einer Seite mit einer Query holen.
+     *
+     * @param idSeite IDs in der Reihenfolge des Tries
+     *
+     * @return Lesezeichen in derselben Reihenfolge
+     */
+    private List<LesezeichenMitOrdner> laden( long[] idSeite ) {
+
+        if ( idSeite.length == 0 ) { return List.of(); }
+
+        final Map<Long, LesezeichenMitOrdner> lesezeichenMap = HashMap.newHashMap( idSeite.length );
+        for ( LesezeichenMitOrdner lesezeichen :
+                _lesezeichenRepo.findMitOrdnerByIds( Arrays.stream( idSeite ).boxed().toList() ) ) {
+
+            lesezeichenMap.put( lesezeichen.id(), lesezeichen );
+        }
+
+        final List<LesezeichenMitOrdner> ergebnisListe = new ArrayList<>( idSeite.length );
+        for ( long id : idSeite ) {
+
+            final LesezeichenMitOrdner lesezeichen = lesezeichenMap.get( id );
+            if ( lesezeichen != null ) { ergebnisListe.add( lesezeichen ); }
+        }
+
+        return ergebnisListe;
+    }
+
+}
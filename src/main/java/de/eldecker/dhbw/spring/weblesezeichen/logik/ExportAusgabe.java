@@ -0,0 +1,68 @@
+package de.eldecker.dhbw.spring.weblesezeichen.logik;
+
+import java.io.IOException;
+
+
+/**
+ * Interface für das Schreiben eines Exports in einem bestimmten Dateiformat.
+ * Die Ordner und Lesezeichen werden einzeln in der Reihenfolge einer
+ * Tiefensuche übergeben und sofort geschrieben; eine Implementierung darf
+ * also höchstens Daten zu den gerade offenen Ordnern im Speicher halten.
+ * <br><br>
+ *
+ * Auf jedes {@link #ordnerBeginn(long, String)} folgt genau ein
+ * {@link #ordnerEnde()}; dazwischen übergebene Ordner und Lesezeichen
+ * liegen in diesem Ordner.
+ */
+public interface ExportAusgabe {
+
+    /**
+     * Schreibt den Anfang der Datei.
+     *
+     * @throws IOException Fehler beim Schreiben
+     */
+    void beginn() throws IOException;
+
+
+    /**
+     * Ein neuer Ordner beginnt.
+     *
+     * @param id ID des Ordners
+     *
+     * @param name Name des Ordners
+     *
+     * @throws IOException Fehler beim Schreiben
+     */
+    void ordnerBeginn( long id, String name ) throws IOException;
+
+
+    /**
+     * Der zuletzt begonnene Ordner ist zu Ende.
+     *
+     * @throws IOException Fehler beim Schreiben
+     */
+    void ordnerEnde() throws IOException;
+
+
+    /**
+     * Ein Lesezeichen im zuletzt begonnenen Ordner.
+     *
+     * @param id ID des Lesezeichens
+     *
+     * @param name Anzeigename
+     *
+     * @param url URL
+     *
+     * @throws IOException Fehler beim Schreiben
+     */
+    void lesezeichen( long id, String name, String url ) throws IOException;
+
+
+    /**
+     * Schreibt das Ende der Datei und leert alle Puffer.
+     *
+     * @throws IOException Fehler beim Schreiben
+     */
+    void ende() throws IOException;
+
+}
@@ -0,0 +1,184 @@
+package de.eldecker.dhbw.spring.weblesezeichen.logik;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import de.eldecker.dhbw.spring.weblesezeichen.db.repos.OrdnerRepo;
+import de.eldecker.dhbw.spring.weblesezeichen.model.ExportZeile;
+
+import tools.jackson.databind.ObjectMapper;
+
+
+/**
+ * Service-Bean für den Export aller Ordner und Lesezeichen in eine Datei.
+ * <br><br>
+ *
+ * Die Zeilen werden mit {@link OrdnerRepo#streamExportZeilen()} als Stream
+ * aus der DB gelesen und sofort in den übergebenen {@link OutputStream}
+ * geschrieben; der Speicherbedarf hängt also nicht von der Anzahl der
+ * Lesezeichen ab, und die ersten Bytes werden verschickt, bevor die
+ * letzte Zeile gelesen wurde.
+ */
+@Service
+public class ExportService {
+
+    private final static Logger LOG = LoggerFactory.getLogger( ExportService.class );
+
+    /**
+     * Unterstützte Formate für den Export.
+     */
+    public enum Format {
+
+        /** Netscape Bookmark File Format, kann von allen Browsern importiert werden. */
+        HTML( "text/html", "html" ),
+
+        /** JSON im Format von Chrome. */
+        JSON( "application/json", "json" ),
+
+        /** CSV mit einer Zeile pro Lesezeichen. */
+        CSV( "text/csv", "csv" );
+
+        /** MIME-Type für HTTP-Header {@code Content-Type}. */
+        public final String mimeType;
+
+        /** Endung für Dateiname. */
+        public final String dateiendung;
+
+        Format( String mimeType, String dateiendung ) {
+
+            this.mimeType    = mimeType;
+            this.dateiendung = dateiendung;
+        }
+
+        /**
+         * Format anhand des Namens (case-insensitive) bestimmen.
+         *
+         * @param name Name des Formats, z.B. "html"
+         *
+         * @return Format
+         *
+         * @throws LesezeichenException Unbekanntes Format
+         */
+        public static Format parse( String name ) throws LesezeichenException {
+
+            try {
+
+                return valueOf( name.trim().toUpperCase( Locale.ROOT ) );
+            }
+            catch ( IllegalArgumentException ex ) {
+
+                throw new LesezeichenException( "Unbekanntes Format für Export: " + name );
+            }
+        }
+    }
+
+    /** Repo-Bean für Zugriff auf Ordner. */
+    private OrdnerRepo _ordnerRepo;
+
+    /** Für Export als JSON. */
+    private ObjectMapper _objectMapper;
+
+
+    /**
+     * Konstruktor für <i>Dependency Injection</i>.
+     */
+    @Autowired
+    public ExportService( OrdnerRepo   ordnerRepo,
+                          ObjectMapper objectMapper ) {
+
+        _ordnerRepo   = ordnerRepo;
+        _objectMapper = objectMapper;
+    }
+
+
+    /**
+     * Schreibt alle Ordner und Lesezeichen im gewünschten Format.
+     *
+     * @param format Format der Ausgabe
+     *
+     * @param ausgabe Ziel der Ausgabe, wird nicht geschlossen
+     *
+     * @throws IOException Fehler beim Schreiben, z.B. weil Client Verbindung
+     *                     abgebrochen hat
+     */
+    @Transactional( readOnly = true )
+    public void exportieren( Format format, OutputStream ausgabe ) throws IOException {
+
+        final long zeitStart = System.currentTimeMillis();
+
+        final Writer writer = new BufferedWriter( new OutputStreamWriter( ausgabe, UTF_8 ), 16 * 1024 );
+
+        final ExportAusgabe exportAusgabe = switch ( format ) {
+
+            case HTML -> new NetscapeHtmlExport( writer );
+            case JSON -> new ChromeJsonExport( _objectMapper, writer );
+            case CSV  -> new CsvExport( writer );
+        };
+
+        long anzahlLesezeichen = 0;
+
+        // Pfade der gerade offenen Ordner, oben ist der aktuelle Ordner
+        final Deque<String> pfadStapel = new ArrayDeque<>();
+        Long aktuelleOrdnerId = null;
+
+        exportAusgabe.beginn();
+
+        try ( Stream<ExportZeile> zeilenStream = _ordnerRepo.streamExportZeilen() ) {
+
+            final Iterator<ExportZeile> iterator = zeilenStream.iterator();
+            while ( iterator.hasNext() ) {
+
+                final ExportZeile zeile = iterator.next();
+
+                if ( !zeile.ordnerId().equals( aktuelleOrdnerId ) ) {
+
+                    // Ordner schließen, bis der Vater des neuen Ordners oben liegt
+                    while ( !pfadStapel.isEmpty() && !zeile.ordnerPfad().startsWith( pfadStapel.peek() ) ) {
+
+                        pfadStapel.pop();
+                        exportAusgabe.ordnerEnde();
+                    }
+
+                    pfadStapel.push( zeile.ordnerPfad() );
+                    exportAusgabe.ordnerBeginn( zeile.ordnerId(), zeile.ordnerName() );
+                    aktuelleOrdnerId = zeile.ordnerId();
+                }
+
+                if ( zeile.lesezeichenId() != null ) {
+
+                    exportAusgabe.lesezeichen( zeile.lesezeichenId(), zeile.lesezeichenName(), zeile.url() );
+                    anzahlLesezeichen++;
+                }
+            }
+        }
+
+        while ( !pfadStapel.isEmpty() ) {
+
+            pfadStapel.pop();
+            exportAusgabe.ordnerEnde();
+        }
+
+        exportAusgabe.ende();
+
+        LOG.info( "Export als {} mit {} Lesezeichen in {} ms geschrieben.",
+                  format, anzahlLesezeichen, System.currentTimeMillis() - zeitStart );
+    }
+
+}
@@ -0,0 +1,176 @@
+package de.eldecker.dhbw.spring.weblesezeichen.logik;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import de.eldecker.dhbw.spring.weblesezeichen.model.ImportFortschritt;
+import de.eldecker.dhbw.spring.weblesezeichen.model.ImportFortschritt.Status;
+
+
+/**
+ * Zustand eines Imports von Lesezeichen aus einer Datei. Die Zähler werden vom
+ * Import-Thread hochgezählt und können gleichzeitig von anderen Threads über
+ * {@link #getFortschritt()} abgefragt werden.
+ */
+public class ImportAuftrag {
+
+    /** ID des Auftrags. */
+    private final String _id;
+
+    /** Name der hochgeladenen Datei. */
+    private final String _dateiname;
+
+    /** Größe der Datei in Bytes. */
+    private final long _dateigroesse;
+
+    /** Aktueller Status. */
+    private volatile Status _status = Status.WARTEND;
+
+    /** ID des Ordners, unter dem importiert wird. */
+    private volatile Long _importOrdnerId;
+
+    /** Fehlermeldung bei Status {@link Status#FEHLER}. */
+    private volatile String _fehlermeldung;
+
+    /** Anzahl schon gelesener Bytes. */
+    private final AtomicLong _bytesGelesen = new AtomicLong();
+
+    /** Anzahl angelegter Ordner. */
+    private final AtomicInteger _anzahlOrdner = new AtomicInteger();
+
+    /** Anzahl angelegter Lesezeichen. */
+    private final AtomicInteger _anzahlLesezeichen = new AtomicInteger();
+
+    /** Anzahl nicht importierter Lesezeichen. */
+    private final AtomicInteger _anzahlUebersprungen = new AtomicInteger();
+
+
+    /**
+     * Konstruktor für neuen Auftrag mit Status {@link Status#WARTEND}.
+     *
+     * @param id ID des Auftrags
+     *
+     * @param dateiname Name der hochgeladenen Datei
+     *
+     * @param dateigroesse Größe der Datei in Bytes
+     */
+    public ImportAuftrag( String id, String dateiname, long dateigroesse ) {
+
+        _id           = id;
+        _dateiname    = dateiname;
+        _dateigroesse = dateigroesse;
+    }
+
+
+    /**
+     * Getter für ID des Auftrags.
+     *
+     * @return ID
+     */
+    public String getId() {
+
+        return _id;
+    }
+
+
+    /**
+     * Getter für Name der hochgeladenen Datei.
+     *
+     * @return Dateiname
+     */
+    public String getDateiname() {
+
+        return _dateiname;
+    }
+
+
+    /**
+     * Setzt Status auf {@link Status#LAEUFT}.
+     */
+    void gestartet() {
+
+        _status = Status.LAEUFT;
+    }
+
+
+    /**
+     * Setzt Status auf {@link Status#FERTIG}.
+     */
+    void fertig() {
+
+        _status = Status.FERTIG;
+    }
+
+
+    /**
+     * Setzt Status auf {@link Status#FEHLER}.
+     *
+     * @param fehlermeldung Beschreibung des Fehlers
+     */
+    void fehler( String fehlermeldung ) {
+
+        _fehlermeldung = fehlermeldung;
+        _status        = Status.FEHLER;
+    }
+
+
+    /**
+     * Setter für ID des Ordners, unter dem importiert wird.
+     *
+     * @param importOrdnerId ID des Ordners
+     */
+    void setImportOrdnerId( Long importOrdnerId ) {
+
+        _importOrdnerId = importOrdnerId;
+    }
+
+
+    /**
+     * Zählt gelesene Bytes hoch.
+     *
+     * @param anzahl Anzahl neu gelesener Bytes
+     */
+    void bytesGelesen( long anzahl ) {
+
+        _bytesGelesen.addAndGet( anzahl );
+    }
+
+
+    /** Zählt angelegte Ordner hoch. */
+    void ordnerAngelegt() {
+
+        _anzahlOrdner.incrementAndGet();
+    }
+
+
+    /** Zählt angelegte Lesezeichen hoch. */
+    void lesezeichenAngelegt() {
+
+        _anzahlLesezeichen.incrementAndGet();
+    }
+
+
+    /** Zählt übersprungene Lesezeichen hoch. */
+    void lesezeichenUebersprungen() {
+
+        _anzahlUebersprungen.incrementAndGet();
+    }
+
+
+    /**
+     * Momentaufnahme des Fortschritts.
+     *
+     * @return Fortschritt mit aktuellen Zählerständen
+     */
+    public ImportFortschritt getFortschritt() {
+
+        return new ImportFortschritt( _id, _dateiname, _status, _dateigroesse,
+                                      _bytesGelesen.get(),
+                                      _anzahlOrdner.get(),
+                                      _anzahlLesezeichen.get(),
+                                      _anzahlUebersprungen.get(),
+                                      _importOrdnerId,
+                                      _fehlermeldung );
+    }
+
+}
@@ -0,0 +1,15 @@
+package de.eldecker.dhbw.spring.weblesezeichen.logik;
+
+import de.eldecker.dhbw.spring.weblesezeichen.model.ImportFortschritt;
+
+
+/**
+ * Ereignis, das nach dem Ende eines Imports (auch bei Fehler) veröffentlicht
+ * wird. Da beim Import viele Ordner an {@link OrdnerService} vorbei angelegt
+ * werden, bauen Beans mit Daten im Speicher (z.B. {@link OrdnerBaumSnapshotService})
+ * ihren Stand danach neu auf.
+ *
+ * @param fortschritt Stand des Imports beim Ende
+ */
+public record ImportBeendetEreignis( ImportFortschritt fortschritt ) {
+}
@@ -0,0 +1,44 @@
+package de.eldecker.dhbw.spring.weblesezeichen.logik;
+
+
+/**
+ * Callback-Interface, über das ein {@link ImportParser} die in einer Datei
+ * gefundenen Ordner und Lesezeichen meldet, sobald er sie gelesen hat.
+ * Der Parser muss also nie die ganze Datei im Speicher halten.
+ * <br><br>
+ *
+ * Die Aufrufe sind wie in der Datei geschachtelt: Auf jedes
+ * {@link #ordnerBeginn(String)} folgt genau ein {@link #ordnerEnde(String)};
+ * dazwischen gemeldete Ordner und Lesezeichen liegen in diesem Ordner.
+ */
+public interface ImportEmpfaenger {
+
+    /**
+     * Ein neuer Ordner beginnt.
+     *
+     * @param name Name des Ordners; {@code null}, wenn der Name in der Datei erst
+     *             nach dem Inhalt des Ordners steht (z.B. bei Chrome), dann wird
+     *             er mit {@link #ordnerEnde(String)} nachgeliefert
+     */
+    void ordnerBeginn( String name );
+
+
+    /**
+     * Der zuletzt begonnene Ordner ist zu Ende.
+     *
+     * @param name Name des Ordners, falls er bei {@link #ordnerBeginn(String)}
+     *             noch nicht bekannt war; sonst {@code null}
+     */
+    void ordnerEnde( String name );
+
+
+    /**
+     * Ein Lesezeichen im zuletzt begonnenen Ordner.
+     *
+     * @param name Anzeigename, kann leer sein
+     *
+     * @param url URL des Lesezeichens
+     */
+    void lesezeichen( String name, String url );
+
+}
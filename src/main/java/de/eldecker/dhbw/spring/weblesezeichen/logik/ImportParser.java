@@ -0,0 +1,27 @@
+package de.eldecker.dhbw.spring.weblesezeichen.logik;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+
+/**
+ * Interface für Parser, die eine Lesezeichen-Datei als Strom lesen und
+ * die Ordner und Lesezeichen an einen {@link ImportEmpfaenger} melden.
+ */
+public interface ImportParser {
+
+    /**
+     * Liest die ganze Datei und meldet dabei alle Ordner und Lesezeichen.
+     *
+     * @param eingabe Inhalt der Datei; wird nicht geschlossen
+     *
+     * @param empfaenger Callback-Objekt für gefundene Ordner und Lesezeichen
+     *
+     * @throws IOException Fehler beim Lesen der Datei
+     *
+     * @throws LesezeichenException Datei hat nicht das erwartete Format
+     */
+    void parse( InputStream eingabe, ImportEmpfaenger empfaenger )
+            throws IOException, LesezeichenException;
+
+}
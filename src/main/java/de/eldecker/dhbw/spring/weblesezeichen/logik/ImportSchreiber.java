@@ -0,0 +1,455 @@
+package de.eldecker.dhbw.spring.weblesezeichen.logik;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+
+import de.eldecker.dhbw.spring.weblesezeichen.db.entities.LesezeichenEntity;
+import de.eldecker.dhbw.spring.weblesezeichen.db.entities.OrdnerEntity;
+import de.eldecker.dhbw.spring.weblesezeichen.db.repos.OrdnerRepo;
+import de.eldecker.dhbw.spring.weblesezeichen.model.LesezeichenMitOrdner;
+
+import jakarta.persistence.EntityManager;
+
+
+/**
+ * Schreibt die von einem {@link ImportParser} gemeldeten Ordner und Lesezeichen
+ * in die Datenbank. Für jeden Import wird ein eigenes Objekt dieser Klasse erzeugt.
+ * <br><br>
+ *
+ * Es wird nicht eine Transaktion für den ganzen Import verwendet, sondern nach
+ * jeweils {@link #BLOCKGROESSE} neuen Datensätzen wird committet und eine neue
+ * Transaktion begonnen. Da der Persistenzkontext an die Transaktion gebunden ist,
+ * wird er dabei auch geleert; der Speicherbedarf hängt also nicht von der Größe
+ * der Datei ab. Innerhalb eines Blocks werden die INSERT-Statements von Hibernate
+ * gebündelt (siehe {@code hibernate.jdbc.batch_size} in {@code application.properties}),
+ * die IDs werden blockweise von der Sequenz geholt.
+ * <br><br>
+ *
+ * Von den Ordnern auf dem Weg von der Import-Wurzel zum aktuellen Ordner
+ * werden nur ID, Name und materialisierter Pfad gehalten; für die Fremdschlüssel
+ * wird {@link EntityManager#getReference(Class, Object)} verwendet, es wird
+ * also kein Ordner nachgeladen.
+ * <br><br>
+ *
+ * Für eindeutige Ordnernamen werden zu Beginn des Imports alle vorhandenen
+ * Namen einmal in ein Set geladen, es gibt also keine Query pro Ordner.
+ * Ordner, die gleichzeitig außerhalb des Imports angelegt werden, fehlen
+ * darin; einen solchen Namenskonflikt verhindert die {@code unique}-Constraint
+ * auf {@code name_klein}, der Import wird dann abgebrochen.
+ */
+public class ImportSchreiber implements ImportEmpfaenger {
+
+    private final static Logger LOG = LoggerFactory.getLogger( ImportSchreiber.class );
+
+    /** Anfang des vorläufigen Namens für Ordner, deren Name erst nach dem Inhalt kommt. */
+    private static final String PRAEFIX_VORLAEUFIG = "~import~";
+
+    /** Anzahl der Datensätze (Ordner und Lesezeichen) pro Transaktion. */
+    public static final int BLOCKGROESSE = 500;
+
+    /** Maximale Länge von Namen und URLs (Spaltenbreite in der DB). */
+    private static final int MAX_LAENGE = 255;
+
+    /** Name für Ordner, die in der Datei keinen Namen haben. */
+    private static final String NAME_UNBENANNT = "Unbenannter Ordner";
+
+    /**
+     * Ein Ordner auf dem Weg von der Import-Wurzel zum aktuellen Ordner.
+     * Lesezeichen in einem Ordner, dessen Name noch nicht bekannt ist, werden
+     * für das {@link LesezeichenAngelegtEreignis} zurückgehalten, bis der Name
+     * mit {@link #ordnerEnde(String)} nachgeliefert wird.
+     */
+    private static final class OrdnerRahmen {
+
+        final long   id;
+        final String pfad;
+        String       name;
+        boolean      nameBekannt;
+        final List<LesezeichenMitOrdner> wartendeEreignisse = new ArrayList<>();
+
+        OrdnerRahmen( long id, String pfad, String name, boolean nameBekannt ) {
+
+            this.id          = id;
+            this.pfad        = pfad;
+            this.name        = name;
+            this.nameBekannt = nameBekannt;
+        }
+    }
+
+    /** Von Spring verwalteter (an die Transaktion gebundener) EntityManager. */
+    private final EntityManager _em;
+
+    /** Für Beginn und Commit der Transaktionen. */
+    private final PlatformTransactionManager _txManager;
+
+    /** Für Veröffentlichung von {@link LesezeichenAngelegtEreignis}. */
+    private final ApplicationEventPublisher _eventPublisher;
+
+    /** Für Einträge im Änderungsprotokoll. */
+    private final AenderungsProtokoll _aenderungsProtokoll;
+
+    /** Auftrag, dessen Zähler hochgezählt werden. */
+    private final ImportAuftrag _auftrag;
+
+    /** Ordner vom aktuellen Ordner (oben) bis zur Import-Wurzel (unten). */
+    private final Deque<OrdnerRahmen> _ordnerStapel = new ArrayDeque<>();
+
+    /**
+     * Vergebene Ordnernamen in Kleinbuchstaben (siehe {@link OrdnerEntity#nameKlein(String)}):
+     * alle Namen aus der Datenbank beim Beginn des Imports und alle vom Import
+     * vergebenen Namen.
+     */
+    private final Set<String> _vergebeneNamen = new HashSet<>();
+
+    /** Laufende Transaktion. */
+    private TransactionStatus _tx;
+
+    /** Anzahl der Datensätze in der laufenden Transaktion. */
+    private int _anzahlImBlock = 0;
+
+    /**
+     * IDs der Ordner, in denen in der laufenden Transaktion Lesezeichen oder
+     * Unterordner angelegt wurden; deren Version wird vor dem Commit hochgezählt.
+     */
+    private final Set<Long> _geaenderteOrdner = new HashSet<>();
+
+
+    /**
+     * Konstruktor.
+     *
+     * @param em Von Spring verwalteter EntityManager
+     *
+     * @param txManager Transaktionsmanager
+     *
+     * @param eventPublisher Für Veröffentlichung von Ereignissen
+     *
+     * @param aenderungsProtokoll Für Einträge im Änderungsprotokoll
+     *
+     * @param auftrag Auftrag, dessen Zähler hochgezählt werden
+     */
+    public ImportSchreiber( EntityManager              em,
+                            PlatformTransactionManager txManager,
+                            ApplicationEventPublisher  eventPublisher,
+                            AenderungsProtokoll        aenderungsProtokoll,
+                            ImportAuftrag              auftrag ) {
+
+        _em                  = em;
+        _txManager           = txManager;
+        _eventPublisher      = eventPublisher;
+        _aenderungsProtokoll = aenderungsProtokoll;
+        _auftrag             = auftrag;
+    }
+
+
+    /**
+     * Beginnt die erste Transaktion und legt den Ordner an, unter dem alle
+     * importierten Ordner und Lesezeichen angelegt werden.
+     *
+     * @param vaterOrdnerId ID des Ordners, in dem der Import-Ordner angelegt wird
+     *
+     * @param name Gewünschter Name des Import-Ordners; wird bei Bedarf eindeutig gemacht
+     *
+     * @return ID des Import-Ordners
+     */
+    public long beginnen( long vaterOrdnerId, String name ) {
+
+        _tx = _txManager.getTransaction( new DefaultTransactionDefinition() );
+
+        namenLaden();
+
+        final OrdnerEntity vater = _em.find( OrdnerEntity.class, vaterOrdnerId );
+        _ordnerStapel.push( new OrdnerRahmen( vater.getId(), vater.getPfad(), vater.getName(), true ) );
+
+        ordnerBeginn( name );
+
+        return _ordnerStapel.peek().id;
+    }
+
+
+    /**
+     * Beendet den Import: Noch offene Ordner (bei abgeschnittener Datei) werden
+     * geschlossen und die letzte Transaktion wird committet.
+     */
+    public void abschliessen() {
+
+        while ( _ordnerStapel.size() > 2 ) {
+
+            ordnerEnde( null );
+        }
+        blockCommitten();
+        _tx = null;
+    }
+
+
+    /**
+     * Bricht den Import nach einem Fehler ab: Die laufende Transaktion wird
+     * zurückgerollt, schon committete Blöcke bleiben erhalten. Noch offene
+     * Ordner, die in einem committeten Block mit vorläufigem Namen
+     * ({@code ~import~<UUID>}) angelegt wurden, bekommen danach in einer
+     * eigenen Transaktion einen richtigen Namen.
+     */
+    public void abbrechen() {
+
+        if ( _tx != null && !_tx.isCompleted() ) {
+
+            _txManager.rollback( _tx );
+        }
+        _tx = null;
+        _geaenderteOrdner.clear();
+
+        try {
+
+            vorlaeufigeNamenErsetzen();
+        }
+        catch ( RuntimeException ex ) {
+
+            LOG.error( "Vorläufige Ordnernamen nach abgebrochenem Import konnten nicht ersetzt werden.", ex );
+        }
+    }
+
+
+    /**
+     * Ersetzt die vorläufigen Namen der noch offenen Ordner, soweit diese
+     * schon committet sind, durch eindeutige Namen.
+     */
+    private void vorlaeufigeNamenErsetzen() {
+
+        final List<OrdnerRahmen> vorlaeufig = _ordnerStapel.stream().filter( rahmen -> !rahmen.nameBekannt ).toList();
+        if ( vorlaeufig.isEmpty() ) { return; }
+
+        final TransactionStatus tx = _txManager.getTransaction( new DefaultTransactionDefinition() );
+        try {
+
+            for ( OrdnerRahmen rahmen : vorlaeufig ) {
+
+                final OrdnerEntity ordner = _em.find( OrdnerEntity.class, rahmen.id );
+                if ( ordner != null && ordner.getName().startsWith( PRAEFIX_VORLAEUFIG ) ) {
+
+                    rahmen.name        = eindeutigerName( null );
+                    rahmen.nameBekannt = true;
+                    ordner.setName( rahmen.name );
+                    _aenderungsProtokoll.ordnerGeaendert( ordner );
+                }
+            }
+            _txManager.commit( tx );
+        }
+        catch ( RuntimeException ex ) {
+
+            if ( !tx.isCompleted() ) { _txManager.rollback( tx ); }
+            throw ex;
+        }
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void ordnerBeginn( String name ) {
+
+        final OrdnerRahmen vaterRahmen = _ordnerStapel.peek();
+
+        final boolean nameBekannt = name != null;
+        final String  ordnername  = nameBekannt
+                                    ? eindeutigerName( name )
+                                    : PRAEFIX_VORLAEUFIG + UUID.randomUUID();
+
+        final OrdnerEntity ordner = new OrdnerEntity( ordnername,
+                                                      _em.getReference( OrdnerEntity.class, vaterRahmen.id ) );
+        _em.persist( ordner );
+        _geaenderteOrdner.add( vaterRahmen.id );
+
+        // ID wurde bei persist() von der Sequenz vergeben, deshalb kann der Pfad
+        // noch vor dem INSERT gesetzt werden
+        ordner.setPfad( OrdnerService.berechnePfad( vaterRahmen.pfad, ordner.getId() ) );
+        _aenderungsProtokoll.ordnerAngelegt( ordner );
+
+        _ordnerStapel.push( new OrdnerRahmen( ordner.getId(), ordner.getPfad(), ordnername, nameBekannt ) );
+        _auftrag.ordnerAngelegt();
+
+        datensatzGeschrieben();
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void ordnerEnde( String name ) {
+
+        if ( _ordnerStapel.size() <= 2 ) { return; } // Import-Ordner und dessen Vater nie schließen
+
+        final OrdnerRahmen rahmen = _ordnerStapel.pop();
+
+        if ( !rahmen.nameBekannt ) {
+
+            rahmen.name = eindeutigerName( name );
+            final OrdnerEntity ordner = _em.find( OrdnerEntity.class, rahmen.id );
+            ordner.setName( rahmen.name );
+            _aenderungsProtokoll.ordnerGeaendert( ordner );
+
+            for ( LesezeichenMitOrdner lesezeichen : rahmen.wartendeEreignisse ) {
+
+                _eventPublisher.publishEvent( new LesezeichenAngelegtEreignis(
+                        new LesezeichenMitOrdner( lesezeichen.id(), lesezeichen.name(), lesezeichen.url(),
+                                                  rahmen.id, rahmen.name ), true ) );
+            }
+        }
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * <br><br>
+     *
+     * Lesezeichen mit zu langer URL oder einer URL, die nicht mit {@code http://}
+     * oder {@code https://} beginnt, werden übersprungen.
+     */
+    @Override
+    public void lesezeichen( String name, String url ) {
+
+        url = url == null ? "" : url.trim();
+        if ( url.length() > MAX_LAENGE ||
+             ( !url.startsWith( "http://" ) && !url.startsWith( "https://" ) ) ) {
+
+            _auftrag.lesezeichenUebersprungen();
+            return;
+        }
+
+        name = name == null || name.isBlank() ? url : name.trim();
+        name = kuerzen( name, MAX_LAENGE );
+
+        final OrdnerRahmen rahmen = _ordnerStapel.peek();
+
+        final LesezeichenEntity lesezeichen =
+                new LesezeichenEntity( name, url, _em.getReference( OrdnerEntity.class, rahmen.id ) );
+        _em.persist( lesezeichen );
+        _geaenderteOrdner.add( rahmen.id );
+        _aenderungsProtokoll.lesezeichenAngelegt( lesezeichen );
+        _auftrag.lesezeichenAngelegt();
+
+        final LesezeichenMitOrdner lesezeichenMitOrdner =
+                new LesezeichenMitOrdner( lesezeichen.getId(), name, url, rahmen.id, rahmen.name );
+        if ( rahmen.nameBekannt ) {
+
+            _eventPublisher.publishEvent( new LesezeichenAngelegtEreignis( lesezeichenMitOrdner, true ) );
+
+        } else {
+
+            rahmen.wartendeEreignisse.add( lesezeichenMitOrdner );
+        }
+
+        datensatzGeschrieben();
+    }
+
+
+    /**
+     * Zählt Datensätze im aktuellen Block; wenn der Block voll ist, wird die
+     * Transaktion committet und eine neue begonnen.
+     */
+    private void datensatzGeschrieben() {
+
+        _anzahlImBlock++;
+        if ( _anzahlImBlock < BLOCKGROESSE ) { return; }
+
+        blockCommitten();
+        _tx = _txManager.getTransaction( new DefaultTransactionDefinition() );
+
+        _anzahlImBlock = 0;
+    }
+
+
+    /**
+     * Zählt die Version aller Ordner hoch, in denen in diesem Block Lesezeichen
+     * oder Unterordner angelegt wurden (damit ändert sich deren ETag), und
+     * committet die laufende Transaktion.
+     * <br><br>
+     *
+     * Die Version wird mit einem atomaren UPDATE direkt vor dem Commit
+     * hochgezählt (siehe {@link OrdnerRepo#versionHochzaehlen(java.util.Collection)}):
+     * Ein Lesezeichen, das gleichzeitig außerhalb des Imports in einem dieser
+     * Ordner angelegt wird, führt also nicht zum Abbruch des Imports, und die
+     * Zeilensperre wird nur kurz gehalten.
+     */
+    private void blockCommitten() {
+
+        if ( !_geaenderteOrdner.isEmpty() ) {
+
+            _em.createQuery( OrdnerRepo.JPQL_VERSION_HOCHZAEHLEN )
+               .setParameter( "idListe", _geaenderteOrdner )
+               .executeUpdate();
+            _geaenderteOrdner.clear();
+        }
+
+        _txManager.commit( _tx );
+    }
+
+
+    /**
+     * Liefert einen Ordnernamen, der noch nicht vergeben ist (für die Spalte
+     * {@code name} gibt es eine {@code unique}-Constraint). Ist {@code name}
+     * schon vergeben, dann wird eine laufende Nummer angehängt, z.B.
+     * "Nachrichten (2)".
+     *
+     * @param name Gewünschter Name, darf {@code null} oder leer sein
+     *
+     * @return Eindeutiger Name
+     */
+    private String eindeutigerName( String name ) {
+
+        final String basis = name == null || name.isBlank()
+                             ? NAME_UNBENANNT
+                             : kuerzen( name.trim(), MAX_LAENGE - 10 );
+
+        String kandidat = basis;
+        for ( int nummer = 2; !_vergebeneNamen.add( OrdnerEntity.nameKlein( kandidat ) ); nummer++ ) {
+
+            kandidat = basis + " (" + nummer + ")";
+        }
+
+        return kandidat;
+    }
+
+
+    /**
+     * Lädt die Namen aller vorhandenen Ordner (in Kleinbuchstaben) in
+     * {@link #_vergebeneNamen}; wird einmal pro Import aufgerufen.
+     */
+    private void namenLaden() {
+
+        _em.createQuery( "SELECT o.nameKlein FROM OrdnerEntity o WHERE o.nameKlein IS NOT NULL", String.class )
+           .setHint( HINT_FETCH_SIZE, 1000 )
+           .getResultStream()
+           .forEach( _vergebeneNamen::add );
+    }
+
+
+    /**
+     * Kürzt {@code text} auf höchstens {@code maxLaenge} Zeichen.
+     *
+     * @param text Zu kürzender Text
+     *
+     * @param maxLaenge Maximale Länge
+     *
+     * @return {@code text} oder dessen Anfang
+     */
+    private static String kuerzen( String text, int maxLaenge ) {
+
+        return text.length() <= maxLaenge ? text : text.substring( 0, maxLaenge );
+    }
+
+}
@@ -0,0 +1,345 @@
+package de.eldecker.dhbw.spring.weblesezeichen.logik;
+
+import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.multipart.MultipartFile;
+
+import de.eldecker.dhbw.spring.weblesezeichen.db.entities.OrdnerEntity;
+import de.eldecker.dhbw.spring.weblesezeichen.db.repos.OrdnerRepo;
+import de.eldecker.dhbw.spring.weblesezeichen.model.ImportFortschritt;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import tools.jackson.databind.ObjectMapper;
+
+
+/**
+ * Service-Bean für den Import von Lesezeichen-Dateien, die von Browsern
+ * exportiert wurden. Unterstützte Formate:
+ * <ul>
+ * <li>HTML-Datei im <i>Netscape Bookmark File Format</i> (Export aus allen gängigen Browsern),
+ *     siehe {@link NetscapeHtmlParser}</li>
+ * <li>JSON-Datei {@code Bookmarks} von Chrome, siehe {@link ChromeJsonParser}</li>
+ * </ul>
+ *
+ * Die hochgeladene Datei wird zunächst in eine temporäre Datei geschrieben; der
+ * eigentliche Import läuft dann in einem eigenen Thread, damit der HTTP-Request
+ * sofort beantwortet werden kann. Der Fortschritt kann mit {@link #getFortschritt(String)}
+ * abgefragt werden. Es wird immer nur ein Import gleichzeitig ausgeführt, weitere
+ * Aufträge warten.
+ * <br><br>
+ *
+ * Alle importierten Ordner und Lesezeichen werden unterhalb eines neuen Ordners
+ * "Import &lt;Dateiname&gt;" im Wurzelordner angelegt.
+ */
+@Service
+public class ImportService {
+
+    private final static Logger LOG = LoggerFactory.getLogger( ImportService.class );
+
+    /** Maximale Anzahl der Aufträge, deren Fortschritt abgefragt werden kann. */
+    private static final int MAX_ANZAHL_AUFTRAEGE = 20;
+
+    /** Repo-Bean für Zugriff auf Ordner. */
+    private OrdnerRepo _ordnerRepo;
+
+    /** Von Spring verwalteter EntityManager. */
+    private EntityManager _em;
+
+    /** Für Beginn und Commit der Transaktionen beim Import. */
+    private PlatformTransactionManager _txManager;
+
+    /** Für Veröffentlichung von {@link LesezeichenAngelegtEreignis}. */
+    private ApplicationEventPublisher _eventPublisher;
+
+    /** Für Parser von JSON-Dateien. */
+    private ObjectMapper _objectMapper;
+
+    /** Für Entfernen der Unterordner-Listen aus dem Cache nach dem Import. */
+    private CacheManager _cacheManager;
+
+    /** Für Einträge im Änderungsprotokoll. */
+    private AenderungsProtokoll _aenderungsProtokoll;
+
+    /**
+     * Thread, in dem die Imports nacheinander ausgeführt werden; ein virtueller
+     * Thread, wenn {@code spring.threads.virtual.enabled=true}.
+     */
+    private ExecutorService _executor;
+
+    /** Letzte Aufträge, Schlüssel ist die ID; älteste Aufträge werden verdrängt. */
+    private final Map<String, ImportAuftrag> _auftragMap = Collections.synchronizedMap(
+            new LinkedHashMap<>() {
+                @Override
+                protected boolean removeEldestEntry( Map.Entry<String, ImportAuftrag> eldest ) {
+
+                    return size() > MAX_ANZAHL_AUFTRAEGE;
+                }
+            } );
+
+
+    /**
+     * Konstruktor für <i>Dependency Injection</i>.
+     */
+    @Autowired
+    public ImportService( OrdnerRepo                 ordnerRepo,
+                          EntityManager              em,
+                          PlatformTransactionManager txManager,
+                          ApplicationEventPublisher  eventPublisher,
+                          ObjectMapper               objectMapper,
+                          CacheManager               cacheManager,
+                          AenderungsProtokoll        aenderungsProtokoll,
+                          @Value( "${spring.threads.virtual.enabled:false}" ) boolean virtuelleThreads ) {
+
+        _ordnerRepo     = ordnerRepo;
+        _em             = em;
+        _txManager      = txManager;
+        _eventPublisher = eventPublisher;
+        _objectMapper   = objectMapper;
+        _cacheManager   = cacheManager;
+
+        _aenderungsProtokoll = aenderungsProtokoll;
+
+        final Thread.Builder threadBuilder = virtuelleThreads ? Thread.ofVirtual() : Thread.ofPlatform();
+        _executor = Executors.newSingleThreadExecutor( threadBuilder.name( "lesezeichen-import" ).factory() );
+    }
+
+
+    /**
+     * Speichert die hochgeladene Datei zwischen und stellt den Import in die
+     * Warteschlange.
+     *
+     * @param datei Hochgeladene Datei
+     *
+     * @return Fortschritt des neuen Auftrags (Status {@code WARTEND})
+     *
+     * @throws LesezeichenException Datei ist leer, konnte nicht zwischengespeichert
+     *                              werden oder es gibt noch keinen Wurzelordner
+     */
+    public ImportFortschritt starten( MultipartFile datei ) throws LesezeichenException {
+
+        if ( datei == null || datei.isEmpty() ) {
+
+            throw new LesezeichenException( "Keine oder leere Datei für Import hochgeladen." );
+        }
+
+        final OrdnerEntity wurzel =
+                _ordnerRepo.findByVaterIsNull()
+                           .orElseThrow( () -> new LesezeichenException( "Kein Wurzelordner gefunden." ) );
+
+        final String dateiname = datei.getOriginalFilename() == null || datei.getOriginalFilename().isBlank()
+                                 ? "Lesezeichen"
+                                 : datei.getOriginalFilename();
+
+        final Path tempDatei;
+        try {
+
+            tempDatei = Files.createTempFile( "lesezeichen-import-", ".tmp" );
+            datei.transferTo( tempDatei );
+        }
+        catch ( IOException ex ) {
+
+            LOG.error( "Hochgeladene Datei konnte nicht zwischengespeichert werden.", ex );
+            throw new LesezeichenException( "Hochgeladene Datei konnte nicht zwischengespeichert werden." );
+        }
+
+        final ImportAuftrag auftrag = new ImportAuftrag( UUID.randomUUID().toString(), dateiname, datei.getSize() );
+        _auftragMap.put( auftrag.getId(), auftrag );
+
+        _executor.execute( () -> ausfuehren( auftrag, tempDatei, wurzel.getId() ) );
+
+        LOG.info( "Import von Datei \"{}\" ({} Bytes) als Auftrag {} eingeplant.",
+                  dateiname, datei.getSize(), auftrag.getId() );
+
+        return auftrag.getFortschritt();
+    }
+
+
+    /**
+     * Fortschritt eines Auftrags abfragen.
+     *
+     * @param auftragId ID des Auftrags
+     *
+     * @return Aktueller Fortschritt
+     *
+     * @throws LesezeichenException Kein Auftrag mit {@code auftragId} (mehr) bekannt
+     */
+    public ImportFortschritt getFortschritt( String auftragId ) throws LesezeichenException {
+
+        final ImportAuftrag auftrag = _auftragMap.get( auftragId );
+        if ( auftrag == null ) {
+
+            throw new LesezeichenException( "Kein Import-Auftrag mit ID=" + auftragId + " gefunden." );
+        }
+
+        return auftrag.getFortschritt();
+    }
+
+
+    /**
+     * Führt einen Import aus; wird im Import-Thread aufgerufen.
+     *
+     * @param auftrag Auftrag, dessen Zähler hochgezählt werden
+     *
+     * @param tempDatei Zwischengespeicherte Datei, wird am Ende gelöscht
+     *
+     * @param wurzelId ID des Ordners, in dem der Import-Ordner angelegt wird
+     */
+    private void ausfuehren( ImportAuftrag auftrag, Path tempDatei, long wurzelId ) {
+
+        final long zeitStart = System.currentTimeMillis();
+        auftrag.gestartet();
+
+        final ImportSchreiber schreiber = new ImportSchreiber( _em, _txManager, _eventPublisher,
+                                                               _aenderungsProtokoll, auftrag );
+
+        try ( InputStream eingabe =
+                new BufferedInputStream( new ZaehlenderInputStream( Files.newInputStream( tempDatei ), auftrag ) ) ) {
+
+            final ImportParser parser = parserWaehlen( eingabe );
+
+            final long importOrdnerId = schreiber.beginnen( wurzelId, "Import " + auftrag.getDateiname() );
+            auftrag.setImportOrdnerId( importOrdnerId );
+
+            parser.parse( eingabe, schreiber );
+            schreiber.abschliessen();
+
+            auftrag.fertig();
+
+            final ImportFortschritt fortschritt = auftrag.getFortschritt();
+            LOG.info( "Import {} beendet: {} Ordner und {} Lesezeichen angelegt, {} übersprungen, {} ms.",
+                      auftrag.getId(), fortschritt.anzahlOrdner(), fortschritt.anzahlLesezeichen(),
+                      fortschritt.anzahlUebersprungen(), System.currentTimeMillis() - zeitStart );
+        }
+        catch ( Exception ex ) {
+
+            schreiber.abbrechen();
+
+            LOG.error( "Import {} abgebrochen.", auftrag.getId(), ex );
+            auftrag.fehler( ex instanceof LesezeichenException
+                            ? ex.getMessage()
+                            : "Import abgebrochen: " + ex.getMessage() );
+        }
+        finally {
+
+            // Import legt Ordner an der Logik von OrdnerService vorbei an
+            final Cache unterordnerCache = _cacheManager.getCache( OrdnerService.CACHE_UNTERORDNER );
+            if ( unterordnerCache != null ) { unterordnerCache.clear(); }
+
+            _eventPublisher.publishEvent( new ImportBeendetEreignis( auftrag.getFortschritt() ) );
+
+            try {
+
+                Files.deleteIfExists( tempDatei );
+            }
+            catch ( IOException ex ) {
+
+                LOG.warn( "Temporäre Datei {} konnte nicht gelöscht werden.", tempDatei );
+            }
+        }
+    }
+
+
+    /**
+     * Erkennt das Format der Datei am ersten Zeichen, das kein Leerzeichen
+     * (und keine <i>Byte Order Mark</i>) ist.
+     *
+     * @param eingabe Datei, muss {@code mark/reset} unterstützen; steht danach
+     *                wieder am Anfang
+     *
+     * @return Parser für das erkannte Format
+     *
+     * @throws IOException Fehler beim Lesen
+     *
+     * @throws LesezeichenException Format nicht erkannt
+     */
+    private ImportParser parserWaehlen( InputStream eingabe ) throws IOException, LesezeichenException {
+
+        eingabe.mark( 1024 );
+        int zeichen;
+        int anzahl = 0;
+        do {
+
+            zeichen = eingabe.read();
+            anzahl++;
+
+        } while ( zeichen != -1 && anzahl < 1024 &&
+                  ( Character.isWhitespace( zeichen ) || zeichen == 0xEF || zeichen == 0xBB || zeichen == 0xBF ) );
+
+        eingabe.reset();
+
+        return switch ( zeichen ) {
+
+            case '{' -> new ChromeJsonParser( _objectMapper );
+            case '<' -> new NetscapeHtmlParser();
+            default  -> throw new LesezeichenException(
+                            "Dateiformat nicht erkannt, erwartet wird HTML-Export oder Chrome-JSON." );
+        };
+    }
+
+
+    /**
+     * Import-Thread beim Herunterfahren der Anwendung beenden.
+     */
+    @PreDestroy
+    public void beenden() {
+
+        _executor.shutdownNow();
+    }
+
+
+    /**
+     * Stream, der die gelesenen Bytes beim Auftrag mitzählt.
+     */
+    private static final class ZaehlenderInputStream extends FilterInputStream {
+
+        /** Auftrag, bei dem gezählt wird. */
+        private final ImportAuftrag _auftrag;
+
+        ZaehlenderInputStream( InputStream eingabe, ImportAuftrag auftrag ) {
+
+            super( eingabe );
+            _auftrag = auftrag;
+        }
+
+        @Override
+        public int read() throws IOException {
+
+            final int zeichen = super.read();
+            if ( zeichen != -1 ) { _auftrag.bytesGelesen( 1 ); }
+
+            return zeichen;
+        }
+
+        @Override
+        public int read( byte[] puffer, int offset, int laenge ) throws IOException {
+
+            final int anzahl = super.read( puffer, offset, laenge );
+            if ( anzahl > 0 ) { _auftrag.bytesGelesen( anzahl ); }
+
+            return anzahl;
+        }
+    }
+
+}
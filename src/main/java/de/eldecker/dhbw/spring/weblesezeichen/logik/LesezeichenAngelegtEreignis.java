@@ -0,0 +1,31 @@
+package de.eldecker.dhbw.spring.weblesezeichen.logik;
+
+import de.eldecker.dhbw.spring.weblesezeichen.model.LesezeichenMitOrdner;
+
+
+/**
+ * Ereignis, das nach dem Anlegen eines neuen Lesezeichens veröffentlicht wird.
+ * Beans, die Daten der Lesezeichen im Speicher halten (z.B. {@link SuchIndex}),
+ * aktualisieren sich damit inkrementell; dafür wird eine Methode mit der
+ * Annotation {@code TransactionalEventListener} verwendet, damit das Ereignis
+ * erst nach dem Commit der Transaktion verarbeitet wird.
+ *
+ * @param lesezeichen Neu angelegtes Lesezeichen
+ *
+ * @param ausImport {@code true}, wenn das Lesezeichen von einem Import angelegt
+ *                  wurde; Beans, die nach dem Import ohnehin neu laden (siehe
+ *                  {@link ImportBeendetEreignis}), können das Ereignis dann ignorieren
+ */
+public record LesezeichenAngelegtEreignis( LesezeichenMitOrdner lesezeichen,
+                                           boolean              ausImport ) {
+
+    /**
+     * Konstruktor für Lesezeichen, die nicht von einem Import angelegt wurden.
+     *
+     * @param lesezeichen Neu angelegtes Lesezeichen
+     */
+    public LesezeichenAngelegtEreignis( LesezeichenMitOrdner lesezeichen ) {
+
+        this( lesezeichen, false );
+    }
+}
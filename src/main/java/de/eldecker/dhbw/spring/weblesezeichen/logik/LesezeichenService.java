@@ -0,0 +1,236 @@
+package de.eldecker.dhbw.spring.weblesezeichen.logik;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import de.eldecker.dhbw.spring.weblesezeichen.db.entities.LesezeichenEntity;
+import de.eldecker.dhbw.spring.weblesezeichen.db.entities.OrdnerEntity;
+import de.eldecker.dhbw.spring.weblesezeichen.db.repos.LesezeichenRepo;
+import de.eldecker.dhbw.spring.weblesezeichen.model.DuplikatBericht;
+import de.eldecker.dhbw.spring.weblesezeichen.model.DuplikatGruppe;
+import de.eldecker.dhbw.spring.weblesezeichen.model.LesezeichenMitOrdner;
+
+
+/**
+ * Diese Service-Bean-Klasse enthält Methoden mit Logik für die Arbeit
+ * mit {@link LesezeichenEntity}-Objekten.
+ */
+@Service
+public class LesezeichenService {
+
+    /** Repo-Bean für Zugriff auf Lesezeichen. */
+    private LesezeichenRepo _lesezeichenRepo;
+
+    /** Service-Bean für Ordner (Version hochzählen). */
+    private OrdnerService _ordnerService;
+
+    /** Bean für Veröffentlichung von Ereignissen, z.B. {@link LesezeichenAngelegtEreignis}. */
+    private ApplicationEventPublisher _eventPublisher;
+
+    /** Für Einträge im Änderungsprotokoll. */
+    private AenderungsProtokoll _aenderungsProtokoll;
+
+
+    /**
+     * Konstruktor für <i>Dependency Injection</i>.
+     */
+    @Autowired
+    public LesezeichenService( LesezeichenRepo lesezeichenRepo,
+                               OrdnerService ordnerService,
+                               ApplicationEventPublisher eventPublisher,
+                               AenderungsProtokoll aenderungsProtokoll ) {
+
+        _lesezeichenRepo     = lesezeichenRepo;
+        _ordnerService       = ordnerService;
+        _eventPublisher      = eventPublisher;
+        _aenderungsProtokoll = aenderungsProtokoll;
+    }
+
+
+    /**
+     * Legt neues Lesezeichen ohne Tags an, siehe
+     * {@link #neuesLesezeichen(String, String, OrdnerEntity, Set)}.
+     *
+     * @param anzeigename Name des neuen Lesezeichens
+     *
+     * @param url URL des neuen Lesezeichens
+     *
+     * @param ordner Ordner, in dem das Lesezeichen angelegt werden soll
+     *
+     * @return Neu angelegtes Lesezeichen (mit ID)
+     */
+    @Transactional
+    public LesezeichenEntity neuesLesezeichen( String anzeigename, String url, OrdnerEntity ordner ) {
+
+        return neuesLesezeichen( anzeigename, url, ordner, Set.of() );
+    }
+
+
+    /**
+     * Legt neues Lesezeichen an und veröffentlicht danach ein
+     * {@link LesezeichenAngelegtEreignis}. Die Version von {@code ordner}
+     * wird hochgezählt, damit sich das ETag der Ordnerseite ändert, und das
+     * Lesezeichen wird im {@link AenderungsProtokoll} eingetragen.
+     * Die Werte müssen schon vom Aufrufer geprüft worden sein.
+     *
+     * @param anzeigename Name des neuen Lesezeichens
+     *
+     * @param url URL des neuen Lesezeichens
+     *
+     * @param ordner Ordner, in dem das Lesezeichen angelegt werden soll
+     *
+     * @param tags Schon mit {@link TagIndex#normalisieren(Collection)}
+     *             normalisierte Tags, kann leer sein
+     *
+     * @return Neu angelegtes Lesezeichen (mit ID)
+     */
+    @Transactional
+    public LesezeichenEntity neuesLesezeichen( String anzeigename, String url, OrdnerEntity ordner,
+                                               Set<String> tags ) {
+
+        LesezeichenEntity lesezeichen = new LesezeichenEntity( anzeigename, url, ordner );
+        lesezeichen.getTags().addAll( tags );
+        lesezeichen = _lesezeichenRepo.save( lesezeichen );
+
+        _ordnerService.versionHochzaehlen( ordner.getId() );
+        _aenderungsProtokoll.lesezeichenAngelegt( lesezeichen );
+
+        final LesezeichenMitOrdner lesezeichenMitOrdner =
+                new LesezeichenMitOrdner( lesezeichen.getId(), anzeigename, url,
+                                          ordner.getId(), ordner.getName() );
+
+        _eventPublisher.publishEvent( new LesezeichenAngelegtEreignis( lesezeichenMitOrdner ) );
+
+        if ( !tags.isEmpty() ) {
+
+            _eventPublisher.publishEvent( new TagsGeaendertEreignis( lesezeichen.getId(), ordner.getPfad(),
+                                                                     Set.copyOf( tags ) ) );
+        }
+
+        return lesezeichen;
+    }
+
+
+    /**
+     * Ersetzt die Tags eines Lesezeichens und veröffentlicht danach ein
+     * {@link TagsGeaendertEreignis}.
+     *
+     * @param lesezeichenId ID des Lesezeichens
+     *
+     * @param tags Neue Tags, werden normalisiert; leer, um alle Tags zu entfernen
+     *
+     * @return Normalisierte Tags, die jetzt gesetzt sind
+     *
+     * @throws LesezeichenException Kein Lesezeichen mit {@code lesezeichenId} oder ungültiges Tag
+     */
+    @Transactional
+    public Set<String> tagsSetzen( long lesezeichenId, Collection<String> tags ) throws LesezeichenException {
+
+        final Set<String> tagSet = TagIndex.normalisieren( tags ); // throws LesezeichenException
+
+        final LesezeichenEntity lesezeichen =
+                _lesezeichenRepo.findById( lesezeichenId )
+                                .orElseThrow( () -> new LesezeichenException(
+                                                        "Kein Lesezeichen mit ID " + lesezeichenId + " gefunden." ) );
+
+        lesezeichen.getTags().clear();
+        lesezeichen.getTags().addAll( tagSet );
+
+        _eventPublisher.publishEvent( new TagsGeaendertEreignis( lesezeichenId, lesezeichen.getOrdner().getPfad(),
+                                                                 Set.copyOf( tagSet ) ) );
+        return tagSet;
+    }
+
+
+
+    /**
+     * Sucht Lesezeichen mit derselben kanonischen URL (siehe
+     * {@link UrlNormalisierung}), z.B. vor dem Anlegen eines neuen
+     * Lesezeichens. Dafür genügt eine Query über den Index auf dem Hashwert,
+     * unabhängig von der Anzahl der Lesezeichen.
+     *
+     * @param url URL wie eingegeben
+     *
+     * @return Lesezeichen mit gleicher kanonischer URL; leer, wenn es keine gibt
+     */
+    public List<LesezeichenMitOrdner> duplikateSuchen( String url ) {
+
+        final String kanonischeUrl = UrlNormalisierung.normalisieren( url );
+
+        return _lesezeichenRepo.findByUrlHash( UrlNormalisierung.hash( url ) ).stream()
+                               .filter( lesezeichen -> kanonischeUrl.equals(
+                                                           UrlNormalisierung.normalisieren( lesezeichen.url() ) ) )
+                               .toList();
+    }
+
+
+    /**
+     * Bericht über alle Lesezeichen mit doppelten URLs. Die Kandidaten werden
+     * als Stream sortiert nach Hashwert gelesen (JDBC-Fetch-Size 1000), im
+     * Speicher ist also immer nur die aktuelle Gruppe und die Liste der
+     * zurückgegebenen Gruppen.
+     *
+     * @param maxGruppen Maximale Anzahl Gruppen im Ergebnis; gezählt werden
+     *                   trotzdem alle Gruppen
+     *
+     * @return Bericht mit Anzahl der Gruppen und den ersten {@code maxGruppen}
+     *         Gruppen in der Reihenfolge der Hashwerte
+     */
+    @Transactional( readOnly = true )
+    public DuplikatBericht duplikatBericht( int maxGruppen ) {
+
+        final List<DuplikatGruppe>                    gruppenListe    = new ArrayList<>();
+        final Map<String, List<LesezeichenMitOrdner>> aktuelleGruppen = new LinkedHashMap<>();
+
+        int  anzahlGruppen      = 0;
+        int  anzahlUeberzaehlig = 0;
+        long aktuellerHash      = 0;
+
+        try ( Stream<LesezeichenMitOrdner> stream = _lesezeichenRepo.streamDuplikatKandidaten() ) {
+
+            final Iterator<LesezeichenMitOrdner> iterator = stream.iterator();
+            while ( true ) {
+
+                final LesezeichenMitOrdner lesezeichen = iterator.hasNext() ? iterator.next() : null;
+                final long                 hash        = lesezeichen == null ? 0 : UrlNormalisierung.hash( lesezeichen.url() );
+
+                if ( lesezeichen == null || hash != aktuellerHash ) {
+
+                    // vorherigen Hashwert abschließen; bei Kollision mehrere kanonische URLs
+                    for ( Map.Entry<String, List<LesezeichenMitOrdner>> eintrag : aktuelleGruppen.entrySet() ) {
+
+                        if ( eintrag.getValue().size() < 2 ) { continue; }
+
+                        anzahlGruppen++;
+                        anzahlUeberzaehlig += eintrag.getValue().size() - 1;
+                        if ( gruppenListe.size() < maxGruppen ) {
+
+                            gruppenListe.add( new DuplikatGruppe( eintrag.getKey(), eintrag.getValue() ) );
+                        }
+                    }
+                    aktuelleGruppen.clear();
+                    aktuellerHash = hash;
+                }
+                if ( lesezeichen == null ) { break; }
+
+                aktuelleGruppen.computeIfAbsent( UrlNormalisierung.normalisieren( lesezeichen.url() ),
+                                                 k -> new ArrayList<>() )
+                               .add( lesezeichen );
+            }
+        }
+
+        return new DuplikatBericht( anzahlGruppen, anzahlUeberzaehlig, gruppenListe );
+    }
+
+}
@@ -0,0 +1,80 @@
+package de.eldecker.dhbw.spring.weblesezeichen.logik;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import org.springframework.web.util.HtmlUtils;
+
+
+/**
+ * Export im <i>Netscape Bookmark File Format</i>, das von allen gängigen Browsern
+ * importiert werden kann (und von {@link NetscapeHtmlParser} gelesen wird).
+ */
+public class NetscapeHtmlExport implements ExportAusgabe {
+
+    /** Ziel der Ausgabe. */
+    private final Writer _writer;
+
+    /** Aktuelle Einrückung, wächst mit jeder Ordnerebene. */
+    private String _einrueckung = "";
+
+
+    /**
+     * Konstruktor.
+     *
+     * @param writer Ziel der Ausgabe, sollte gepuffert sein
+     */
+    public NetscapeHtmlExport( Writer writer ) {
+
+        _writer = writer;
+    }
+
+
+    @Override
+    public void beginn() throws IOException {
+
+        _writer.write( "<!DOCTYPE NETSCAPE-Bookmark-file-1>\n"                                );
+        _writer.write( "<META HTTP-EQUIV=\"Content-Type\" CONTENT=\"text/html; charset=UTF-8\">\n" );
+        _writer.write( "<TITLE>Bookmarks</TITLE>\n"                                           );
+        _writer.write( "<H1>Bookmarks</H1>\n"                                                 );
+        _writer.write( "<DL><p>\n"                                                            );
+
+        _einrueckung = "    ";
+    }
+
+
+    @Override
+    public void ordnerBeginn( long id, String name ) throws IOException {
+
+        _writer.write( _einrueckung + "<DT><H3>" + HtmlUtils.htmlEscape( name ) + "</H3>\n" );
+        _writer.write( _einrueckung + "<DL><p>\n" );
+
+        _einrueckung += "    ";
+    }
+
+
+    @Override
+    public void ordnerEnde() throws IOException {
+
+        _einrueckung = _einrueckung.substring( 4 );
+
+        _writer.write( _einrueckung + "</DL><p>\n" );
+    }
+
+
+    @Override
+    public void lesezeichen( long id, String name, String url ) throws IOException {
+
+        _writer.write( _einrueckung + "<DT><A HREF=\"" + HtmlUtils.htmlEscape( url ) + "\">" +
+                       HtmlUtils.htmlEscape( name ) + "</A>\n" );
+    }
+
+
+    @Override
+    public void ende() throws IOException {
+
+        _writer.write( "</DL><p>\n" );
+        _writer.flush();
+    }
+
+}
@@ -0,0 +1,101 @@
+package de.eldecker.dhbw.spring.weblesezeichen.logik;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.regex.Pattern.CASE_INSENSITIVE;
+import static java.util.regex.Pattern.DOTALL;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.web.util.HtmlUtils;
+
+
+/**
+ * Parser für Lesezeichen-Dateien im <i>Netscape Bookmark File Format</i>, das von
+ * allen gängigen Browsern beim Export als HTML-Datei geschrieben wird:
+ * <pre>
+ * &lt;DT&gt;&lt;H3&gt;Nachrichten&lt;/H3&gt;
+ * &lt;DL&gt;&lt;p&gt;
+ *     &lt;DT&gt;&lt;A HREF="https://www.heise.de/" ADD_DATE="..."&gt;heise online&lt;/A&gt;
+ * &lt;/DL&gt;&lt;p&gt;
+ * </pre>
+ *
+ * Die Datei wird Zeile für Zeile gelesen, es wird also kein DOM aufgebaut. Ein
+ * {@code DL}-Element direkt nach einer {@code H3}-Überschrift ist der Inhalt
+ * des Ordners mit dieser Überschrift; das äußerste {@code DL}-Element hat keine
+ * Überschrift und erzeugt keinen eigenen Ordner.
+ */
+public class NetscapeHtmlParser implements ImportParser {
+
+    /**
+     * Regulärer Ausdruck für die relevanten Elemente; Gruppen: 1=Ordnername,
+     * 2=URL, 3=Name Lesezeichen, 4="/" bei schließendem {@code DL}-Tag.
+     */
+    private static final Pattern ELEMENT_REGEXP =
+            Pattern.compile( "<H3[^>]*>(.*?)</H3>" +
+                             "|<A\\s[^>]*?HREF=\"([^\"]*)\"[^>]*>(.*?)</A>" +
+                             "|<(/?)DL\\b",
+                             CASE_INSENSITIVE | DOTALL );
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void parse( InputStream eingabe, ImportEmpfaenger empfaenger ) throws IOException {
+
+        final BufferedReader reader = new BufferedReader( new InputStreamReader( eingabe, UTF_8 ) );
+
+        // pro offenem DL-Element: wurde dafür ein Ordner begonnen?
+        final Deque<Boolean> dlStapel = new ArrayDeque<>();
+
+        String ordnerName = null;
+        String zeile;
+        while ( ( zeile = reader.readLine() ) != null ) {
+
+            final Matcher matcher = ELEMENT_REGEXP.matcher( zeile );
+            while ( matcher.find() ) {
+
+                if ( matcher.group( 1 ) != null ) {
+
+                    ordnerName = HtmlUtils.htmlUnescape( matcher.group( 1 ).trim() );
+
+                } else if ( matcher.group( 2 ) != null ) {
+
+                    empfaenger.lesezeichen( HtmlUtils.htmlUnescape( matcher.group( 3 ).trim() ),
+                                            HtmlUtils.htmlUnescape( matcher.group( 2 ).trim() ) );
+
+                } else if ( matcher.group( 4 ).isEmpty() ) {
+
+                    if ( ordnerName != null ) {
+
+                        empfaenger.ordnerBeginn( ordnerName );
+                        dlStapel.push( true );
+                        ordnerName = null;
+
+                    } else {
+
+                        dlStapel.push( false );
+                    }
+
+                } else if ( !dlStapel.isEmpty() && dlStapel.pop() ) {
+
+                    empfaenger.ordnerEnde( null );
+                }
+            }
+        }
+
+        // nicht geschlossene Ordner (abgeschnittene Datei) trotzdem beenden
+        while ( !dlStapel.isEmpty() ) {
+
+            if ( dlStapel.pop() ) { empfaenger.ordnerEnde( null ); }
+        }
+    }
+
+}
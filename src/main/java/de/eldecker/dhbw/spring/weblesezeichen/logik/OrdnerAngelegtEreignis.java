@@ -0,0 +1,21 @@
+package de.eldecker.dhbw.spring.weblesezeichen.logik;
+
+
+/**
+ * Ereignis, das nach dem Anlegen eines neuen Ordners veröffentlicht wird,
+ * siehe {@link OrdnerService#neuerOrdner(String, de.eldecker.dhbw.spring.weblesezeichen.db.entities.OrdnerEntity)};
+ * wird analog zu {@link LesezeichenAngelegtEreignis} erst nach dem Commit der
+ * Transaktion verarbeitet.
+ *
+ * @param id ID des neuen Ordners
+ *
+ * @param name Name des neuen Ordners
+ *
+ * @param vaterId ID des Vaterordners; {@code null} für Wurzelordner
+ *
+ * @param pfad Materialisierter Pfad des neuen Ordners
+ *
+ * @param version Version des neuen Ordners
+ */
+public record OrdnerAngelegtEreignis( Long id, String name, Long vaterId, String pfad, Long version ) {
+}
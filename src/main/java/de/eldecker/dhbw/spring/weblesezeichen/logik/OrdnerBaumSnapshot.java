@@ -0,0 +1,392 @@
+package de.eldecker.dhbw.spring.weblesezeichen.logik;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import de.eldecker.dhbw.spring.weblesezeichen.model.LesezeichenMitOrdner;
+import de.eldecker.dhbw.spring.weblesezeichen.model.OrdnerKnoten;
+import de.eldecker.dhbw.spring.weblesezeichen.model.OrdnerKurzInfo;
+import de.eldecker.dhbw.spring.weblesezeichen.model.OrdnerMitAnzahl;
+
+
+/**
+ * Unveränderlicher Stand ("Snapshot") des ganzen Ordnerbaums inkl. aller
+ * Lesezeichen im Hauptspeicher, aus dem die lesenden Seiten ohne Zugriff auf
+ * die Datenbank und ohne Sperren bedient werden.
+ * <br><br>
+ *
+ * Die Ordner-Knoten liegen in einem nach ID indizierten Array, das in Blöcke
+ * mit {@link #BLOCKGROESSE} Einträgen aufgeteilt ist. Für die flachen Listen
+ * aller Ordner und aller Lesezeichen gibt es je eine
+ * {@link PersistenteSortierteListe}. Änderungen mit {@link #mitOrdner(long, String, Long, String, Long)}
+ * und {@link #mitLesezeichen(LesezeichenMitOrdner)} liefern einen neuen Snapshot,
+ * für den nur die betroffenen Blöcke und Knoten sowie in den Listen die Knoten
+ * auf dem Weg zum betroffenen Blatt kopiert werden; alles andere wird mit dem
+ * alten Snapshot geteilt.
+ */
+public final class OrdnerBaumSnapshot {
+
+    /** Anzahl Knoten pro Block des ID-Arrays (Zweierpotenz). */
+    private static final int BLOCKGROESSE = 1024;
+
+    /** Zweierlogarithmus von {@link #BLOCKGROESSE}. */
+    private static final int BLOCK_BITS = 10;
+
+    /** Laufende Nummer des Snapshots, wird bei jeder Änderung erhöht. */
+    private final long _version;
+
+    /** ID des Wurzelordners; {@code null}, wenn es noch keinen Ordner gibt. */
+    private final Long _wurzelId;
+
+    /** Ordner-Knoten nach ID; Blöcke ohne Knoten sind {@code null}. */
+    private final OrdnerKnoten[][] _bloecke;
+
+    /** Alle Ordner, sortiert nach Name ohne Groß-/Kleinschreibung und ID. */
+    private final PersistenteSortierteListe<OrdnerKurzInfo> _alleOrdner;
+
+    /** Alle Lesezeichen, sortiert nach Name und ID. */
+    private final PersistenteSortierteListe<LesezeichenMitOrdner> _alleLesezeichen;
+
+
+    /**
+     * Privater Konstruktor, Objekte werden mit {@link #aufbauen(List)} oder
+     * den {@code mit...}-Methoden erzeugt.
+     */
+    private OrdnerBaumSnapshot( long version,
+                                Long wurzelId,
+                                OrdnerKnoten[][] bloecke,
+                                PersistenteSortierteListe<OrdnerKurzInfo> alleOrdner,
+                                PersistenteSortierteListe<LesezeichenMitOrdner> alleLesezeichen ) {
+
+        _version         = version;
+        _wurzelId        = wurzelId;
+        _bloecke         = bloecke;
+        _alleOrdner      = alleOrdner;
+        _alleLesezeichen = alleLesezeichen;
+    }
+
+
+    /**
+     * Baut einen Snapshot aus fertigen Knoten auf.
+     *
+     * @param knotenListe Alle Ordner-Knoten; Unterordner und Lesezeichen in den
+     *                    Knoten müssen schon sortiert sein
+     *
+     * @return Neuer Snapshot mit Version 1
+     */
+    public static OrdnerBaumSnapshot aufbauen( List<OrdnerKnoten> knotenListe ) {
+
+        OrdnerKnoten[][] bloecke = new OrdnerKnoten[ 0 ][];
+        Long wurzelId = null;
+
+        final List<OrdnerKurzInfo>       ordnerListe      = new ArrayList<>( knotenListe.size() );
+        final List<LesezeichenMitOrdner> lesezeichenListe = new ArrayList<>();
+
+        for ( OrdnerKnoten knoten : knotenListe ) {
+
+            bloecke = setzen( bloecke, knoten, false );
+            if ( knoten.istWurzel() && wurzelId == null ) { wurzelId = knoten.id(); }
+
+            ordnerListe.add( new OrdnerKurzInfo( knoten.id(), knoten.name() ) );
+            lesezeichenListe.addAll( knoten.lesezeichen() );
+        }
+
+        ordnerListe.sort( OrdnerKnoten.ORDNERLISTE_SORTIERUNG );
+        lesezeichenListe.sort( OrdnerKnoten.LESEZEICHEN_SORTIERUNG );
+
+        return new OrdnerBaumSnapshot( 1, wurzelId, bloecke,
+                                       PersistenteSortierteListe.aus( ordnerListe     , OrdnerKnoten.ORDNERLISTE_SORTIERUNG ),
+                                       PersistenteSortierteListe.aus( lesezeichenListe, OrdnerKnoten.LESEZEICHEN_SORTIERUNG ) );
+    }
+
+
+    /**
+     * Laufende Nummer des Snapshots.
+     *
+     * @return Version, beginnend mit 1
+     */
+    public long getVersion() {
+
+        return _version;
+    }
+
+
+    /**
+     * ID des Wurzelordners.
+     *
+     * @return ID oder {@code null}, wenn es keinen Ordner gibt
+     */
+    public Long getWurzelId() {
+
+        return _wurzelId;
+    }
+
+
+    /**
+     * Anzahl aller Ordner.
+     *
+     * @return Anzahl Ordner
+     */
+    public int getAnzahlOrdner() {
+
+        return _alleOrdner.groesse();
+    }
+
+
+    /**
+     * Anzahl aller Lesezeichen.
+     *
+     * @return Anzahl Lesezeichen
+     */
+    public int getAnzahlLesezeichen() {
+
+        return _alleLesezeichen.groesse();
+    }
+
+
+    /**
+     * Ordner-Knoten mit ID holen.
+     *
+     * @param ordnerId ID des Ordners
+     *
+     * @return Knoten oder {@code null}, wenn es keinen Ordner mit {@code ordnerId} gibt
+     */
+    public OrdnerKnoten getOrdner( long ordnerId ) {
+
+        if ( ordnerId < 0 ) { return null; }
+
+        final long blockIndex = ordnerId >>> BLOCK_BITS;
+        if ( blockIndex >= _bloecke.length ) { return null; }
+
+        final OrdnerKnoten[] block = _bloecke[ (int) blockIndex ];
+
+        return block == null ? null : block[ (int) ( ordnerId & ( BLOCKGROESSE - 1 ) ) ];
+    }
+
+
+    /**
+     * Pfad von der Wurzel bis zum Ordner für die "Brotkrumen"-Navigation.
+     *
+     * @param ordnerId ID des Ordners
+     *
+     * @return Liste beginnend mit der Wurzel und endend mit dem Ordner;
+     *         leer, wenn es den Ordner nicht gibt
+     */
+    public List<OrdnerKurzInfo> getPfadVonWurzel( long ordnerId ) {
+
+        final List<OrdnerKurzInfo> ergebnisListe = new ArrayList<>();
+
+        OrdnerKnoten knoten = getOrdner( ordnerId );
+        while ( knoten != null ) {
+
+            ergebnisListe.add( new OrdnerKurzInfo( knoten.id(), knoten.name() ) );
+            knoten = knoten.istWurzel() ? null : getOrdner( knoten.vaterId() );
+        }
+        Collections.reverse( ergebnisListe );
+
+        return ergebnisListe;
+    }
+
+
+    /**
+     * Ordner für "Nächste Seite" in der Ordnerliste.
+     *
+     * @param nachName Name des letzten Ordners der vorherigen Seite;
+     *                 {@code null} für erste Seite
+     *
+     * @param nachId ID des letzten Ordners der vorherigen Seite
+     *
+     * @param anzahl Maximale Anzahl Ordner
+     *
+     * @return Ordner mit Anzahl Lesezeichen, aufsteigend sortiert
+     */
+    public List<OrdnerMitAnzahl> getOrdnerNach( String nachName, Long nachId, int anzahl ) {
+
+        final OrdnerKurzInfo cursor = nachName == null ? null : new OrdnerKurzInfo( nachId, nachName );
+
+        return mitAnzahl( _alleOrdner.nach( cursor, anzahl ) );
+    }
+
+
+    /**
+     * Ordner für "Vorherige Seite" in der Ordnerliste.
+     *
+     * @param vorName Name des ersten Ordners der nachfolgenden Seite
+     *
+     * @param vorId ID des ersten Ordners der nachfolgenden Seite
+     *
+     * @param anzahl Maximale Anzahl Ordner
+     *
+     * @return Ordner mit Anzahl Lesezeichen, <b>absteigend</b> sortiert
+     *         (wie die entsprechende Repo-Methode)
+     */
+    public List<OrdnerMitAnzahl> getOrdnerVor( String vorName, Long vorId, int anzahl ) {
+
+        return mitAnzahl( _alleOrdner.vor( new OrdnerKurzInfo( vorId, vorName ), anzahl ) );
+    }
+
+
+    /**
+     * Lesezeichen für "Nächste Seite" in der Lesezeichenliste.
+     *
+     * @param nachName Name des letzten Lesezeichens der vorherigen Seite;
+     *                 {@code null} für erste Seite
+     *
+     * @param nachId ID des letzten Lesezeichens der vorherigen Seite
+     *
+     * @param anzahl Maximale Anzahl Lesezeichen
+     *
+     * @return Lesezeichen, aufsteigend sortiert
+     */
+    public List<LesezeichenMitOrdner> getLesezeichenNach( String nachName, Long nachId, int anzahl ) {
+
+        final LesezeichenMitOrdner cursor =
+                nachName == null ? null : new LesezeichenMitOrdner( nachId, nachName, null, null, null );
+
+        return _alleLesezeichen.nach( cursor, anzahl );
+    }
+
+
+    /**
+     * Lesezeichen für "Vorherige Seite" in der Lesezeichenliste.
+     *
+     * @param vorName Name des ersten Lesezeichens der nachfolgenden Seite
+     *
+     * @param vorId ID des ersten Lesezeichens der nachfolgenden Seite
+     *
+     * @param anzahl Maximale Anzahl Lesezeichen
+     *
+     * @return Lesezeichen, <b>absteigend</b> sortiert
+     */
+    public List<LesezeichenMitOrdner> getLesezeichenVor( String vorName, Long vorId, int anzahl ) {
+
+        return _alleLesezeichen.vor( new LesezeichenMitOrdner( vorId, vorName, null, null, null ), anzahl );
+    }
+
+
+    /**
+     * Neuen Snapshot mit zusätzlichem Ordner erzeugen.
+     *
+     * @param id ID des neuen Ordners
+     *
+     * @param name Name des neuen Ordners
+     *
+     * @param vaterId ID des Vaterordners; {@code null} für Wurzelordner
+     *
+     * @param pfad Materialisierter Pfad des neuen Ordners
+     *
+     * @param version Version des neuen Ordners
+     *
+     * @return Neuer Snapshot; dieser Snapshot selbst, wenn der Ordner schon
+     *         enthalten ist oder der Vaterordner (noch) nicht bekannt ist
+     */
+    public OrdnerBaumSnapshot mitOrdner( long id, String name, Long vaterId, String pfad, Long version ) {
+
+        if ( getOrdner( id ) != null ) { return this; }
+
+        final OrdnerKnoten vater = vaterId == null ? null : getOrdner( vaterId );
+        if ( vaterId != null && vater == null ) { return this; }
+
+        final OrdnerKnoten   neuerKnoten = new OrdnerKnoten( id, name, vaterId, pfad, version, List.of(), List.of() );
+        final OrdnerKurzInfo kurzInfo    = new OrdnerKurzInfo( id, name );
+
+        OrdnerKnoten[][] bloecke = setzen( _bloecke, neuerKnoten, true );
+        if ( vater != null ) {
+
+            bloecke = setzen( bloecke, vater.mitUnterordner( kurzInfo ), true );
+        }
+
+        final Long wurzelId = _wurzelId == null && vaterId == null ? Long.valueOf( id ) : _wurzelId;
+
+        return new OrdnerBaumSnapshot( _version + 1, wurzelId, bloecke,
+                                       _alleOrdner.einfuegen( kurzInfo ), _alleLesezeichen );
+    }
+
+
+    /**
+     * Neuen Snapshot mit zusätzlichem Lesezeichen erzeugen.
+     *
+     * @param lesezeichen Neues Lesezeichen
+     *
+     * @return Neuer Snapshot; dieser Snapshot selbst, wenn das Lesezeichen schon
+     *         enthalten ist oder der Ordner (noch) nicht bekannt ist
+     */
+    public OrdnerBaumSnapshot mitLesezeichen( LesezeichenMitOrdner lesezeichen ) {
+
+        final OrdnerKnoten ordner = getOrdner( lesezeichen.ordnerId() );
+        if ( ordner == null ) { return this; }
+
+        for ( LesezeichenMitOrdner vorhanden : ordner.lesezeichen() ) {
+
+            if ( vorhanden.id().equals( lesezeichen.id() ) ) { return this; }
+        }
+
+        final OrdnerKnoten[][] bloecke = setzen( _bloecke, ordner.mitLesezeichen( lesezeichen ), true );
+
+        return new OrdnerBaumSnapshot( _version + 1, _wurzelId, bloecke,
+                                       _alleOrdner, _alleLesezeichen.einfuegen( lesezeichen ) );
+    }
+
+
+    /**
+     * Knoten im ID-Array setzen.
+     *
+     * @param bloecke Bisheriges Array mit Blöcken
+     *
+     * @param knoten Zu setzender Knoten
+     *
+     * @param kopieren {@code true}: äußeres Array und betroffenen Block kopieren
+     *                 (Copy-on-Write); {@code false}: Arrays direkt ändern, nur
+     *                 beim Aufbau eines neuen Snapshots
+     *
+     * @return Array mit dem Knoten, evtl. vergrößert
+     */
+    private static OrdnerKnoten[][] setzen( OrdnerKnoten[][] bloecke, OrdnerKnoten knoten, boolean kopieren ) {
+
+        final int blockIndex = (int) ( knoten.id() >>> BLOCK_BITS );
+        final int position   = (int) ( knoten.id() & ( BLOCKGROESSE - 1 ) );
+
+        OrdnerKnoten[][] ergebnis = bloecke;
+        if ( blockIndex >= bloecke.length ) {
+
+            ergebnis = new OrdnerKnoten[ Math.max( blockIndex + 1, bloecke.length * 2 ) ][];
+            System.arraycopy( bloecke, 0, ergebnis, 0, bloecke.length );
+
+        } else if ( kopieren ) {
+
+            ergebnis = bloecke.clone();
+        }
+
+        OrdnerKnoten[] block = ergebnis[ blockIndex ];
+        if ( block == null ) {
+
+            block = new OrdnerKnoten[ BLOCKGROESSE ];
+
+        } else if ( kopieren ) {
+
+            block = block.clone();
+        }
+        block[ position ] = knoten;
+        ergebnis[ blockIndex ] = block;
+
+        return ergebnis;
+    }
+
+
+    /**
+     * Ergänzt Ordner um die Anzahl der enthaltenen Lesezeichen.
+     */
+    private List<OrdnerMitAnzahl> mitAnzahl( List<OrdnerKurzInfo> ordnerListe ) {
+
+        final List<OrdnerMitAnzahl> ergebnisListe = new ArrayList<>( ordnerListe.size() );
+        for ( OrdnerKurzInfo ordner : ordnerListe ) {
+
+            final OrdnerKnoten knoten = getOrdner( ordner.id() );
+            ergebnisListe.add( new OrdnerMitAnzahl( ordner.id(), ordner.name(), (long) knoten.lesezeichen().size() ) );
+        }
+
+        return ergebnisListe;
+    }
+
+}
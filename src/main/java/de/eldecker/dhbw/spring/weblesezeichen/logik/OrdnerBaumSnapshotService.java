@@ -0,0 +1,266 @@
+package de.eldecker.dhbw.spring.weblesezeichen.logik;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import de.eldecker.dhbw.spring.weblesezeichen.db.repos.OrdnerRepo;
+import de.eldecker.dhbw.spring.weblesezeichen.model.ExportZeile;
+import de.eldecker.dhbw.spring.weblesezeichen.model.LesezeichenMitOrdner;
+import de.eldecker.dhbw.spring.weblesezeichen.model.OrdnerKnoten;
+import de.eldecker.dhbw.spring.weblesezeichen.model.OrdnerKurzInfo;
+
+
+/**
+ * Diese Service-Bean hält den aktuellen {@link OrdnerBaumSnapshot}. Lesende
+ * Zugriffe holen sich mit {@link #getSnapshot()} den aktuellen Stand, ohne
+ * dass dafür eine Sperre nötig ist; Änderungen erzeugen einen neuen Snapshot,
+ * der mit einer atomaren Referenz veröffentlicht wird (Copy-on-Write).
+ * <br><br>
+ *
+ * Der Snapshot wird beim Start der Anwendung mit einer einzigen Query
+ * aufgebaut und danach bei jedem neuen Ordner bzw. Lesezeichen inkrementell
+ * ergänzt; nur nach einem Import wird er komplett neu aufgebaut.
+ * <br><br>
+ *
+ * Mit {@code lesezeichen.snapshot.aktiv=false} kann der Snapshot abgeschaltet
+ * werden, die Controller lesen dann wieder über JPA aus der Datenbank.
+ */
+@Service
+public class OrdnerBaumSnapshotService {
+
+    private final static Logger LOG = LoggerFactory.getLogger( OrdnerBaumSnapshotService.class );
+
+    /** Repo-Bean für Zugriff auf Ordner. */
+    private OrdnerRepo _ordnerRepo;
+
+    /** Für Lese-Transaktion beim Aufbau, da die Query einen Stream liefert. */
+    private TransactionTemplate _txTemplate;
+
+    /** Wenn {@code false}, dann wird kein Snapshot aufgebaut. */
+    private boolean _aktiv;
+
+    /** Aktueller Snapshot; {@code null}, solange er noch nicht aufgebaut ist. */
+    private final AtomicReference<OrdnerBaumSnapshot> _snapshot = new AtomicReference<>();
+
+    /**
+     * Sperre für Änderungen am Snapshot. Es wird kein {@code synchronized}
+     * verwendet, weil ein virtueller Thread beim Warten auf die Datenbank in
+     * einem {@code synchronized}-Block seinen Träger-Thread blockieren würde
+     * (<i>Pinning</i>).
+     */
+    private final ReentrantLock _sperre = new ReentrantLock();
+
+
+    /**
+     * Konstruktor für <i>Dependency Injection</i>.
+     */
+    @Autowired
+    public OrdnerBaumSnapshotService( OrdnerRepo ordnerRepo,
+                                      PlatformTransactionManager txManager,
+                                      @Value( "${lesezeichen.snapshot.aktiv:true}" ) boolean aktiv ) {
+
+        _ordnerRepo = ordnerRepo;
+        _aktiv      = aktiv;
+
+        _txTemplate = new TransactionTemplate( txManager );
+        _txTemplate.setReadOnly( true );
+    }
+
+
+    /**
+     * Aktueller Snapshot für lesende Zugriffe.
+     *
+     * @return Snapshot oder {@code null}, wenn der Snapshot abgeschaltet oder
+     *         noch nicht aufgebaut ist; der Aufrufer muss dann aus der
+     *         Datenbank lesen
+     */
+    public OrdnerBaumSnapshot getSnapshot() {
+
+        return _snapshot.get();
+    }
+
+
+    /**
+     * Baut den Snapshot nach dem Start der Anwendung (also auch nach Import der
+     * Beispieldaten und der Datenmigration) komplett neu auf.
+     */
+    @EventListener( ApplicationReadyEvent.class )
+    public void neuAufbauen() {
+
+        if ( !_aktiv ) { return; }
+
+        _sperre.lock();
+        try {
+
+            final long zeitStart = System.currentTimeMillis();
+
+            final List<OrdnerKnoten> knotenListe = _txTemplate.execute( status -> ladeKnoten() );
+            final OrdnerBaumSnapshot snapshot    = OrdnerBaumSnapshot.aufbauen( knotenListe );
+
+            _snapshot.set( snapshot );
+
+            LOG.info( "Snapshot mit {} Ordnern und {} Lesezeichen in {} ms aufgebaut.",
+                      snapshot.getAnzahlOrdner(), snapshot.getAnzahlLesezeichen(),
+                      System.currentTimeMillis() - zeitStart );
+
+        } finally {
+
+            _sperre.unlock();
+        }
+    }
+
+
+    /**
+     * Nach einem Import wird der Snapshot neu aufgebaut.
+     *
+     * @param ereignis Ereignis mit Stand des Imports
+     */
+    @EventListener
+    public void onImportBeendet( ImportBeendetEreignis ereignis ) {
+
+        if ( _snapshot.get() != null ) {
+
+            neuAufbauen();
+        }
+    }
+
+
+    /**
+     * Neuen Ordner nach dem Commit der Transaktion in den Snapshot aufnehmen.
+     *
+     * @param ereignis Ereignis mit neuem Ordner
+     */
+    @TransactionalEventListener( fallbackExecution = true )
+    public void onOrdnerAngelegt( OrdnerAngelegtEreignis ereignis ) {
+
+        _sperre.lock();
+        try {
+
+            final OrdnerBaumSnapshot alt = _snapshot.get();
+            if ( alt == null ) { return; }
+
+            _snapshot.set( alt.mitOrdner( ereignis.id(), ereignis.name(), ereignis.vaterId(),
+                                          ereignis.pfad(), ereignis.version() ) );
+
+        } finally {
+
+            _sperre.unlock();
+        }
+    }
+
+
+    /**
+     * Neues Lesezeichen nach dem Commit der Transaktion in den Snapshot aufnehmen.
+     *
+     * @param ereignis Ereignis mit neuem Lesezeichen
+     */
+    @TransactionalEventListener( fallbackExecution = true )
+    public void onLesezeichenAngelegt( LesezeichenAngelegtEreignis ereignis ) {
+
+        _sperre.lock();
+        try {
+
+            final OrdnerBaumSnapshot alt = _snapshot.get();
+            if ( alt == null ) { return; }
+
+            _snapshot.set( alt.mitLesezeichen( ereignis.lesezeichen() ) );
+
+        } finally {
+
+            _sperre.unlock();
+        }
+    }
+
+
+    /**
+     * Lädt alle Ordner mit ihren Lesezeichen; muss in einer Transaktion
+     * aufgerufen werden. Da die Zeilen nach dem materialisierten Pfad sortiert
+     * sind, kommt jeder Vaterordner vor seinen Unterordnern.
+     *
+     * @return Liste aller Knoten mit sortierten Unterordnern und Lesezeichen
+     */
+    private List<OrdnerKnoten> ladeKnoten() {
+
+        final Map<Long, OrdnerKnoten>               knotenMap       = new HashMap<>();
+        final Map<Long, List<OrdnerKurzInfo>>       unterordnerMap  = new HashMap<>();
+        final Map<Long, List<LesezeichenMitOrdner>> lesezeichenMap  = new HashMap<>();
+
+        try ( Stream<ExportZeile> zeilenStream = _ordnerRepo.streamExportZeilen() ) {
+
+            zeilenStream.forEach( zeile -> {
+
+                if ( !knotenMap.containsKey( zeile.ordnerId() ) ) {
+
+                    final Long vaterId = vaterIdAusPfad( zeile.ordnerPfad() );
+
+                    knotenMap.put( zeile.ordnerId(),
+                                   new OrdnerKnoten( zeile.ordnerId(), zeile.ordnerName(), vaterId,
+                                                     zeile.ordnerPfad(), zeile.ordnerVersion(), null, null ) );
+                    unterordnerMap.put( zeile.ordnerId(), new ArrayList<>() );
+                    lesezeichenMap.put( zeile.ordnerId(), new ArrayList<>() );
+
+                    if ( vaterId != null && unterordnerMap.containsKey( vaterId ) ) {
+
+                        unterordnerMap.get( vaterId ).add( new OrdnerKurzInfo( zeile.ordnerId(), zeile.ordnerName() ) );
+                    }
+                }
+
+                if ( zeile.lesezeichenId() != null ) {
+
+                    // Zeilen pro Ordner schon nach Name und ID der Lesezeichen sortiert
+                    lesezeichenMap.get( zeile.ordnerId() )
+                                  .add( new LesezeichenMitOrdner( zeile.lesezeichenId(), zeile.lesezeichenName(),
+                                                                  zeile.url(), zeile.ordnerId(), zeile.ordnerName() ) );
+                }
+            });
+        }
+
+        final List<OrdnerKnoten> ergebnisListe = new ArrayList<>( knotenMap.size() );
+        for ( OrdnerKnoten knoten : knotenMap.values() ) {
+
+            final List<OrdnerKurzInfo> unterordnerListe = unterordnerMap.get( knoten.id() );
+            unterordnerListe.sort( OrdnerKnoten.ORDNER_SORTIERUNG );
+
+            ergebnisListe.add( new OrdnerKnoten( knoten.id(), knoten.name(), knoten.vaterId(), knoten.pfad(), knoten.version(),
+                                                 List.copyOf( unterordnerListe ),
+                                                 List.copyOf( lesezeichenMap.get( knoten.id() ) ) ) );
+        }
+
+        return ergebnisListe;
+    }
+
+
+    /**
+     * ID des Vaterordners aus dem materialisierten Pfad bestimmen.
+     *
+     * @param pfad Pfad, z.B. {@code /1/3/7/}; darf {@code null} sein
+     *
+     * @return ID des Vaterordners, z.B. 3; {@code null} für Wurzelordner
+     */
+    private static Long vaterIdAusPfad( String pfad ) {
+
+        if ( pfad == null ) { return null; }
+
+        final List<Long> idListe = OrdnerService.pfadZuIds( pfad );
+
+        return idListe.size() < 2 ? null : idListe.get( idListe.size() - 2 );
+    }
+
+}
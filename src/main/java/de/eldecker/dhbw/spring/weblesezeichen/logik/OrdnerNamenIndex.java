@@ -0,0 +1,462 @@
+package de.eldecker.dhbw.spring.weblesezeichen.logik;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import de.eldecker.dhbw.spring.weblesezeichen.db.repos.OrdnerRepo;
+import de.eldecker.dhbw.spring.weblesezeichen.model.OrdnerVorschlag;
+
+
+/**
+ * Index der Ordnernamen im Hauptspeicher für Vorschläge bei der Eingabe
+ * (<i>Type-Ahead</i>) und für die Prüfung, ob es einen Ordnernamen schon
+ * gibt; ersetzt dafür die Abfragen mit {@code LOWER(name)}, für die die
+ * Datenbank keinen Index verwenden kann.
+ * <br><br>
+ *
+ * Die Namen liegen kleingeschrieben in einem sortierten Array; alle Namen
+ * mit einem bestimmten Anfang stehen darin direkt hintereinander und werden
+ * mit binärer Suche gefunden. Damit nicht jeder neue Ordner das ganze Array
+ * kopiert, kommen neue Ordner zuerst in ein kleines, ebenfalls sortiertes
+ * Array, das erst bei {@value #MAX_NEU} Einträgen mit dem großen Array
+ * zusammengeführt wird. Abgefragt werden immer beide Arrays.
+ * <br><br>
+ *
+ * Beide Arrays werden nach dem Anlegen nicht mehr verändert, sondern bei
+ * jeder Änderung gemeinsam durch einen neuen {@link Stand} ersetzt; Abfragen
+ * brauchen deshalb keine Sperre. Der Index wird beim Start der Anwendung
+ * und nach jedem Import aus der Datenbank aufgebaut und dazwischen bei jedem
+ * neuen Ordner ergänzt.
+ * <br><br>
+ *
+ * Beim Aufbau wird der neue Stand ohne Sperre aus der Datenbank gelesen und
+ * erst danach unter der Sperre eingesetzt; Ordner, die währenddessen angelegt
+ * werden, werden vorgemerkt und in den neuen Stand übernommen.
+ */
+@Service
+public class OrdnerNamenIndex {
+
+    private final static Logger LOG = LoggerFactory.getLogger( OrdnerNamenIndex.class );
+
+    /** Maximale Anzahl Einträge im Array für neue Ordner. */
+    private static final int MAX_NEU = 512;
+
+    /** Trennzeichen zwischen den Ordnernamen im Pfad. */
+    private static final String PFAD_TRENNER = " / ";
+
+    /** Sortierung der Einträge: nach kleingeschriebenem Namen, dann nach ID. */
+    private static final Comparator<Eintrag> SORTIERUNG =
+            Comparator.comparing( Eintrag::schluessel ).thenComparingLong( Eintrag::id );
+
+    /**
+     * Eintrag für einen Ordner.
+     *
+     * @param schluessel Name kleingeschrieben, nach dem sortiert wird
+     *
+     * @param id ID des Ordners
+     *
+     * @param name Name wie gespeichert
+     *
+     * @param pfad Materialisierter Pfad, z.B. {@code /1/3/7/}
+     */
+    private record Eintrag( String schluessel, long id, String name, String pfad ) {}
+
+    /**
+     * Unveränderlicher Stand des Index.
+     *
+     * @param sortiert Einträge aller Ordner bis zum letzten Zusammenführen
+     *
+     * @param neu Einträge der seitdem angelegten Ordner, höchstens {@value #MAX_NEU}
+     *
+     * @param namen Name pro Ordner-ID für die Anzeige der Pfade; wird nur
+     *              ergänzt, bevor ein neuer Stand veröffentlicht wird
+     */
+    private record Stand( Eintrag[] sortiert, Eintrag[] neu, Map<Long, String> namen ) {}
+
+    /** Repo-Bean für Zugriff auf Ordner. */
+    private OrdnerRepo _ordnerRepo;
+
+    /** Für Lese-Transaktion beim Aufbau, da die Query einen Stream liefert. */
+    private TransactionTemplate _txTemplate;
+
+    /** Aktueller Stand, wird nur unter {@link #_sperre} ersetzt. */
+    private volatile Stand _stand = new Stand( new Eintrag[ 0 ], new Eintrag[ 0 ], new ConcurrentHashMap<>() );
+
+    /**
+     * Ereignisse für neue Ordner, die während eines Aufbaus eingetroffen sind;
+     * {@code null}, wenn gerade kein Aufbau läuft. Nur unter {@link #_sperre}.
+     */
+    private List<OrdnerAngelegtEreignis> _vorgemerkt = null;
+
+    /** Sperre für das Ersetzen von {@link #_stand}; wird nur kurz gehalten. */
+    private final ReentrantLock _sperre = new ReentrantLock();
+
+    /** Sperre, damit nicht zwei Aufbauten gleichzeitig laufen. */
+    private final ReentrantLock _aufbauSperre = new ReentrantLock();
+
+
+    /**
+     * Konstruktor für <i>Dependency Injection</i>.
+     */
+    @Autowired
+    public OrdnerNamenIndex( OrdnerRepo ordnerRepo,
+                             PlatformTransactionManager txManager ) {
+
+        _ordnerRepo = ordnerRepo;
+
+        _txTemplate = new TransactionTemplate( txManager );
+        _txTemplate.setReadOnly( true );
+    }
+
+
+    /**
+     * Baut den Index nach dem Start der Anwendung neu auf. Während aus der
+     * Datenbank gelesen wird, wird {@link #_sperre} nicht gehalten, neue
+     * Ordner werden also nicht blockiert.
+     */
+    @EventListener( ApplicationReadyEvent.class )
+    public void neuAufbauen() {
+
+        _aufbauSperre.lock();
+        try {
+
+            _sperre.lock();
+            try {
+
+                _vorgemerkt = new ArrayList<>();
+            }
+            finally {
+
+                _sperre.unlock();
+            }
+
+            final Stand standNeu = ausDatenbankLesen();
+
+            _sperre.lock();
+            try {
+
+                _stand = standNeu;
+                for ( OrdnerAngelegtEreignis ereignis : _vorgemerkt ) {
+
+                    hinzufuegen( ereignis );
+                }
+                _vorgemerkt = null;
+            }
+            finally {
+
+                _sperre.unlock();
+            }
+        }
+        finally {
+
+            _aufbauSperre.unlock();
+        }
+    }
+
+
+    /**
+     * Liest alle Ordner aus der Datenbank und erzeugt daraus einen neuen Stand.
+     *
+     * @return Neuer Stand mit leerem Array für neue Ordner
+     */
+    private Stand ausDatenbankLesen() {
+
+        final long zeitStart = System.currentTimeMillis();
+
+        final List<Eintrag>     eintragListe = new ArrayList<>();
+        final Map<Long, String> namen        = new ConcurrentHashMap<>();
+
+        _txTemplate.executeWithoutResult( status -> {
+
+            try ( Stream<Object[]> stream = _ordnerRepo.streamIdNamePfad() ) {
+
+                stream.forEach( zeile -> {
+
+                    final Long   id   = (Long)   zeile[ 0 ];
+                    final String name = (String) zeile[ 1 ];
+
+                    eintragListe.add( neuerEintrag( id, name, (String) zeile[ 2 ] ) );
+                    namen.put( id, name );
+                });
+            }
+        });
+
+        final Eintrag[] sortiert = eintragListe.toArray( new Eintrag[ 0 ] );
+        Arrays.sort( sortiert, SORTIERUNG );
+
+        LOG.info( "Index der Ordnernamen mit {} Ordnern in {} ms aufgebaut.",
+                  sortiert.length, System.currentTimeMillis() - zeitStart );
+
+        return new Stand( sortiert, new Eintrag[ 0 ], namen );
+    }
+
+
+    /**
+     * Nach einem Import wird der Index neu aufgebaut, da der Import Ordner
+     * an {@link OrdnerService} vorbei anlegt.
+     *
+     * @param ereignis Ereignis mit Stand des Imports
+     */
+    @EventListener
+    public void onImportBeendet( ImportBeendetEreignis ereignis ) {
+
+        neuAufbauen();
+    }
+
+
+    /**
+     * Neuen Ordner nach dem Commit der Transaktion in den Index aufnehmen.
+     *
+     * @param ereignis Ereignis mit neuem Ordner
+     */
+    @TransactionalEventListener( fallbackExecution = true )
+    public void onOrdnerAngelegt( OrdnerAngelegtEreignis ereignis ) {
+
+        _sperre.lock();
+        try {
+
+            if ( _vorgemerkt != null ) { _vorgemerkt.add( ereignis ); }
+
+            hinzufuegen( ereignis );
+        }
+        finally {
+
+            _sperre.unlock();
+        }
+    }
+
+
+    /**
+     * Nimmt einen neuen Ordner in den aktuellen Stand auf; nur unter {@link #_sperre}.
+     *
+     * @param ereignis Ereignis mit neuem Ordner
+     */
+    private void hinzufuegen( OrdnerAngelegtEreignis ereignis ) {
+
+        final Stand stand = _stand;
+        if ( stand.namen().containsKey( ereignis.id() ) ) { return; } // schon beim Aufbau gelesen
+
+        stand.namen().put( ereignis.id(), ereignis.name() );
+
+        final Eintrag eintrag = neuerEintrag( ereignis.id(), ereignis.name(), ereignis.pfad() );
+
+        final Eintrag[] neu = einfuegen( stand.neu(), eintrag );
+        if ( neu.length < MAX_NEU ) {
+
+            _stand = new Stand( stand.sortiert(), neu, stand.namen() );
+
+        } else {
+
+            _stand = new Stand( zusammenfuehren( stand.sortiert(), neu ), new Eintrag[ 0 ], stand.namen() );
+        }
+    }
+
+
+    /**
+     * Vorschläge für einen eingegebenen Anfang eines Ordnernamens.
+     *
+     * @param anfang Anfang des Namens, Groß-/Kleinschreibung wird ignoriert
+     *
+     * @param maxAnzahl Maximale Anzahl Vorschläge
+     *
+     * @return Ordner, deren Name mit {@code anfang} beginnt, sortiert nach Name;
+     *         leer, wenn {@code anfang} leer ist
+     */
+    public List<OrdnerVorschlag> vorschlaege( String anfang, int maxAnzahl ) {
+
+        final List<OrdnerVorschlag> ergebnisListe = new ArrayList<>();
+
+        final String praefix = normalisieren( anfang );
+        if ( praefix.isEmpty() ) { return ergebnisListe; }
+
+        final Stand stand = _stand;
+
+        final Eintrag[] sortiert = stand.sortiert();
+        final Eintrag[] neu      = stand.neu();
+
+        int posSortiert = untereGrenze( sortiert, praefix );
+        int posNeu      = untereGrenze( neu     , praefix );
+
+        while ( ergebnisListe.size() < maxAnzahl ) {
+
+            final Eintrag kandidatSortiert = treffer( sortiert, posSortiert, praefix );
+            final Eintrag kandidatNeu      = treffer( neu     , posNeu     , praefix );
+
+            final Eintrag eintrag;
+            if ( kandidatSortiert == null && kandidatNeu == null ) {
+
+                break;
+
+            } else if ( kandidatNeu == null ||
+                        ( kandidatSortiert != null && SORTIERUNG.compare( kandidatSortiert, kandidatNeu ) <= 0 ) ) {
+
+                eintrag = kandidatSortiert;
+                posSortiert++;
+
+            } else {
+
+                eintrag = kandidatNeu;
+                posNeu++;
+            }
+
+            ergebnisListe.add( new OrdnerVorschlag( eintrag.id(), eintrag.name(), pfadText( eintrag, stand.namen() ) ) );
+        }
+
+        return ergebnisListe;
+    }
+
+
+    /**
+     * Prüft, ob es schon einen Ordner mit dem Namen gibt.
+     *
+     * @param name Name des Ordners, Groß-/Kleinschreibung wird ignoriert
+     *
+     * @return {@code true} gdw. es einen Ordner mit genau diesem Namen
+     *         (bis auf Groß-/Kleinschreibung) gibt
+     */
+    public boolean enthaelt( String name ) {
+
+        final String schluessel = normalisieren( name );
+        final Stand  stand      = _stand;
+
+        return istGleich( stand.sortiert(), untereGrenze( stand.sortiert(), schluessel ), schluessel ) ||
+               istGleich( stand.neu()     , untereGrenze( stand.neu()     , schluessel ), schluessel );
+    }
+
+
+    /**
+     * Name für Vergleich aufbereiten.
+     */
+    private static String normalisieren( String name ) {
+
+        return name == null ? "" : name.trim().toLowerCase( Locale.ROOT );
+    }
+
+
+    /**
+     * Eintrag für Ordner erzeugen.
+     */
+    private static Eintrag neuerEintrag( Long id, String name, String pfad ) {
+
+        return new Eintrag( normalisieren( name ), id, name, pfad );
+    }
+
+
+    /**
+     * Position des ersten Eintrags, dessen Schlüssel nicht kleiner als
+     * {@code schluessel} ist (binäre Suche).
+     */
+    private static int untereGrenze( Eintrag[] eintraege, String schluessel ) {
+
+        int links  = 0;
+        int rechts = eintraege.length;
+        while ( links < rechts ) {
+
+            final int mitte = ( links + rechts ) >>> 1;
+            if ( eintraege[ mitte ].schluessel().compareTo( schluessel ) < 0 ) {
+
+                links = mitte + 1;
+
+            } else {
+
+                rechts = mitte;
+            }
+        }
+
+        return links;
+    }
+
+
+    /**
+     * Eintrag an Position {@code pos}, falls sein Schlüssel mit {@code praefix} beginnt.
+     */
+    private static Eintrag treffer( Eintrag[] eintraege, int pos, String praefix ) {
+
+        if ( pos >= eintraege.length ) { return null; }
+
+        final Eintrag eintrag = eintraege[ pos ];
+
+        return eintrag.schluessel().startsWith( praefix ) ? eintrag : null;
+    }
+
+
+    /**
+     * Prüft, ob der Eintrag an Position {@code pos} genau den Schlüssel hat.
+     */
+    private static boolean istGleich( Eintrag[] eintraege, int pos, String schluessel ) {
+
+        return pos < eintraege.length && eintraege[ pos ].schluessel().equals( schluessel );
+    }
+
+
+    /**
+     * Kopie eines sortierten Arrays mit zusätzlichem Eintrag an der passenden Stelle.
+     */
+    private static Eintrag[] einfuegen( Eintrag[] eintraege, Eintrag eintrag ) {
+
+        int pos = Arrays.binarySearch( eintraege, eintrag, SORTIERUNG );
+        if ( pos < 0 ) { pos = -pos - 1; }
+
+        final Eintrag[] ergebnis = new Eintrag[ eintraege.length + 1 ];
+        System.arraycopy( eintraege, 0  , ergebnis, 0      , pos                    );
+        System.arraycopy( eintraege, pos, ergebnis, pos + 1, eintraege.length - pos );
+        ergebnis[ pos ] = eintrag;
+
+        return ergebnis;
+    }
+
+
+    /**
+     * Zwei sortierte Arrays zu einem neuen sortierten Array zusammenführen.
+     */
+    private static Eintrag[] zusammenfuehren( Eintrag[] a, Eintrag[] b ) {
+
+        final Eintrag[] ergebnis = new Eintrag[ a.length + b.length ];
+
+        int i = 0, j = 0, k = 0;
+        while ( i < a.length && j < b.length ) {
+
+            ergebnis[ k++ ] = SORTIERUNG.compare( a[ i ], b[ j ] ) <= 0 ? a[ i++ ] : b[ j++ ];
+        }
+        while ( i < a.length ) { ergebnis[ k++ ] = a[ i++ ]; }
+        while ( j < b.length ) { ergebnis[ k++ ] = b[ j++ ]; }
+
+        return ergebnis;
+    }
+
+
+    /**
+     * Namen aller Ordner auf dem materialisierten Pfad, z.B. "Wurzel / Java / Spring".
+     */
+    private static String pfadText( Eintrag eintrag, Map<Long, String> namen ) {
+
+        if ( eintrag.pfad() == null ) { return eintrag.name(); }
+
+        final StringBuilder sb = new StringBuilder();
+        for ( Long id : OrdnerService.pfadZuIds( eintrag.pfad() ) ) {
+
+            if ( sb.length() > 0 ) { sb.append( PFAD_TRENNER ); }
+            sb.append( namen.getOrDefault( id, "?" ) );
+        }
+
+        return sb.toString();
+    }
+
+}
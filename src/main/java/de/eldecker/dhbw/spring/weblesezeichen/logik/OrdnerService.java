@@ -1,11 +1,29 @@
 package de.eldecker.dhbw.spring.weblesezeichen.logik;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
 
 import de.eldecker.dhbw.spring.weblesezeichen.db.entities.OrdnerEntity;
+import de.eldecker.dhbw.spring.weblesezeichen.db.repos.OrdnerRepo;
+import de.eldecker.dhbw.spring.weblesezeichen.model.LesezeichenMitOrdner;
+import de.eldecker.dhbw.spring.weblesezeichen.model.OrdnerBaumKnoten;
+import de.eldecker.dhbw.spring.weblesezeichen.model.OrdnerKurzInfo;
+
+import jakarta.persistence.EntityManager;
 
 
 /**
@@ -15,11 +33,213 @@ import de.eldecker.dhbw.spring.weblesezeichen.db.entities.OrdnerEntity;
 @Service
 public class OrdnerService {
 
-    
+    /**
+     * Name des Spring Caches mit den Unterordner-Listen, Schlüssel ist die ID
+     * des Vaterordners; Größe und Ablaufzeit siehe {@code spring.cache.caffeine.spec}
+     * in {@code application.properties}.
+     */
+    public static final String CACHE_UNTERORDNER = "unterordner";
+
+    /** Repo-Bean für Zugriff auf Ordner. */
+    private OrdnerRepo _ordnerRepo;
+
+    /** Bean für Veröffentlichung von Ereignissen, z.B. {@link OrdnerAngelegtEreignis}. */
+    private ApplicationEventPublisher _eventPublisher;
+
+    /** Für Einträge im Änderungsprotokoll. */
+    private AenderungsProtokoll _aenderungsProtokoll;
+
+    /** Von Spring verwalteter EntityManager (Flush vor dem Ereignis für neuen Ordner). */
+    private EntityManager _em;
+
+    /** Für Entfernen von Unterordner-Listen aus dem Spring Cache. */
+    private CacheManager _cacheManager;
+
+
+    /**
+     * Konstruktor für <i>Dependency Injection</i>.
+     */
+    @Autowired
+    public OrdnerService( OrdnerRepo ordnerRepo,
+                          ApplicationEventPublisher eventPublisher,
+                          AenderungsProtokoll aenderungsProtokoll,
+                          EntityManager em,
+                          CacheManager cacheManager ) {
+
+        _ordnerRepo          = ordnerRepo;
+        _eventPublisher      = eventPublisher;
+        _aenderungsProtokoll = aenderungsProtokoll;
+        _em                  = em;
+        _cacheManager        = cacheManager;
+    }
+
+
+    /**
+     * Legt einen neuen Ordner an und setzt dessen materialisierten Pfad.
+     * Da die ID erst beim Speichern vergeben wird, kann der Pfad erst danach
+     * berechnet werden; die Änderung wird als UPDATE auf die DB geschrieben.
+     * Die Version des Vaterordners wird hochgezählt und der neue Ordner wird
+     * im {@link AenderungsProtokoll} eingetragen. Nach dem Commit wird ein
+     * {@link OrdnerAngelegtEreignis} verarbeitet (u.a. von
+     * {@link #onOrdnerAngelegt(OrdnerAngelegtEreignis)}, um die Unterordner-Liste
+     * des Vaterordners aus dem Cache zu entfernen); vorher werden die Änderungen
+     * geschrieben, damit das Ereignis die endgültige Version des neuen Ordners
+     * (nach dem UPDATE für den Pfad) enthält.
+     *
+     * @param name Name des neuen Ordners
+     *
+     * @param vaterOrdner Ordner, in dem der neue Ordner enthalten sein soll
+     *
+     * @return Neu angelegter Ordner (mit ID und Pfad)
+     */
+    @Transactional
+    public OrdnerEntity neuerOrdner( String name, OrdnerEntity vaterOrdner ) {
+
+        OrdnerEntity ordnerNeu = new OrdnerEntity( name, vaterOrdner );
+        ordnerNeu = _ordnerRepo.save( ordnerNeu );
+
+        ordnerNeu.setPfad( berechnePfad( vaterOrdner, ordnerNeu.getId() ) );
+
+        if ( vaterOrdner != null ) {
+
+            versionHochzaehlen( vaterOrdner.getId() );
+        }
+        _aenderungsProtokoll.ordnerAngelegt( ordnerNeu );
+        _em.flush();
+
+        _eventPublisher.publishEvent( new OrdnerAngelegtEreignis( ordnerNeu.getId(),
+                                                                  ordnerNeu.getName(),
+                                                                  vaterOrdner == null ? null : vaterOrdner.getId(),
+                                                                  ordnerNeu.getPfad(),
+                                                                  ordnerNeu.getVersion() ) );
+        return ordnerNeu;
+    }
+
+
+    /**
+     * Entfernt die Unterordner-Liste des Vaterordners eines neuen Ordners aus
+     * dem Cache. Das passiert erst nach dem Commit: Würde der Eintrag schon
+     * in der Transaktion entfernt (wie mit {@code @CacheEvict}), dann könnte
+     * ein paralleler Request die Liste noch vor dem Commit ohne den neuen
+     * Ordner lesen und wieder in den Cache schreiben.
+     *
+     * @param ereignis Ereignis mit neuem Ordner
+     */
+    @TransactionalEventListener( fallbackExecution = true )
+    public void onOrdnerAngelegt( OrdnerAngelegtEreignis ereignis ) {
+
+        if ( ereignis.vaterId() == null ) { return; }
+
+        final Cache unterordnerCache = _cacheManager.getCache( CACHE_UNTERORDNER );
+        if ( unterordnerCache != null ) { unterordnerCache.evict( ereignis.vaterId() ); }
+    }
+
+
+    /**
+     * Zählt in der laufenden Transaktion die Version eines Ordners hoch, auch
+     * wenn der Ordner selbst nicht geändert wurde; wird aufgerufen, wenn im
+     * Ordner ein Lesezeichen oder Unterordner angelegt wird, damit sich das
+     * ETag der Ordnerseite ändert.
+     * <br><br>
+     *
+     * Das geschieht mit einem atomaren UPDATE (siehe
+     * {@link OrdnerRepo#versionHochzaehlen(java.util.Collection)}), damit
+     * gleichzeitige Schreibzugriffe auf denselben Ordner (z.B. zwei neue
+     * Lesezeichen oder ein neues Lesezeichen während eines Imports) nicht mit
+     * einer {@code OptimisticLockException} fehlschlagen, sondern nacheinander
+     * ausgeführt werden.
+     *
+     * @param ordnerId ID des Ordners
+     */
+    @Transactional( propagation = Propagation.MANDATORY )
+    public void versionHochzaehlen( long ordnerId ) {
+
+        _ordnerRepo.versionHochzaehlen( List.of( ordnerId ) );
+    }
+
+
+    /**
+     * Liefert ID und Name der direkten Unterordner eines Ordners. Das Ergebnis
+     * wird pro Vaterordner gecacht und nach dem Commit eines neuen Ordners von
+     * {@link #onOrdnerAngelegt(OrdnerAngelegtEreignis)} gezielt für dessen
+     * Vaterordner entfernt.
+     *
+     * @param vaterId ID des Ordners, dessen Unterordner gesucht werden
+     *
+     * @return Unterordner, sortiert aufsteigend nach Name; kann leer sein
+     */
+    @Cacheable( cacheNames = CACHE_UNTERORDNER, key = "#vaterId" )
+    public List<OrdnerKurzInfo> getUnterordner( long vaterId ) {
+
+        return List.copyOf( _ordnerRepo.findUnterordnerKurzInfo( vaterId ) );
+    }
+
+
+    /**
+     * Berechnet materialisierten Pfad für einen Ordner.
+     *
+     * @param vaterOrdner Vaterordner, muss selbst schon einen Pfad haben;
+     *                    {@code null} für Wurzelordner
+     *
+     * @param ordnerId ID des Ordners, für den der Pfad berechnet werden soll
+     *
+     * @return Pfad, z.B. {@code /1/3/7/}
+     */
+    public static String berechnePfad( OrdnerEntity vaterOrdner, long ordnerId ) {
+
+        return berechnePfad( vaterOrdner == null ? null : vaterOrdner.getPfad(), ordnerId );
+    }
+
+
+    /**
+     * Berechnet materialisierten Pfad für einen Ordner, wenn vom Vaterordner
+     * nur der Pfad bekannt ist (z.B. beim Import).
+     *
+     * @param vaterPfad Pfad des Vaterordners, z.B. {@code /1/3/};
+     *                  {@code null} für Wurzelordner
+     *
+     * @param ordnerId ID des Ordners, für den der Pfad berechnet werden soll
+     *
+     * @return Pfad, z.B. {@code /1/3/7/}
+     */
+    public static String berechnePfad( String vaterPfad, long ordnerId ) {
+
+        return ( vaterPfad == null ? "/" : vaterPfad ) + ordnerId + "/";
+    }
+
+
+    /**
+     * Zerlegt einen materialisierten Pfad in die enthaltenen Ordner-IDs.
+     *
+     * @param pfad Pfad, z.B. {@code /1/3/7/}
+     *
+     * @return Liste der IDs, beginnend mit der Wurzel, z.B. {@code [1, 3, 7]}
+     */
+    public static List<Long> pfadZuIds( String pfad ) {
+
+        final List<Long> ergebnisListe = new ArrayList<>();
+
+        for ( String teil : pfad.split( "/" ) ) {
+
+            if ( !teil.isEmpty() ) {
+
+                ergebnisListe.add( Long.parseLong( teil ) );
+            }
+        }
+
+        return ergebnisListe;
+    }
+
+
     /**
      * Gibt den Pfad vom gegebenen {@link OrdnerEntity} Knoten zur Wurzel zurück.
+     * <br><br>
+     *
+     * Wenn der Ordner einen materialisierten Pfad hat, dann werden alle Vorgänger
+     * mit einer einzigen Query (über die Primärschlüssel) geladen; sonst wird
+     * wie bisher Ebene für Ebene über {@link OrdnerEntity#getVater()} gelaufen.
      *
-     * @param ordner Der {@link OrdnerEntity} Knoten, von dem aus der Pfad startet. Dieser Knoten und alle seine 
+     * @param ordner Der {@link OrdnerEntity} Knoten, von dem aus der Pfad startet. Dieser Knoten und alle seine
      *               Vorfahren werden in der zurückgegebenen Liste enthalten sein.
      *
      * @return Eine Liste von {@link OrdnerEntity} Objekten, die den Pfad vom gegebenen Knoten zur Wurzel darstellt.
@@ -30,15 +250,153 @@ public class OrdnerService {
 
         final List<OrdnerEntity> ergebnisListe = new ArrayList<>();
 
-        OrdnerEntity aktuellerOrdner = ordner;
+        if ( ordner.getPfad() == null ) {
+
+            OrdnerEntity aktuellerOrdner = ordner;
+
+            while ( aktuellerOrdner != null ) {
+
+                ergebnisListe.add( aktuellerOrdner );
+                aktuellerOrdner = aktuellerOrdner.getVater();
+            }
+
+            return ergebnisListe;
+        }
+
+        final List<Long> idListe = pfadZuIds( ordner.getPfad() );
+
+        final Map<Long, OrdnerEntity> ordnerMap = new HashMap<>();
+        for ( OrdnerEntity vorfahr : _ordnerRepo.findAllById( idListe ) ) {
 
-        while ( aktuellerOrdner != null ) {
+            ordnerMap.put( vorfahr.getId(), vorfahr );
+        }
+
+        ergebnisListe.add( ordner );
+        for ( int i = idListe.size() - 2; i >= 0; i-- ) {
 
-            ergebnisListe.add( aktuellerOrdner );
-            aktuellerOrdner = aktuellerOrdner.getVater();
+            ergebnisListe.add( ordnerMap.get( idListe.get( i ) ) );
         }
 
         return ergebnisListe;
     }
 
+
+    /**
+     * Prüft, ob ein Ordner (direkt oder indirekt) unterhalb eines anderen
+     * Ordners liegt. Dafür wird nur der materialisierte Pfad des Ordners über
+     * seinen Primärschlüssel gelesen: Der Ordner liegt unterhalb des
+     * Vorgängerordners gdw. dessen ID als Element in dem Pfad vorkommt.
+     *
+     * @param ordnerId ID des zu prüfenden Ordners
+     *
+     * @param vorfahrId ID des möglichen Vorgängerordners
+     *
+     * @return {@code true} gdw. Ordner mit {@code ordnerId} unterhalb des
+     *         Ordners mit {@code vorfahrId} liegt; ein Ordner liegt nicht
+     *         unterhalb von sich selbst.
+     */
+    public boolean istUnterordnerVon( long ordnerId, long vorfahrId ) {
+
+        if ( ordnerId == vorfahrId ) { return false; }
+
+        final String pfad = _ordnerRepo.findPfadById( ordnerId ).orElse( null );
+        if ( pfad == null ) { return false; }
+
+        return pfad.contains( "/" + vorfahrId + "/" );
+    }
+
+
+    /**
+     * Holt den ganzen Baum unterhalb des Wurzelordners, siehe
+     * {@link #getTeilbaum(long)}. Die ID des Wurzelordners wird nicht als
+     * bekannt vorausgesetzt, da sie von JPA vergeben wird.
+     *
+     * @return Wurzelknoten des Baums
+     *
+     * @throws LesezeichenException Wurzelordner nicht gefunden (Datenbank wurde
+     *                              noch nicht initialisiert?)
+     */
+    public OrdnerBaumKnoten getBaumAbWurzel() throws LesezeichenException {
+
+        final Optional<OrdnerEntity> wurzelOptional = _ordnerRepo.findByVaterIsNull();
+        if ( wurzelOptional.isEmpty() ) {
+
+            throw new LesezeichenException( "Wurzelknoten nicht gefunden" );
+        }
+
+        return getTeilbaum( wurzelOptional.get().getId() );
+    }
+
+
+    /**
+     * Holt den ganzen Teilbaum unterhalb eines Ordners inkl. aller Lesezeichen
+     * mit einer einzigen Query und baut daraus einen Baum im Speicher auf.
+     *
+     * @param ordnerId ID des Ordners, der die Wurzel des Teilbaums ist
+     *
+     * @return Wurzelknoten des Teilbaums; Unterordner und Lesezeichen sind
+     *         jeweils aufsteigend nach Name sortiert
+     *
+     * @throws LesezeichenException Kein Ordner mit {@code ordnerId} gefunden
+     */
+    public OrdnerBaumKnoten getTeilbaum( long ordnerId ) throws LesezeichenException {
+
+        final List<Object[]> zeilenListe = _ordnerRepo.findTeilbaum( ordnerId );
+        if ( zeilenListe.isEmpty() ) {
+
+            throw new LesezeichenException( "Kein Ordner mit ID=" + ordnerId + " gefunden." );
+        }
+
+        // Reihenfolge des ersten Auftretens entspricht Sortierung nach Ordnername
+        final Map<Long, OrdnerBaumKnoten> knotenMap = new LinkedHashMap<>();
+        final Map<Long, Long>             vaterMap  = new HashMap<>();
+
+        for ( Object[] zeile : zeilenListe ) {
+
+            final Long   id   = alsLong( zeile[ 0 ] );
+            final String name = (String) zeile[ 1 ];
+
+            OrdnerBaumKnoten knoten = knotenMap.get( id );
+            if ( knoten == null ) {
+
+                knoten = new OrdnerBaumKnoten( id, name );
+                knotenMap.put( id, knoten );
+                vaterMap.put( id, alsLong( zeile[ 2 ] ) );
+            }
+
+            final Long lesezeichenId = alsLong( zeile[ 3 ] );
+            if ( lesezeichenId != null ) {
+
+                knoten.lesezeichen().add( new LesezeichenMitOrdner( lesezeichenId,
+                                                                    (String) zeile[ 4 ],
+                                                                    (String) zeile[ 5 ],
+                                                                    id, name ) );
+            }
+        }
+
+        for ( OrdnerBaumKnoten knoten : knotenMap.values() ) {
+
+            if ( knoten.id() == ordnerId ) { continue; }
+
+            final OrdnerBaumKnoten vaterKnoten = knotenMap.get( vaterMap.get( knoten.id() ) );
+            vaterKnoten.unterordner().add( knoten );
+        }
+
+        return knotenMap.get( ordnerId );
+    }
+
+
+    /**
+     * Hilfsmethode für Konvertierung von Zahlenwerten aus nativen Queries,
+     * da je nach Spaltentyp z.B. {@code Long} oder {@code Integer} geliefert wird.
+     *
+     * @param wert Wert aus Ergebniszeile, darf {@code null} sein
+     *
+     * @return Wert als {@code Long} oder {@code null}
+     */
+    private static Long alsLong( Object wert ) {
+
+        return wert == null ? null : ( (Number) wert ).longValue();
+    }
+
 }
@@ -0,0 +1,407 @@
+package de.eldecker.dhbw.spring.weblesezeichen.logik;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+
+/**
+ * Unveränderliche, sortierte Liste ohne doppelte Elemente, bei der das
+ * Einfügen eine neue Liste zurückgibt, die sich fast alle Daten mit der alten
+ * Liste teilt (<i>Structural Sharing</i>).
+ * <br><br>
+ *
+ * Intern ist die Liste ein B+-Baum: Die Elemente liegen in Blättern mit
+ * höchstens {@link #MAX_BLATTGROESSE} Elementen, die inneren Knoten haben
+ * höchstens {@link #MAX_KINDER} Kinder und kennen die Anzahl der Elemente in
+ * ihrem Teilbaum. Beim Einfügen werden nur das betroffene Blatt und die
+ * inneren Knoten auf dem Weg von der Wurzel dorthin kopiert; der Aufwand für
+ * das Kopieren ist damit durch {@code MAX_BLATTGROESSE + MAX_KINDER * Tiefe}
+ * begrenzt und wächst nur logarithmisch mit der Anzahl der Elemente.
+ * <br><br>
+ *
+ * Da Objekte dieser Klasse nie verändert werden, können beliebig viele Threads
+ * ohne Sperre darauf lesen.
+ *
+ * @param <T> Typ der Elemente
+ */
+public final class PersistenteSortierteListe<T> {
+
+    /** Anzahl Elemente pro Blatt beim Aufbau aus einer Liste. */
+    private static final int BLATTGROESSE = 256;
+
+    /** Ab dieser Größe wird ein Blatt beim Einfügen geteilt. */
+    private static final int MAX_BLATTGROESSE = 2 * BLATTGROESSE;
+
+    /** Anzahl Kinder pro innerem Knoten beim Aufbau aus einer Liste. */
+    private static final int KINDER = 32;
+
+    /** Ab dieser Anzahl Kinder wird ein innerer Knoten beim Einfügen geteilt. */
+    private static final int MAX_KINDER = 2 * KINDER;
+
+
+    /**
+     * Knoten des Baums: entweder ein Blatt mit Elementen oder ein innerer
+     * Knoten mit Kindern. Jeder Knoten enthält mindestens ein Element.
+     */
+    private static final class Knoten {
+
+        /** Elemente eines Blatts, aufsteigend sortiert; {@code null} für inneren Knoten. */
+        final Object[] elemente;
+
+        /** Kinder eines inneren Knotens; {@code null} für Blatt. */
+        final Knoten[] kinder;
+
+        /** Anzahl Elemente im Teilbaum. */
+        final int groesse;
+
+        /** Größtes Element im Teilbaum. */
+        final Object letztes;
+
+        Knoten( Object[] elemente ) {
+
+            this.elemente = elemente;
+            this.kinder   = null;
+            this.groesse  = elemente.length;
+            this.letztes  = elemente[ elemente.length - 1 ];
+        }
+
+        Knoten( Knoten[] kinder ) {
+
+            int summe = 0;
+            for ( Knoten kind : kinder ) { summe += kind.groesse; }
+
+            this.elemente = null;
+            this.kinder   = kinder;
+            this.groesse  = summe;
+            this.letztes  = kinder[ kinder.length - 1 ].letztes;
+        }
+
+        boolean istBlatt() {
+
+            return kinder == null;
+        }
+    }
+
+
+    /** Wurzel des Baums; {@code null} für leere Liste. */
+    private final Knoten _wurzel;
+
+    /** Sortierung der Elemente. */
+    private final Comparator<? super T> _sortierung;
+
+
+    /**
+     * Privater Konstruktor, Objekte werden mit {@link #aus(List, Comparator)}
+     * und {@link #einfuegen(Object)} erzeugt.
+     */
+    private PersistenteSortierteListe( Knoten wurzel, Comparator<? super T> sortierung ) {
+
+        _wurzel     = wurzel;
+        _sortierung = sortierung;
+    }
+
+
+    /**
+     * Erzeugt Liste aus einer schon sortierten Liste.
+     *
+     * @param sortiert Elemente, müssen nach {@code sortierung} sortiert sein
+     *                 und dürfen keine (laut {@code sortierung}) gleichen
+     *                 Elemente enthalten
+     *
+     * @param sortierung Sortierung der Elemente
+     *
+     * @return Neue Liste
+     */
+    public static <T> PersistenteSortierteListe<T> aus( List<? extends T> sortiert, Comparator<? super T> sortierung ) {
+
+        if ( sortiert.isEmpty() ) {
+
+            return new PersistenteSortierteListe<>( null, sortierung );
+        }
+
+        List<Knoten> ebene = new ArrayList<>( ( sortiert.size() + BLATTGROESSE - 1 ) / BLATTGROESSE );
+        for ( int von = 0; von < sortiert.size(); von += BLATTGROESSE ) {
+
+            final int bis = Math.min( sortiert.size(), von + BLATTGROESSE );
+            ebene.add( new Knoten( sortiert.subList( von, bis ).toArray() ) );
+        }
+
+        while ( ebene.size() > 1 ) {
+
+            final List<Knoten> darueber = new ArrayList<>( ( ebene.size() + KINDER - 1 ) / KINDER );
+            for ( int von = 0; von < ebene.size(); von += KINDER ) {
+
+                final int bis = Math.min( ebene.size(), von + KINDER );
+                darueber.add( new Knoten( ebene.subList( von, bis ).toArray( new Knoten[ 0 ] ) ) );
+            }
+            ebene = darueber;
+        }
+
+        return new PersistenteSortierteListe<>( ebene.get( 0 ), sortierung );
+    }
+
+
+    /**
+     * Anzahl der Elemente.
+     *
+     * @return Anzahl der Elemente
+     */
+    public int groesse() {
+
+        return _wurzel == null ? 0 : _wurzel.groesse;
+    }
+
+
+    /**
+     * Fügt ein Element an der richtigen Stelle ein.
+     *
+     * @param element Neues Element
+     *
+     * @return Neue Liste mit dem Element; diese Liste selbst, wenn sie schon
+     *         ein laut Sortierung gleiches Element enthält. Diese Liste bleibt
+     *         in jedem Fall unverändert.
+     */
+    public PersistenteSortierteListe<T> einfuegen( T element ) {
+
+        if ( _wurzel == null ) {
+
+            return new PersistenteSortierteListe<>( new Knoten( new Object[] { element } ), _sortierung );
+        }
+
+        final Knoten[] ergebnis = einfuegen( _wurzel, element );
+        if ( ergebnis == null ) { return this; }
+
+        final Knoten neueWurzel = ergebnis.length == 1 ? ergebnis[ 0 ] : new Knoten( ergebnis );
+
+        return new PersistenteSortierteListe<>( neueWurzel, _sortierung );
+    }
+
+
+    /**
+     * Elemente, die in der Sortierung nach {@code cursor} kommen (für "Nächste Seite").
+     *
+     * @param cursor Letztes Element der vorherigen Seite; {@code null} für Anfang der Liste
+     *
+     * @param anzahl Maximale Anzahl der Elemente
+     *
+     * @return Bis zu {@code anzahl} Elemente, aufsteigend sortiert
+     */
+    public List<T> nach( T cursor, int anzahl ) {
+
+        final List<T> ergebnisListe = new ArrayList<>( anzahl );
+        if ( _wurzel == null ) { return ergebnisListe; }
+
+        final int von = cursor == null ? 0 : rang( cursor, true );
+        final int bis = (int) Math.min( _wurzel.groesse, (long) von + anzahl );
+        if ( von < bis ) { sammeln( _wurzel, von, bis, ergebnisListe ); }
+
+        return ergebnisListe;
+    }
+
+
+    /**
+     * Elemente, die in der Sortierung vor {@code cursor} kommen (für "Vorherige Seite").
+     *
+     * @param cursor Erstes Element der nachfolgenden Seite
+     *
+     * @param anzahl Maximale Anzahl der Elemente
+     *
+     * @return Bis zu {@code anzahl} Elemente, <b>absteigend</b> sortiert
+     */
+    public List<T> vor( T cursor, int anzahl ) {
+
+        final List<T> ergebnisListe = new ArrayList<>( anzahl );
+        if ( _wurzel == null ) { return ergebnisListe; }
+
+        final int bis = rang( cursor, false );
+        final int von = Math.max( 0, bis - anzahl );
+        if ( von < bis ) { sammeln( _wurzel, von, bis, ergebnisListe ); }
+        Collections.reverse( ergebnisListe );
+
+        return ergebnisListe;
+    }
+
+
+    /**
+     * Fügt {@code element} in den Teilbaum unter {@code knoten} ein; dabei
+     * werden nur die Knoten auf dem Weg zum betroffenen Blatt kopiert.
+     *
+     * @return Ein Knoten, der {@code knoten} ersetzt, oder zwei Knoten, wenn
+     *         {@code knoten} geteilt werden musste; {@code null}, wenn das
+     *         Element schon enthalten ist
+     */
+    @SuppressWarnings( "unchecked" )
+    private Knoten[] einfuegen( Knoten knoten, T element ) {
+
+        if ( knoten.istBlatt() ) {
+
+            final Object[] blatt    = knoten.elemente;
+            final int      position = untergrenze( blatt, element );
+            if ( position < blatt.length && _sortierung.compare( (T) blatt[ position ], element ) == 0 ) {
+
+                return null;
+            }
+
+            final Object[] neuesBlatt = new Object[ blatt.length + 1 ];
+            System.arraycopy( blatt, 0, neuesBlatt, 0, position );
+            neuesBlatt[ position ] = element;
+            System.arraycopy( blatt, position, neuesBlatt, position + 1, blatt.length - position );
+
+            if ( neuesBlatt.length <= MAX_BLATTGROESSE ) {
+
+                return new Knoten[] { new Knoten( neuesBlatt ) };
+            }
+
+            final int haelfte = neuesBlatt.length / 2;
+
+            return new Knoten[] { new Knoten( Arrays.copyOfRange( neuesBlatt, 0, haelfte ) ),
+                                  new Knoten( Arrays.copyOfRange( neuesBlatt, haelfte, neuesBlatt.length ) ) };
+        }
+
+        final Knoten[] kinder = knoten.kinder;
+
+        int index = 0; // erstes Kind, dessen größtes Element >= element ist; sonst letztes Kind
+        while ( index < kinder.length - 1 && _sortierung.compare( (T) kinder[ index ].letztes, element ) < 0 ) {
+
+            index++;
+        }
+
+        final Knoten[] ergebnis = einfuegen( kinder[ index ], element );
+        if ( ergebnis == null ) { return null; }
+
+        final Knoten[] neueKinder = new Knoten[ kinder.length + ergebnis.length - 1 ];
+        System.arraycopy( kinder, 0, neueKinder, 0, index );
+        System.arraycopy( ergebnis, 0, neueKinder, index, ergebnis.length );
+        System.arraycopy( kinder, index + 1, neueKinder, index + ergebnis.length, kinder.length - index - 1 );
+
+        if ( neueKinder.length <= MAX_KINDER ) {
+
+            return new Knoten[] { new Knoten( neueKinder ) };
+        }
+
+        final int haelfte = neueKinder.length / 2;
+
+        return new Knoten[] { new Knoten( Arrays.copyOfRange( neueKinder, 0, haelfte ) ),
+                              new Knoten( Arrays.copyOfRange( neueKinder, haelfte, neueKinder.length ) ) };
+    }
+
+
+    /**
+     * Anzahl der Elemente, die kleiner als {@code element} sind.
+     *
+     * @param element Vergleichselement, muss nicht in der Liste enthalten sein
+     *
+     * @param inklusive {@code true}: auch gleiche Elemente mitzählen
+     *
+     * @return Position, an der die Elemente nach {@code element} (bei
+     *         {@code inklusive}) bzw. ab {@code element} beginnen
+     */
+    @SuppressWarnings( "unchecked" )
+    private int rang( T element, boolean inklusive ) {
+
+        int    rang   = 0;
+        Knoten knoten = _wurzel;
+        while ( !knoten.istBlatt() ) {
+
+            Knoten naechster = null;
+            for ( Knoten kind : knoten.kinder ) {
+
+                final int vergleich = _sortierung.compare( (T) kind.letztes, element );
+                if ( inklusive ? vergleich <= 0 : vergleich < 0 ) {
+
+                    rang += kind.groesse;
+                } else {
+
+                    naechster = kind;
+                    break;
+                }
+            }
+            if ( naechster == null ) { return rang; } // alle Elemente sind kleiner
+
+            knoten = naechster;
+        }
+
+        return rang + ( inklusive ? obergrenze( knoten.elemente, element )
+                                  : untergrenze( knoten.elemente, element ) );
+    }
+
+
+    /**
+     * Hängt die Elemente mit den Positionen {@code von} (inklusive) bis
+     * {@code bis} (exklusive) im Teilbaum unter {@code knoten} an {@code ziel} an.
+     */
+    @SuppressWarnings( "unchecked" )
+    private static <T> void sammeln( Knoten knoten, int von, int bis, List<T> ziel ) {
+
+        if ( knoten.istBlatt() ) {
+
+            for ( int i = von; i < bis; i++ ) { ziel.add( (T) knoten.elemente[ i ] ); }
+            return;
+        }
+
+        int anfang = 0;
+        for ( Knoten kind : knoten.kinder ) {
+
+            if ( anfang >= bis ) { break; }
+
+            final int ende = anfang + kind.groesse;
+            if ( ende > von ) {
+
+                sammeln( kind, Math.max( 0, von - anfang ), Math.min( kind.groesse, bis - anfang ), ziel );
+            }
+            anfang = ende;
+        }
+    }
+
+
+    /**
+     * Erste Position im Blatt mit einem Element größer oder gleich {@code element}.
+     */
+    @SuppressWarnings( "unchecked" )
+    private int untergrenze( Object[] blatt, T element ) {
+
+        int von = 0;
+        int bis = blatt.length;
+        while ( von < bis ) {
+
+            final int mitte = ( von + bis ) >>> 1;
+            if ( _sortierung.compare( (T) blatt[ mitte ], element ) < 0 ) {
+
+                von = mitte + 1;
+            } else {
+
+                bis = mitte;
+            }
+        }
+
+        return von;
+    }
+
+
+    /**
+     * Erste Position im Blatt mit einem Element echt größer als {@code element}.
+     */
+    @SuppressWarnings( "unchecked" )
+    private int obergrenze( Object[] blatt, T element ) {
+
+        int von = 0;
+        int bis = blatt.length;
+        while ( von < bis ) {
+
+            final int mitte = ( von + bis ) >>> 1;
+            if ( _sortierung.compare( (T) blatt[ mitte ], element ) <= 0 ) {
+
+                von = mitte + 1;
+            } else {
+
+                bis = mitte;
+            }
+        }
+
+        return von;
+    }
+
+}
@@ -0,0 +1,129 @@
+package de.eldecker.dhbw.spring.weblesezeichen.logik;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+
+
+/**
+ * Erkennt mit <i>Java Flight Recorder</i> (Event {@code jdk.VirtualThreadPinned}),
+ * wenn ein virtueller Thread seinen Träger-Thread länger als
+ * {@code lesezeichen.pinning.schwelle-ms} blockiert, z.B. weil er in einem
+ * {@code synchronized}-Block auf I/O wartet. Jeder Fall wird mit den obersten
+ * Stack-Frames geloggt und im Timer {@value #METRIK_NAME} gezählt.
+ * <br><br>
+ *
+ * Die Bean gibt es nur, wenn {@code spring.threads.virtual.enabled=true}.
+ */
+@Component
+@ConditionalOnProperty( name = "spring.threads.virtual.enabled", havingValue = "true" )
+public class PinningUeberwachung {
+
+    private final static Logger LOG = LoggerFactory.getLogger( PinningUeberwachung.class );
+
+    /** Name des Timers für die Dauer der Blockierungen. */
+    public static final String METRIK_NAME = "lesezeichen.virtualthreads.pinned";
+
+    /** Name des JFR-Events. */
+    private static final String JFR_EVENT = "jdk.VirtualThreadPinned";
+
+    /** Anzahl der Stack-Frames, die geloggt werden. */
+    private static final int ANZAHL_FRAMES = 8;
+
+    /** Timer für Dauer der Blockierungen. */
+    private Timer _timer;
+
+    /** Schwelle, ab der ein Event aufgezeichnet wird. */
+    private Duration _schwelle;
+
+    /** Laufende JFR-Aufzeichnung; {@code null} vor dem Start. */
+    private RecordingStream _recordingStream;
+
+
+    /**
+     * Konstruktor für <i>Dependency Injection</i>.
+     */
+    @Autowired
+    public PinningUeberwachung( MeterRegistry meterRegistry,
+                                @Value( "${lesezeichen.pinning.schwelle-ms:20}" ) long schwelleMs ) {
+
+        _timer = Timer.builder( METRIK_NAME )
+                      .description( "Dauer, für die ein virtueller Thread seinen Träger-Thread blockiert hat" )
+                      .register( meterRegistry );
+
+        _schwelle = Duration.ofMillis( schwelleMs );
+    }
+
+
+    /**
+     * Startet die JFR-Aufzeichnung im Hintergrund, wenn die Anwendung bereit ist.
+     */
+    @EventListener( ApplicationReadyEvent.class )
+    public void starten() {
+
+        _recordingStream = new RecordingStream();
+        _recordingStream.enable( JFR_EVENT ).withThreshold( _schwelle ).withStackTrace();
+        _recordingStream.onEvent( JFR_EVENT, this::eventVerarbeiten );
+        _recordingStream.startAsync();
+
+        LOG.info( "Überwachung auf Pinning von virtuellen Threads gestartet, Schwelle {} ms.",
+                  _schwelle.toMillis() );
+    }
+
+
+    /**
+     * Verarbeitet ein Pinning-Event.
+     */
+    private void eventVerarbeiten( RecordedEvent event ) {
+
+        _timer.record( event.getDuration() );
+
+        if ( event.getStackTrace() == null ) {
+
+            LOG.warn( "Virtueller Thread war {} ms an Träger-Thread gebunden.", event.getDuration().toMillis() );
+            return;
+        }
+
+        final List<RecordedFrame> frameListe = event.getStackTrace().getFrames();
+        final String stack = frameListe.stream()
+                                       .limit( ANZAHL_FRAMES )
+                                       .map( frame -> frame.getMethod().getType().getName() + "." +
+                                                      frame.getMethod().getName() + ":" + frame.getLineNumber() )
+                                       .collect( Collectors.joining( "\n    at " ) );
+
+        LOG.warn( "Virtueller Thread war {} ms an Träger-Thread gebunden:\n    at {}",
+                  event.getDuration().toMillis(), stack );
+    }
+
+
+    /**
+     * Beendet die JFR-Aufzeichnung beim Herunterfahren der Anwendung.
+     */
+    @PreDestroy
+    public void beenden() {
+
+        if ( _recordingStream != null ) {
+
+            _recordingStream.close();
+        }
+    }
+
+}
@@ -0,0 +1,146 @@
+package de.eldecker.dhbw.spring.weblesezeichen.logik;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * Zählt die häufigsten Elemente eines Datenstroms mit dem Algorithmus
+ * <i>Space-Saving</i> (Metwally et al.) mit fester Kapazität: Es werden nie
+ * mehr als {@code kapazitaet} Zähler gehalten, egal wie viele verschiedene
+ * Elemente es gibt.
+ * <br><br>
+ *
+ * Ist kein Zähler mehr frei, dann übernimmt ein neues Element den Zähler mit
+ * der kleinsten Anzahl; dessen Anzahl wird als möglicher Fehler gemerkt.
+ * Jedes Element, das häufiger als {@code N / kapazitaet} vorkommt (N ist die
+ * Summe aller Anzahlen), ist garantiert enthalten.
+ * <br><br>
+ *
+ * Da die Kapazität klein ist (einige Dutzend), wird der kleinste Zähler
+ * einfach linear gesucht; Einfügen und Abfragen haben damit konstanten
+ * Aufwand, unabhängig von der Anzahl der Elemente im Datenstrom.
+ * <br><br>
+ *
+ * Nicht thread-sicher, der Aufrufer muss synchronisieren.
+ *
+ * @param <T> Typ der Nutzdaten, die pro Element gespeichert werden
+ */
+public final class SpaceSavingZaehler<T> {
+
+    /** Zähler für ein Element. */
+    public static final class Eintrag<T> {
+
+        /** ID des Elements. */
+        private final long _id;
+
+        /** Nutzdaten, z.B. für Anzeige. */
+        private T _wert;
+
+        /** Obergrenze für die Anzahl. */
+        private long _anzahl;
+
+        /** Maximale Überschätzung von {@link #_anzahl}. */
+        private long _fehler;
+
+
+        private Eintrag( long id, T wert, long anzahl, long fehler ) {
+
+            _id     = id;
+            _wert   = wert;
+            _anzahl = anzahl;
+            _fehler = fehler;
+        }
+
+        /** @return ID des Elements */
+        public long getId() { return _id; }
+
+        /** @return Nutzdaten des Elements */
+        public T getWert() { return _wert; }
+
+        /** @return Obergrenze für die Anzahl */
+        public long getAnzahl() { return _anzahl; }
+
+        /** @return Maximale Überschätzung der Anzahl */
+        public long getFehler() { return _fehler; }
+    }
+
+
+    /** Sortierung für Abfrage: absteigend nach Anzahl, dann nach ID. */
+    private static final Comparator<Eintrag<?>> SORTIERUNG =
+            Comparator.<Eintrag<?>>comparingLong( Eintrag::getAnzahl ).reversed()
+                      .thenComparingLong( Eintrag::getId );
+
+    /** Maximale Anzahl Zähler. */
+    private final int _kapazitaet;
+
+    /** Zähler pro Element-ID. */
+    private final Map<Long, Eintrag<T>> _eintraege;
+
+
+    /**
+     * Konstruktor.
+     *
+     * @param kapazitaet Maximale Anzahl Zähler, mindestens 1
+     */
+    public SpaceSavingZaehler( int kapazitaet ) {
+
+        _kapazitaet = Math.max( kapazitaet, 1 );
+        _eintraege  = HashMap.newHashMap( _kapazitaet );
+    }
+
+
+    /**
+     * Anzahl für ein Element erhöhen.
+     *
+     * @param id ID des Elements
+     *
+     * @param wert Nutzdaten; ersetzen die bisherigen Nutzdaten des Elements
+     *
+     * @param anzahl Anzahl, um die erhöht wird (bei einzelnen Ereignissen 1)
+     */
+    public void erhoehen( long id, T wert, long anzahl ) {
+
+        final Eintrag<T> eintrag = _eintraege.get( id );
+        if ( eintrag != null ) {
+
+            eintrag._anzahl += anzahl;
+            eintrag._wert    = wert;
+            return;
+        }
+
+        if ( _eintraege.size() < _kapazitaet ) {
+
+            _eintraege.put( id, new Eintrag<>( id, wert, anzahl, 0 ) );
+            return;
+        }
+
+        Eintrag<T> kleinster = null;
+        for ( Eintrag<T> kandidat : _eintraege.values() ) {
+
+            if ( kleinster == null || kandidat._anzahl < kleinster._anzahl ) { kleinster = kandidat; }
+        }
+        _eintraege.remove( kleinster._id );
+        _eintraege.put( id, new Eintrag<>( id, wert, kleinster._anzahl + anzahl, kleinster._anzahl ) );
+    }
+
+
+    /**
+     * Die Elemente mit den höchsten Anzahlen.
+     *
+     * @param anzahl Maximale Anzahl Elemente
+     *
+     * @return Neue Liste, absteigend sortiert nach Anzahl
+     */
+    public List<Eintrag<T>> top( int anzahl ) {
+
+        final List<Eintrag<T>> ergebnis = new ArrayList<>( _eintraege.values() );
+        ergebnis.sort( SORTIERUNG );
+
+        return ergebnis.size() <= anzahl ? ergebnis : new ArrayList<>( ergebnis.subList( 0, anzahl ) );
+    }
+
+}
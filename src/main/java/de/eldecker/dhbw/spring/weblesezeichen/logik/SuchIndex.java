@@ -0,0 +1,397 @@
+package de.eldecker.dhbw.spring.weblesezeichen.logik;
+
+import static java.util.Comparator.comparing;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import de.eldecker.dhbw.spring.weblesezeichen.db.repos.LesezeichenRepo;
+import de.eldecker.dhbw.spring.weblesezeichen.model.LesezeichenMitOrdner;
+import de.eldecker.dhbw.spring.weblesezeichen.model.SuchErgebnis;
+import de.eldecker.dhbw.spring.weblesezeichen.model.SuchTreffer;
+
+
+/**
+ * Invertierter Index für die Volltextsuche über Name und URL aller Lesezeichen,
+ * wird im Hauptspeicher gehalten.
+ * <br><br>
+ *
+ * Für jedes Wort (Token) wird gespeichert, in welchen Lesezeichen es vorkommt
+ * und mit welchem Gewicht: Wörter im Namen zählen mehr als Teile des
+ * Hostnamens, diese wiederum mehr als Teile des Pfads der URL. Eine Suche
+ * mit mehreren Wörtern liefert nur Lesezeichen, die alle Wörter enthalten
+ * (UND-Verknüpfung); dabei wird mit der kürzesten Trefferliste begonnen.
+ * <br><br>
+ *
+ * Der Index wird beim Start der Anwendung aus der Datenbank aufgebaut und
+ * danach bei jedem neuen Lesezeichen inkrementell ergänzt.
+ */
+@Service
+public class SuchIndex {
+
+    private final static Logger LOG = LoggerFactory.getLogger( SuchIndex.class );
+
+    /** Gewicht für ein Wort im Namen des Lesezeichens. */
+    private static final int GEWICHT_NAME = 3;
+
+    /** Gewicht für einen Teil des Hostnamens der URL, z.B. "heise". */
+    private static final int GEWICHT_HOST = 2;
+
+    /** Gewicht für einen Teil des Pfads der URL. */
+    private static final int GEWICHT_PFAD = 1;
+
+    /** Anzahl Lesezeichen, die beim Aufbau des Index pro Query geladen werden. */
+    private static final int BLOCKGROESSE = 5_000;
+
+    /** Sortierung der Treffer: absteigend nach Relevanz, dann aufsteigend nach Name. */
+    private static final Comparator<SuchTreffer> SORTIERUNG =
+            Comparator.comparingInt( SuchTreffer::punkte ).reversed()
+                      .thenComparing( treffer -> treffer.lesezeichen().name() );
+
+    /** Repo-Bean für Zugriff auf Lesezeichen. */
+    private LesezeichenRepo _lesezeichenRepo;
+
+    /** Token auf Map von Lesezeichen-ID auf Gewicht (Posting-Liste). */
+    private final Map<String, Map<Long, Integer>> _postings = new HashMap<>();
+
+    /** Alle indizierten Lesezeichen, für Anzeige der Treffer. */
+    private final Map<Long, LesezeichenMitOrdner> _dokumente = new HashMap<>();
+
+    /** Viele gleichzeitige Suchen, aber nur ein schreibender Zugriff. */
+    private final ReentrantReadWriteLock _lock = new ReentrantReadWriteLock();
+
+
+    /**
+     * Konstruktor für <i>Dependency Injection</i>.
+     */
+    @Autowired
+    public SuchIndex( LesezeichenRepo lesezeichenRepo ) {
+
+        _lesezeichenRepo = lesezeichenRepo;
+    }
+
+
+    /**
+     * Baut den Index nach dem Start der Anwendung (also auch nach Import der
+     * Beispieldaten) neu auf. Die Lesezeichen werden blockweise mit
+     * <i>Keyset Pagination</i> geholt.
+     */
+    @EventListener( ApplicationReadyEvent.class )
+    public void neuAufbauen() {
+
+        final long zeitStart = System.currentTimeMillis();
+
+        _lock.writeLock().lock();
+        try {
+
+            _postings.clear();
+            _dokumente.clear();
+
+            String nachName = "";
+            Long   nachId   = 0L;
+            List<LesezeichenMitOrdner> block;
+            do {
+
+                block = _lesezeichenRepo.findSeiteNach( nachName, nachId, PageRequest.ofSize( BLOCKGROESSE ) );
+                for ( LesezeichenMitOrdner lesezeichen : block ) {
+
+                    hinzufuegenIntern( lesezeichen );
+                }
+                if ( !block.isEmpty() ) {
+
+                    final LesezeichenMitOrdner letztes = block.get( block.size() - 1 );
+                    nachName = letztes.name();
+                    nachId   = letztes.id();
+                }
+
+            } while ( block.size() == BLOCKGROESSE );
+
+        } finally {
+
+            _lock.writeLock().unlock();
+        }
+
+        LOG.info( "Suchindex mit {} Lesezeichen und {} Wörtern in {} ms aufgebaut.",
+                  _dokumente.size(), _postings.size(), System.currentTimeMillis() - zeitStart );
+    }
+
+
+    /**
+     * Neues Lesezeichen nach dem Commit der Transaktion in den Index aufnehmen.
+     *
+     * @param ereignis Ereignis mit neuem Lesezeichen
+     */
+    @TransactionalEventListener( fallbackExecution = true )
+    public void onLesezeichenAngelegt( LesezeichenAngelegtEreignis ereignis ) {
+
+        hinzufuegen( ereignis.lesezeichen() );
+    }
+
+
+    /**
+     * Lesezeichen in den Index aufnehmen; falls es schon enthalten ist, wird
+     * es vorher entfernt.
+     *
+     * @param lesezeichen Aufzunehmendes Lesezeichen
+     */
+    public void hinzufuegen( LesezeichenMitOrdner lesezeichen ) {
+
+        _lock.writeLock().lock();
+        try {
+
+            hinzufuegenIntern( lesezeichen );
+
+        } finally {
+
+            _lock.writeLock().unlock();
+        }
+    }
+
+
+    /**
+     * Eigentliches Aufnehmen in den Index, Aufrufer muss Schreibsperre haben.
+     *
+     * @param lesezeichen Aufzunehmendes Lesezeichen
+     */
+    private void hinzufuegenIntern( LesezeichenMitOrdner lesezeichen ) {
+
+        final LesezeichenMitOrdner alt = _dokumente.put( lesezeichen.id(), lesezeichen );
+        if ( alt != null ) {
+
+            for ( String token : tokenisieren( alt ).keySet() ) {
+
+                final Map<Long, Integer> posting = _postings.get( token );
+                if ( posting != null ) {
+
+                    posting.remove( alt.id() );
+                }
+            }
+        }
+
+        for ( Map.Entry<String, Integer> eintrag : tokenisieren( lesezeichen ).entrySet() ) {
+
+            _postings.computeIfAbsent( eintrag.getKey(), k -> new HashMap<>( 4 ) )
+                     .put( lesezeichen.id(), eintrag.getValue() );
+        }
+    }
+
+
+    /**
+     * URL eines Lesezeichens aus dem Index, z.B. für die Weiterleitung ohne
+     * Zugriff auf die Datenbank. Blockiert nicht: Während der Index neu
+     * aufgebaut wird, wird {@code null} geliefert.
+     *
+     * @param id ID des Lesezeichens
+     *
+     * @return URL oder {@code null}, wenn das Lesezeichen (noch) nicht im
+     *         Index ist oder der Index gerade aufgebaut wird
+     */
+    public String getUrl( long id ) {
+
+        if ( !_lock.readLock().tryLock() ) { return null; }
+        try {
+
+            final LesezeichenMitOrdner lesezeichen = _dokumente.get( id );
+
+            return lesezeichen == null ? null : lesezeichen.url();
+
+        } finally {
+
+            _lock.readLock().unlock();
+        }
+    }
+
+
+    /**
+     * Sucht Lesezeichen, die alle Wörter aus {@code anfrage} enthalten.
+     * <br><br>
+     *
+     * Es werden nicht alle Treffer sortiert, sondern nur die besten
+     * {@code (seite + 1) * seitengroesse} Treffer in einem Heap gehalten;
+     * für die erste Seite ist der Aufwand also unabhängig von der Anzahl der
+     * Treffer. Gezählt werden trotzdem alle Treffer. Liegt die Seite hinter
+     * dem letzten Treffer, dann wird nur gezählt.
+     *
+     * @param anfrage Suchbegriff(e), z.B. "spring jpa"
+     *
+     * @param seite Nummer der Seite, beginnend mit 0; negative Werte werden
+     *              wie 0 behandelt
+     *
+     * @param seitengroesse Anzahl Treffer pro Seite; Werte kleiner 1 werden
+     *                      wie 1 behandelt
+     *
+     * @return Seite mit Treffern, sortiert absteigend nach Relevanz und
+     *         danach aufsteigend nach Name
+     */
+    public SuchErgebnis suche( String anfrage, int seite, int seitengroesse ) {
+
+        seite         = Math.max( seite        , 0 );
+        seitengroesse = Math.max( seitengroesse, 1 );
+
+        final List<String> tokenListe = new ArrayList<>( new LinkedHashSet<>( woerter( anfrage ) ) );
+        if ( tokenListe.isEmpty() ) {
+
+            return new SuchErgebnis( anfrage, 0, seite, seitengroesse, List.of() );
+        }
+
+        _lock.readLock().lock();
+        try {
+
+            final List<Map<Long, Integer>> postingListe = new ArrayList<>( tokenListe.size() );
+            for ( String token : tokenListe ) {
+
+                final Map<Long, Integer> posting = _postings.get( token );
+                if ( posting == null ) {
+
+                    return new SuchErgebnis( anfrage, 0, seite, seitengroesse, List.of() );
+                }
+                postingListe.add( posting );
+            }
+            postingListe.sort( comparing( Map::size ) );
+
+            final Map<Long, Integer> kuerzeste = postingListe.get( 0 );
+
+            // als long rechnen, damit es bei großen Seitennummern keinen Überlauf gibt
+            final long von     = (long) seite * seitengroesse;
+            final int  maxHeap = von >= kuerzeste.size()
+                                 ? 0
+                                 : (int) Math.min( von + seitengroesse, kuerzeste.size() );
+
+            // schlechtester der bisher besten Treffer steht oben
+            final PriorityQueue<SuchTreffer> besteTreffer =
+                    new PriorityQueue<>( Math.max( maxHeap, 1 ), SORTIERUNG.reversed() );
+            int anzahlTreffer = 0;
+
+            kandidaten:
+            for ( Map.Entry<Long, Integer> kandidat : kuerzeste.entrySet() ) {
+
+                int punkte = kandidat.getValue();
+                for ( int i = 1; i < postingListe.size(); i++ ) {
+
+                    final Integer gewicht = postingListe.get( i ).get( kandidat.getKey() );
+                    if ( gewicht == null ) { continue kandidaten; }
+
+                    punkte += gewicht;
+                }
+                anzahlTreffer++;
+                if ( maxHeap == 0 ) { continue; }
+
+                final SuchTreffer treffer = new SuchTreffer( _dokumente.get( kandidat.getKey() ), punkte );
+                if ( besteTreffer.size() < maxHeap ) {
+
+                    besteTreffer.add( treffer );
+
+                } else if ( SORTIERUNG.compare( treffer, besteTreffer.peek() ) < 0 ) {
+
+                    besteTreffer.poll();
+                    besteTreffer.add( treffer );
+                }
+            }
+
+            final List<SuchTreffer> trefferListe = new ArrayList<>( besteTreffer );
+            trefferListe.sort( SORTIERUNG );
+
+            final int vonIndex = (int) Math.min( von, trefferListe.size() );
+
+            return new SuchErgebnis( anfrage, anzahlTreffer, seite, seitengroesse,
+                                     List.copyOf( trefferListe.subList( vonIndex, trefferListe.size() ) ) );
+        } finally {
+
+            _lock.readLock().unlock();
+        }
+    }
+
+
+    /**
+     * Zerlegt Name und URL eines Lesezeichens in Tokens mit Gewicht.
+     *
+     * @param lesezeichen Zu zerlegendes Lesezeichen
+     *
+     * @return Map von Token auf Gewicht; kommt ein Token mehrfach vor,
+     *         dann wird das höchste Gewicht verwendet
+     */
+    private static Map<String, Integer> tokenisieren( LesezeichenMitOrdner lesezeichen ) {
+
+        final Map<String, Integer> ergebnisMap = new LinkedHashMap<>();
+
+        String host = "";
+        String pfad = lesezeichen.url();
+        try {
+
+            final URI uri = URI.create( lesezeichen.url() );
+            if ( uri.getHost() != null ) {
+
+                host = uri.getHost();
+                pfad = uri.getPath() == null ? "" : uri.getPath();
+            }
+        }
+        catch ( IllegalArgumentException ex ) {
+
+            // ungültige URL: ganze URL wie Pfad behandeln
+        }
+
+        for ( String token : woerter( pfad ) ) {
+
+            ergebnisMap.merge( token, GEWICHT_PFAD, Math::max );
+        }
+        for ( String token : woerter( host ) ) {
+
+            if ( !token.equals( "www" ) ) {
+
+                ergebnisMap.merge( token, GEWICHT_HOST, Math::max );
+            }
+        }
+        for ( String token : woerter( lesezeichen.name() ) ) {
+
+            ergebnisMap.merge( token, GEWICHT_NAME, Math::max );
+        }
+
+        return ergebnisMap;
+    }
+
+
+    /**
+     * Zerlegt Text in Kleinbuchstaben-Wörter; Trennzeichen sind alle Zeichen,
+     * die weder Buchstabe noch Ziffer sind. Wörter mit nur einem Zeichen
+     * werden ignoriert.
+     *
+     * @param text Zu zerlegender Text, darf {@code null} sein
+     *
+     * @return Liste der Wörter, kann leer sein
+     */
+    private static List<String> woerter( String text ) {
+
+        final List<String> ergebnisListe = new ArrayList<>();
+        if ( text == null ) { return ergebnisListe; }
+
+        for ( String wort : text.toLowerCase( Locale.ROOT ).split( "[^\\p{L}\\p{N}]+" ) ) {
+
+            if ( wort.length() > 1 ) {
+
+                ergebnisListe.add( wort );
+            }
+        }
+
+        return ergebnisListe;
+    }
+
+}
@@ -0,0 +1,533 @@
+package de.eldecker.dhbw.spring.weblesezeichen.logik;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import org.roaringbitmap.RoaringBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import de.eldecker.dhbw.spring.weblesezeichen.db.repos.LesezeichenRepo;
+import de.eldecker.dhbw.spring.weblesezeichen.model.LesezeichenMitOrdner;
+import de.eldecker.dhbw.spring.weblesezeichen.model.TagAnzahl;
+import de.eldecker.dhbw.spring.weblesezeichen.model.TagErgebnis;
+
+
+/**
+ * Index für Abfragen über Tags von Lesezeichen, wird im Hauptspeicher gehalten.
+ * <br><br>
+ *
+ * Jedes Lesezeichen mit mindestens einem Tag bekommt eine fortlaufende
+ * Nummer (Ordinalzahl), damit die Bitmaps dicht belegt sind. Pro Tag gibt es
+ * eine komprimierte Bitmap ({@link RoaringBitmap}) mit den Nummern der
+ * Lesezeichen, die das Tag haben; außerdem pro Ordner eine Bitmap mit allen
+ * Lesezeichen mit Tags im Teilbaum des Ordners. Eine Abfrage wie
+ * {@code java AND spring NOT deprecated} wird damit ohne Datenbank über
+ * Schnitt, Vereinigung und Differenz von Bitmaps beantwortet; nur für die
+ * Treffer der angezeigten Seite werden Name und Ordner aus der DB geholt.
+ * <br><br>
+ *
+ * Syntax der Abfragen: Tags werden durch Leerzeichen getrennt und UND-verknüpft
+ * ({@code AND} kann weggelassen werden); {@code NOT tag} oder {@code -tag}
+ * schließt ein Tag aus; {@code OR} trennt Alternativen, die jeweils mindestens
+ * ein Tag ohne {@code NOT} haben müssen.
+ * <br><br>
+ *
+ * Der Index wird beim Start der Anwendung aus der Datenbank aufgebaut und
+ * danach mit jedem {@link TagsGeaendertEreignis} inkrementell geändert.
+ */
+@Service
+public class TagIndex {
+
+    private final static Logger LOG = LoggerFactory.getLogger( TagIndex.class );
+
+    /** Erlaubte Zeichen in einem Tag (nach Umwandlung in Kleinbuchstaben). */
+    private static final Pattern TAG_MUSTER = Pattern.compile( "[\\p{L}\\p{N}][\\p{L}\\p{N}._+#-]{0,49}" );
+
+    /** Trennzeichen für Tags in Eingaben und Abfragen. */
+    private static final Pattern TRENNER = Pattern.compile( "[\\s,;]+" );
+
+    /** Repo-Bean für Zugriff auf Lesezeichen. */
+    private LesezeichenRepo _lesezeichenRepo;
+
+    /** Für Lese-Transaktion beim Aufbau, da die Query einen Stream liefert. */
+    private TransactionTemplate _txTemplate;
+
+    /** Ordinalzahl pro Lesezeichen-ID. */
+    private final Map<Long, Integer> _ordinalVonId = new HashMap<>();
+
+    /** Lesezeichen-ID pro Ordinalzahl. */
+    private long[] _idVonOrdinal = new long[ 1024 ];
+
+    /** Tags pro Ordinalzahl, für inkrementelle Änderungen. */
+    private final List<Set<String>> _tagsVonOrdinal = new ArrayList<>();
+
+    /** Bitmap mit Ordinalzahlen pro Tag. */
+    private final Map<String, RoaringBitmap> _tagBitmaps = new HashMap<>();
+
+    /** Bitmap mit Ordinalzahlen aller Lesezeichen im Teilbaum pro Ordner-ID. */
+    private final Map<Long, RoaringBitmap> _ordnerBitmaps = new HashMap<>();
+
+    /** Viele gleichzeitige Abfragen, aber nur ein schreibender Zugriff. */
+    private final ReentrantReadWriteLock _lock = new ReentrantReadWriteLock();
+
+
+    /**
+     * Konstruktor für <i>Dependency Injection</i>.
+     */
+    @Autowired
+    public TagIndex( LesezeichenRepo lesezeichenRepo,
+                     PlatformTransactionManager txManager ) {
+
+        _lesezeichenRepo = lesezeichenRepo;
+
+        _txTemplate = new TransactionTemplate( txManager );
+        _txTemplate.setReadOnly( true );
+    }
+
+
+    /**
+     * Bringt Tags in die Form, in der sie gespeichert werden: kleingeschrieben,
+     * ohne führendes {@code #}, ohne Duplikate.
+     *
+     * @param tags Tags wie eingegeben; leere Einträge werden ignoriert
+     *
+     * @return Sortiertes Set mit Tags, kann leer sein
+     *
+     * @throws LesezeichenException Tag mit ungültigen Zeichen oder länger als 50 Zeichen
+     */
+    public static Set<String> normalisieren( Collection<String> tags ) throws LesezeichenException {
+
+        final Set<String> ergebnisSet = new TreeSet<>();
+        for ( String tag : tags ) {
+
+            final String normalisiert = normalisieren( tag );
+            if ( !normalisiert.isEmpty() ) { ergebnisSet.add( normalisiert ); }
+        }
+
+        return ergebnisSet;
+    }
+
+
+    /**
+     * Zerlegt eine Eingabe wie {@code "java, spring boot"} in Tags.
+     *
+     * @param eingabe Tags getrennt durch Leerzeichen, Komma oder Semikolon;
+     *                darf {@code null} sein
+     *
+     * @return Sortiertes Set mit normalisierten Tags, kann leer sein
+     *
+     * @throws LesezeichenException Ungültiges Tag
+     */
+    public static Set<String> parsen( String eingabe ) throws LesezeichenException {
+
+        if ( eingabe == null || eingabe.isBlank() ) { return new TreeSet<>(); }
+
+        return normalisieren( Arrays.asList( TRENNER.split( eingabe.trim() ) ) );
+    }
+
+
+    /**
+     * Ein einzelnes Tag normalisieren.
+     *
+     * @return Normalisiertes Tag, leer wenn {@code tag} leer ist
+     */
+    private static String normalisieren( String tag ) throws LesezeichenException {
+
+        String ergebnis = tag == null ? "" : tag.trim().toLowerCase( Locale.ROOT );
+        if ( ergebnis.startsWith( "#" ) ) { ergebnis = ergebnis.substring( 1 ); }
+
+        if ( !ergebnis.isEmpty() && !TAG_MUSTER.matcher( ergebnis ).matches() ) {
+
+            throw new LesezeichenException( "Ungültiges Tag \"" + tag + "\": erlaubt sind höchstens 50 " +
+                                            "Buchstaben, Ziffern und die Zeichen . _ + # -" );
+        }
+
+        return ergebnis;
+    }
+
+
+    /**
+     * Baut den Index nach dem Start der Anwendung neu auf.
+     */
+    @EventListener( ApplicationReadyEvent.class )
+    public void neuAufbauen() {
+
+        final long zeitStart = System.currentTimeMillis();
+
+        _lock.writeLock().lock();
+        try {
+
+            _ordinalVonId.clear();
+            _tagsVonOrdinal.clear();
+            _tagBitmaps.clear();
+            _ordnerBitmaps.clear();
+
+            _txTemplate.executeWithoutResult( status -> {
+
+                try ( Stream<Object[]> stream = _lesezeichenRepo.streamTags() ) {
+
+                    stream.forEach( zeile -> {
+
+                        final int ordinal = ordinal( (Long) zeile[ 0 ], (String) zeile[ 1 ] );
+                        final String tag  = (String) zeile[ 2 ];
+
+                        _tagsVonOrdinal.get( ordinal ).add( tag );
+                        _tagBitmaps.computeIfAbsent( tag, t -> new RoaringBitmap() ).add( ordinal );
+                    });
+                }
+            });
+
+            _tagBitmaps.values().forEach( RoaringBitmap::runOptimize );
+            _ordnerBitmaps.values().forEach( RoaringBitmap::runOptimize );
+
+        } finally {
+
+            _lock.writeLock().unlock();
+        }
+
+        LOG.info( "Tag-Index mit {} Lesezeichen und {} Tags in {} ms aufgebaut.",
+                  _ordinalVonId.size(), _tagBitmaps.size(), System.currentTimeMillis() - zeitStart );
+    }
+
+
+    /**
+     * Geänderte Tags eines Lesezeichens nach dem Commit der Transaktion in den
+     * Index übernehmen.
+     *
+     * @param ereignis Ereignis mit neuen Tags
+     */
+    @TransactionalEventListener( fallbackExecution = true )
+    public void onTagsGeaendert( TagsGeaendertEreignis ereignis ) {
+
+        _lock.writeLock().lock();
+        try {
+
+            if ( ereignis.tags().isEmpty() && !_ordinalVonId.containsKey( ereignis.lesezeichenId() ) ) { return; }
+
+            final int         ordinal = ordinal( ereignis.lesezeichenId(), ereignis.pfad() );
+            final Set<String> tagSet  = _tagsVonOrdinal.get( ordinal );
+
+            for ( String tag : tagSet ) {
+
+                final RoaringBitmap bitmap = _tagBitmaps.get( tag );
+                bitmap.remove( ordinal );
+                if ( bitmap.isEmpty() ) { _tagBitmaps.remove( tag ); }
+            }
+            tagSet.clear();
+
+            for ( String tag : ereignis.tags() ) {
+
+                tagSet.add( tag );
+                _tagBitmaps.computeIfAbsent( tag, t -> new RoaringBitmap() ).add( ordinal );
+            }
+
+        } finally {
+
+            _lock.writeLock().unlock();
+        }
+    }
+
+
+    /**
+     * Ordinalzahl für ein Lesezeichen holen oder neu vergeben; bei neuer
+     * Ordinalzahl wird das Lesezeichen in die Bitmaps des Ordners und aller
+     * Vorfahren eingetragen. Aufrufer muss Schreibsperre haben.
+     *
+     * @param lesezeichenId ID des Lesezeichens
+     *
+     * @param pfad Materialisierter Pfad des Ordners des Lesezeichens
+     *
+     * @return Ordinalzahl
+     */
+    private int ordinal( Long lesezeichenId, String pfad ) {
+
+        final Integer vorhanden = _ordinalVonId.get( lesezeichenId );
+        if ( vorhanden != null ) { return vorhanden; }
+
+        final int ordinal = _tagsVonOrdinal.size();
+        if ( ordinal == _idVonOrdinal.length ) {
+
+            _idVonOrdinal = Arrays.copyOf( _idVonOrdinal, ordinal * 2 );
+        }
+        _idVonOrdinal[ ordinal ] = lesezeichenId;
+        _ordinalVonId.put( lesezeichenId, ordinal );
+        _tagsVonOrdinal.add( new TreeSet<>() );
+
+        if ( pfad != null ) {
+
+            for ( Long ordnerId : OrdnerService.pfadZuIds( pfad ) ) {
+
+                _ordnerBitmaps.computeIfAbsent( ordnerId, id -> new RoaringBitmap() ).add( ordinal );
+            }
+        }
+
+        return ordinal;
+    }
+
+
+    /**
+     * Alle Tags mit der Anzahl der Lesezeichen.
+     *
+     * @return Liste absteigend sortiert nach Anzahl, dann nach Tag
+     */
+    public List<TagAnzahl> getTags() {
+
+        _lock.readLock().lock();
+        try {
+
+            final List<TagAnzahl> ergebnisListe = new ArrayList<>( _tagBitmaps.size() );
+            _tagBitmaps.forEach( ( tag, bitmap ) -> ergebnisListe.add( new TagAnzahl( tag, bitmap.getCardinality() ) ) );
+
+            ergebnisListe.sort( Comparator.comparingInt( TagAnzahl::anzahl ).reversed()
+                                          .thenComparing( TagAnzahl::tag ) );
+            return ergebnisListe;
+
+        } finally {
+
+            _lock.readLock().unlock();
+        }
+    }
+
+
+    /**
+     * Abfrage über Tags, Syntax siehe Beschreibung der Klasse.
+     *
+     * @param anfrage Abfrage, z.B. {@code java AND spring NOT deprecated}
+     *
+     * @param ordnerId Optionale ID eines Ordners; wenn nicht {@code null}, dann
+     *                 werden nur Lesezeichen im Teilbaum des Ordners geliefert
+     *
+     * @param seite Nummer der Seite, beginnend mit 0
+     *
+     * @param seitengroesse Anzahl Treffer pro Seite
+     *
+     * @return Seite mit Treffern, aufsteigend sortiert nach Ordinalzahl
+     *         (entspricht meist der ID)
+     *
+     * @throws LesezeichenException Syntaxfehler in der Abfrage
+     */
+    public TagErgebnis suche( String anfrage, Long ordnerId, int seite, int seitengroesse )
+            throws LesezeichenException {
+
+        final List<List<String>> positivListe = new ArrayList<>();
+        final List<List<String>> negativListe = new ArrayList<>();
+        zerlegen( anfrage, positivListe, negativListe );
+
+        if ( positivListe.isEmpty() ) {
+
+            return new TagErgebnis( anfrage, ordnerId, 0, seite, seitengroesse, List.of() );
+        }
+
+        final long[] idSeite;
+        final int    anzahlTreffer;
+
+        _lock.readLock().lock();
+        try {
+
+            final RoaringBitmap treffer = new RoaringBitmap();
+            for ( int i = 0; i < positivListe.size(); i++ ) {
+
+                treffer.or( alternative( positivListe.get( i ), negativListe.get( i ) ) );
+            }
+            if ( ordnerId != null ) {
+
+                treffer.and( _ordnerBitmaps.getOrDefault( ordnerId, new RoaringBitmap() ) );
+            }
+
+            anzahlTreffer = treffer.getCardinality();
+
+            final int von = (int) Math.min( (long) seite * seitengroesse, anzahlTreffer );
+            final int bis = Math.min( von + seitengroesse, anzahlTreffer );
+
+            idSeite = new long[ bis - von ];
+            for ( int i = von; i < bis; i++ ) {
+
+                idSeite[ i - von ] = _idVonOrdinal[ treffer.select( i ) ];
+            }
+
+        } finally {
+
+            _lock.readLock().unlock();
+        }
+
+        final List<LesezeichenMitOrdner> trefferListe = idSeite.length == 0
+                ? List.of()
+                : _lesezeichenRepo.findMitOrdnerByIds( Arrays.stream( idSeite ).boxed().toList() );
+
+        return new TagErgebnis( anfrage, ordnerId, anzahlTreffer, seite, seitengroesse, trefferListe );
+    }
+
+
+    /**
+     * Ergebnis einer Alternative: Schnitt der Bitmaps aller Tags in
+     * {@code positiv} (beginnend mit der kleinsten), ohne die Lesezeichen mit
+     * Tags aus {@code negativ}. Aufrufer muss Lesesperre haben.
+     */
+    private RoaringBitmap alternative( List<String> positiv, List<String> negativ ) {
+
+        final List<RoaringBitmap> bitmapListe = new ArrayList<>( positiv.size() );
+        for ( String tag : positiv ) {
+
+            final RoaringBitmap bitmap = _tagBitmaps.get( tag );
+            if ( bitmap == null ) { return new RoaringBitmap(); }
+
+            bitmapListe.add( bitmap );
+        }
+        bitmapListe.sort( Comparator.comparingInt( RoaringBitmap::getCardinality ) );
+
+        final RoaringBitmap ergebnis = bitmapListe.get( 0 ).clone();
+        for ( int i = 1; i < bitmapListe.size() && !ergebnis.isEmpty(); i++ ) {
+
+            ergebnis.and( bitmapListe.get( i ) );
+        }
+        for ( String tag : negativ ) {
+
+            final RoaringBitmap bitmap = _tagBitmaps.get( tag );
+            if ( bitmap != null ) { ergebnis.andNot( bitmap ); }
+        }
+
+        return ergebnis;
+    }
+
+
+    /**
+     * Zerlegt eine Abfrage in Alternativen (getrennt durch {@code OR}) mit
+     * jeweils einer Liste von geforderten und ausgeschlossenen Tags.
+     * <br><br>
+     *
+     * Ein Operator muss zwischen zwei Tags stehen ({@code AND}, {@code OR})
+     * bzw. vor einem Tag ({@code NOT}); Abfragen wie {@code java OR},
+     * {@code AND java} oder {@code java NOT} werden abgelehnt statt den
+     * Operator stillschweigend zu ignorieren.
+     *
+     * @param anfrage Abfrage
+     *
+     * @param positivListe Wird mit einer Liste geforderter Tags pro Alternative befüllt
+     *
+     * @param negativListe Wird mit einer Liste ausgeschlossener Tags pro Alternative befüllt
+     *
+     * @throws LesezeichenException Alternative ohne geforderte Tags, Operator an
+     *                              falscher Stelle oder ungültiges Tag
+     */
+    private static void zerlegen( String anfrage, List<List<String>> positivListe, List<List<String>> negativListe )
+            throws LesezeichenException {
+
+        if ( anfrage == null || anfrage.isBlank() ) { return; }
+
+        List<String> positiv   = new ArrayList<>();
+        List<String> negativ   = new ArrayList<>();
+        boolean      nicht     = false;
+        String       offenerOp = null; // Operator, nach dem noch ein Tag fehlt
+
+        for ( String wort : TRENNER.split( anfrage.trim() ) ) {
+
+            switch ( wort ) {
+
+                case "AND", "and", "&&" -> {
+
+                    if ( ( positiv.isEmpty() && negativ.isEmpty() ) || offenerOp != null ) {
+
+                        throw operatorFehler( wort );
+                    }
+                    offenerOp = wort;
+                    continue;
+                }
+
+                case "NOT", "not", "!" -> {
+
+                    if ( nicht ) { throw operatorFehler( wort ); }
+
+                    nicht     = true;
+                    offenerOp = wort;
+                    continue;
+                }
+
+                case "OR", "or", "||" -> {
+
+                    if ( ( positiv.isEmpty() && negativ.isEmpty() ) || offenerOp != null ) {
+
+                        throw operatorFehler( wort );
+                    }
+                    alternativeAbschliessen( positiv, negativ, positivListe, negativListe );
+                    positiv   = new ArrayList<>();
+                    negativ   = new ArrayList<>();
+                    offenerOp = wort;
+                    continue;
+                }
+
+                default -> {}
+            }
+
+            if ( wort.startsWith( "-" ) || wort.startsWith( "!" ) ) {
+
+                nicht = true;
+                wort  = wort.substring( 1 );
+            }
+
+            final String tag = normalisieren( wort );
+            if ( !tag.isEmpty() ) {
+
+                ( nicht ? negativ : positiv ).add( tag );
+                offenerOp = null;
+                nicht     = false;
+            }
+        }
+
+        if ( offenerOp != null ) { throw operatorFehler( offenerOp ); }
+        if ( nicht ) { throw operatorFehler( "-" ); }
+
+        alternativeAbschliessen( positiv, negativ, positivListe, negativListe );
+    }
+
+
+    /**
+     * Fehler für einen Operator an einer Stelle, an der ein Tag erwartet wird.
+     *
+     * @param operator Operator wie in der Abfrage
+     *
+     * @return Exception mit Fehlermeldung für den Benutzer
+     */
+    private static LesezeichenException operatorFehler( String operator ) {
+
+        return new LesezeichenException( "Ungültige Tag-Abfrage: nach bzw. vor \"" + operator +
+                                         "\" fehlt ein Tag." );
+    }
+
+
+    /**
+     * Fügt eine Alternative zum Ergebnis von {@link #zerlegen} hinzu.
+     */
+    private static void alternativeAbschliessen( List<String> positiv, List<String> negativ,
+                                                 List<List<String>> positivListe, List<List<String>> negativListe )
+            throws LesezeichenException {
+
+        if ( positiv.isEmpty() && negativ.isEmpty() ) { return; }
+
+        if ( positiv.isEmpty() ) {
+
+            throw new LesezeichenException( "Jede Alternative einer Tag-Abfrage braucht mindestens ein Tag ohne NOT." );
+        }
+        positivListe.add( positiv );
+        negativListe.add( negativ );
+    }
+
+}
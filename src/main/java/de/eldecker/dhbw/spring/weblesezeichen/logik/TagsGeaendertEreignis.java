@@ -0,0 +1,19 @@
+package de.eldecker.dhbw.spring.weblesezeichen.logik;
+
+import java.util.Set;
+
+
+/**
+ * Ereignis, das veröffentlicht wird, wenn die Tags eines Lesezeichens gesetzt
+ * wurden (auch beim Anlegen mit Tags), siehe {@link LesezeichenService}; wird
+ * wie {@link LesezeichenAngelegtEreignis} erst nach dem Commit der
+ * Transaktion verarbeitet, z.B. von {@link TagIndex}.
+ *
+ * @param lesezeichenId ID des Lesezeichens
+ *
+ * @param pfad Materialisierter Pfad des Ordners, der das Lesezeichen enthält
+ *
+ * @param tags Alle Tags des Lesezeichens nach der Änderung, kann leer sein
+ */
+public record TagsGeaendertEreignis( Long lesezeichenId, String pfad, Set<String> tags ) {
+}
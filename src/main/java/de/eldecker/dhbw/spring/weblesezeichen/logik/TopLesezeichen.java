@@ -0,0 +1,227 @@
+package de.eldecker.dhbw.spring.weblesezeichen.logik;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import de.eldecker.dhbw.spring.weblesezeichen.db.repos.AufrufRepo;
+import de.eldecker.dhbw.spring.weblesezeichen.model.LesezeichenMitAufrufen;
+import de.eldecker.dhbw.spring.weblesezeichen.model.LesezeichenMitOrdner;
+import de.eldecker.dhbw.spring.weblesezeichen.model.TopEintrag;
+
+
+/**
+ * Ranglisten der meistbenutzten Lesezeichen, insgesamt und pro Ordner
+ * (einschließlich aller Unterordner), im Hauptspeicher.
+ * <br><br>
+ *
+ * Statt bei jeder Abfrage alle Lesezeichen nach Anzahl der Aufrufe zu
+ * sortieren, gibt es pro Ordner einen {@link SpaceSavingZaehler} mit fester
+ * Kapazität; neue Aufrufe werden in den Zähler des Ordners des Lesezeichens
+ * und aller seiner Vorfahren (laut materialisiertem Pfad) sowie in den
+ * Zähler für alle Lesezeichen eingetragen. Eine Abfrage sortiert nur die
+ * höchstens {@code lesezeichen.top.kapazitaet} Einträge eines Zählers und
+ * ist damit unabhängig von der Anzahl der Lesezeichen.
+ * <br><br>
+ *
+ * Die Zähler werden beim Start der Anwendung aus der Tabelle mit den Aufrufen
+ * aufgebaut und danach mit jedem {@link AufrufeGeschriebenEreignis}
+ * fortgeschrieben, hinken also höchstens um das Schreib-Intervall von
+ * {@link AufrufZaehler} hinterher.
+ */
+@Service
+public class TopLesezeichen {
+
+    private final static Logger LOG = LoggerFactory.getLogger( TopLesezeichen.class );
+
+    /** Maximale Anzahl IDs pro Query beim Fortschreiben. */
+    private static final int BLOCKGROESSE = 1_000;
+
+    /** Repo-Bean für Lesen der Aufrufe mit Lesezeichen und Pfad. */
+    private AufrufRepo _aufrufRepo;
+
+    /** Für Lese-Transaktion beim Aufbau, da die Query einen Stream liefert. */
+    private TransactionTemplate _txTemplate;
+
+    /** Anzahl der Zähler pro Rangliste. */
+    private int _kapazitaet;
+
+    /** Rangliste über alle Lesezeichen. */
+    private SpaceSavingZaehler<LesezeichenMitOrdner> _gesamt;
+
+    /** Rangliste pro Ordner-ID, nur für Ordner mit mindestens einem Aufruf im Teilbaum. */
+    private final Map<Long, SpaceSavingZaehler<LesezeichenMitOrdner>> _proOrdner = new HashMap<>();
+
+    /** Viele gleichzeitige Abfragen, aber nur ein schreibender Zugriff. */
+    private final ReentrantReadWriteLock _lock = new ReentrantReadWriteLock();
+
+
+    /**
+     * Konstruktor für <i>Dependency Injection</i>.
+     */
+    @Autowired
+    public TopLesezeichen( AufrufRepo aufrufRepo,
+                           PlatformTransactionManager txManager,
+                           @Value( "${lesezeichen.top.kapazitaet:50}" ) int kapazitaet ) {
+
+        _aufrufRepo = aufrufRepo;
+        _kapazitaet = Math.max( kapazitaet, 1 );
+        _gesamt     = new SpaceSavingZaehler<>( _kapazitaet );
+
+        _txTemplate = new TransactionTemplate( txManager );
+        _txTemplate.setReadOnly( true );
+    }
+
+
+    /**
+     * Maximale Anzahl Einträge, die eine Abfrage liefern kann.
+     *
+     * @return Kapazität der Ranglisten
+     */
+    public int getKapazitaet() {
+
+        return _kapazitaet;
+    }
+
+
+    /**
+     * Baut die Ranglisten nach dem Start der Anwendung aus der Datenbank auf.
+     */
+    @EventListener( ApplicationReadyEvent.class )
+    public void neuAufbauen() {
+
+        final long zeitStart = System.currentTimeMillis();
+
+        _lock.writeLock().lock();
+        try {
+
+            _gesamt = new SpaceSavingZaehler<>( _kapazitaet );
+            _proOrdner.clear();
+
+            final Integer anzahl = _txTemplate.execute( status -> {
+
+                int zaehler = 0;
+                try ( Stream<LesezeichenMitAufrufen> stream = _aufrufRepo.streamAlle() ) {
+
+                    for ( LesezeichenMitAufrufen lesezeichen : (Iterable<LesezeichenMitAufrufen>) stream::iterator ) {
+
+                        eintragen( lesezeichen, lesezeichen.anzahl() );
+                        zaehler++;
+                    }
+                }
+                return zaehler;
+            });
+
+            LOG.info( "Ranglisten mit {} aufgerufenen Lesezeichen in {} Ordnern in {} ms aufgebaut.",
+                      anzahl, _proOrdner.size(), System.currentTimeMillis() - zeitStart );
+
+        } finally {
+
+            _lock.writeLock().unlock();
+        }
+    }
+
+
+    /**
+     * Neue Aufrufe in die Ranglisten eintragen; Lesezeichen, Ordner und Pfad
+     * werden blockweise mit einer Query pro Block geholt.
+     *
+     * @param ereignis Ereignis mit Anzahl der neuen Aufrufe pro Lesezeichen
+     */
+    @EventListener
+    public void onAufrufeGeschrieben( AufrufeGeschriebenEreignis ereignis ) {
+
+        final Map<Long, Long>              anzahlProLesezeichen = ereignis.anzahlProLesezeichen();
+        final List<Long>                   idListe              = new ArrayList<>( anzahlProLesezeichen.keySet() );
+        final List<LesezeichenMitAufrufen> lesezeichenListe     = new ArrayList<>( idListe.size() );
+
+        for ( int i = 0; i < idListe.size(); i += BLOCKGROESSE ) {
+
+            final List<Long> block = idListe.subList( i, Math.min( i + BLOCKGROESSE, idListe.size() ) );
+            lesezeichenListe.addAll( _aufrufRepo.findByLesezeichenIds( block ) );
+        }
+
+        _lock.writeLock().lock();
+        try {
+
+            for ( LesezeichenMitAufrufen lesezeichen : lesezeichenListe ) {
+
+                eintragen( lesezeichen, anzahlProLesezeichen.get( lesezeichen.id() ) );
+            }
+
+        } finally {
+
+            _lock.writeLock().unlock();
+        }
+    }
+
+
+    /**
+     * Aufrufe eines Lesezeichens in die Rangliste für alle Lesezeichen und die
+     * Ranglisten des Ordners und seiner Vorfahren eintragen; Aufrufer muss
+     * Schreibsperre haben.
+     *
+     * @param lesezeichen Lesezeichen mit Pfad des Ordners
+     *
+     * @param anzahl Anzahl der neuen Aufrufe
+     */
+    private void eintragen( LesezeichenMitAufrufen lesezeichen, long anzahl ) {
+
+        final LesezeichenMitOrdner wert = lesezeichen.lesezeichen();
+
+        _gesamt.erhoehen( lesezeichen.id(), wert, anzahl );
+
+        final List<Long> ordnerIds = lesezeichen.pfad() == null ? List.of( lesezeichen.ordnerId() )
+                                                                : OrdnerService.pfadZuIds( lesezeichen.pfad() );
+        for ( Long ordnerId : ordnerIds ) {
+
+            _proOrdner.computeIfAbsent( ordnerId, id -> new SpaceSavingZaehler<>( _kapazitaet ) )
+                      .erhoehen( lesezeichen.id(), wert, anzahl );
+        }
+    }
+
+
+    /**
+     * Meistbenutzte Lesezeichen.
+     *
+     * @param ordnerId ID des Ordners, dessen Teilbaum betrachtet wird;
+     *                 {@code null} für alle Lesezeichen
+     *
+     * @param anzahl Maximale Anzahl Einträge, höchstens {@link #getKapazitaet()}
+     *
+     * @return Einträge absteigend sortiert nach Anzahl der Aufrufe; leer, wenn es
+     *         im Teilbaum noch keinen Aufruf gab
+     */
+    public List<TopEintrag> getTop( Long ordnerId, int anzahl ) {
+
+        _lock.readLock().lock();
+        try {
+
+            final SpaceSavingZaehler<LesezeichenMitOrdner> zaehler =
+                    ordnerId == null ? _gesamt : _proOrdner.get( ordnerId );
+            if ( zaehler == null ) { return List.of(); }
+
+            return zaehler.top( Math.clamp( anzahl, 1, _kapazitaet ) ).stream()
+                          .map( eintrag -> new TopEintrag( eintrag.getWert(), eintrag.getAnzahl(), eintrag.getFehler() ) )
+                          .toList();
+
+        } finally {
+
+            _lock.readLock().unlock();
+        }
+    }
+
+}
@@ -0,0 +1,211 @@
+package de.eldecker.dhbw.spring.weblesezeichen.logik;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+
+/**
+ * Bringt URLs in eine kanonische Form und berechnet daraus den 64-Bit-Hashwert,
+ * der in {@code LesezeichenEntity} als indizierte Spalte {@code url_hash}
+ * gespeichert wird. Zwei Lesezeichen gelten als Duplikate, wenn ihre URLs
+ * dieselbe kanonische Form haben.
+ * <br><br>
+ *
+ * Bei der Normalisierung werden
+ * <ul>
+ * <li>Schema und Host kleingeschrieben,</li>
+ * <li>ein führendes {@code www.} beim Host und der Standard-Port entfernt,</li>
+ * <li>ein abschließender {@code /} beim Pfad entfernt,</li>
+ * <li>Tracking-Parameter wie {@code utm_source} oder {@code fbclid} aus der
+ *     Query entfernt und die übrigen Parameter nach Namen sortiert,</li>
+ * <li>ein leeres Fragment ({@code #}) entfernt.</li>
+ * </ul>
+ * Groß-/Kleinschreibung im Pfad und in der Query bleibt erhalten, weil sie
+ * für viele Server relevant ist; ebenso wird {@code http} nicht mit
+ * {@code https} gleichgesetzt.
+ * <br><br>
+ *
+ * Der Hashwert ist FNV-1a (64 Bit) über die UTF-8-Bytes der kanonischen Form,
+ * gefolgt vom Finalisierungsschritt von MurmurHash3 für eine bessere
+ * Verteilung der Bits. Bei einer Million Lesezeichen liegt die
+ * Wahrscheinlichkeit einer Kollision bei etwa 3 zu 100 Millionen; trotzdem
+ * wird bei Treffern über den Hashwert immer noch die kanonische Form verglichen.
+ */
+public final class UrlNormalisierung {
+
+    /** Zerlegt eine URL in Schema, Authority, Pfad, Query und Fragment. */
+    private static final Pattern URL_MUSTER =
+            Pattern.compile( "^([a-zA-Z][a-zA-Z0-9+.-]*)://([^/?#]*)([^?#]*)(?:\\?([^#]*))?(?:#(.*))?$" );
+
+    /** Query-Parameter, die nur der Nachverfolgung dienen (zusätzlich zu {@code utm_*}). */
+    private static final Set<String> TRACKING_PARAMETER =
+            Set.of( "fbclid", "gclid", "dclid", "msclkid", "yclid", "igshid", "mc_cid", "mc_eid", "_ga", "_gl" );
+
+    /** Startwert von FNV-1a (64 Bit). */
+    private static final long FNV_START = 0xCBF2_9CE4_8422_2325L;
+
+    /** Primzahl von FNV-1a (64 Bit). */
+    private static final long FNV_PRIMZAHL = 0x0000_0100_0000_01B3L;
+
+
+    /** Keine Instanzen. */
+    private UrlNormalisierung() {}
+
+
+    /**
+     * URL in kanonische Form bringen.
+     *
+     * @param url URL wie eingegeben, z.B. {@code "HTTPS://www.Heise.de/?utm_source=rss"};
+     *            darf {@code null} sein
+     *
+     * @return Kanonische Form, z.B. {@code "https://heise.de"}; URLs, die nicht
+     *         dem Muster {@code schema://...} entsprechen, werden nur getrimmt
+     */
+    public static String normalisieren( String url ) {
+
+        if ( url == null ) { return ""; }
+
+        final String getrimmt = url.trim();
+        final Matcher matcher = URL_MUSTER.matcher( getrimmt );
+        if ( !matcher.matches() ) { return getrimmt; }
+
+        final String schema    = matcher.group( 1 ).toLowerCase( Locale.ROOT );
+        final String authority = authorityNormalisieren( schema, matcher.group( 2 ) );
+        final String query     = queryNormalisieren( matcher.group( 4 ) );
+        final String fragment  = matcher.group( 5 );
+
+        String pfad = matcher.group( 3 );
+        while ( pfad.endsWith( "/" ) ) { pfad = pfad.substring( 0, pfad.length() - 1 ); }
+
+        final StringBuilder sb = new StringBuilder( getrimmt.length() );
+        sb.append( schema ).append( "://" ).append( authority ).append( pfad );
+        if ( !query.isEmpty() ) { sb.append( '?' ).append( query ); }
+        if ( fragment != null && !fragment.isEmpty() ) { sb.append( '#' ).append( fragment ); }
+
+        return sb.toString();
+    }
+
+
+    /**
+     * Host einer URL, normalisiert wie bei {@link #normalisieren(String)},
+     * aber ohne Port und Benutzerangaben.
+     *
+     * @param url URL, z.B. {@code "https://WWW.Docs.Spring.io:8443/x"}; darf {@code null} sein
+     *
+     * @return Host, z.B. {@code "docs.spring.io"}; leer, wenn die URL nicht dem
+     *         Muster {@code schema://...} entspricht
+     */
+    public static String host( String url ) {
+
+        if ( url == null ) { return ""; }
+
+        final Matcher matcher = URL_MUSTER.matcher( url.trim() );
+        if ( !matcher.matches() ) { return ""; }
+
+        final String authority = authorityNormalisieren( matcher.group( 1 ).toLowerCase( Locale.ROOT ),
+                                                         matcher.group( 2 ) );
+
+        String host = authority.substring( authority.lastIndexOf( '@' ) + 1 );
+        if ( host.startsWith( "[" ) ) { // IPv6-Adresse
+
+            final int posKlammer = host.indexOf( ']' );
+            return posKlammer < 0 ? host : host.substring( 0, posKlammer + 1 );
+        }
+
+        final int posDoppelpunkt = host.lastIndexOf( ':' );
+
+        return posDoppelpunkt < 0 ? host : host.substring( 0, posDoppelpunkt );
+    }
+
+
+    /**
+     * 64-Bit-Hashwert der kanonischen Form einer URL.
+     *
+     * @param url URL wie eingegeben, wird mit {@link #normalisieren(String)}
+     *            normalisiert; darf {@code null} sein
+     *
+     * @return Hashwert, gleich für alle URLs mit derselben kanonischen Form
+     */
+    public static long hash( String url ) {
+
+        long hash = FNV_START;
+        for ( byte b : normalisieren( url ).getBytes( UTF_8 ) ) {
+
+            hash ^= b & 0xFF;
+            hash *= FNV_PRIMZAHL;
+        }
+
+        hash ^= hash >>> 33;
+        hash *= 0xFF51_AFD7_ED55_8CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CE_B9FE_1A85_EC53L;
+        hash ^= hash >>> 33;
+
+        return hash;
+    }
+
+
+    /**
+     * Host kleinschreiben, {@code www.} und Standard-Port entfernen;
+     * Benutzerangaben vor {@code @} bleiben unverändert.
+     */
+    private static String authorityNormalisieren( String schema, String authority ) {
+
+        final int    posAt    = authority.lastIndexOf( '@' );
+        final String benutzer = posAt < 0 ? "" : authority.substring( 0, posAt + 1 );
+
+        String host = authority.substring( posAt + 1 ).toLowerCase( Locale.ROOT );
+        if ( host.endsWith( "." ) ) { host = host.substring( 0, host.length() - 1 ); }
+
+        if ( ( schema.equals( "http"  ) && host.endsWith( ":80"  ) ) ||
+             ( schema.equals( "https" ) && host.endsWith( ":443" ) ) ) {
+
+            host = host.substring( 0, host.lastIndexOf( ':' ) );
+        }
+        if ( host.startsWith( "www." ) ) { host = host.substring( 4 ); }
+
+        return benutzer + host;
+    }
+
+
+    /**
+     * Tracking-Parameter entfernen und übrige Parameter stabil nach Namen sortieren.
+     */
+    private static String queryNormalisieren( String query ) {
+
+        if ( query == null || query.isEmpty() ) { return ""; }
+
+        final List<String> parameterListe = new ArrayList<>();
+        for ( String parameter : query.split( "&" ) ) {
+
+            if ( parameter.isEmpty() ) { continue; }
+
+            final String name = parameterName( parameter ).toLowerCase( Locale.ROOT );
+            if ( name.startsWith( "utm_" ) || TRACKING_PARAMETER.contains( name ) ) { continue; }
+
+            parameterListe.add( parameter );
+        }
+        parameterListe.sort( Comparator.comparing( UrlNormalisierung::parameterName ) );
+
+        return String.join( "&", parameterListe );
+    }
+
+
+    /**
+     * Name eines Query-Parameters, also Text vor dem ersten {@code =}.
+     */
+    private static String parameterName( String parameter ) {
+
+        final int posGleich = parameter.indexOf( '=' );
+
+        return posGleich < 0 ? parameter : parameter.substring( 0, posGleich );
+    }
+
+}
@@ -0,0 +1,59 @@
+package de.eldecker.dhbw.spring.weblesezeichen.logik;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+
+/**
+ * Zieht Zufallszahlen {@code 0 .. n-1}, die nach dem Zipfschen Gesetz verteilt
+ * sind: der Wert mit Rang {@code k} (beginnend bei 1) wird mit einer
+ * Wahrscheinlichkeit proportional zu {@code 1 / k^exponent} gezogen. So sind
+ * z.B. Wörter in Texten oder Aufrufe von Domains verteilt: wenige Werte
+ * kommen sehr oft vor, die meisten sehr selten.
+ */
+public class ZipfVerteilung {
+
+    /** Kumulierte, auf 1 normierte Wahrscheinlichkeiten. */
+    private final double[] _kumuliert;
+
+
+    /**
+     * Konstruktor, berechnet die kumulierten Wahrscheinlichkeiten.
+     *
+     * @param anzahl Anzahl der möglichen Werte, mindestens 1
+     *
+     * @param exponent Exponent; 0 ergibt Gleichverteilung, übliche Werte
+     *                 liegen um 1
+     */
+    public ZipfVerteilung( int anzahl, double exponent ) {
+
+        _kumuliert = new double[ anzahl ];
+
+        double summe = 0;
+        for ( int k = 1; k <= anzahl; k++ ) {
+
+            summe += 1.0 / Math.pow( k, exponent );
+            _kumuliert[ k - 1 ] = summe;
+        }
+        for ( int i = 0; i < anzahl; i++ ) {
+
+            _kumuliert[ i ] /= summe;
+        }
+    }
+
+
+    /**
+     * Zieht einen Wert.
+     *
+     * @param zufall Zufallsgenerator
+     *
+     * @return Wert zwischen 0 (häufigster Wert) und {@code anzahl - 1}
+     */
+    public int ziehen( SplittableRandom zufall ) {
+
+        final int position = Arrays.binarySearch( _kumuliert, zufall.nextDouble() );
+
+        return Math.min( position < 0 ? -position - 1 : position, _kumuliert.length - 1 );
+    }
+
+}
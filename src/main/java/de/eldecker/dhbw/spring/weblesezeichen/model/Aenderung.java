@@ -0,0 +1,30 @@
+package de.eldecker.dhbw.spring.weblesezeichen.model;
+
+
+/**
+ * Kompakte Darstellung eines Eintrags im Änderungsprotokoll für die
+ * Delta-Synchronisation; ein Client legt das Objekt an oder überschreibt es
+ * ("Upsert").
+ *
+ * @param rev Revision der Änderung
+ *
+ * @param typ {@code ORDNER} oder {@code LESEZEICHEN}
+ *
+ * @param aktion {@code ANGELEGT} oder {@code GEAENDERT}
+ *
+ * @param id ID des Ordners bzw. Lesezeichens
+ *
+ * @param name Name nach der Änderung
+ *
+ * @param url URL nach der Änderung, {@code null} für Ordner
+ *
+ * @param ordner ID des (Vater-)Ordners, {@code null} für Wurzelordner
+ */
+public record Aenderung( long   rev,
+                         String typ,
+                         String aktion,
+                         long   id,
+                         String name,
+                         String url,
+                         Long   ordner ) {
+}
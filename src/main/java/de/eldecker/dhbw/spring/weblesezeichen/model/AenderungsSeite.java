@@ -0,0 +1,20 @@
+package de.eldecker.dhbw.spring.weblesezeichen.model;
+
+import java.util.List;
+
+
+/**
+ * Antwort der Delta-Synchronisation: Änderungen nach dem übergebenen Token.
+ *
+ * @param aenderungen Änderungen, sortiert nach Revision; kann leer sein
+ *
+ * @param token Token für die nächste Abfrage (Revision und ID des letzten
+ *              gelieferten Eintrags), z.B. {@code 17.4711}
+ *
+ * @param weitere {@code true}, wenn es noch weitere Änderungen gibt; der
+ *                Client sollte dann sofort mit {@code token} weiter abfragen
+ */
+public record AenderungsSeite( List<Aenderung> aenderungen,
+                               String          token,
+                               boolean         weitere ) {
+}
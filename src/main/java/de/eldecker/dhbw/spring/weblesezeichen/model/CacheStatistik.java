@@ -0,0 +1,36 @@
+package de.eldecker.dhbw.spring.weblesezeichen.model;
+
+
+/**
+ * Statistik für einen Cache bzw. eine Cache-Region.
+ *
+ * @param name Name des Caches, z.B. "ordner"
+ *
+ * @param art Art des Caches: "hibernate" für Second-Level-Cache,
+ *            "spring" für Spring Cache
+ *
+ * @param treffer Anzahl der Zugriffe, bei denen der Wert im Cache war
+ *
+ * @param fehlschlaege Anzahl der Zugriffe, bei denen der Wert nicht im Cache war
+ *
+ * @param eintraege Aktuelle Anzahl Einträge (Schätzwert); -1, wenn nicht verfügbar
+ */
+public record CacheStatistik( String name,
+                              String art,
+                              long   treffer,
+                              long   fehlschlaege,
+                              long   eintraege ) {
+
+    /**
+     * Anteil der Treffer an allen Zugriffen.
+     *
+     * @return Trefferquote zwischen 0.0 und 1.0; 0.0, wenn es noch keinen Zugriff gab
+     */
+    public double trefferquote() {
+
+        final long zugriffe = treffer + fehlschlaege;
+
+        return zugriffe == 0 ? 0.0 : (double) treffer / zugriffe;
+    }
+
+}
@@ -0,0 +1,17 @@
+package de.eldecker.dhbw.spring.weblesezeichen.model;
+
+
+/**
+ * Domain mit Anzahl der Lesezeichen.
+ *
+ * @param domain Domain, z.B. "spring.io"
+ *
+ * @param anzahl Anzahl der Lesezeichen mit dieser Domain als Host oder mit
+ *               einer Subdomain davon als Host
+ *
+ * @param anzahlDirekt Anzahl der Lesezeichen mit genau dieser Domain als Host
+ */
+public record DomainAnzahl( String domain,
+                            int    anzahl,
+                            int    anzahlDirekt ) {
+}
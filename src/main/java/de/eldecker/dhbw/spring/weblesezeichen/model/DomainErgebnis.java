@@ -0,0 +1,65 @@
+package de.eldecker.dhbw.spring.weblesezeichen.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+
+/**
+ * Ergebnis einer Abfrage des Domain-Index für eine Domain: direkte
+ * Subdomains mit Anzahl und eine Seite mit Lesezeichen unterhalb der Domain.
+ *
+ * @param domain Domain, z.B. "spring.io"; leer für alle Lesezeichen
+ *
+ * @param anzahl Anzahl der Lesezeichen unterhalb von {@code domain}
+ *               (einschließlich der Domain selbst)
+ *
+ * @param unterdomains Direkte Subdomains, absteigend sortiert nach Anzahl;
+ *                     für die leere Domain sind das die Top-Level-Domains
+ *
+ * @param seite Nummer der Seite mit Lesezeichen, beginnend mit 0
+ *
+ * @param seitengroesse Maximale Anzahl Lesezeichen pro Seite
+ *
+ * @param lesezeichen Lesezeichen auf dieser Seite, sortiert nach umgekehrtem
+ *                    Host (erst {@code domain} selbst, dann die Subdomains)
+ */
+public record DomainErgebnis( String                     domain,
+                              int                        anzahl,
+                              List<DomainAnzahl>         unterdomains,
+                              int                        seite,
+                              int                        seitengroesse,
+                              List<LesezeichenMitOrdner> lesezeichen ) {
+
+    /**
+     * Convenience-Methode für Template.
+     *
+     * @return {@code true} gdw. es nach dieser Seite noch weitere Lesezeichen gibt
+     */
+    public boolean hatNaechste() {
+
+        return ( seite + 1L ) * seitengroesse < anzahl;
+    }
+
+
+    /**
+     * Convenience-Methode für Template: übergeordnete Domains für Navigation.
+     *
+     * @return Liste von der Top-Level-Domain bis zur übergeordneten Domain,
+     *         z.B. {@code ["io", "spring.io"]} für "docs.spring.io"
+     */
+    public List<String> vorfahren() {
+
+        if ( domain.isEmpty() ) { return List.of(); }
+
+        final String[] teile = domain.split( "\\." );
+        final List<String> ergebnisListe = new ArrayList<>( teile.length - 1 );
+        for ( int i = teile.length - 1; i > 0; i-- ) {
+
+            ergebnisListe.add( String.join( ".", Arrays.copyOfRange( teile, i, teile.length ) ) );
+        }
+
+        return ergebnisListe;
+    }
+
+}
@@ -0,0 +1,30 @@
+package de.eldecker.dhbw.spring.weblesezeichen.model;
+
+import java.util.List;
+
+
+/**
+ * Bericht über alle Lesezeichen mit doppelten URLs.
+ *
+ * @param anzahlGruppen Gesamtzahl der Gruppen mit Duplikaten
+ *
+ * @param anzahlUeberzaehlig Anzahl der Lesezeichen, die man löschen könnte,
+ *                           wenn man pro Gruppe nur eines behält
+ *
+ * @param gruppen Die ersten Gruppen, höchstens so viele wie angefordert
+ */
+public record DuplikatBericht( int                  anzahlGruppen,
+                               int                  anzahlUeberzaehlig,
+                               List<DuplikatGruppe> gruppen ) {
+
+    /**
+     * Convenience-Methode für Template.
+     *
+     * @return {@code true} gdw. nicht alle Gruppen in {@link #gruppen()} enthalten sind
+     */
+    public boolean gekuerzt() {
+
+        return gruppen.size() < anzahlGruppen;
+    }
+
+}
@@ -0,0 +1,15 @@
+package de.eldecker.dhbw.spring.weblesezeichen.model;
+
+import java.util.List;
+
+
+/**
+ * Lesezeichen, deren URLs dieselbe kanonische Form haben.
+ *
+ * @param kanonischeUrl Gemeinsame kanonische Form der URLs
+ *
+ * @param lesezeichen Mindestens zwei Lesezeichen, aufsteigend sortiert nach ID
+ */
+public record DuplikatGruppe( String                     kanonischeUrl,
+                              List<LesezeichenMitOrdner> lesezeichen ) {
+}
@@ -0,0 +1,30 @@
+package de.eldecker.dhbw.spring.weblesezeichen.model;
+
+
+/**
+ * Eine Zeile für den Export: ein Ordner zusammen mit einem darin enthaltenen
+ * Lesezeichen. Für einen leeren Ordner gibt es genau eine Zeile, bei der
+ * alle Attribute des Lesezeichens {@code null} sind.
+ *
+ * @param ordnerId ID des Ordners
+ *
+ * @param ordnerName Name des Ordners
+ *
+ * @param ordnerPfad Materialisierter Pfad des Ordners, z.B. {@code /1/3/7/}
+ *
+ * @param ordnerVersion Version des Ordners (für <i>Optimistic Locking</i>)
+ *
+ * @param lesezeichenId ID des Lesezeichens oder {@code null}
+ *
+ * @param lesezeichenName Anzeigename des Lesezeichens oder {@code null}
+ *
+ * @param url URL des Lesezeichens oder {@code null}
+ */
+public record ExportZeile( Long   ordnerId,
+                           String ordnerName,
+                           String ordnerPfad,
+                           Long   ordnerVersion,
+                           Long   lesezeichenId,
+                           String lesezeichenName,
+                           String url ) {
+}
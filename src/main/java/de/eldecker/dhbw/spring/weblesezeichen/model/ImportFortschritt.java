@@ -0,0 +1,72 @@
+package de.eldecker.dhbw.spring.weblesezeichen.model;
+
+
+/**
+ * Momentaufnahme des Fortschritts eines Imports von Lesezeichen aus einer Datei.
+ *
+ * @param id ID des Import-Auftrags, für Abfrage des Fortschritts
+ *
+ * @param dateiname Name der hochgeladenen Datei
+ *
+ * @param status Aktueller Status des Imports
+ *
+ * @param dateigroesse Größe der Datei in Bytes
+ *
+ * @param bytesGelesen Anzahl der schon gelesenen Bytes der Datei
+ *
+ * @param anzahlOrdner Anzahl der bisher angelegten Ordner
+ *
+ * @param anzahlLesezeichen Anzahl der bisher angelegten Lesezeichen
+ *
+ * @param anzahlUebersprungen Anzahl der Lesezeichen, die wegen ungültiger
+ *                            oder zu langer URL nicht importiert wurden
+ *
+ * @param importOrdnerId ID des Ordners, unter dem die importierten Ordner
+ *                       und Lesezeichen angelegt werden; {@code null},
+ *                       solange der Import noch nicht begonnen hat
+ *
+ * @param fehlermeldung Fehlermeldung bei Status {@link Status#FEHLER},
+ *                      sonst {@code null}
+ */
+public record ImportFortschritt( String id,
+                                 String dateiname,
+                                 Status status,
+                                 long   dateigroesse,
+                                 long   bytesGelesen,
+                                 int    anzahlOrdner,
+                                 int    anzahlLesezeichen,
+                                 int    anzahlUebersprungen,
+                                 Long   importOrdnerId,
+                                 String fehlermeldung ) {
+
+    /**
+     * Status eines Import-Auftrags.
+     */
+    public enum Status { WARTEND, LAEUFT, FERTIG, FEHLER }
+
+
+    /**
+     * Convenience-Methode für Template.
+     *
+     * @return {@code true} gdw. der Import noch nicht beendet ist
+     */
+    public boolean laeuft() {
+
+        return status == Status.WARTEND || status == Status.LAEUFT;
+    }
+
+
+    /**
+     * Anteil der schon gelesenen Bytes.
+     *
+     * @return Prozentwert zwischen 0 und 100
+     */
+    public int prozent() {
+
+        if ( status == Status.FERTIG ) { return 100; }
+        if ( dateigroesse <= 0       ) { return 0;   }
+
+        return (int) Math.min( 100, bytesGelesen * 100 / dateigroesse );
+    }
+
+}
@@ -0,0 +1,98 @@
+package de.eldecker.dhbw.spring.weblesezeichen.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+
+/**
+ * Eine Seite einer Liste, die mit <i>Keyset Pagination</i> (auch <i>Seek Method</i>
+ * genannt) geholt wurde: Statt mit {@code OFFSET} wird die nächste Seite über die
+ * Werte (Name und ID) des letzten Elements der aktuellen Seite bestimmt, so dass
+ * auch weit hinten liegende Seiten über einen Index gefunden werden können.
+ * <br><br>
+ *
+ * Die Queries für eine Seite holen jeweils ein Element mehr als die Seitengröße,
+ * um feststellen zu können, ob es noch eine weitere Seite gibt.
+ *
+ * @param eintraege Elemente auf der Seite, in aufsteigender Sortierung
+ *
+ * @param hatVorherige {@code true} gdw. es vor dieser Seite noch Elemente gibt
+ *
+ * @param hatNaechste {@code true} gdw. es nach dieser Seite noch Elemente gibt
+ */
+public record KeysetSeite<T>( List<T> eintraege,
+                              boolean hatVorherige,
+                              boolean hatNaechste ) {
+
+    /**
+     * Erzeugt Seite aus dem Ergebnis einer vorwärts (aufsteigend) sortierten Query.
+     *
+     * @param liste Ergebnis der Query mit bis zu {@code seitengroesse + 1} Elementen
+     *
+     * @param seitengroesse Anzahl der Elemente pro Seite
+     *
+     * @param hatVorherige {@code true}, wenn die Query mit einem Cursor aufgerufen wurde
+     *
+     * @return Seite mit höchstens {@code seitengroesse} Elementen
+     */
+    public static <T> KeysetSeite<T> vorwaerts( List<T> liste, int seitengroesse, boolean hatVorherige ) {
+
+        final List<T> eintraege   = new ArrayList<>( liste );
+        final boolean hatNaechste = eintraege.size() > seitengroesse;
+        if ( hatNaechste ) {
+
+            eintraege.remove( eintraege.size() - 1 );
+        }
+
+        return new KeysetSeite<>( eintraege, hatVorherige, hatNaechste );
+    }
+
+
+    /**
+     * Erzeugt Seite aus dem Ergebnis einer rückwärts (absteigend) sortierten Query,
+     * die für "Vorherige Seite" verwendet wird.
+     *
+     * @param liste Ergebnis der Query mit bis zu {@code seitengroesse + 1} Elementen,
+     *              absteigend sortiert
+     *
+     * @param seitengroesse Anzahl der Elemente pro Seite
+     *
+     * @return Seite mit höchstens {@code seitengroesse} Elementen, aufsteigend sortiert
+     */
+    public static <T> KeysetSeite<T> rueckwaerts( List<T> liste, int seitengroesse ) {
+
+        final List<T> eintraege    = new ArrayList<>( liste );
+        final boolean hatVorherige = eintraege.size() > seitengroesse;
+        if ( hatVorherige ) {
+
+            eintraege.remove( eintraege.size() - 1 );
+        }
+        Collections.reverse( eintraege );
+
+        return new KeysetSeite<>( eintraege, hatVorherige, true );
+    }
+
+
+    /**
+     * Erstes Element der Seite, wird als Cursor für "Vorherige Seite" benötigt.
+     *
+     * @return Erstes Element oder {@code null}, wenn Seite leer ist
+     */
+    public T erster() {
+
+        return eintraege.isEmpty() ? null : eintraege.get( 0 );
+    }
+
+
+    /**
+     * Letztes Element der Seite, wird als Cursor für "Nächste Seite" benötigt.
+     *
+     * @return Letztes Element oder {@code null}, wenn Seite leer ist
+     */
+    public T letzter() {
+
+        return eintraege.isEmpty() ? null : eintraege.get( eintraege.size() - 1 );
+    }
+
+}
@@ -0,0 +1,41 @@
+package de.eldecker.dhbw.spring.weblesezeichen.model;
+
+
+/**
+ * Lesezeichen mit Ordner, materialisiertem Pfad des Ordners und Anzahl der
+ * Aufrufe; wird für den Aufbau der Ranglisten der meistbenutzten Lesezeichen
+ * gelesen.
+ *
+ * @param id ID des Lesezeichens
+ *
+ * @param name Anzeigename des Lesezeichens
+ *
+ * @param url URL des Lesezeichens
+ *
+ * @param ordnerId ID des Ordners, der das Lesezeichen enthält
+ *
+ * @param ordnerName Name des Ordners, der das Lesezeichen enthält
+ *
+ * @param pfad Materialisierter Pfad des Ordners, z.B. {@code /1/3/7/}
+ *
+ * @param anzahl Anzahl der Aufrufe laut Datenbank
+ */
+public record LesezeichenMitAufrufen( Long   id,
+                                      String name,
+                                      String url,
+                                      Long   ordnerId,
+                                      String ordnerName,
+                                      String pfad,
+                                      long   anzahl ) {
+
+    /**
+     * Lesezeichen ohne Pfad und Anzahl.
+     *
+     * @return Lesezeichen mit ID und Name des Ordners
+     */
+    public LesezeichenMitOrdner lesezeichen() {
+
+        return new LesezeichenMitOrdner( id, name, url, ordnerId, ordnerName );
+    }
+
+}
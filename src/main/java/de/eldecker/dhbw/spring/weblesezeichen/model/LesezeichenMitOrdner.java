@@ -0,0 +1,23 @@
+package de.eldecker.dhbw.spring.weblesezeichen.model;
+
+
+/**
+ * Flache Darstellung eines Lesezeichens zusammen mit ID und Name des Ordners,
+ * in dem es enthalten ist.
+ *
+ * @param id ID des Lesezeichens
+ *
+ * @param name Anzeigename des Lesezeichens
+ *
+ * @param url URL des Lesezeichens
+ *
+ * @param ordnerId ID des Ordners, der das Lesezeichen enthält
+ *
+ * @param ordnerName Name des Ordners, der das Lesezeichen enthält
+ */
+public record LesezeichenMitOrdner( Long   id,
+                                    String name,
+                                    String url,
+                                    Long   ordnerId,
+                                    String ordnerName ) {
+}
@@ -0,0 +1,37 @@
+package de.eldecker.dhbw.spring.weblesezeichen.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * Knoten eines im Speicher aufgebauten (Teil-)Baums von Ordnern, jeweils mit
+ * den enthaltenen Lesezeichen.
+ *
+ * @param id ID des Ordners
+ *
+ * @param name Name des Ordners
+ *
+ * @param lesezeichen Im Ordner enthaltene Lesezeichen, aufsteigend nach Name sortiert
+ *
+ * @param unterordner Direkte Unterordner, aufsteigend nach Name sortiert
+ */
+public record OrdnerBaumKnoten( Long                       id,
+                                String                     name,
+                                List<LesezeichenMitOrdner> lesezeichen,
+                                List<OrdnerBaumKnoten>     unterordner ) {
+
+    /**
+     * Konstruktor für Knoten, der beim Aufbau des Baums noch mit Lesezeichen
+     * und Unterordnern befüllt wird.
+     *
+     * @param id ID des Ordners
+     *
+     * @param name Name des Ordners
+     */
+    public OrdnerBaumKnoten( Long id, String name ) {
+
+        this( id, name, new ArrayList<>(), new ArrayList<>() );
+    }
+
+}
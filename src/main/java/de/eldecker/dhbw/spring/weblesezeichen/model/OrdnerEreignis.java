@@ -0,0 +1,26 @@
+package de.eldecker.dhbw.spring.weblesezeichen.model;
+
+
+/**
+ * Änderung in einem Ordner, die per <i>Server-Sent Events</i> an Clients
+ * geschickt wird, die den Ordner bzw. Teilbaum abonniert haben; Aufbau
+ * analog zu {@link Aenderung}.
+ *
+ * @param typ {@code ORDNER}, {@code LESEZEICHEN} oder {@code IMPORT}; bei
+ *            {@code IMPORT} sind alle anderen Attribute {@code null} und der
+ *            Client sollte seine Daten neu laden
+ *
+ * @param id ID des neuen Ordners bzw. Lesezeichens
+ *
+ * @param name Name des neuen Ordners bzw. Lesezeichens
+ *
+ * @param url URL des neuen Lesezeichens, {@code null} für Ordner
+ *
+ * @param ordner ID des Ordners, in dem der Ordner bzw. das Lesezeichen angelegt wurde
+ */
+public record OrdnerEreignis( String typ,
+                              Long   id,
+                              String name,
+                              String url,
+                              Long   ordner ) {
+}
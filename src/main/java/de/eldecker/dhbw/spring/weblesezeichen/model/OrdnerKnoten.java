@@ -0,0 +1,137 @@
+package de.eldecker.dhbw.spring.weblesezeichen.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+
+/**
+ * Unveränderlicher Knoten für einen Ordner im Speicher, enthält neben den
+ * Attributen des Ordners die (nach Name sortierten) Listen der direkten
+ * Unterordner und der Lesezeichen. Bei einer Änderung wird ein neuer Knoten
+ * erzeugt, siehe {@link #mitUnterordner(OrdnerKurzInfo)} und
+ * {@link #mitLesezeichen(LesezeichenMitOrdner)}.
+ *
+ * @param id ID des Ordners
+ *
+ * @param name Name des Ordners
+ *
+ * @param vaterId ID des Vaterordners; {@code null} für Wurzelordner
+ *
+ * @param pfad Materialisierter Pfad, z.B. {@code /1/3/7/}
+ *
+ * @param version Version des Ordners wie in der Datenbank, wird bei jedem
+ *                neuen Unterordner oder Lesezeichen um 1 erhöht; Grundlage
+ *                für das ETag der Ordnerseite
+ *
+ * @param unterordner Direkte Unterordner, sortiert nach Name und ID
+ *
+ * @param lesezeichen Lesezeichen im Ordner, sortiert nach Name und ID
+ */
+public record OrdnerKnoten( Long                       id,
+                           String                     name,
+                           Long                       vaterId,
+                           String                     pfad,
+                           Long                       version,
+                           List<OrdnerKurzInfo>       unterordner,
+                           List<LesezeichenMitOrdner> lesezeichen ) {
+
+    /** Sortierung der Unterordner: nach Name, dann nach ID. */
+    public static final Comparator<OrdnerKurzInfo> ORDNER_SORTIERUNG =
+            Comparator.comparing( OrdnerKurzInfo::name, Comparator.nullsFirst( Comparator.<String>naturalOrder() ) )
+                      .thenComparing( OrdnerKurzInfo::id );
+
+    /**
+     * Sortierung der Ordnerliste (alle Ordner): nach Name ohne Groß-/Kleinschreibung
+     * wie in der Spalte {@code name_klein}, dann nach ID.
+     */
+    public static final Comparator<OrdnerKurzInfo> ORDNERLISTE_SORTIERUNG =
+            Comparator.comparing( ( OrdnerKurzInfo ordner ) -> ordner.name() == null ? null
+                                                                : ordner.name().toLowerCase( Locale.ROOT ),
+                                  Comparator.nullsFirst( Comparator.<String>naturalOrder() ) )
+                      .thenComparing( OrdnerKurzInfo::id );
+
+    /** Sortierung der Lesezeichen: nach Name, dann nach ID. */
+    public static final Comparator<LesezeichenMitOrdner> LESEZEICHEN_SORTIERUNG =
+            Comparator.comparing( LesezeichenMitOrdner::name, Comparator.nullsFirst( Comparator.<String>naturalOrder() ) )
+                      .thenComparing( LesezeichenMitOrdner::id );
+
+
+    /**
+     * Convenience-Methode für Template.
+     *
+     * @return {@code true} gdw. der Ordner keinen Vaterordner hat
+     */
+    public boolean istWurzel() {
+
+        return vaterId == null;
+    }
+
+
+    /**
+     * Kopie dieses Knotens mit einem zusätzlichen Unterordner.
+     *
+     * @param neuerUnterordner Neuer Unterordner
+     *
+     * @return Neuer Knoten; dieser Knoten bleibt unverändert
+     */
+    public OrdnerKnoten mitUnterordner( OrdnerKurzInfo neuerUnterordner ) {
+
+        return new OrdnerKnoten( id, name, vaterId, pfad, naechsteVersion(),
+                                 einfuegen( unterordner, neuerUnterordner, ORDNER_SORTIERUNG ),
+                                 lesezeichen );
+    }
+
+
+    /**
+     * Kopie dieses Knotens mit einem zusätzlichen Lesezeichen.
+     *
+     * @param neuesLesezeichen Neues Lesezeichen
+     *
+     * @return Neuer Knoten; dieser Knoten bleibt unverändert
+     */
+    public OrdnerKnoten mitLesezeichen( LesezeichenMitOrdner neuesLesezeichen ) {
+
+        return new OrdnerKnoten( id, name, vaterId, pfad, naechsteVersion(),
+                                 unterordner,
+                                 einfuegen( lesezeichen, neuesLesezeichen, LESEZEICHEN_SORTIERUNG ) );
+    }
+
+
+    /**
+     * Version für einen geänderten Knoten; zählt genauso hoch wie
+     * {@code OrdnerService.versionHochzaehlen()} in der Datenbank.
+     */
+    private Long naechsteVersion() {
+
+        return version == null ? 1L : version + 1;
+    }
+
+
+    /**
+     * Fügt ein Element in eine Kopie einer sortierten Liste ein.
+     *
+     * @param liste Sortierte Liste, wird nicht verändert
+     *
+     * @param element Einzufügendes Element
+     *
+     * @param sortierung Sortierung der Liste
+     *
+     * @return Neue, unveränderliche Liste
+     */
+    private static <T> List<T> einfuegen( List<T> liste, T element, Comparator<? super T> sortierung ) {
+
+        int position = Collections.binarySearch( liste, element, sortierung );
+        if ( position < 0 ) { position = -position - 1; }
+
+        final List<T> neueListe = new ArrayList<>( liste.size() + 1 );
+        neueListe.addAll( liste.subList( 0, position ) );
+        neueListe.add( element );
+        neueListe.addAll( liste.subList( position, liste.size() ) );
+
+        return Collections.unmodifiableList( neueListe );
+    }
+
+}
@@ -0,0 +1,14 @@
+package de.eldecker.dhbw.spring.weblesezeichen.model;
+
+
+/**
+ * Nur ID und Name eines Ordners, z.B. für Liste der Unterordner. Da Objekte
+ * dieser Klasse unveränderlich sind und keine Referenzen auf Entities haben,
+ * können sie gefahrlos in einem Cache gehalten werden.
+ *
+ * @param id ID des Ordners
+ *
+ * @param name Name des Ordners
+ */
+public record OrdnerKurzInfo( Long id, String name ) {
+}
@@ -0,0 +1,17 @@
+package de.eldecker.dhbw.spring.weblesezeichen.model;
+
+
+/**
+ * Flache Darstellung eines Ordners für Listen, zusammen mit der Anzahl
+ * der darin (direkt) enthaltenen Lesezeichen.
+ *
+ * @param id ID des Ordners
+ *
+ * @param name Name des Ordners
+ *
+ * @param anzahlLesezeichen Anzahl der direkt im Ordner enthaltenen Lesezeichen
+ */
+public record OrdnerMitAnzahl( Long   id,
+                               String name,
+                               Long   anzahlLesezeichen ) {
+}
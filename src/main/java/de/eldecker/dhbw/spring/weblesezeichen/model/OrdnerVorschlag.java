@@ -0,0 +1,17 @@
+package de.eldecker.dhbw.spring.weblesezeichen.model;
+
+
+/**
+ * Vorschlag für die Eingabe eines Ordnernamens (<i>Type-Ahead</i>).
+ *
+ * @param id ID des Ordners
+ *
+ * @param name Name des Ordners, z.B. "Spring"
+ *
+ * @param pfad Namen aller Ordner von der Wurzel bis zu diesem Ordner,
+ *             z.B. "Wurzel / Java / Spring"
+ */
+public record OrdnerVorschlag( Long   id,
+                               String name,
+                               String pfad ) {
+}
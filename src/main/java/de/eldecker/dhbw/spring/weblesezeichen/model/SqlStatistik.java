@@ -0,0 +1,36 @@
+package de.eldecker.dhbw.spring.weblesezeichen.model;
+
+
+/**
+ * Aufsummierte JDBC-Zugriffe aller Requests auf einen Endpunkt.
+ *
+ * @param endpunkt HTTP-Methode und Pfad-Muster, z.B. {@code GET /app/ordner/{id}}
+ *
+ * @param anzahlRequests Anzahl der gemessenen Requests
+ *
+ * @param statementsGesamt Summe der Statements aller Requests
+ *
+ * @param statementsMax Höchste Anzahl Statements in einem Request
+ *
+ * @param zeilenGesamt Summe der gelesenen Zeilen aller Requests
+ *
+ * @param dbZeitMsGesamt Summe der Zeit in JDBC-Aufrufen in Millisekunden
+ */
+public record SqlStatistik( String endpunkt,
+                            long   anzahlRequests,
+                            long   statementsGesamt,
+                            long   statementsMax,
+                            long   zeilenGesamt,
+                            long   dbZeitMsGesamt ) {
+
+    /**
+     * Durchschnittliche Anzahl Statements pro Request.
+     *
+     * @return Durchschnitt; 0.0, wenn es noch keinen Request gab
+     */
+    public double statementsProRequest() {
+
+        return anzahlRequests == 0 ? 0.0 : (double) statementsGesamt / anzahlRequests;
+    }
+
+}
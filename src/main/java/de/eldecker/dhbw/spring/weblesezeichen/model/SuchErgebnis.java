@@ -0,0 +1,35 @@
+package de.eldecker.dhbw.spring.weblesezeichen.model;
+
+import java.util.List;
+
+
+/**
+ * Eine Seite mit Ergebnissen einer Volltextsuche.
+ *
+ * @param anfrage Suchbegriff(e), wie vom Nutzer eingegeben
+ *
+ * @param anzahlTreffer Gesamtzahl der Treffer über alle Seiten
+ *
+ * @param seite Nummer der Seite, beginnend mit 0
+ *
+ * @param seitengroesse Maximale Anzahl Treffer pro Seite
+ *
+ * @param treffer Treffer auf dieser Seite, absteigend nach Relevanz sortiert
+ */
+public record SuchErgebnis( String            anfrage,
+                            int               anzahlTreffer,
+                            int               seite,
+                            int               seitengroesse,
+                            List<SuchTreffer> treffer ) {
+
+    /**
+     * Convenience-Methode für Template.
+     *
+     * @return {@code true} gdw. es nach dieser Seite noch weitere Treffer gibt
+     */
+    public boolean hatNaechste() {
+
+        return ( seite + 1L ) * seitengroesse < anzahlTreffer;
+    }
+
+}
@@ -0,0 +1,13 @@
+package de.eldecker.dhbw.spring.weblesezeichen.model;
+
+
+/**
+ * Ein Treffer einer Volltextsuche.
+ *
+ * @param lesezeichen Gefundenes Lesezeichen
+ *
+ * @param punkte Relevanz des Treffers; je höher, desto relevanter
+ */
+public record SuchTreffer( LesezeichenMitOrdner lesezeichen,
+                           int                  punkte ) {
+}
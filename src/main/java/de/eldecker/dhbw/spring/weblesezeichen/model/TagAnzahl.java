@@ -0,0 +1,12 @@
+package de.eldecker.dhbw.spring.weblesezeichen.model;
+
+
+/**
+ * Ein Tag mit der Anzahl der Lesezeichen, die es haben.
+ *
+ * @param tag Tag, kleingeschrieben
+ *
+ * @param anzahl Anzahl Lesezeichen mit diesem Tag
+ */
+public record TagAnzahl( String tag, int anzahl ) {
+}
@@ -0,0 +1,39 @@
+package de.eldecker.dhbw.spring.weblesezeichen.model;
+
+import java.util.List;
+
+
+/**
+ * Eine Seite mit Ergebnissen einer Abfrage über Tags.
+ *
+ * @param anfrage Abfrage, wie vom Nutzer eingegeben, z.B. "java AND spring NOT deprecated"
+ *
+ * @param ordnerId ID des Ordners, auf dessen Teilbaum die Abfrage beschränkt ist;
+ *                 {@code null} für alle Lesezeichen
+ *
+ * @param anzahlTreffer Gesamtzahl der Treffer über alle Seiten
+ *
+ * @param seite Nummer der Seite, beginnend mit 0
+ *
+ * @param seitengroesse Maximale Anzahl Treffer pro Seite
+ *
+ * @param treffer Treffer auf dieser Seite, aufsteigend nach ID sortiert
+ */
+public record TagErgebnis( String                     anfrage,
+                           Long                       ordnerId,
+                           int                        anzahlTreffer,
+                           int                        seite,
+                           int                        seitengroesse,
+                           List<LesezeichenMitOrdner> treffer ) {
+
+    /**
+     * Convenience-Methode für Template.
+     *
+     * @return {@code true} gdw. es nach dieser Seite noch weitere Treffer gibt
+     */
+    public boolean hatNaechste() {
+
+        return ( seite + 1L ) * seitengroesse < anzahlTreffer;
+    }
+
+}
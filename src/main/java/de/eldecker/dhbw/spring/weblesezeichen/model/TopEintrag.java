@@ -0,0 +1,18 @@
+package de.eldecker.dhbw.spring.weblesezeichen.model;
+
+
+/**
+ * Eintrag in der Rangliste der meistbenutzten Lesezeichen. Die Anzahl ist
+ * geschätzt (Algorithmus <i>Space-Saving</i>): Die tatsächliche Anzahl liegt
+ * zwischen {@code aufrufe - fehler} und {@code aufrufe}.
+ *
+ * @param lesezeichen Lesezeichen mit Ordner
+ *
+ * @param aufrufe Obergrenze für die Anzahl der Aufrufe
+ *
+ * @param fehler Maximale Überschätzung von {@code aufrufe}; 0 heißt exakt
+ */
+public record TopEintrag( LesezeichenMitOrdner lesezeichen,
+                          long                 aufrufe,
+                          long                 fehler ) {
+}
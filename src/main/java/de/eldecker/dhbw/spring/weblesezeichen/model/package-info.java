@@ -0,0 +1,7 @@
+/**
+ * Dieses Paket enthält unveränderliche Datenklassen (Records), die z.B. als
+ * Ergebnis von Queries mit Konstruktor-Ausdrücken, für die Anzeige in den
+ * Thymeleaf-Templates oder als JSON-Antwort der REST-Endpunkte verwendet werden.
+ * Im Gegensatz zu den Entity-Klassen werden sie nicht von JPA verwaltet.
+ */
+package de.eldecker.dhbw.spring.weblesezeichen.model;
@@ -0,0 +1,97 @@
+package de.eldecker.dhbw.spring.weblesezeichen.web;
+
+import java.io.IOException;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import tools.jackson.databind.ObjectMapper;
+
+
+/**
+ * Servlet-Filter, der die Cursor-Parameter für <i>Keyset Pagination</i> über
+ * Spring Data REST prüft ({@code /rest/ordner/search/seite}, siehe
+ * {@code OrdnerRepo.findSeiteNach()}). Der Cursor besteht aus Name und ID
+ * des letzten Ordners der vorherigen Seite; wird nur einer der beiden Werte
+ * übergeben, dann wäre die Seite leer bzw. würde stillschweigend wieder vorne
+ * beginnen. Solche Requests werden deshalb mit HTTP-Status 400 (Bad Request)
+ * und einer Fehlermeldung als JSON (wie in {@link RestApiController})
+ * abgewiesen. Ohne beide Parameter wird die erste Seite geliefert.
+ * <br><br>
+ *
+ * Die Prüfung ist ein Filter, weil die Query-Methoden von Spring Data REST
+ * ohne eigenen Controller bereitgestellt werden.
+ */
+@Component
+public class KeysetParameterFilter extends OncePerRequestFilter {
+
+    /** Pfad der Query-Methode mit Cursor. */
+    private static final String PFAD_SEITE = "/rest/ordner/search/seite";
+
+    /** Name des letzten Ordners der vorherigen Seite. */
+    private static final String PARAM_NAME = "nachName";
+
+    /** ID des letzten Ordners der vorherigen Seite. */
+    private static final String PARAM_ID = "nachId";
+
+    /** Für Serialisierung der Fehlermeldung nach JSON. */
+    private ObjectMapper _objectMapper;
+
+
+    /**
+     * Konstruktor für <i>Dependency Injection</i>.
+     */
+    @Autowired
+    public KeysetParameterFilter( ObjectMapper objectMapper ) {
+
+        _objectMapper = objectMapper;
+    }
+
+
+    /**
+     * Nur die Query-Methode mit Cursor prüfen.
+     */
+    @Override
+    protected boolean shouldNotFilter( HttpServletRequest request ) {
+
+        final String pfad = request.getRequestURI().substring( request.getContextPath().length() );
+
+        return !PFAD_SEITE.equals( pfad );
+    }
+
+
+    /**
+     * Weist Requests mit nur einem der beiden Cursor-Parameter ab.
+     */
+    @Override
+    protected void doFilterInternal( HttpServletRequest request, HttpServletResponse response,
+                                     FilterChain filterChain ) throws ServletException, IOException {
+
+        final boolean mitName = request.getParameter( PARAM_NAME ) != null;
+        final boolean mitId   = request.getParameter( PARAM_ID   ) != null;
+
+        if ( mitName != mitId ) {
+
+            final String fehlertext = "Parameter " + PARAM_NAME + " und " + PARAM_ID +
+                                      " müssen zusammen angegeben werden (Name und ID des letzten " +
+                                      "Ordners der vorherigen Seite) oder beide fehlen (erste Seite).";
+
+            response.setStatus( HttpServletResponse.SC_BAD_REQUEST );
+            response.setContentType( MediaType.APPLICATION_JSON_VALUE );
+            response.setCharacterEncoding( "UTF-8" );
+            response.getWriter().write( _objectMapper.writeValueAsString( Map.of( "fehlermeldung", fehlertext ) ) );
+            return;
+        }
+
+        filterChain.doFilter( request, response );
+    }
+
+}
@@ -0,0 +1,509 @@
+package de.eldecker.dhbw.spring.weblesezeichen.web;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import de.eldecker.dhbw.spring.weblesezeichen.db.repos.OrdnerRepo;
+import de.eldecker.dhbw.spring.weblesezeichen.logik.ImportBeendetEreignis;
+import de.eldecker.dhbw.spring.weblesezeichen.logik.LesezeichenAngelegtEreignis;
+import de.eldecker.dhbw.spring.weblesezeichen.logik.LesezeichenException;
+import de.eldecker.dhbw.spring.weblesezeichen.logik.OrdnerAngelegtEreignis;
+import de.eldecker.dhbw.spring.weblesezeichen.logik.OrdnerBaumSnapshot;
+import de.eldecker.dhbw.spring.weblesezeichen.logik.OrdnerBaumSnapshotService;
+import de.eldecker.dhbw.spring.weblesezeichen.logik.OrdnerService;
+import de.eldecker.dhbw.spring.weblesezeichen.model.OrdnerEreignis;
+import de.eldecker.dhbw.spring.weblesezeichen.model.OrdnerKnoten;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import jakarta.annotation.PreDestroy;
+
+import tools.jackson.databind.ObjectMapper;
+
+
+/**
+ * Verteilt neue Ordner und Lesezeichen per <i>Server-Sent Events</i> (SSE) an
+ * Clients, die einen Ordner oder einen ganzen Teilbaum abonniert haben, siehe
+ * {@code RestApiController.ordnerEreignisse()}.
+ * <br><br>
+ *
+ * Die Ereignisse werden nach dem Commit von den Threads zugestellt, die
+ * geschrieben haben; diese dürfen nicht auf langsame Clients warten. Deshalb
+ * hat jeder Abonnent einen Puffer mit fester Größe, in den nur mit
+ * {@code offer()} (ohne Blockieren) geschrieben wird; das eigentliche Senden
+ * übernimmt ein Sender-Thread, der nur läuft, solange der Puffer nicht
+ * leer ist. Mit {@code spring.threads.virtual.enabled=true} ist das ein
+ * virtueller Thread pro sendendem Abonnenten, sonst ein Pool mit
+ * {@code lesezeichen.ereignisse.sender-threads} Plattform-Threads.
+ * Ein Abonnent, dessen Puffer voll ist, wird getrennt: Er soll sich neu
+ * verbinden und verpasste Änderungen über {@code /api/aenderungen} holen.
+ * <br><br>
+ *
+ * Wartende Verbindungen belegen keinen Thread, weil {@link SseEmitter} die
+ * asynchrone Verarbeitung von Servlet-Requests verwendet; pro Verbindung
+ * bleiben nur der Puffer und das Emitter-Objekt im Speicher.
+ * <br><br>
+ *
+ * Die Abonnenten sind nach Ordner-ID indexiert; für ein Ereignis werden über
+ * den materialisierten Pfad des betroffenen Ordners nur die Abonnenten des
+ * Ordners und seiner Vorfahren betrachtet, der Aufwand hängt also von der
+ * Tiefe des Ordners und nicht von der Anzahl aller Abonnenten ab.
+ */
+@Component
+public class OrdnerEreignisVerteiler {
+
+    private final static Logger LOG = LoggerFactory.getLogger( OrdnerEreignisVerteiler.class );
+
+    /** Ereignis-Name für neue Ordner. */
+    public static final String TYP_ORDNER = "ORDNER";
+
+    /** Ereignis-Name für neue Lesezeichen. */
+    public static final String TYP_LESEZEICHEN = "LESEZEICHEN";
+
+    /** Ereignis-Name für beendeten Import. */
+    public static final String TYP_IMPORT = "IMPORT";
+
+    /** Kommentar (keine Ereignis-Daten), damit Proxies die Verbindung nicht schließen. */
+    private static final Nachricht HERZSCHLAG = new Nachricht( null, "herzschlag" );
+
+    /** Repo-Bean, um den Pfad eines Ordners zu holen, wenn es keinen Snapshot gibt. */
+    private OrdnerRepo _ordnerRepo;
+
+    /** Service-Bean mit Snapshot des Ordnerbaums, um den Pfad eines Ordners ohne DB-Zugriff zu holen. */
+    private OrdnerBaumSnapshotService _snapshotService;
+
+    /** Für Serialisierung der Ereignisse nach JSON; einmal pro Ereignis, nicht pro Abonnent. */
+    private ObjectMapper _objectMapper;
+
+    /** Maximale Dauer einer Verbindung; danach baut der Client eine neue auf. */
+    private long _timeoutMs;
+
+    /** Anzahl Nachrichten, die pro Abonnent gepuffert werden. */
+    private int _puffergroesse;
+
+    /** Maximale Anzahl gleichzeitiger Abonnenten. */
+    private int _maxAbonnenten;
+
+    /** Abonnenten pro Ordner-ID. */
+    private final ConcurrentMap<Long, Set<Abonnent>> _abonnentenProOrdner = new ConcurrentHashMap<>();
+
+    /** Anzahl aller Abonnenten. */
+    private final AtomicInteger _anzahlAbonnenten = new AtomicInteger();
+
+    /** Pfade von Ordnern, falls es keinen Snapshot gibt; Pfade ändern sich nicht. */
+    private final Cache<Long, String> _pfadCache = Caffeine.newBuilder().maximumSize( 10_000 ).build();
+
+    /** Threads, die die Puffer der Abonnenten leeren; virtuell oder Pool, siehe Konstruktor. */
+    private ExecutorService _sender;
+
+    /** Anzahl Abonnenten, die wegen vollem Puffer getrennt wurden. */
+    private Counter _zaehlerUeberlauf;
+
+
+    /**
+     * Nachricht im Puffer eines Abonnenten.
+     *
+     * @param name Name des Ereignisses; {@code null} für Kommentar
+     *
+     * @param daten JSON bzw. Text des Kommentars
+     */
+    private record Nachricht( String name, String daten ) {}
+
+
+    /**
+     * Konstruktor für <i>Dependency Injection</i>.
+     */
+    @Autowired
+    public OrdnerEreignisVerteiler( OrdnerRepo ordnerRepo,
+                                    OrdnerBaumSnapshotService snapshotService,
+                                    ObjectMapper objectMapper,
+                                    MeterRegistry meterRegistry,
+                                    @Value( "${lesezeichen.ereignisse.timeout:PT30M}"     ) Duration timeout,
+                                    @Value( "${lesezeichen.ereignisse.puffergroesse:64}"  ) int      puffergroesse,
+                                    @Value( "${lesezeichen.ereignisse.max-abonnenten:10000}" ) int   maxAbonnenten,
+                                    @Value( "${lesezeichen.ereignisse.sender-threads:16}" ) int      senderThreads,
+                                    @Value( "${spring.threads.virtual.enabled:false}"     ) boolean  virtuelleThreads ) {
+
+        _ordnerRepo      = ordnerRepo;
+        _snapshotService = snapshotService;
+        _objectMapper    = objectMapper;
+        _timeoutMs       = timeout.toMillis();
+        _puffergroesse   = puffergroesse;
+        _maxAbonnenten   = maxAbonnenten;
+
+        _sender = virtuelleThreads
+                  ? Executors.newThreadPerTaskExecutor( Thread.ofVirtual().name( "lesezeichen-sse-", 0 ).factory() )
+                  : Executors.newFixedThreadPool( senderThreads,
+                                                  Thread.ofPlatform().name( "lesezeichen-sse-", 0 ).daemon( true ).factory() );
+
+        Gauge.builder( "lesezeichen.sse.abonnenten", _anzahlAbonnenten, AtomicInteger::get )
+             .description( "Anzahl offener SSE-Verbindungen für Ordner-Ereignisse" )
+             .register( meterRegistry );
+
+        _zaehlerUeberlauf = Counter.builder( "lesezeichen.sse.ueberlauf" )
+                                   .description( "Wegen vollem Puffer getrennte SSE-Verbindungen" )
+                                   .register( meterRegistry );
+    }
+
+
+    /**
+     * Neuen Abonnenten für einen Ordner anmelden.
+     *
+     * @param ordnerId ID des Ordners
+     *
+     * @param teilbaum {@code true}: auch Ereignisse aus allen (direkten und
+     *                 indirekten) Unterordnern; {@code false}: nur Ereignisse
+     *                 aus dem Ordner selbst
+     *
+     * @return Emitter, der vom Controller zurückgegeben wird
+     *
+     * @throws LesezeichenException Ordner nicht gefunden oder zu viele Abonnenten
+     */
+    public SseEmitter abonnieren( long ordnerId, boolean teilbaum ) throws LesezeichenException {
+
+        if ( pfadVon( ordnerId ) == null ) {
+
+            throw new LesezeichenException( "Kein Ordner mit ID " + ordnerId + " gefunden." );
+        }
+        if ( _anzahlAbonnenten.incrementAndGet() > _maxAbonnenten ) {
+
+            _anzahlAbonnenten.decrementAndGet();
+            throw new LesezeichenException( "Maximale Anzahl von " + _maxAbonnenten + " Abonnenten erreicht." );
+        }
+
+        final SseEmitter emitter  = new SseEmitter( _timeoutMs );
+        final Abonnent   abonnent = new Abonnent( ordnerId, teilbaum, emitter );
+
+        emitter.onCompletion( abonnent::abmelden );
+        emitter.onTimeout(    abonnent::abmelden );
+        emitter.onError( fehler -> abonnent.abmelden() );
+
+        _abonnentenProOrdner.compute( ordnerId, ( id, abonnenten ) -> {
+
+            final Set<Abonnent> ergebnis = abonnenten == null ? ConcurrentHashMap.newKeySet() : abonnenten;
+            ergebnis.add( abonnent );
+            return ergebnis;
+        });
+
+        abonnent.anbieten( HERZSCHLAG ); // damit der Client die Antwort-Header sofort bekommt
+
+        return emitter;
+    }
+
+
+    /**
+     * Neuer Ordner: Ereignis an Abonnenten des Vaterordners und seiner Vorfahren.
+     *
+     * @param ereignis Ereignis mit neuem Ordner
+     */
+    @TransactionalEventListener( fallbackExecution = true )
+    public void onOrdnerAngelegt( OrdnerAngelegtEreignis ereignis ) {
+
+        if ( ereignis.pfad() != null ) {
+
+            _pfadCache.put( ereignis.id(), ereignis.pfad() );
+        }
+        if ( _anzahlAbonnenten.get() == 0 || ereignis.vaterId() == null ) { return; }
+
+        final String pfad      = ereignis.pfad();
+        final String vaterPfad = pfad == null ? null : pfad.substring( 0, pfad.lastIndexOf( '/', pfad.length() - 2 ) + 1 );
+
+        verteilen( ereignis.vaterId(), vaterPfad,
+                   new OrdnerEreignis( TYP_ORDNER, ereignis.id(), ereignis.name(), null, ereignis.vaterId() ) );
+    }
+
+
+    /**
+     * Neues Lesezeichen: Ereignis an Abonnenten des Ordners und seiner Vorfahren.
+     * Lesezeichen aus einem Import werden nicht einzeln verteilt, weil ein
+     * großer Import die Puffer aller Abonnenten des Ziel-Teilbaums füllen und
+     * sie damit trennen würde; stattdessen gibt es am Ende des Imports ein
+     * einziges Ereignis (siehe {@link #onImportBeendet(ImportBeendetEreignis)}).
+     *
+     * @param ereignis Ereignis mit neuem Lesezeichen
+     */
+    @TransactionalEventListener( fallbackExecution = true )
+    public void onLesezeichenAngelegt( LesezeichenAngelegtEreignis ereignis ) {
+
+        if ( _anzahlAbonnenten.get() == 0 || ereignis.ausImport() ) { return; }
+
+        final long ordnerId = ereignis.lesezeichen().ordnerId();
+
+        verteilen( ordnerId, pfadVon( ordnerId ),
+                   new OrdnerEreignis( TYP_LESEZEICHEN, ereignis.lesezeichen().id(), ereignis.lesezeichen().name(),
+                                       ereignis.lesezeichen().url(), ordnerId ) );
+    }
+
+
+    /**
+     * Beim Import werden für Ordner keine Ereignisse veröffentlicht und die
+     * Ereignisse für Lesezeichen werden hier nicht verteilt (siehe
+     * {@link #onLesezeichenAngelegt(LesezeichenAngelegtEreignis)}); deshalb
+     * bekommen am Ende alle Abonnenten ein einziges Ereignis, dass sie ihre
+     * Daten neu laden sollen.
+     *
+     * @param ereignis Ereignis mit Stand des Imports
+     */
+    @EventListener
+    public void onImportBeendet( ImportBeendetEreignis ereignis ) {
+
+        if ( _anzahlAbonnenten.get() == 0 ) { return; }
+
+        final Nachricht nachricht = nachricht( new OrdnerEreignis( TYP_IMPORT, null, null, null, null ) );
+        for ( Set<Abonnent> abonnenten : _abonnentenProOrdner.values() ) {
+
+            abonnenten.forEach( abonnent -> abonnent.anbieten( nachricht ) );
+        }
+    }
+
+
+    /**
+     * Schickt regelmäßig einen Kommentar an alle Abonnenten, damit Proxies
+     * die Verbindung nicht wegen Inaktivität schließen und abgebrochene
+     * Verbindungen beim Schreiben erkannt werden.
+     */
+    @Scheduled( fixedRateString = "${lesezeichen.ereignisse.herzschlag:PT30S}" )
+    public void herzschlag() {
+
+        for ( Set<Abonnent> abonnenten : _abonnentenProOrdner.values() ) {
+
+            abonnenten.forEach( abonnent -> abonnent.anbieten( HERZSCHLAG ) );
+        }
+    }
+
+
+    /**
+     * Alle Verbindungen beim Herunterfahren der Anwendung beenden.
+     */
+    @PreDestroy
+    public void beenden() {
+
+        for ( Set<Abonnent> abonnenten : _abonnentenProOrdner.values() ) {
+
+            abonnenten.forEach( abonnent -> abonnent._emitter.complete() );
+        }
+        _sender.shutdownNow();
+    }
+
+
+    /**
+     * Nachricht an die Abonnenten des betroffenen Ordners und (bei Abo mit
+     * Teilbaum) an die Abonnenten aller seiner Vorfahren.
+     *
+     * @param ordnerId ID des Ordners, in dem etwas angelegt wurde
+     *
+     * @param pfad Materialisierter Pfad dieses Ordners; bei {@code null}
+     *             werden nur die Abonnenten des Ordners selbst benachrichtigt
+     *
+     * @param ereignis Zu verteilendes Ereignis
+     */
+    private void verteilen( long ordnerId, String pfad, OrdnerEreignis ereignis ) {
+
+        final List<Long> idListe = pfad == null ? List.of( ordnerId ) : OrdnerService.pfadZuIds( pfad );
+
+        Nachricht nachricht = null;
+        for ( Long id : idListe ) {
+
+            final Set<Abonnent> abonnenten = _abonnentenProOrdner.get( id );
+            if ( abonnenten == null ) { continue; }
+
+            final boolean direkt = id == ordnerId;
+            for ( Abonnent abonnent : abonnenten ) {
+
+                if ( direkt || abonnent._teilbaum ) {
+
+                    if ( nachricht == null ) { nachricht = nachricht( ereignis ); }
+                    abonnent.anbieten( nachricht );
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Ereignis nach JSON serialisieren.
+     */
+    private Nachricht nachricht( OrdnerEreignis ereignis ) {
+
+        return new Nachricht( ereignis.typ(), _objectMapper.writeValueAsString( ereignis ) );
+    }
+
+
+    /**
+     * Pfad eines Ordners aus dem Snapshot oder (über Cache) aus der Datenbank.
+     *
+     * @return Pfad oder {@code null}, wenn es den Ordner nicht gibt
+     */
+    private String pfadVon( long ordnerId ) {
+
+        final OrdnerBaumSnapshot snapshot = _snapshotService.getSnapshot();
+        if ( snapshot != null ) {
+
+            final OrdnerKnoten knoten = snapshot.getOrdner( ordnerId );
+            if ( knoten != null ) { return knoten.pfad(); }
+        }
+
+        return _pfadCache.get( ordnerId, id -> _ordnerRepo.findPfadById( id ).orElse( null ) );
+    }
+
+
+    /**
+     * Eine SSE-Verbindung mit eigenem Puffer.
+     */
+    private final class Abonnent {
+
+        /** ID des abonnierten Ordners. */
+        private final long _ordnerId;
+
+        /** {@code true}: auch Ereignisse aus Unterordnern. */
+        private final boolean _teilbaum;
+
+        /** Emitter der Verbindung. */
+        private final SseEmitter _emitter;
+
+        /** Noch nicht gesendete Nachrichten. */
+        private final BlockingQueue<Nachricht> _puffer = new ArrayBlockingQueue<>( _puffergroesse );
+
+        /** {@code true}, solange ein Sender-Thread den Puffer leert. */
+        private final AtomicBoolean _sendetGerade = new AtomicBoolean();
+
+        /** {@code true}, sobald der Abonnent abgemeldet ist. */
+        private final AtomicBoolean _abgemeldet = new AtomicBoolean();
+
+        /** {@code true}, wenn die Verbindung wegen vollem Puffer geschlossen werden soll. */
+        private volatile boolean _ueberlauf = false;
+
+
+        private Abonnent( long ordnerId, boolean teilbaum, SseEmitter emitter ) {
+
+            _ordnerId = ordnerId;
+            _teilbaum = teilbaum;
+            _emitter  = emitter;
+        }
+
+
+        /**
+         * Nachricht in den Puffer stellen, ohne zu blockieren; bei vollem
+         * Puffer wird der Abonnent abgemeldet und die Verbindung vom
+         * Sender-Thread geschlossen.
+         */
+        private void anbieten( Nachricht nachricht ) {
+
+            if ( _abgemeldet.get() ) { return; }
+
+            if ( !_puffer.offer( nachricht ) ) {
+
+                LOG.warn( "SSE-Abonnent für Ordner {} ist zu langsam und wird getrennt.", _ordnerId );
+                _zaehlerUeberlauf.increment();
+                _ueberlauf = true;
+                abmelden();
+            }
+            senderStarten();
+        }
+
+
+        /**
+         * Startet einen Sender-Thread, falls gerade keiner läuft.
+         */
+        private void senderStarten() {
+
+            if ( _sendetGerade.compareAndSet( false, true ) ) {
+
+                try {
+
+                    _sender.execute( this::senden );
+                }
+                catch ( RuntimeException ex ) { // Executor beim Herunterfahren schon beendet
+
+                    _sendetGerade.set( false );
+                }
+            }
+        }
+
+
+        /**
+         * Leert den Puffer; läuft in einem virtuellen Thread, das Schreiben auf
+         * die Verbindung darf also blockieren.
+         */
+        private void senden() {
+
+            do {
+
+                try {
+
+                    Nachricht nachricht;
+                    while ( !_ueberlauf && ( nachricht = _puffer.poll() ) != null ) {
+
+                        if ( nachricht.name() == null ) {
+
+                            _emitter.send( SseEmitter.event().comment( nachricht.daten() ) );
+
+                        } else {
+
+                            _emitter.send( SseEmitter.event()
+                                                     .name( nachricht.name() )
+                                                     .data( nachricht.daten(), MediaType.APPLICATION_JSON ) );
+                        }
+                    }
+                    if ( _ueberlauf ) {
+
+                        _puffer.clear();
+                        _emitter.complete();
+                    }
+                }
+                catch ( IOException | IllegalStateException ex ) { // Verbindung geschlossen
+
+                    _puffer.clear();
+                    abmelden();
+                }
+
+                _sendetGerade.set( false );
+            }
+            while ( !_puffer.isEmpty() && _sendetGerade.compareAndSet( false, true ) );
+        }
+
+
+        /**
+         * Aus dem Index entfernen; wird auch von den Callbacks des Emitters
+         * aufgerufen, deshalb darf mehrfacher Aufruf nichts ändern.
+         */
+        private void abmelden() {
+
+            if ( !_abgemeldet.compareAndSet( false, true ) ) { return; }
+
+            _anzahlAbonnenten.decrementAndGet();
+            _abonnentenProOrdner.computeIfPresent( _ordnerId, ( id, abonnenten ) -> {
+
+                abonnenten.remove( this );
+                return abonnenten.isEmpty() ? null : abonnenten;
+            });
+        }
+    }
+
+}
@@ -0,0 +1,95 @@
+package de.eldecker.dhbw.spring.weblesezeichen.web;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.ModelAndView;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+
+/**
+ * Interceptor, der die Zeit für das Rendern der Thymeleaf-Templates pro View
+ * (z.B. {@code ordner-details}) als Timer {@value #METRIK_NAME} misst. Die
+ * Messung beginnt in {@link #postHandle(HttpServletRequest, HttpServletResponse, Object, ModelAndView)}
+ * (Controller-Methode ist fertig) und endet in
+ * {@link #afterCompletion(HttpServletRequest, HttpServletResponse, Object, Exception)}
+ * (View ist gerendert), umfasst also auch Lazy Loading im Template.
+ */
+@Component
+public class RenderZeitInterceptor implements HandlerInterceptor {
+
+    /** Name des Timers, Tag {@code view} enthält den Namen des Templates. */
+    public static final String METRIK_NAME = "lesezeichen.template.render";
+
+    /** Request-Attribut für laufende Messung. */
+    private static final String ATTRIBUT_MESSUNG = RenderZeitInterceptor.class.getName() + ".messung";
+
+    /** Request-Attribut für Name der View. */
+    private static final String ATTRIBUT_VIEW = RenderZeitInterceptor.class.getName() + ".view";
+
+    /** Registry für Metriken. */
+    private MeterRegistry _meterRegistry;
+
+    /** Timer pro View-Name, damit nicht bei jedem Request in der Registry gesucht wird. */
+    private final ConcurrentMap<String, Timer> _timerProView = new ConcurrentHashMap<>();
+
+
+    /**
+     * Konstruktor für <i>Dependency Injection</i>.
+     */
+    @Autowired
+    public RenderZeitInterceptor( MeterRegistry meterRegistry ) {
+
+        _meterRegistry = meterRegistry;
+    }
+
+
+    /**
+     * Startet die Messung, wenn die Controller-Methode eine View zurückgegeben
+     * hat (keine Weiterleitung).
+     */
+    @Override
+    public void postHandle( HttpServletRequest request, HttpServletResponse response,
+                            Object handler, ModelAndView modelAndView ) {
+
+        if ( modelAndView == null ) { return; }
+
+        final String viewName = modelAndView.getViewName();
+        if ( viewName == null || viewName.startsWith( "redirect:" ) || viewName.startsWith( "forward:" ) ) {
+
+            return;
+        }
+
+        request.setAttribute( ATTRIBUT_VIEW   , viewName                      );
+        request.setAttribute( ATTRIBUT_MESSUNG, Timer.start( _meterRegistry ) );
+    }
+
+
+    /**
+     * Beendet die Messung nach dem Rendern der View.
+     */
+    @Override
+    public void afterCompletion( HttpServletRequest request, HttpServletResponse response,
+                                 Object handler, Exception ex ) {
+
+        if ( request.getAttribute( ATTRIBUT_MESSUNG ) instanceof Timer.Sample messung ) {
+
+            final String viewName = (String) request.getAttribute( ATTRIBUT_VIEW );
+            final Timer  timer    = _timerProView.computeIfAbsent( viewName,
+                                        name -> Timer.builder( METRIK_NAME )
+                                                     .description( "Zeit für Rendern des Templates" )
+                                                     .tag( "view", name )
+                                                     .register( _meterRegistry ) );
+            messung.stop( timer );
+        }
+    }
+
+}
@@ -0,0 +1,585 @@
+package de.eldecker.dhbw.spring.weblesezeichen.web;
+
+import static org.springframework.http.HttpStatus.ACCEPTED;
+import static org.springframework.http.HttpStatus.BAD_REQUEST;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import de.eldecker.dhbw.spring.weblesezeichen.logik.AenderungsProtokoll;
+import de.eldecker.dhbw.spring.weblesezeichen.logik.CacheStatistikService;
+import de.eldecker.dhbw.spring.weblesezeichen.logik.DomainIndex;
+import de.eldecker.dhbw.spring.weblesezeichen.logik.ExportService;
+import de.eldecker.dhbw.spring.weblesezeichen.logik.ImportService;
+import de.eldecker.dhbw.spring.weblesezeichen.logik.LesezeichenException;
+import de.eldecker.dhbw.spring.weblesezeichen.logik.LesezeichenService;
+import de.eldecker.dhbw.spring.weblesezeichen.logik.OrdnerNamenIndex;
+import de.eldecker.dhbw.spring.weblesezeichen.logik.OrdnerService;
+import de.eldecker.dhbw.spring.weblesezeichen.logik.SuchIndex;
+import de.eldecker.dhbw.spring.weblesezeichen.logik.TagIndex;
+import de.eldecker.dhbw.spring.weblesezeichen.logik.TopLesezeichen;
+import de.eldecker.dhbw.spring.weblesezeichen.model.AenderungsSeite;
+import de.eldecker.dhbw.spring.weblesezeichen.model.CacheStatistik;
+import de.eldecker.dhbw.spring.weblesezeichen.model.DomainErgebnis;
+import de.eldecker.dhbw.spring.weblesezeichen.model.DuplikatBericht;
+import de.eldecker.dhbw.spring.weblesezeichen.model.ImportFortschritt;
+import de.eldecker.dhbw.spring.weblesezeichen.model.OrdnerBaumKnoten;
+import de.eldecker.dhbw.spring.weblesezeichen.model.OrdnerVorschlag;
+import de.eldecker.dhbw.spring.weblesezeichen.model.SqlStatistik;
+import de.eldecker.dhbw.spring.weblesezeichen.model.SuchErgebnis;
+import de.eldecker.dhbw.spring.weblesezeichen.model.TagAnzahl;
+import de.eldecker.dhbw.spring.weblesezeichen.model.TagErgebnis;
+import de.eldecker.dhbw.spring.weblesezeichen.model.TopEintrag;
+
+import jakarta.servlet.http.HttpServletResponse;
+
+
+/**
+ * Controller-Klasse für REST-Endpunkte, die nicht automatisch von
+ * <i>Spring Data REST</i> aus den Repos erzeugt werden. Damit es keine
+ * Überschneidungen mit den Pfaden unter {@code /rest/} gibt, haben
+ * alle Endpunkte dieser Klasse den Präfix {@code /api/}.
+ */
+@RestController
+@RequestMapping( "/api/" )
+public class RestApiController {
+
+    private final static Logger LOG = LoggerFactory.getLogger( RestApiController.class );
+
+    /** Maximale Anzahl Einträge pro Seite, die ein Client anfordern kann. */
+    private static final int MAX_SEITENGROESSE = 100;
+
+    /** Maximale Anzahl Änderungen pro Abfrage der Delta-Synchronisation. */
+    private static final int MAX_AENDERUNGEN = 1000;
+
+    /** Service-Bean mit Logik für Ordner. */
+    private OrdnerService _ordnerService;
+
+    /** Bean mit Index für Volltextsuche. */
+    private SuchIndex _suchIndex;
+
+    /** Service-Bean für Import von Lesezeichen-Dateien. */
+    private ImportService _importService;
+
+    /** Service-Bean für Export aller Lesezeichen. */
+    private ExportService _exportService;
+
+    /** Service-Bean für Statistik der Caches. */
+    private CacheStatistikService _cacheStatistikService;
+
+    /** Filter mit Statistik der JDBC-Zugriffe; fehlt, wenn {@code lesezeichen.sql-statistik.aktiv=false}. */
+    private ObjectProvider<SqlStatistikFilter> _sqlStatistikFilter;
+
+    /** Service-Bean für Änderungsprotokoll (Delta-Synchronisation). */
+    private AenderungsProtokoll _aenderungsProtokoll;
+
+    /** Bean für Verteilung von Änderungen per <i>Server-Sent Events</i>. */
+    private OrdnerEreignisVerteiler _ereignisVerteiler;
+
+    /** Service-Bean mit Ranglisten der meistbenutzten Lesezeichen. */
+    private TopLesezeichen _topLesezeichen;
+
+    /** Bean mit Index für Abfragen über Tags. */
+    private TagIndex _tagIndex;
+
+    /** Service-Bean mit Logik für Lesezeichen (Tags setzen, Duplikate). */
+    private LesezeichenService _lesezeichenService;
+
+    /** Bean mit Index der Lesezeichen nach Domain. */
+    private DomainIndex _domainIndex;
+
+    /** Bean mit Index der Ordnernamen. */
+    private OrdnerNamenIndex _ordnerNamenIndex;
+
+
+    /**
+     * Konstruktor für <i>Dependency Injection</i>.
+     */
+    @Autowired
+    public RestApiController( OrdnerService ordnerService,
+                              SuchIndex suchIndex,
+                              ImportService importService,
+                              ExportService exportService,
+                              CacheStatistikService cacheStatistikService,
+                              ObjectProvider<SqlStatistikFilter> sqlStatistikFilter,
+                              AenderungsProtokoll aenderungsProtokoll,
+                              OrdnerEreignisVerteiler ereignisVerteiler,
+                              TopLesezeichen topLesezeichen,
+                              TagIndex tagIndex,
+                              LesezeichenService lesezeichenService,
+                              DomainIndex domainIndex,
+                              OrdnerNamenIndex ordnerNamenIndex ) {
+
+        _ordnerService         = ordnerService;
+        _suchIndex             = suchIndex;
+        _importService         = importService;
+        _exportService         = exportService;
+        _cacheStatistikService = cacheStatistikService;
+        _sqlStatistikFilter    = sqlStatistikFilter;
+        _aenderungsProtokoll   = aenderungsProtokoll;
+        _ereignisVerteiler     = ereignisVerteiler;
+        _topLesezeichen        = topLesezeichen;
+        _tagIndex              = tagIndex;
+        _lesezeichenService    = lesezeichenService;
+        _domainIndex           = domainIndex;
+        _ordnerNamenIndex      = ordnerNamenIndex;
+    }
+
+
+    /**
+     * Fehlerbehandlung für {@link LesezeichenException}: Fehlermeldung als JSON
+     * mit HTTP-Status-Code 400 (Bad Request) zurückgeben.
+     *
+     * @param ex Von Controller-Methode geworfene Exception
+     *
+     * @return JSON-Objekt mit Attribut {@code fehlermeldung}
+     */
+    @ExceptionHandler( LesezeichenException.class )
+    public ResponseEntity<Map<String, String>> lesezeichenExceptionBehandeln( LesezeichenException ex ) {
+
+        final String fehlertext = ex.getMessage();
+        LOG.error( fehlertext );
+
+        return ResponseEntity.status( BAD_REQUEST ).body( Map.of( "fehlermeldung", fehlertext ) );
+    }
+
+
+    /**
+     * Ganzen Teilbaum unterhalb eines Ordners inkl. aller Lesezeichen als
+     * verschachteltes JSON-Objekt zurückgeben.
+     * <br><br>
+     *
+     * Beispiel-URL: http://localhost:8080/api/ordner/1/baum
+     *
+     * @param id ID des Ordners, der Wurzel des Teilbaums ist
+     *
+     * @return Wurzelknoten des Teilbaums
+     *
+     * @throws LesezeichenException Ordner mit {@code id} wurde nicht gefunden
+     */
+    @GetMapping( "/ordner/{id}/baum" )
+    public OrdnerBaumKnoten teilbaum( @PathVariable Long id ) throws LesezeichenException {
+
+        return _ordnerService.getTeilbaum( id );
+    }
+
+
+    /**
+     * Ganzen Baum ab dem Wurzelordner inkl. aller Lesezeichen als verschachteltes
+     * JSON-Objekt zurückgeben, ohne dass die ID des Wurzelordners bekannt sein muss.
+     * <br><br>
+     *
+     * Beispiel-URL: http://localhost:8080/api/ordner/wurzel/baum
+     *
+     * @return Wurzelknoten des Baums
+     *
+     * @throws LesezeichenException Wurzelordner nicht gefunden
+     */
+    @GetMapping( "/ordner/wurzel/baum" )
+    public OrdnerBaumKnoten baumAbWurzel() throws LesezeichenException {
+
+        return _ordnerService.getBaumAbWurzel();
+    }
+
+
+    /**
+     * Volltextsuche über Name und URL aller Lesezeichen; die Treffer werden
+     * nach Relevanz sortiert und seitenweise zurückgegeben.
+     * <br><br>
+     *
+     * Beispiel-URL: http://localhost:8080/api/suche?q=java&amp;seite=0&amp;groesse=10
+     *
+     * @param anfrage Suchbegriff(e); mehrere Wörter werden UND-verknüpft
+     *
+     * @param seite Nummer der Ergebnisseite, beginnend mit 0
+     *
+     * @param groesse Anzahl Treffer pro Seite, höchstens {@value #MAX_SEITENGROESSE}
+     *
+     * @return Seite mit Treffern
+     */
+    @GetMapping( "/suche" )
+    public SuchErgebnis suche( @RequestParam( value = "q"      , required = true                      ) String anfrage,
+                               @RequestParam( value = "seite"  , required = false, defaultValue = "0"  ) int    seite,
+                               @RequestParam( value = "groesse", required = false, defaultValue = "20" ) int    groesse ) {
+
+        final int seitengroesse = Math.clamp( groesse, 1, MAX_SEITENGROESSE );
+
+        return _suchIndex.suche( anfrage.trim(), Math.max( seite, 0 ), seitengroesse );
+    }
+
+
+    /**
+     * Meistbenutzte Lesezeichen (Aufrufe über {@code /app/go/{id}}), insgesamt
+     * oder im Teilbaum eines Ordners; die Anzahlen sind Schätzungen mit
+     * Fehlerschranke, siehe {@link TopLesezeichen}.
+     * <br><br>
+     *
+     * Beispiel-URLs:
+     * <ul>
+     * <li>http://localhost:8080/api/top</li>
+     * <li>http://localhost:8080/api/top?ordner=3&amp;anzahl=5</li>
+     * </ul>
+     *
+     * @param ordnerId Optionale ID des Ordners, dessen Teilbaum betrachtet wird
+     *
+     * @param anzahl Maximale Anzahl Einträge
+     *
+     * @return Einträge absteigend sortiert nach Anzahl der Aufrufe
+     */
+    @GetMapping( "/top" )
+    public List<TopEintrag> topLesezeichen( @RequestParam( value = "ordner", required = false                      ) Long ordnerId,
+                                            @RequestParam( value = "anzahl", required = false, defaultValue = "10" ) int  anzahl ) {
+
+        return _topLesezeichen.getTop( ordnerId, anzahl );
+    }
+
+
+    /**
+     * Alle Tags mit der Anzahl der Lesezeichen, die das Tag haben.
+     * <br><br>
+     *
+     * Beispiel-URL: http://localhost:8080/api/tags
+     *
+     * @return Liste absteigend sortiert nach Anzahl
+     */
+    @GetMapping( "/tags" )
+    public List<TagAnzahl> tags() {
+
+        return _tagIndex.getTags();
+    }
+
+
+    /**
+     * Abfrage über Tags, optional beschränkt auf den Teilbaum eines Ordners;
+     * Syntax siehe {@link TagIndex}.
+     * <br><br>
+     *
+     * Beispiel-URL: http://localhost:8080/api/tags/suche?q=java+spring+NOT+deprecated&amp;ordnerId=3
+     *
+     * @param anfrage Abfrage, z.B. {@code java AND spring NOT deprecated}
+     *
+     * @param ordnerId Optionale ID des Ordners, auf dessen Teilbaum die Abfrage beschränkt wird
+     *
+     * @param seite Nummer der Ergebnisseite, beginnend mit 0
+     *
+     * @param groesse Anzahl Treffer pro Seite, höchstens {@value #MAX_SEITENGROESSE}
+     *
+     * @return Seite mit Treffern
+     *
+     * @throws LesezeichenException Syntaxfehler in der Abfrage
+     */
+    @GetMapping( "/tags/suche" )
+    public TagErgebnis tagSuche( @RequestParam( value = "q"       , required = true                      ) String anfrage,
+                                 @RequestParam( value = "ordnerId", required = false                     ) Long   ordnerId,
+                                 @RequestParam( value = "seite"   , required = false, defaultValue = "0"  ) int    seite,
+                                 @RequestParam( value = "groesse" , required = false, defaultValue = "20" ) int    groesse )
+            throws LesezeichenException {
+
+        final int seitengroesse = Math.clamp( groesse, 1, MAX_SEITENGROESSE );
+
+        return _tagIndex.suche( anfrage.trim(), ordnerId, Math.max( seite, 0 ), seitengroesse );
+    }
+
+
+    /**
+     * Ersetzt alle Tags eines Lesezeichens; Request-Body ist ein JSON-Array mit
+     * den neuen Tags, z.B. {@code ["java","spring"]}, ein leeres Array entfernt
+     * alle Tags.
+     *
+     * @param id ID des Lesezeichens
+     *
+     * @param tags Neue Tags
+     *
+     * @return Normalisierte Tags, die jetzt gesetzt sind
+     *
+     * @throws LesezeichenException Lesezeichen nicht gefunden oder ungültiges Tag
+     */
+    @PutMapping( "/lesezeichen/{id}/tags" )
+    public Set<String> tagsSetzen( @PathVariable Long id,
+                                   @RequestBody List<String> tags ) throws LesezeichenException {
+
+        return _lesezeichenService.tagsSetzen( id, tags );
+    }
+
+
+    /**
+     * Lesezeichen nach Domain: Anzahl unterhalb der Domain, Subdomains mit
+     * Anzahl und eine Seite mit Lesezeichen; alles aus dem Index im Speicher,
+     * siehe {@link DomainIndex}.
+     * <br><br>
+     *
+     * Beispiel-URLs:
+     * <ul>
+     * <li>http://localhost:8080/api/domains</li>
+     * <li>http://localhost:8080/api/domains?domain=*.spring.io&amp;seite=0&amp;groesse=10</li>
+     * </ul>
+     *
+     * @param domain Domain, z.B. "spring.io" oder "*.spring.io"; leer für alle Lesezeichen
+     *
+     * @param seite Nummer der Seite mit Lesezeichen, beginnend mit 0
+     *
+     * @param groesse Anzahl Lesezeichen und maximale Anzahl Subdomains pro
+     *                Seite, höchstens {@value #MAX_SEITENGROESSE}
+     *
+     * @return Anzahl, Subdomains und Seite mit Lesezeichen
+     */
+    @GetMapping( "/domains" )
+    public DomainErgebnis domains( @RequestParam( value = "domain" , required = false, defaultValue = ""   ) String domain,
+                                   @RequestParam( value = "seite"  , required = false, defaultValue = "0"  ) int    seite,
+                                   @RequestParam( value = "groesse", required = false, defaultValue = "20" ) int    groesse ) {
+
+        final int seitengroesse = Math.clamp( groesse, 1, MAX_SEITENGROESSE );
+
+        return _domainIndex.abfrage( domain, seitengroesse, Math.max( seite, 0 ), seitengroesse );
+    }
+
+
+    /**
+     * Vorschläge für die Eingabe eines Ordnernamens (<i>Type-Ahead</i>) aus
+     * dem Index im Speicher, siehe {@link OrdnerNamenIndex}; setzt kein
+     * SQL-Statement ab.
+     * <br><br>
+     *
+     * Beispiel-URL: http://localhost:8080/api/ordner/vorschlaege?q=ja&amp;max=10
+     *
+     * @param anfang Anfang des Ordnernamens, Groß-/Kleinschreibung wird ignoriert
+     *
+     * @param max Maximale Anzahl Vorschläge, höchstens {@value #MAX_SEITENGROESSE}
+     *
+     * @return Ordner mit ID, Name und Pfad, sortiert nach Name; leer bei leerem {@code anfang}
+     */
+    @GetMapping( "/ordner/vorschlaege" )
+    public List<OrdnerVorschlag> ordnerVorschlaege( @RequestParam( value = "q"  , required = false, defaultValue = ""   ) String anfang,
+                                                    @RequestParam( value = "max", required = false, defaultValue = "10" ) int    max ) {
+
+        return _ordnerNamenIndex.vorschlaege( anfang, Math.clamp( max, 1, MAX_SEITENGROESSE ) );
+    }
+
+
+    /**
+     * Bericht über alle Lesezeichen mit doppelten URLs.
+     * <br><br>
+     *
+     * Beispiel-URL: http://localhost:8080/api/duplikate?max=10
+     *
+     * @param max Maximale Anzahl Gruppen im Ergebnis, höchstens {@value #MAX_SEITENGROESSE}
+     *
+     * @return Bericht mit Anzahl aller Gruppen und den ersten {@code max} Gruppen
+     */
+    @GetMapping( "/duplikate" )
+    public DuplikatBericht duplikatBericht( @RequestParam( value = "max", required = false, defaultValue = "20" ) int max ) {
+
+        return _lesezeichenService.duplikatBericht( Math.clamp( max, 1, MAX_SEITENGROESSE ) );
+    }
+
+
+    /**
+     * Delta-Synchronisation: Liefert nur die Änderungen an Ordnern und
+     * Lesezeichen nach {@code seit}. Ohne {@code seit} wird nur das aktuelle
+     * Token geliefert, siehe {@link AenderungsProtokoll} für den Ablauf.
+     * <br><br>
+     *
+     * Beispiel-URLs:
+     * <ul>
+     * <li>http://localhost:8080/api/aenderungen</li>
+     * <li>http://localhost:8080/api/aenderungen?seit=17.4711&amp;max=500</li>
+     * </ul>
+     *
+     * @param seit Token aus der letzten Antwort; {@code 0} für alle Änderungen
+     *
+     * @param max Maximale Anzahl Änderungen, höchstens {@value #MAX_AENDERUNGEN}
+     *
+     * @return Änderungen mit neuem Token
+     *
+     * @throws LesezeichenException Token ungültig
+     */
+    @GetMapping( "/aenderungen" )
+    public AenderungsSeite aenderungen( @RequestParam( value = "seit", required = false                       ) String seit,
+                                        @RequestParam( value = "max" , required = false, defaultValue = "500" ) int    max )
+            throws LesezeichenException {
+
+        return _aenderungsProtokoll.getAenderungen( seit, Math.clamp( max, 1, MAX_AENDERUNGEN ) );
+    }
+
+
+    /**
+     * Neue Ordner und Lesezeichen in einem Ordner (oder seinem ganzen
+     * Teilbaum) als <i>Server-Sent Events</i> ({@code text/event-stream})
+     * abonnieren; Ereignis-Namen und Aufbau siehe {@link OrdnerEreignisVerteiler}.
+     * Wird die Verbindung vom Server getrennt (Timeout oder zu langsamer
+     * Client), dann sollte der Client verpasste Änderungen über
+     * {@code /api/aenderungen} holen.
+     * <br><br>
+     *
+     * Beispiel-Aufruf: {@code curl -N http://localhost:8080/api/ordner/1/ereignisse?teilbaum=true}
+     *
+     * @param id ID des Ordners
+     *
+     * @param teilbaum {@code true}, wenn auch Änderungen in Unterordnern
+     *                 geschickt werden sollen
+     *
+     * @return Emitter für die offene Verbindung
+     *
+     * @throws LesezeichenException Ordner nicht gefunden oder zu viele Verbindungen
+     */
+    @GetMapping( "/ordner/{id}/ereignisse" )
+    public SseEmitter ordnerEreignisse( @PathVariable Long id,
+                                        @RequestParam( value = "teilbaum", required = false, defaultValue = "false" ) boolean teilbaum )
+            throws LesezeichenException {
+
+        return _ereignisVerteiler.abonnieren( id, teilbaum );
+    }
+
+
+    /**
+     * Import einer Lesezeichen-Datei (HTML-Export oder Chrome-JSON) starten;
+     * der Import läuft im Hintergrund.
+     * <br><br>
+     *
+     * Beispiel-Aufruf: {@code curl -F datei=@bookmarks.html http://localhost:8080/api/import}
+     *
+     * @param datei Hochgeladene Datei (Multipart-Parameter {@code datei})
+     *
+     * @return Fortschritt mit ID des Auftrags und HTTP-Status-Code 202 (Accepted)
+     *
+     * @throws LesezeichenException Datei leer oder konnte nicht gespeichert werden
+     */
+    @PostMapping( "/import" )
+    public ResponseEntity<ImportFortschritt> importStarten( @RequestParam( "datei" ) MultipartFile datei )
+            throws LesezeichenException {
+
+        return ResponseEntity.status( ACCEPTED ).body( _importService.starten( datei ) );
+    }
+
+
+    /**
+     * Fortschritt eines Imports abfragen.
+     *
+     * @param id ID des Import-Auftrags
+     *
+     * @return Aktueller Fortschritt
+     *
+     * @throws LesezeichenException Kein Auftrag mit {@code id} gefunden
+     */
+    @GetMapping( "/import/{id}" )
+    public ImportFortschritt importFortschritt( @PathVariable String id ) throws LesezeichenException {
+
+        return _importService.getFortschritt( id );
+    }
+
+
+    /**
+     * Export aller Ordner und Lesezeichen als Datei-Download. Die Daten werden
+     * direkt beim Lesen aus der DB in die HTTP-Response geschrieben.
+     * <br><br>
+     *
+     * Beispiel-URLs:
+     * <ul>
+     * <li>http://localhost:8080/api/export?format=html</li>
+     * <li>http://localhost:8080/api/export?format=json&amp;gzip=true</li>
+     * <li>http://localhost:8080/api/export?format=csv</li>
+     * </ul>
+     *
+     * @param format Format: {@code html} (Netscape Bookmark File), {@code json}
+     *               (Chrome) oder {@code csv}
+     *
+     * @param gzip {@code true}, wenn die Datei mit gzip komprimiert werden soll
+     *
+     * @param response HTTP-Response, in die geschrieben wird
+     *
+     * @throws LesezeichenException Unbekanntes Format
+     *
+     * @throws IOException Fehler beim Schreiben der Response
+     */
+    @GetMapping( "/export" )
+    public void export( @RequestParam( value = "format", required = false, defaultValue = "html"  ) String  format,
+                        @RequestParam( value = "gzip"  , required = false, defaultValue = "false" ) boolean gzip,
+                        HttpServletResponse response ) throws LesezeichenException, IOException {
+
+        final ExportService.Format exportFormat = ExportService.Format.parse( format );
+
+        String dateiname = "lesezeichen." + exportFormat.dateiendung;
+        if ( gzip ) {
+
+            dateiname += ".gz";
+            response.setContentType( "application/gzip" );
+
+        } else {
+
+            response.setContentType( exportFormat.mimeType );
+            response.setCharacterEncoding( "UTF-8" );
+        }
+        response.setHeader( HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + dateiname + "\"" );
+
+        if ( gzip ) {
+
+            final GZIPOutputStream gzipStream = new GZIPOutputStream( response.getOutputStream(), 8 * 1024 );
+            _exportService.exportieren( exportFormat, gzipStream );
+            gzipStream.finish();
+
+        } else {
+
+            final OutputStream ausgabe = response.getOutputStream();
+            _exportService.exportieren( exportFormat, ausgabe );
+        }
+    }
+
+
+    /**
+     * Treffer und Fehlschläge aller Caches (Second-Level-Cache von Hibernate
+     * und Spring Caches) seit dem Start der Anwendung. Die Regionen des
+     * Second-Level-Caches sind nur im Profil "diagnose" enthalten.
+     * <br><br>
+     *
+     * Beispiel-URL: http://localhost:8080/api/cache/statistik
+     *
+     * @return Liste mit einem Eintrag pro Cache bzw. Cache-Region
+     */
+    @GetMapping( "/cache/statistik" )
+    public List<CacheStatistik> cacheStatistik() {
+
+        return _cacheStatistikService.getStatistik();
+    }
+
+
+    /**
+     * Anzahl JDBC-Statements, gelesene Zeilen und DB-Zeit pro Endpunkt unter
+     * {@code /app/} und {@code /rest/} seit dem Start der Anwendung.
+     * <br><br>
+     *
+     * Beispiel-URL: http://localhost:8080/api/sql/statistik
+     *
+     * @return Liste mit einem Eintrag pro Endpunkt; leer, wenn die Messung
+     *         abgeschaltet ist
+     */
+    @GetMapping( "/sql/statistik" )
+    public List<SqlStatistik> sqlStatistik() {
+
+        final SqlStatistikFilter filter = _sqlStatistikFilter.getIfAvailable();
+
+        return filter == null ? List.of() : filter.getStatistik();
+    }
+
+}
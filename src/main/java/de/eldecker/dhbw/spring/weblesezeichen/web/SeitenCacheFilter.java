@@ -0,0 +1,251 @@
+package de.eldecker.dhbw.spring.weblesezeichen.web;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import de.eldecker.dhbw.spring.weblesezeichen.logik.ImportBeendetEreignis;
+import de.eldecker.dhbw.spring.weblesezeichen.logik.LesezeichenAngelegtEreignis;
+import de.eldecker.dhbw.spring.weblesezeichen.logik.OrdnerAngelegtEreignis;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+
+/**
+ * Servlet-Filter, der das gerenderte HTML der Seiten {@code /app/ordner/{id}},
+ * {@code /app/ordnerliste} und {@code /app/lesezeichenliste} im Speicher hält,
+ * damit häufig aufgerufene Seiten ohne Controller, Datenbank und Thymeleaf
+ * ausgeliefert werden.
+ * <br><br>
+ *
+ * Der Schlüssel eines Eintrags enthält die Version der Seite: Für jede
+ * Ordnerseite gibt es eine eigene Version, die hochgezählt wird, wenn in
+ * dem Ordner ein Lesezeichen oder Unterordner angelegt wird; die beiden
+ * Listen haben eine gemeinsame Version, die bei jeder Änderung hochgezählt
+ * wird. Nach einem Import werden alle Versionen ungültig. Einträge mit
+ * veralteter Version werden nicht mehr abgefragt und von Caffeine verdrängt.
+ * <br><br>
+ *
+ * Die Version wird <b>vor</b> dem Rendern gelesen: Wenn sich die Daten während
+ * des Renderns ändern, dann landet die Seite unter der alten Version im Cache
+ * und wird nie ausgeliefert.
+ * <br><br>
+ *
+ * Ein ETag der Seite (siehe {@code ThymeleafController.zeigeOrdner()}) wird
+ * mitgespeichert, damit auch bei Seiten aus dem Cache mit HTTP-Status 304
+ * geantwortet werden kann.
+ * <br><br>
+ *
+ * Der Filter ist nur mit {@code lesezeichen.seiten-cache.aktiv=true} aktiv,
+ * z.B. mit Profil {@code produktion}.
+ */
+@Component
+@Order( Ordered.LOWEST_PRECEDENCE )
+@ConditionalOnProperty( name = "lesezeichen.seiten-cache.aktiv", havingValue = "true" )
+public class SeitenCacheFilter extends OncePerRequestFilter {
+
+    /** Pfad einer Ordnerseite, Gruppe 1 ist die ID. */
+    private static final Pattern ORDNER_PFAD = Pattern.compile( "^/app/ordner/(\\d+)$" );
+
+    /** Pfade der Listen, die von jeder Änderung betroffen sind. */
+    private static final String PFAD_ORDNERLISTE = "/app/ordnerliste";
+    private static final String PFAD_LESEZEICHENLISTE = "/app/lesezeichenliste";
+
+    /** Gerenderte Seiten; Schlüssel mit Pfad, Query-String und Versionen. */
+    private Cache<String, GecachteSeite> _cache;
+
+    /** Version pro Ordnerseite; fehlt für Ordner ohne Änderung (Version 0). */
+    private final ConcurrentMap<Long, Long> _ordnerVersion = new ConcurrentHashMap<>();
+
+    /** Version der beiden Listen. */
+    private final AtomicLong _listenVersion = new AtomicLong();
+
+    /** Wird nach Import hochgezählt, damit alle Einträge ungültig werden. */
+    private final AtomicLong _epoche = new AtomicLong();
+
+
+    /**
+     * Gerenderte Seite.
+     *
+     * @param inhalt HTML
+     *
+     * @param contentType Wert für Header {@code Content-Type}
+     *
+     * @param etag Wert für Header {@code ETag}; {@code null}, wenn die Seite keins hat
+     */
+    private record GecachteSeite( byte[] inhalt, String contentType, String etag ) {}
+
+
+    /**
+     * Konstruktor für <i>Dependency Injection</i>.
+     */
+    @Autowired
+    public SeitenCacheFilter( MeterRegistry meterRegistry,
+                              @Value( "${lesezeichen.seiten-cache.max-eintraege:10000}" ) long maxEintraege ) {
+
+        _cache = Caffeine.newBuilder()
+                         .maximumSize( maxEintraege )
+                         .recordStats()
+                         .build();
+
+        CaffeineCacheMetrics.monitor( meterRegistry, _cache, "seiten" );
+    }
+
+
+    /**
+     * Nur GET-Requests auf die drei Seiten werden gecacht.
+     */
+    @Override
+    protected boolean shouldNotFilter( HttpServletRequest request ) {
+
+        return !"GET".equals( request.getMethod() ) || schluesselPraefix( pfad( request ) ) == null;
+    }
+
+
+    /**
+     * Liefert die Seite aus dem Cache oder rendert sie und legt sie im Cache ab.
+     */
+    @Override
+    protected void doFilterInternal( HttpServletRequest request, HttpServletResponse response,
+                                     FilterChain filterChain ) throws ServletException, IOException {
+
+        final String query      = request.getQueryString();
+        final String schluessel = schluesselPraefix( pfad( request ) ) + ( query == null ? "" : "?" + query );
+
+        final GecachteSeite seite = _cache.getIfPresent( schluessel );
+        if ( seite != null ) {
+
+            if ( seite.etag() != null ) {
+
+                response.setHeader( HttpHeaders.ETAG, seite.etag() );
+
+                final String ifNoneMatch = request.getHeader( HttpHeaders.IF_NONE_MATCH );
+                if ( ifNoneMatch != null && ifNoneMatch.contains( seite.etag() ) ) {
+
+                    response.setStatus( HttpServletResponse.SC_NOT_MODIFIED );
+                    return;
+                }
+            }
+            response.setContentType( seite.contentType() );
+            response.setContentLength( seite.inhalt().length );
+            response.getOutputStream().write( seite.inhalt() );
+            return;
+        }
+
+        final ContentCachingResponseWrapper responseWrapper = new ContentCachingResponseWrapper( response );
+        filterChain.doFilter( request, responseWrapper );
+
+        if ( responseWrapper.getStatus() == HttpServletResponse.SC_OK &&
+             responseWrapper.getContentType() != null &&
+             responseWrapper.getContentType().startsWith( "text/html" ) ) {
+
+            _cache.put( schluessel, new GecachteSeite( responseWrapper.getContentAsByteArray(),
+                                                       responseWrapper.getContentType(),
+                                                       responseWrapper.getHeader( HttpHeaders.ETAG ) ) );
+        }
+        responseWrapper.copyBodyToResponse();
+    }
+
+
+    /**
+     * Pfad ohne Context-Pfad.
+     */
+    private static String pfad( HttpServletRequest request ) {
+
+        return request.getRequestURI().substring( request.getContextPath().length() );
+    }
+
+
+    /**
+     * Schlüssel ohne Query-String mit aktuellen Versionen für {@code pfad}.
+     *
+     * @return {@code null}, wenn die Seite nicht gecacht wird
+     */
+    private String schluesselPraefix( String pfad ) {
+
+        final Matcher matcher = ORDNER_PFAD.matcher( pfad );
+        if ( matcher.matches() ) {
+
+            final long ordnerId = Long.parseLong( matcher.group( 1 ) );
+
+            return pfad + "#" + _epoche.get() + "." + _ordnerVersion.getOrDefault( ordnerId, 0L );
+        }
+        if ( pfad.equals( PFAD_ORDNERLISTE ) || pfad.equals( PFAD_LESEZEICHENLISTE ) ) {
+
+            return pfad + "#" + _epoche.get() + "." + _listenVersion.get();
+        }
+
+        return null;
+    }
+
+
+    /**
+     * Neuer Ordner: Seite des Vaterordners und Listen nach dem Commit
+     * ungültig machen.
+     *
+     * @param ereignis Ereignis mit neuem Ordner
+     */
+    @TransactionalEventListener( fallbackExecution = true )
+    public void onOrdnerAngelegt( OrdnerAngelegtEreignis ereignis ) {
+
+        if ( ereignis.vaterId() != null ) {
+
+            _ordnerVersion.merge( ereignis.vaterId(), 1L, Long::sum );
+        }
+        _listenVersion.incrementAndGet();
+    }
+
+
+    /**
+     * Neues Lesezeichen: Seite des Ordners und Listen nach dem Commit
+     * ungültig machen.
+     *
+     * @param ereignis Ereignis mit neuem Lesezeichen
+     */
+    @TransactionalEventListener( fallbackExecution = true )
+    public void onLesezeichenAngelegt( LesezeichenAngelegtEreignis ereignis ) {
+
+        _ordnerVersion.merge( ereignis.lesezeichen().ordnerId(), 1L, Long::sum );
+        _listenVersion.incrementAndGet();
+    }
+
+
+    /**
+     * Nach einem Import werden alle Seiten ungültig, da beim Import auch Ordner
+     * ohne {@link OrdnerAngelegtEreignis} angelegt werden.
+     *
+     * @param ereignis Ereignis mit Stand des Imports
+     */
+    @EventListener
+    public void onImportBeendet( ImportBeendetEreignis ereignis ) {
+
+        _epoche.incrementAndGet();
+        _ordnerVersion.clear();
+        _cache.invalidateAll();
+    }
+
+}
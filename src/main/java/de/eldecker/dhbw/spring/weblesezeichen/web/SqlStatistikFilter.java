@@ -0,0 +1,335 @@
+package de.eldecker.dhbw.spring.weblesezeichen.web;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import de.eldecker.dhbw.spring.weblesezeichen.db.SqlZaehler;
+import de.eldecker.dhbw.spring.weblesezeichen.model.SqlStatistik;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+
+
+/**
+ * Servlet-Filter, der für jeden Request auf die Thymeleaf-Seiten ({@code /app/})
+ * und auf Spring Data REST ({@code /rest/}) mit {@link SqlZaehler} die Anzahl
+ * der JDBC-Statements, der gelesenen Zeilen und die DB-Zeit misst.
+ * <br><br>
+ *
+ * Die Werte werden als HTTP-Header {@value #HEADER_STATEMENTS}, {@value #HEADER_ZEILEN}
+ * und {@value #HEADER_ZEIT} zurückgegeben und pro Endpunkt aufsummiert
+ * (siehe {@link #getStatistik()}). Die Response wird nicht zwischengespeichert:
+ * Die Header werden vor jedem Schreiben in den Body aktualisiert, solange die
+ * Response noch nicht abgeschickt ist, und am Ende des Requests nochmal.
+ * Statements beim Rendern der Seite (Lazy Loading in Thymeleaf-Templates)
+ * sind also in den Headern enthalten, solange die Seite in den Puffer
+ * des Servlet-Containers passt; danach folgende Statements zählen nur noch
+ * in der Summe pro Endpunkt. Der Filter liegt außerhalb von
+ * {@link SeitenCacheFilter}, damit Seiten aus dem Cache mit 0 Statements
+ * gezählt werden.
+ * <br><br>
+ *
+ * Nur aktiv mit {@code lesezeichen.sql-statistik.aktiv=true}, z.B. im Profil
+ * "diagnose".
+ */
+@Component
+@Order( Ordered.LOWEST_PRECEDENCE - 1 )
+@ConditionalOnProperty( name = "lesezeichen.sql-statistik.aktiv", havingValue = "true" )
+public class SqlStatistikFilter extends OncePerRequestFilter {
+
+    /** Header mit Anzahl JDBC-Statements des Requests. */
+    public static final String HEADER_STATEMENTS = "X-SQL-Statements";
+
+    /** Header mit Anzahl gelesener Zeilen des Requests. */
+    public static final String HEADER_ZEILEN = "X-SQL-Zeilen";
+
+    /** Header mit Zeit in JDBC-Aufrufen in Millisekunden. */
+    public static final String HEADER_ZEIT = "X-SQL-Zeit-Ms";
+
+    /** Aufsummierte Werte pro Endpunkt; Schlüssel ist z.B. {@code GET /app/ordner/{id}}. */
+    private final ConcurrentMap<String, Summe> _summeProEndpunkt = new ConcurrentHashMap<>();
+
+
+    /** Veränderliche Summen für einen Endpunkt. */
+    private static final class Summe {
+
+        private long anzahlRequests;
+        private long statementsGesamt;
+        private long statementsMax;
+        private long zeilenGesamt;
+        private long dbZeitNanosGesamt;
+
+        synchronized void addieren( SqlZaehler.Messung messung ) {
+
+            anzahlRequests++;
+            statementsGesamt  += messung.statements();
+            statementsMax      = Math.max( statementsMax, messung.statements() );
+            zeilenGesamt      += messung.zeilen();
+            dbZeitNanosGesamt += messung.dbZeitNanos();
+        }
+
+        synchronized SqlStatistik alsStatistik( String endpunkt ) {
+
+            return new SqlStatistik( endpunkt, anzahlRequests, statementsGesamt, statementsMax,
+                                     zeilenGesamt, dbZeitNanosGesamt / 1_000_000 );
+        }
+    }
+
+
+    /**
+     * Nur Requests auf Thymeleaf-Seiten und Spring Data REST messen, nicht
+     * die Endpunkte unter {@code /api/}.
+     */
+    @Override
+    protected boolean shouldNotFilter( HttpServletRequest request ) {
+
+        final String pfad = request.getRequestURI().substring( request.getContextPath().length() );
+
+        return !pfad.startsWith( "/app/" ) && !pfad.startsWith( "/rest/" );
+    }
+
+
+    /**
+     * Misst die JDBC-Zugriffe des Requests und setzt die Header.
+     */
+    @Override
+    protected void doFilterInternal( HttpServletRequest request, HttpServletResponse response,
+                                     FilterChain filterChain ) throws ServletException, IOException {
+
+        final HeaderResponse headerResponse = new HeaderResponse( response );
+
+        SqlZaehler.starten();
+        final SqlZaehler.Messung messung;
+        try {
+
+            filterChain.doFilter( request, headerResponse );
+
+        } finally {
+
+            messung = SqlZaehler.beenden();
+        }
+
+        headerResponse.headerSetzen( messung );
+
+        _summeProEndpunkt.computeIfAbsent( endpunkt( request ), schluessel -> new Summe() )
+                         .addieren( messung );
+    }
+
+
+    /**
+     * Response, die vor jedem Schreiben in den Body und vor dem Abschicken
+     * die Header mit dem Zwischenstand der Messung setzt; der Body wird
+     * unverändert an die eigentliche Response durchgereicht.
+     */
+    private static final class HeaderResponse extends HttpServletResponseWrapper {
+
+        /** Anzahl Statements und Zeilen beim letzten Setzen der Header, um unnötiges Setzen zu sparen. */
+        private long _statementsGesetzt = -1;
+        private long _zeilenGesetzt     = -1;
+
+        private ServletOutputStream _outputStream;
+        private PrintWriter         _writer;
+
+
+        HeaderResponse( HttpServletResponse response ) {
+
+            super( response );
+        }
+
+
+        /**
+         * Setzt die Header, falls die Response noch nicht abgeschickt ist
+         * und sich die Werte geändert haben.
+         */
+        void headerSetzen( SqlZaehler.Messung messung ) {
+
+            if ( isCommitted() ) { return; }
+            if ( messung.statements() == _statementsGesetzt && messung.zeilen() == _zeilenGesetzt ) { return; }
+
+            setHeader( HEADER_STATEMENTS, Long.toString( messung.statements() ) );
+            setHeader( HEADER_ZEILEN    , Long.toString( messung.zeilen()     ) );
+            setHeader( HEADER_ZEIT      , Long.toString( messung.dbZeitMs()   ) );
+
+            _statementsGesetzt = messung.statements();
+            _zeilenGesetzt     = messung.zeilen();
+        }
+
+
+        /** Header mit Zwischenstand der laufenden Messung setzen. */
+        private void zwischenstandSetzen() {
+
+            headerSetzen( SqlZaehler.zwischenstand() );
+        }
+
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+
+            if ( _outputStream == null ) {
+
+                final ServletOutputStream ziel = super.getOutputStream();
+                _outputStream = new ServletOutputStream() {
+
+                    @Override
+                    public void write( int b ) throws IOException {
+
+                        zwischenstandSetzen();
+                        ziel.write( b );
+                    }
+
+                    @Override
+                    public void write( byte[] b, int off, int len ) throws IOException {
+
+                        zwischenstandSetzen();
+                        ziel.write( b, off, len );
+                    }
+
+                    @Override
+                    public void flush() throws IOException {
+
+                        zwischenstandSetzen();
+                        ziel.flush();
+                    }
+
+                    @Override
+                    public void close() throws IOException {
+
+                        zwischenstandSetzen();
+                        ziel.close();
+                    }
+
+                    @Override
+                    public boolean isReady() {
+
+                        return ziel.isReady();
+                    }
+
+                    @Override
+                    public void setWriteListener( WriteListener writeListener ) {
+
+                        ziel.setWriteListener( writeListener );
+                    }
+                };
+            }
+            return _outputStream;
+        }
+
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+
+            if ( _writer == null ) {
+
+                final PrintWriter ziel = super.getWriter();
+                _writer = new PrintWriter( new Writer() {
+
+                    @Override
+                    public void write( char[] cbuf, int off, int len ) {
+
+                        zwischenstandSetzen();
+                        ziel.write( cbuf, off, len );
+                    }
+
+                    @Override
+                    public void write( String str, int off, int len ) {
+
+                        zwischenstandSetzen();
+                        ziel.write( str, off, len );
+                    }
+
+                    @Override
+                    public void flush() {
+
+                        zwischenstandSetzen();
+                        ziel.flush();
+                    }
+
+                    @Override
+                    public void close() {
+
+                        zwischenstandSetzen();
+                        ziel.close();
+                    }
+                } );
+            }
+            return _writer;
+        }
+
+
+        @Override
+        public void flushBuffer() throws IOException {
+
+            zwischenstandSetzen();
+            super.flushBuffer();
+        }
+
+
+        @Override
+        public void sendError( int sc, String msg ) throws IOException {
+
+            zwischenstandSetzen();
+            super.sendError( sc, msg );
+        }
+
+
+        @Override
+        public void sendError( int sc ) throws IOException {
+
+            zwischenstandSetzen();
+            super.sendError( sc );
+        }
+
+
+        @Override
+        public void sendRedirect( String location ) throws IOException {
+
+            zwischenstandSetzen();
+            super.sendRedirect( location );
+        }
+    }
+
+
+    /**
+     * Schlüssel für Aufsummierung: HTTP-Methode und Pfad-Muster des Handlers,
+     * damit z.B. alle Ordner-IDs auf einen Eintrag fallen.
+     */
+    private static String endpunkt( HttpServletRequest request ) {
+
+        final Object muster = request.getAttribute( HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE );
+
+        return request.getMethod() + " " + ( muster != null ? muster : request.getRequestURI() );
+    }
+
+
+    /**
+     * Aufsummierte Werte seit Start der Anwendung.
+     *
+     * @return Liste mit einem Eintrag pro Endpunkt, sortiert nach
+     *         Gesamtzahl Statements (absteigend)
+     */
+    public List<SqlStatistik> getStatistik() {
+
+        return _summeProEndpunkt.entrySet().stream()
+                                .map( eintrag -> eintrag.getValue().alsStatistik( eintrag.getKey() ) )
+                                .sorted( Comparator.comparingLong( SqlStatistik::statementsGesamt ).reversed() )
+                                .toList();
+    }
+
+}
@@ -6,14 +6,43 @@ import de.eldecker.dhbw.spring.weblesezeichen.db.entities.LesezeichenEntity;
 import de.eldecker.dhbw.spring.weblesezeichen.db.entities.OrdnerEntity;
 import de.eldecker.dhbw.spring.weblesezeichen.db.repos.LesezeichenRepo;
 import de.eldecker.dhbw.spring.weblesezeichen.db.repos.OrdnerRepo;
+import de.eldecker.dhbw.spring.weblesezeichen.logik.AufrufZaehler;
+import de.eldecker.dhbw.spring.weblesezeichen.logik.DomainIndex;
+import de.eldecker.dhbw.spring.weblesezeichen.logik.ImportService;
 import de.eldecker.dhbw.spring.weblesezeichen.logik.LesezeichenException;
-
+import de.eldecker.dhbw.spring.weblesezeichen.logik.LesezeichenService;
+import de.eldecker.dhbw.spring.weblesezeichen.logik.OrdnerBaumSnapshot;
+import de.eldecker.dhbw.spring.weblesezeichen.logik.OrdnerBaumSnapshotService;
+import de.eldecker.dhbw.spring.weblesezeichen.logik.OrdnerNamenIndex;
+import de.eldecker.dhbw.spring.weblesezeichen.logik.OrdnerService;
+import de.eldecker.dhbw.spring.weblesezeichen.logik.SuchIndex;
+import de.eldecker.dhbw.spring.weblesezeichen.logik.TagIndex;
+import de.eldecker.dhbw.spring.weblesezeichen.logik.TopLesezeichen;
+import de.eldecker.dhbw.spring.weblesezeichen.model.DomainErgebnis;
+import de.eldecker.dhbw.spring.weblesezeichen.model.DuplikatBericht;
+import de.eldecker.dhbw.spring.weblesezeichen.model.ImportFortschritt;
+import de.eldecker.dhbw.spring.weblesezeichen.model.KeysetSeite;
+import de.eldecker.dhbw.spring.weblesezeichen.model.LesezeichenMitOrdner;
+import de.eldecker.dhbw.spring.weblesezeichen.model.OrdnerBaumKnoten;
+import de.eldecker.dhbw.spring.weblesezeichen.model.OrdnerKnoten;
+import de.eldecker.dhbw.spring.weblesezeichen.model.OrdnerKurzInfo;
+import de.eldecker.dhbw.spring.weblesezeichen.model.OrdnerMitAnzahl;
+import de.eldecker.dhbw.spring.weblesezeichen.model.SuchErgebnis;
+import de.eldecker.dhbw.spring.weblesezeichen.model.TagErgebnis;
+import de.eldecker.dhbw.spring.weblesezeichen.model.TopEintrag;
+
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -22,7 +51,10 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.view.RedirectView;
 
 
 /**
@@ -36,22 +68,75 @@ public class ThymeleafController {
 
     private final static Logger LOG = LoggerFactory.getLogger( ThymeleafController.class );
 
+    /** Anzahl der Einträge pro Seite für Ordner- und Lesezeichenliste. */
+    private static final int SEITENGROESSE = 50;
+
     /** Repo-Bean für Zugriff auf Tabelle mit Ordnern. */
     private OrdnerRepo _ordnerRepo;
 
     /** Repo-Bean für Zugriff auf Tabelle mit Lesezeichen. */
     private LesezeichenRepo _lesezeichenRepo;
 
+    /** Service-Bean mit Logik für Ordner. */
+    private OrdnerService _ordnerService;
+
+    /** Service-Bean mit Logik für Lesezeichen. */
+    private LesezeichenService _lesezeichenService;
+
+    /** Bean mit Index für Volltextsuche. */
+    private SuchIndex _suchIndex;
+
+    /** Service-Bean für Import von Lesezeichen-Dateien. */
+    private ImportService _importService;
+
+    /** Service-Bean mit Snapshot des Ordnerbaums im Speicher. */
+    private OrdnerBaumSnapshotService _snapshotService;
+
+    /** Bean zum Zählen der Aufrufe von Lesezeichen. */
+    private AufrufZaehler _aufrufZaehler;
+
+    /** Service-Bean mit Ranglisten der meistbenutzten Lesezeichen. */
+    private TopLesezeichen _topLesezeichen;
+
+    /** Bean mit Index für Abfragen über Tags. */
+    private TagIndex _tagIndex;
+
+    /** Bean mit Index der Lesezeichen nach Domain. */
+    private DomainIndex _domainIndex;
+
+    /** Bean mit Index der Ordnernamen. */
+    private OrdnerNamenIndex _ordnerNamenIndex;
+
 
     /**
      * Konstruktor für <i>Dependency Injection</i>.
      */
     @Autowired
     public ThymeleafController( OrdnerRepo ordnerRepo,
-                                LesezeichenRepo lesezeichenRepo ) {
-
-        _ordnerRepo      = ordnerRepo;
-        _lesezeichenRepo = lesezeichenRepo;
+                                LesezeichenRepo lesezeichenRepo,
+                                OrdnerService ordnerService,
+                                LesezeichenService lesezeichenService,
+                                SuchIndex suchIndex,
+                                ImportService importService,
+                                OrdnerBaumSnapshotService snapshotService,
+                                AufrufZaehler aufrufZaehler,
+                                TopLesezeichen topLesezeichen,
+                                TagIndex tagIndex,
+                                DomainIndex domainIndex,
+                                OrdnerNamenIndex ordnerNamenIndex ) {
+
+        _ordnerRepo         = ordnerRepo;
+        _lesezeichenRepo    = lesezeichenRepo;
+        _ordnerService      = ordnerService;
+        _lesezeichenService = lesezeichenService;
+        _suchIndex          = suchIndex;
+        _importService      = importService;
+        _snapshotService    = snapshotService;
+        _aufrufZaehler      = aufrufZaehler;
+        _topLesezeichen     = topLesezeichen;
+        _tagIndex           = tagIndex;
+        _domainIndex        = domainIndex;
+        _ordnerNamenIndex   = ordnerNamenIndex;
     }
 
 
@@ -126,18 +211,147 @@ public class ThymeleafController {
 
 
     /**
-     * Methode zur Anzeige einer flachen Liste aller Ordner.
+     * Starkes ETag für die Seite eines Ordners; ändert sich mit der Version,
+     * also wenn im Ordner ein Lesezeichen oder Unterordner angelegt wird.
+     * Die Version kommt aus dem Snapshot oder aus der Datenbank, die beiden
+     * zählen gleich hoch.
+     *
+     * @param ordnerId ID des Ordners
+     *
+     * @param version Version des Ordners
+     *
+     * @return ETag inkl. Anführungszeichen, z.B. {@code "ordner-7-3"}
+     */
+    private static String etag( long ordnerId, Long version ) {
+
+        return "\"ordner-" + ordnerId + "-" + version + "\"";
+    }
+
+
+    /**
+     * Hilfsmethode, die den Ordner mit {@code ordnerId} inkl. Unterordnern und
+     * Lesezeichen für die Anzeige holt. Wenn es einen Snapshot gibt, dann wird
+     * nicht auf die Datenbank zugegriffen.
+     *
+     * @param ordnerId ID von Ordner, der zu holen ist
+     *
+     * @return Knoten für Ordner mit {@code ordnerId}
+     *
+     * @throws LesezeichenException Wenn kein Ordner mit {@code ordnerId} gefunden
+     */
+    private OrdnerKnoten holeOrdnerKnoten( long ordnerId ) throws LesezeichenException {
+
+        final OrdnerBaumSnapshot snapshot = _snapshotService.getSnapshot();
+        if ( snapshot == null ) {
+
+            final OrdnerEntity ordner = holeOrdner( ordnerId ); // throws LesezeichenException
+
+            final List<LesezeichenMitOrdner> lesezeichenListe = new ArrayList<>();
+            for ( LesezeichenEntity lesezeichen : ordner.getLesezeichen() ) {
+
+                lesezeichenListe.add( new LesezeichenMitOrdner( lesezeichen.getId(), lesezeichen.getName(),
+                                                                lesezeichen.getUrl(), ordner.getId(), ordner.getName() ) );
+            }
+
+            return new OrdnerKnoten( ordner.getId(), ordner.getName(),
+                                     ordner.istWurzel() ? null : ordner.getVater().getId(),
+                                     ordner.getPfad(), ordner.getVersion(),
+                                     _ordnerService.getUnterordner( ordnerId ),
+                                     lesezeichenListe );
+        }
+
+        final OrdnerKnoten knoten = snapshot.getOrdner( ordnerId );
+        if ( knoten == null ) {
+
+            throw new LesezeichenException( "Kein Ordner mit ID=" + ordnerId + " gefunden." );
+        }
+
+        return knoten;
+    }
+
+
+    /**
+     * Hilfsmethode, die den Pfad von der Wurzel bis zum Ordner mit {@code ordnerId}
+     * für die "Brotkrumen"-Navigation holt.
+     *
+     * @param ordnerId ID des Ordners, für den der Pfad geholt werden soll
+     *
+     * @return Liste der Ordner, beginnend mit der Wurzel und endend mit dem Ordner
+     *
+     * @throws LesezeichenException Wenn kein Ordner mit {@code ordnerId} gefunden
+     */
+    private List<OrdnerKurzInfo> holePfadVonWurzel( long ordnerId ) throws LesezeichenException {
+
+        final OrdnerBaumSnapshot snapshot = _snapshotService.getSnapshot();
+        if ( snapshot != null ) {
+
+            return snapshot.getPfadVonWurzel( ordnerId );
+        }
+
+        final List<OrdnerKurzInfo> pfad = new ArrayList<>();
+        for ( OrdnerEntity ordner : _ordnerService.getPfadZurWurzel( holeOrdner( ordnerId ) ) ) {
+
+            pfad.add( new OrdnerKurzInfo( ordner.getId(), ordner.getName() ) );
+        }
+        Collections.reverse( pfad );
+
+        return pfad;
+    }
+
+
+    /**
+     * Methode zur Anzeige einer flachen Liste aller Ordner, seitenweise mit
+     * <i>Keyset Pagination</i>. Ohne Parameter wird die erste Seite angezeigt.
+     *
+     * @param nachName Optional: Name des letzten Ordners der vorherigen Seite
+     *                 (für "Nächste Seite")
+     *
+     * @param nachId Optional: ID des letzten Ordners der vorherigen Seite
+     *
+     * @param vorName Optional: Name des ersten Ordners der nachfolgenden Seite
+     *                (für "Vorherige Seite")
+     *
+     * @param vorId Optional: ID des ersten Ordners der nachfolgenden Seite
      *
      * @param model Objekt für Platzhalterwerte, die vom Template benötigt werden.
      *
      * @return Name der Template-Datei "ordner-liste.html" ohne Datei-Endung
      */
     @GetMapping( "/ordnerliste" )
-    public String ordnerListe( Model model ) {
+    public String ordnerListe( @RequestParam( value = "nachName", required = false ) String nachName,
+                               @RequestParam( value = "nachId"  , required = false ) Long   nachId,
+                               @RequestParam( value = "vorName" , required = false ) String vorName,
+                               @RequestParam( value = "vorId"   , required = false ) Long   vorId,
+                               Model model ) {
+
+        final Pageable           pageable = PageRequest.ofSize( SEITENGROESSE + 1 );
+        final OrdnerBaumSnapshot snapshot = _snapshotService.getSnapshot();
+
+        final KeysetSeite<OrdnerMitAnzahl> seite;
+        if ( vorName != null && vorId != null ) {
 
-        final List<OrdnerEntity> ordnerListe = _ordnerRepo.findAllByOrderByNameIgnoreCase();
+            final List<OrdnerMitAnzahl> ordnerListe =
+                    snapshot != null
+                    ? snapshot.getOrdnerVor( vorName, vorId, SEITENGROESSE + 1 )
+                    : _ordnerRepo.findSeiteMitAnzahlVor( vorName, vorId, pageable );
 
-        model.addAttribute( "ordner_liste", ordnerListe );
+            seite = KeysetSeite.rueckwaerts( ordnerListe, SEITENGROESSE );
+        } else {
+
+            final boolean mitCursor = nachName != null && nachId != null;
+
+            final List<OrdnerMitAnzahl> ordnerListe =
+                    snapshot != null
+                    ? snapshot.getOrdnerNach( mitCursor ? nachName : null, nachId, SEITENGROESSE + 1 )
+                    : _ordnerRepo.findSeiteMitAnzahlNach( mitCursor ? nachName : "",
+                                                          mitCursor ? nachId   : 0L,
+                                                          pageable );
+
+            seite = KeysetSeite.vorwaerts( ordnerListe, SEITENGROESSE, mitCursor );
+        }
+
+        model.addAttribute( "ordner_liste", seite.eintraege() );
+        model.addAttribute( "seite"       , seite             );
 
         return "ordner-liste";
     }
@@ -145,44 +359,107 @@ public class ThymeleafController {
 
     /**
      * Methode zum Anzeigen eines einzelnen Ordners.
+     * <br><br>
+     *
+     * Die Seite bekommt ein ETag aus ID und Version des Ordners; wenn der
+     * Browser mit {@code If-None-Match} dasselbe ETag schickt, dann wird
+     * HTTP-Status 304 (Not Modified) ohne Body zurückgegeben. Wenn es einen
+     * Snapshot gibt, dann kommt die Version aus dem Snapshot und es wird gar
+     * nicht auf die Datenbank zugegriffen; sonst wird nur der Ordner selbst
+     * geladen (meist aus dem Second-Level-Cache), nicht aber seine Lesezeichen
+     * und Unterordner.
      *
      * @param id ID des Ordners
      *
      * @param model Objekt für Platzhalterwerte, die vom Template benötigt werden.
      *
-     * @return Name der Template-Datei "ordner-details.html" ohne Datei-Endung
+     * @param webRequest Request für Prüfung von {@code If-None-Match}
+     *
+     * @return Name der Template-Datei "ordner-details.html" ohne Datei-Endung;
+     *         {@code null} bei HTTP-Status 304
      *
      * @throws LesezeichenException Ordner mit {@code id} wurde nicht gefunden
      */
     @GetMapping( "/ordner/{id}" )
     public String zeigeOrdner( @PathVariable Long id,
-                               Model model ) throws LesezeichenException {
+                               Model model,
+                               WebRequest webRequest ) throws LesezeichenException {
 
-        final OrdnerEntity ordner = holeOrdner( id ); // throws LesezeichenException
+        OrdnerKnoten ordner = null;
+        final String etag;
+        if ( _snapshotService.getSnapshot() != null ) {
 
-        final List<OrdnerEntity> unterordnerListe =
-                        _ordnerRepo.findByVater_IdOrderByNameAsc( id );
+            ordner = holeOrdnerKnoten( id ); // throws LesezeichenException
+            etag   = etag( id, ordner.version() );
 
-        model.addAttribute( "ordner"          , ordner           );
-        model.addAttribute( "unterordnerliste", unterordnerListe );
+        } else {
+
+            final OrdnerEntity ordnerEntity = holeOrdner( id ); // throws LesezeichenException
+            etag = etag( id, ordnerEntity.getVersion() );
+        }
+        if ( webRequest.checkNotModified( etag ) ) {
+
+            return null;
+        }
+
+        if ( ordner == null ) { ordner = holeOrdnerKnoten( id ); }
+
+        model.addAttribute( "ordner"          , ordner                    );
+        model.addAttribute( "unterordnerliste", ordner.unterordner()      );
+        model.addAttribute( "pfad"            , holePfadVonWurzel( id )   );
 
         return "ordner-details";
     }
 
 
+    /**
+     * Methode zum Anzeigen des ganzen Teilbaums unterhalb eines Ordners inkl. aller
+     * Lesezeichen. Der Teilbaum wird mit einer einzigen Query geholt, siehe
+     * {@link OrdnerService#getTeilbaum(long)}.
+     *
+     * @param id ID des Ordners, der Wurzel des anzuzeigenden Teilbaums ist
+     *
+     * @param model Objekt für Platzhalterwerte, die vom Template benötigt werden.
+     *
+     * @return Name der Template-Datei "ordner-baum.html" ohne Datei-Endung
+     *
+     * @throws LesezeichenException Ordner mit {@code id} wurde nicht gefunden
+     */
+    @GetMapping( "/ordner/{id}/baum" )
+    public String zeigeTeilbaum( @PathVariable Long id,
+                                 Model model ) throws LesezeichenException {
+
+        final OrdnerBaumKnoten baum = _ordnerService.getTeilbaum( id ); // throws LesezeichenException
+
+        model.addAttribute( "baum", baum );
+
+        return "ordner-baum";
+    }
+
+
     /**
      * Methode zum Anzeigen des Wurzelordners; verwendet intern die Methode
-     * {@link #zeigeOrdner(Long, Model)}.
+     * {@link #zeigeOrdner(Long, Model, WebRequest)}.
      *
      * @param model Objekt für Platzhalterwerte, die vom Template benötigt werden.
      *
-     * @return Name der Template-Datei "ordner-details.html" ohne Datei-Endung
+     * @param webRequest Request für Prüfung von {@code If-None-Match}
+     *
+     * @return Name der Template-Datei "ordner-details.html" ohne Datei-Endung;
+     *         {@code null} bei HTTP-Status 304
      *
      * @throws LesezeichenException Wenn Wurzelknoten nicht gefunden (Datenbank
      *                              wurde noch nicht initialisiert?)
      */
     @GetMapping( "/ordner/wurzel" )
-    public String zeigeWurzelOrdner( Model model ) throws LesezeichenException {
+    public String zeigeWurzelOrdner( Model model,
+                                     WebRequest webRequest ) throws LesezeichenException {
+
+        final OrdnerBaumSnapshot snapshot = _snapshotService.getSnapshot();
+        if ( snapshot != null && snapshot.getWurzelId() != null ) {
+
+            return zeigeOrdner( snapshot.getWurzelId(), model, webRequest );
+        }
 
         final Optional<OrdnerEntity> ordnerOptional = _ordnerRepo.findByVaterIsNull();
         if ( ordnerOptional.isEmpty() ) {
@@ -192,29 +469,300 @@ public class ThymeleafController {
 
         final long ordnerId = ordnerOptional.get().getId();
 
-        return zeigeOrdner( ordnerId, model );
+        return zeigeOrdner( ordnerId, model, webRequest );
     }
 
 
     /**
-     * Methoden zum Anzeigen einer flachen Liste aller Lesezeichen.
+     * Methoden zum Anzeigen einer flachen Liste aller Lesezeichen, seitenweise mit
+     * <i>Keyset Pagination</i>. Jede Seite wird mit einer einzigen Query inkl.
+     * Ordnername geholt. Ohne Parameter wird die erste Seite angezeigt.
+     *
+     * @param nachName Optional: Name des letzten Lesezeichens der vorherigen Seite
+     *                 (für "Nächste Seite")
+     *
+     * @param nachId Optional: ID des letzten Lesezeichens der vorherigen Seite
+     *
+     * @param vorName Optional: Name des ersten Lesezeichens der nachfolgenden Seite
+     *                (für "Vorherige Seite")
+     *
+     * @param vorId Optional: ID des ersten Lesezeichens der nachfolgenden Seite
      *
      * @param model Objekt für Platzhalterwerte, die vom Template benötigt werden
      *
      * @return Name der Template-Datei "lesezeichen-liste.html" ohne Datei-Endung
      */
     @GetMapping( "/lesezeichenliste" )
-    public String lesezeichenListe( Model model ) {
+    public String lesezeichenListe( @RequestParam( value = "nachName", required = false ) String nachName,
+                                    @RequestParam( value = "nachId"  , required = false ) Long   nachId,
+                                    @RequestParam( value = "vorName" , required = false ) String vorName,
+                                    @RequestParam( value = "vorId"   , required = false ) Long   vorId,
+                                    Model model ) {
+
+        final Pageable           pageable = PageRequest.ofSize( SEITENGROESSE + 1 );
+        final OrdnerBaumSnapshot snapshot = _snapshotService.getSnapshot();
 
-        final List<LesezeichenEntity> lesezeichenListe =
-                                _lesezeichenRepo.findAllByOrderByNameAsc();
+        final KeysetSeite<LesezeichenMitOrdner> seite;
+        if ( vorName != null && vorId != null ) {
 
-        model.addAttribute( "lesezeichenliste", lesezeichenListe );
+            final List<LesezeichenMitOrdner> lesezeichenListe =
+                    snapshot != null
+                    ? snapshot.getLesezeichenVor( vorName, vorId, SEITENGROESSE + 1 )
+                    : _lesezeichenRepo.findSeiteVor( vorName, vorId, pageable );
+
+            seite = KeysetSeite.rueckwaerts( lesezeichenListe, SEITENGROESSE );
+        } else {
+
+            final boolean mitCursor = nachName != null && nachId != null;
+
+            final List<LesezeichenMitOrdner> lesezeichenListe =
+                    snapshot != null
+                    ? snapshot.getLesezeichenNach( mitCursor ? nachName : null, nachId, SEITENGROESSE + 1 )
+                    : _lesezeichenRepo.findSeiteNach( mitCursor ? nachName : "",
+                                                      mitCursor ? nachId   : 0L,
+                                                      pageable );
+
+            seite = KeysetSeite.vorwaerts( lesezeichenListe, SEITENGROESSE, mitCursor );
+        }
+
+        model.addAttribute( "lesezeichenliste", seite.eintraege() );
+        model.addAttribute( "seite"           , seite             );
 
         return "lesezeichen-liste";
     }
 
 
+    /**
+     * Weiterleitung auf die URL eines Lesezeichens; der Aufruf wird dabei
+     * gezählt, siehe {@link AufrufZaehler}. Die URL kommt aus dem {@link SuchIndex}
+     * im Speicher; nur wenn das Lesezeichen dort (noch) fehlt, wird sie aus der
+     * Datenbank gelesen. Es wird mit HTTP-Status 302
+     * (und nicht 301) geantwortet, damit der Browser die Weiterleitung nicht
+     * speichert und jeder Aufruf hier ankommt.
+     * <br><br>
+     *
+     * Beispiel-URL: http://localhost:8080/app/go/5
+     *
+     * @param id ID des Lesezeichens
+     *
+     * @return Weiterleitung auf die URL des Lesezeichens
+     *
+     * @throws LesezeichenException Lesezeichen mit {@code id} nicht gefunden
+     */
+    @GetMapping( "/go/{id}" )
+    public RedirectView weiterleiten( @PathVariable Long id ) throws LesezeichenException {
+
+        String url = _suchIndex.getUrl( id );
+        if ( url == null ) {
+
+            final Optional<String> urlOptional = _lesezeichenRepo.findUrlById( id );
+            if ( urlOptional.isEmpty() ) {
+
+                throw new LesezeichenException( "Kein Lesezeichen mit ID " + id + " gefunden." );
+            }
+            url = urlOptional.get();
+        }
+
+        _aufrufZaehler.zaehlen( id );
+
+        final RedirectView weiterleitung = new RedirectView( url );
+        weiterleitung.setExpandUriTemplateVariables( false ); // URL kann "{" enthalten
+        weiterleitung.setPropagateQueryParams( false );
+
+        return weiterleitung;
+    }
+
+
+    /**
+     * Seite mit den meistbenutzten Lesezeichen, insgesamt oder im Teilbaum
+     * eines Ordners; siehe {@link TopLesezeichen}.
+     * <br><br>
+     *
+     * Beispiel-URLs:
+     * <ul>
+     * <li>http://localhost:8080/app/top</li>
+     * <li>http://localhost:8080/app/top?ordnerId=3</li>
+     * </ul>
+     *
+     * @param ordnerId Optionale ID des Ordners, dessen Teilbaum betrachtet wird
+     *
+     * @param model Objekt für Platzhalterwerte, die vom Template benötigt werden
+     *
+     * @return Name der Template-Datei "top.html" ohne Datei-Endung
+     *
+     * @throws LesezeichenException Ordner mit {@code ordnerId} nicht gefunden
+     */
+    @GetMapping( "/top" )
+    public String topLesezeichen( @RequestParam( value = "ordnerId", required = false ) Long ordnerId,
+                                  Model model ) throws LesezeichenException {
+
+        if ( ordnerId != null ) {
+
+            model.addAttribute( "ordner", holeOrdner( ordnerId ) ); // throws LesezeichenException
+        }
+
+        final List<TopEintrag> eintraege = _topLesezeichen.getTop( ordnerId, SEITENGROESSE );
+
+        model.addAttribute( "eintraege", eintraege );
+
+        return "top";
+    }
+
+
+    /**
+     * Methode für Volltextsuche über Name und URL aller Lesezeichen.
+     *
+     * @param anfrage Suchbegriff(e); mehrere Wörter werden UND-verknüpft
+     *
+     * @param seite Nummer der Ergebnisseite, beginnend mit 0
+     *
+     * @param model Objekt für Platzhalterwerte, die vom Template benötigt werden
+     *
+     * @return Name der Template-Datei "suche.html" ohne Datei-Endung
+     */
+    @GetMapping( "/suche" )
+    public String suche( @RequestParam( value = "q"    , required = false, defaultValue = ""  ) String anfrage,
+                         @RequestParam( value = "seite", required = false, defaultValue = "0" ) int    seite,
+                         Model model ) {
+
+        final SuchErgebnis ergebnis = _suchIndex.suche( anfrage.trim(), Math.max( seite, 0 ), SEITENGROESSE );
+
+        model.addAttribute( "ergebnis", ergebnis );
+
+        return "suche";
+    }
+
+
+    /**
+     * Methode für Abfrage über Tags, z.B. {@code java spring NOT deprecated};
+     * ohne Abfrage werden nur alle Tags mit ihrer Anzahl angezeigt.
+     *
+     * @param anfrage Abfrage, Syntax siehe {@link TagIndex}
+     *
+     * @param ordnerId Optionale ID eines Ordners, auf dessen Teilbaum die
+     *                 Abfrage beschränkt wird
+     *
+     * @param seite Nummer der Ergebnisseite, beginnend mit 0
+     *
+     * @param model Objekt für Platzhalterwerte, die vom Template benötigt werden
+     *
+     * @return Name der Template-Datei "tags.html" ohne Datei-Endung
+     *
+     * @throws LesezeichenException Ordner mit {@code ordnerId} nicht gefunden oder
+     *                              Syntaxfehler in der Abfrage
+     */
+    @GetMapping( "/tags" )
+    public String tags( @RequestParam( value = "q"       , required = false, defaultValue = ""  ) String anfrage,
+                        @RequestParam( value = "ordnerId", required = false                     ) Long   ordnerId,
+                        @RequestParam( value = "seite"   , required = false, defaultValue = "0" ) int    seite,
+                        Model model ) throws LesezeichenException {
+
+        if ( ordnerId != null ) {
+
+            model.addAttribute( "ordner", holeOrdner( ordnerId ) ); // throws LesezeichenException
+        }
+
+        final TagErgebnis ergebnis = _tagIndex.suche( anfrage.trim(), ordnerId, Math.max( seite, 0 ), SEITENGROESSE );
+
+        model.addAttribute( "ergebnis", ergebnis            );
+        model.addAttribute( "tags"    , _tagIndex.getTags() );
+
+        return "tags";
+    }
+
+
+    /**
+     * Lesezeichen nach Domain: Anzahl der Lesezeichen pro Subdomain mit Links
+     * zum Aufklappen und eine Seite mit den Lesezeichen unterhalb der Domain.
+     *
+     * @param domain Domain, z.B. "spring.io" für alle Lesezeichen unter
+     *               {@code *.spring.io}; ohne Domain werden die
+     *               Top-Level-Domains angezeigt
+     *
+     * @param seite Nummer der Seite mit Lesezeichen, beginnend mit 0
+     *
+     * @param model Objekt für Platzhalterwerte, die vom Template benötigt werden
+     *
+     * @return Name der Template-Datei "domains.html" ohne Datei-Endung
+     */
+    @GetMapping( "/domains" )
+    public String domains( @RequestParam( value = "domain", required = false, defaultValue = ""  ) String domain,
+                           @RequestParam( value = "seite" , required = false, defaultValue = "0" ) int    seite,
+                           Model model ) {
+
+        final DomainErgebnis ergebnis =
+                _domainIndex.abfrage( domain, SEITENGROESSE, Math.max( seite, 0 ), SEITENGROESSE );
+
+        model.addAttribute( "ergebnis", ergebnis );
+
+        return "domains";
+    }
+
+
+    /**
+     * Bericht über Lesezeichen mit doppelten URLs (gleiche kanonische Form).
+     *
+     * @param model Objekt für Platzhalterwerte, die vom Template benötigt werden
+     *
+     * @return Name der Template-Datei "duplikate.html" ohne Datei-Endung
+     */
+    @GetMapping( "/duplikate" )
+    public String duplikate( Model model ) {
+
+        final DuplikatBericht bericht = _lesezeichenService.duplikatBericht( SEITENGROESSE );
+
+        model.addAttribute( "bericht", bericht );
+
+        return "duplikate";
+    }
+
+
+    /**
+     * Methode zum Anzeigen des Formulars für den Import einer Lesezeichen-Datei;
+     * wenn {@code auftragId} angegeben ist, wird auch der Fortschritt dieses
+     * Imports angezeigt.
+     *
+     * @param auftragId Optionale ID eines Import-Auftrags
+     *
+     * @param model Objekt für Platzhalterwerte, die vom Template benötigt werden
+     *
+     * @return Name der Template-Datei "import.html" ohne Datei-Endung
+     *
+     * @throws LesezeichenException Kein Auftrag mit {@code auftragId} gefunden
+     */
+    @GetMapping( "/import" )
+    public String importFormular( @RequestParam( value = "auftrag", required = false ) String auftragId,
+                                  Model model ) throws LesezeichenException {
+
+        if ( auftragId != null ) {
+
+            final ImportFortschritt fortschritt = _importService.getFortschritt( auftragId );
+            model.addAttribute( "fortschritt", fortschritt );
+        }
+
+        return "import";
+    }
+
+
+    /**
+     * Methode für Upload einer Lesezeichen-Datei; der Import läuft im Hintergrund,
+     * der Browser wird auf die Seite mit dem Fortschritt weitergeleitet.
+     *
+     * @param datei Hochgeladene Datei (HTML-Export oder Chrome-JSON)
+     *
+     * @return Redirect auf Fortschrittsanzeige
+     *
+     * @throws LesezeichenException Datei leer oder konnte nicht gespeichert werden
+     */
+    @PostMapping( "/import" )
+    public String importStarten( @RequestParam( "datei" ) MultipartFile datei ) throws LesezeichenException {
+
+        final ImportFortschritt fortschritt = _importService.starten( datei );
+
+        return "redirect:/app/import?auftrag=" + fortschritt.id();
+    }
+
+
     /**
      * Controller um Seite für Anlegen eines neuen Lesezeichens in einem
      * bestimmten Ordner zurückzuliefern.
@@ -257,17 +805,25 @@ public class ThymeleafController {
      * @param ordnerId ID des Ordners, in dem das Lesezeichen angelegt werden soll,
      *                 Pflichtparameter
      *
+     * @param tags Optionale Tags, getrennt durch Komma oder Leerzeichen
+     *
+     * @param duplikatErlaubt Wenn {@code true}, dann wird das Lesezeichen auch
+     *                        angelegt, wenn es schon ein Lesezeichen mit derselben
+     *                        kanonischen URL gibt
+     *
      * @return Name der Template-Datei "ordner-details.html" ohne Datei-Endung
      *
-     * @throws LesezeichenException Wenn kein Ordner mit {@code ordnerId} gefunden oder
-     *                              ungültige Werte für {@code anzeigename} oder
-     *                             {@code url}
+     * @throws LesezeichenException Wenn kein Ordner mit {@code ordnerId} gefunden,
+     *                              ungültige Werte für {@code anzeigename},
+     *                             {@code url} oder {@code tags}, oder Duplikat
      */
     @PostMapping( "/lesezeichen/neu" )
     public String lesezeichenNeu( Model model,
     		                      @RequestParam(value = "anzeigename", required = true  ) String anzeigename,
     		                      @RequestParam(value = "url"        , required = true  ) String url,
-    		                      @RequestParam(value = "ordnerId"   , required = true  ) long   ordnerId )
+    		                      @RequestParam(value = "ordnerId"   , required = true  ) long   ordnerId,
+    		                      @RequestParam(value = "tags"       , required = false ) String tags,
+    		                      @RequestParam(value = "duplikatErlaubt", required = false, defaultValue = "false" ) boolean duplikatErlaubt )
     		          throws LesezeichenException {
 
         final OrdnerEntity ordner = holeOrdner( ordnerId ); // throws LesezeichenException
@@ -288,18 +844,31 @@ public class ThymeleafController {
     		throw new LesezeichenException( "URL für neues Lesezeichen fängt nicht mit http(s):// an." );
     	}
 
-    	LesezeichenEntity lesezeichen = new LesezeichenEntity( anzeigename, url, ordner );
-    	lesezeichen = _lesezeichenRepo.save( lesezeichen );
+    	final Set<String> tagSet = TagIndex.parsen( tags ); // throws LesezeichenException
+
+    	if ( !duplikatErlaubt ) {
+
+    		final List<LesezeichenMitOrdner> duplikate = _lesezeichenService.duplikateSuchen( url );
+    		if ( !duplikate.isEmpty() ) {
+
+    			final LesezeichenMitOrdner vorhanden = duplikate.get( 0 );
+    			throw new LesezeichenException(
+    					format( "Es gibt schon ein Lesezeichen \"%s\" mit derselben URL in Ordner \"%s\" " +
+    					        "(insgesamt %d); zum Anlegen trotzdem \"Duplikat erlauben\" ankreuzen.",
+    					        vorhanden.name(), vorhanden.ordnerName(), duplikate.size() ) );
+    		}
+    	}
+
+    	final LesezeichenEntity lesezeichen = _lesezeichenService.neuesLesezeichen( anzeigename, url, ordner, tagSet );
     	LOG.info( "Neues Lesezeichen \"{}\" mit ID={} angelegt.", anzeigename, lesezeichen.getId() );
 
-        final List<OrdnerEntity> unterordnerListe =
-                _ordnerRepo.findByVater_IdOrderByNameAsc( ordnerId );
+        final OrdnerKnoten ordnerKnoten = holeOrdnerKnoten( ordnerId );
 
         final String nachricht = "Neues Lesezeichen \"" + anzeigename + "\" angelegt.";
 
-		model.addAttribute( "ordner"          , ordner           );
-		model.addAttribute( "unterordnerliste", unterordnerListe );
-		model.addAttribute( "nachricht"       , nachricht        );
+		model.addAttribute( "ordner"          , ordnerKnoten               );
+		model.addAttribute( "unterordnerliste", ordnerKnoten.unterordner() );
+		model.addAttribute( "nachricht"       , nachricht                  );
 
     	return "ordner-details";
     }
@@ -337,8 +906,10 @@ public class ThymeleafController {
      *
      * @param ordnername Name von neuem Ordner; Pflichtparameter.
      *                   Es darf nicht schon einen anderen Ordner mit diesem Namen geben (case-insensitiver
-     *                   Vergleich), siehe auch die {@code unique}-Constraint für das Attribut {@code name}
-     *                   der Klasse {@link OrdnerEntity}.
+     *                   Vergleich). Geprüft wird zuerst mit {@link OrdnerNamenIndex}; da dieser erst nach
+     *                   dem Commit aktualisiert wird, verhindert bei gleichzeitigem Anlegen oder während
+     *                   eines Imports die {@code unique}-Constraint auf der Spalte {@code name_klein}
+     *                   der Klasse {@link OrdnerEntity} doppelte Namen.
      *
      * @param model Objekt für Platzhalterwerte, die vom Template benötigt werden
      *
@@ -361,19 +932,29 @@ public class ThymeleafController {
             throw new LesezeichenException( "Leerer Name für neuen Ordner" );
         }
 
-        final List<OrdnerEntity> ordnerListe = _ordnerRepo.findByNameIgnoreCase( ordnername );
-        if ( !ordnerListe.isEmpty() ) {
+        final String fehlertextDoppelt = "Es gibt schon einen Ordner mit dem Namen \"" + ordnername + "\".";
+        if ( _ordnerNamenIndex.enthaelt( ordnername ) ) {
 
-            throw new LesezeichenException( "Es gibt schon einen Ordner mit dem Namen \"" + ordnername + "\"." );
+            throw new LesezeichenException( fehlertextDoppelt );
         }
 
-        OrdnerEntity ordnerNeu = new OrdnerEntity( ordnername, ordner );
-        ordnerNeu = _ordnerRepo.save( ordnerNeu );
+        final OrdnerEntity ordnerNeu;
+        try {
+
+            ordnerNeu = _ordnerService.neuerOrdner( ordnername, ordner );
+        }
+        catch ( DataIntegrityViolationException ex ) { // name_klein schon vorhanden, noch nicht im Index
+
+            throw new LesezeichenException( fehlertextDoppelt );
+        }
 
         LOG.info( "Neuer Ordner \"{}\" mit ID={} angelegt.", ordnername, ordnerNeu.getId() );
 
-        model.addAttribute( "ordner"          , ordnerNeu );
-        model.addAttribute( "unterordnerliste", null      );
+        final OrdnerKnoten ordnerKnoten = holeOrdnerKnoten( ordnerNeu.getId() );
+
+        model.addAttribute( "ordner"          , ordnerKnoten                           );
+        model.addAttribute( "unterordnerliste", ordnerKnoten.unterordner()             );
+        model.addAttribute( "pfad"            , holePfadVonWurzel( ordnerNeu.getId() ) );
 
         return "ordner-details";
     }
@@ -0,0 +1,39 @@
+package de.eldecker.dhbw.spring.weblesezeichen.web;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+
+/**
+ * Konfiguration für Spring MVC: registriert {@link RenderZeitInterceptor}
+ * für die Thymeleaf-Seiten unter {@code /app/}.
+ */
+@Configuration
+public class WebKonfiguration implements WebMvcConfigurer {
+
+    /** Interceptor für Messung der Render-Zeit. */
+    private RenderZeitInterceptor _renderZeitInterceptor;
+
+
+    /**
+     * Konstruktor für <i>Dependency Injection</i>.
+     */
+    @Autowired
+    public WebKonfiguration( RenderZeitInterceptor renderZeitInterceptor ) {
+
+        _renderZeitInterceptor = renderZeitInterceptor;
+    }
+
+
+    /**
+     * Interceptor nur für Thymeleaf-Seiten registrieren.
+     */
+    @Override
+    public void addInterceptors( InterceptorRegistry registry ) {
+
+        registry.addInterceptor( _renderZeitInterceptor ).addPathPatterns( "/app/**" );
+    }
+
+}
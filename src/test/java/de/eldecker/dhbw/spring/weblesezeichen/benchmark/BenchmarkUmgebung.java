@@ -0,0 +1,188 @@
+package de.eldecker.dhbw.spring.weblesezeichen.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import de.eldecker.dhbw.spring.weblesezeichen.WebLesezeichenApplication;
+import de.eldecker.dhbw.spring.weblesezeichen.db.entities.OrdnerEntity;
+import de.eldecker.dhbw.spring.weblesezeichen.db.repos.OrdnerRepo;
+import de.eldecker.dhbw.spring.weblesezeichen.logik.AenderungsProtokoll;
+import de.eldecker.dhbw.spring.weblesezeichen.logik.ImportAuftrag;
+import de.eldecker.dhbw.spring.weblesezeichen.logik.ImportSchreiber;
+import de.eldecker.dhbw.spring.weblesezeichen.logik.OrdnerBaumSnapshotService;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+
+/**
+ * Gemeinsame Hilfsmethoden der JMH-Benchmarks: Spring-Kontext mit eigener
+ * Datenbank starten und mit einem Ordnerbaum vorgegebener Form befüllen.
+ */
+public final class BenchmarkUmgebung {
+
+    /** Keine Instanzen. */
+    private BenchmarkUmgebung() {}
+
+
+    /**
+     * Startet einen Spring-Kontext mit neuer, leerer H2-Datenbank, die beim
+     * Start wie üblich mit den Beispieldaten befüllt wird.
+     *
+     * @param datenbank {@code mem} für In-Memory-Datenbank, {@code file} für
+     *                  Datenbank-Datei unter {@code target/jmh-h2/}
+     *
+     * @param snapshot Wert für {@code lesezeichen.snapshot.aktiv}
+     *
+     * @param web {@code true}: Web-Anwendung (für MockMvc), der eingebettete
+     *            Server lauscht auf einem zufälligen Port
+     *
+     * @param weitereProperties Zusätzliche Properties, z.B.
+     *                          {@code spring.threads.virtual.enabled=true}
+     *
+     * @return Gestarteter Kontext, muss vom Aufrufer geschlossen werden
+     */
+    public static ConfigurableApplicationContext starten( String datenbank, boolean snapshot, boolean web,
+                                                          String... weitereProperties ) {
+
+        final String name = "benchmark_" + System.nanoTime();
+        final String url  = switch ( datenbank ) {
+
+            case "mem"  -> "jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1";
+            case "file" -> "jdbc:h2:file:./target/jmh-h2/" + name;
+            default     -> throw new IllegalArgumentException( "Unbekannte Datenbank: " + datenbank );
+        };
+
+        return new SpringApplicationBuilder( WebLesezeichenApplication.class )
+                    .web( web ? WebApplicationType.SERVLET : WebApplicationType.NONE )
+                    .properties( "spring.datasource.url=" + url,
+                                 "lesezeichen.snapshot.aktiv=" + snapshot,
+                                 "spring.jpa.properties.hibernate.generate_statistics=false",
+                                 "spring.thymeleaf.cache=true",
+                                 "server.port=0",
+                                 "logging.level.root=WARN" )
+                    .properties( weitereProperties )
+                    .run();
+    }
+
+
+    /**
+     * Legt unterhalb des Wurzelordners einen Teilbaum an; dafür wird der
+     * {@link ImportSchreiber} verwendet, damit auch große Bäume schnell (mit
+     * Batch-Inserts) angelegt werden. Danach wird der Snapshot neu aufgebaut.
+     *
+     * @param kontext Gestarteter Kontext
+     *
+     * @param breite Anzahl Unterordner pro Ordner
+     *
+     * @param tiefe Anzahl Ebenen unterhalb des Ordners "Benchmark"
+     *
+     * @param lesezeichenProOrdner Anzahl Lesezeichen pro Ordner
+     *
+     * @return ID des Ordners "Benchmark", der Wurzel des neuen Teilbaums ist
+     */
+    public static long baumAnlegen( ConfigurableApplicationContext kontext,
+                                    int breite, int tiefe, int lesezeichenProOrdner ) {
+
+        final OrdnerEntity wurzel = kontext.getBean( OrdnerRepo.class ).findByVaterIsNull().orElseThrow();
+
+        final EntityManager em =
+                SharedEntityManagerCreator.createSharedEntityManager( kontext.getBean( EntityManagerFactory.class ) );
+        final ImportSchreiber schreiber =
+                new ImportSchreiber( em,
+                                     kontext.getBean( PlatformTransactionManager.class ),
+                                     kontext.getBean( ApplicationEventPublisher.class ),
+                                     kontext.getBean( AenderungsProtokoll.class ),
+                                     new ImportAuftrag( "benchmark", "benchmark", 0 ) );
+
+        final long benchmarkOrdnerId = schreiber.beginnen( wurzel.getId(), "Benchmark" );
+        ebeneAnlegen( schreiber, "", 1, breite, tiefe, lesezeichenProOrdner );
+        schreiber.abschliessen();
+
+        kontext.getBean( OrdnerBaumSnapshotService.class ).neuAufbauen();
+
+        return benchmarkOrdnerId;
+    }
+
+
+    /**
+     * IDs aller Ordner, um in den Benchmarks zufällige Ordner auszuwählen.
+     *
+     * @param kontext Gestarteter Kontext
+     *
+     * @return Array mit IDs
+     */
+    public static long[] alleOrdnerIds( ConfigurableApplicationContext kontext ) {
+
+        return kontext.getBean( OrdnerRepo.class ).findAll().stream()
+                      .mapToLong( OrdnerEntity::getId )
+                      .toArray();
+    }
+
+
+    /**
+     * IDs aller Blätter (Ordner ohne Unterordner) unterhalb des Benchmark-Ordners,
+     * also der Ordner mit dem längsten Pfad zur Wurzel.
+     *
+     * @param kontext Gestarteter Kontext
+     *
+     * @return Array mit IDs
+     */
+    public static long[] tiefsteOrdnerIds( ConfigurableApplicationContext kontext ) {
+
+        final List<OrdnerEntity> alleOrdner = kontext.getBean( OrdnerRepo.class ).findAll();
+
+        int maxTiefe = 0;
+        for ( OrdnerEntity ordner : alleOrdner ) {
+
+            maxTiefe = Math.max( maxTiefe, tiefe( ordner ) );
+        }
+
+        final List<Long> idListe = new ArrayList<>();
+        for ( OrdnerEntity ordner : alleOrdner ) {
+
+            if ( tiefe( ordner ) == maxTiefe ) { idListe.add( ordner.getId() ); }
+        }
+
+        return idListe.stream().mapToLong( Long::longValue ).toArray();
+    }
+
+
+    /**
+     * Anzahl der Ebenen eines Ordners laut materialisiertem Pfad.
+     */
+    private static int tiefe( OrdnerEntity ordner ) {
+
+        return ordner.getPfad() == null ? 0 : ordner.getPfad().split( "/" ).length;
+    }
+
+
+    /**
+     * Legt rekursiv Lesezeichen und Unterordner an.
+     */
+    private static void ebeneAnlegen( ImportSchreiber schreiber, String praefix, int ebene,
+                                      int breite, int tiefe, int lesezeichenProOrdner ) {
+
+        for ( int i = 0; i < lesezeichenProOrdner; i++ ) {
+
+            schreiber.lesezeichen( "Lesezeichen " + praefix + i, "https://example.com/" + praefix + i );
+        }
+        if ( ebene > tiefe ) { return; }
+
+        for ( int i = 0; i < breite; i++ ) {
+
+            final String name = praefix + i + ".";
+            schreiber.ordnerBeginn( "Ordner " + name );
+            ebeneAnlegen( schreiber, name, ebene + 1, breite, tiefe, lesezeichenProOrdner );
+            schreiber.ordnerEnde( "Ordner " + name );
+        }
+    }
+
+}
@@ -0,0 +1,151 @@
+package de.eldecker.dhbw.spring.weblesezeichen.benchmark;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import de.eldecker.dhbw.spring.weblesezeichen.web.ThymeleafController;
+
+
+/**
+ * JMH-Benchmark für vollständige Aufrufe der Seiten von {@link ThymeleafController}
+ * über {@link MockMvc}, also inkl. Filter, <i>Open EntityManager in View</i>
+ * und Rendern der Thymeleaf-Templates (mit Template-Cache).
+ * <br><br>
+ *
+ * Aufruf: {@code mvn -Pbenchmark -DskipTests verify -Djmh.benchmarks=ControllerBenchmark}
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( { Mode.Throughput, Mode.SampleTime } )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( 1 )
+public class ControllerBenchmark {
+
+    /** {@code mem}: H2 In-Memory; {@code file}: H2 mit Datei unter {@code target/}. */
+    @Param( { "mem" } )
+    public String datenbank;
+
+    /** {@code true}: Lesen aus Snapshot; {@code false}: Lesen über JPA. */
+    @Param( { "true", "false" } )
+    public boolean snapshot;
+
+    /** Anzahl Unterordner pro Ordner. */
+    @Param( { "4" } )
+    public int breite;
+
+    /** Anzahl Ebenen unterhalb des Benchmark-Ordners. */
+    @Param( { "5" } )
+    public int tiefe;
+
+    /** Anzahl Lesezeichen pro Ordner. */
+    @Param( { "10" } )
+    public int lesezeichenProOrdner;
+
+    private ConfigurableApplicationContext _kontext;
+
+    private MockMvc _mockMvc;
+
+    /** IDs aller Ordner, für zufällige Auswahl. */
+    private long[] _ordnerIds;
+
+    /** Wurzel des Benchmark-Teilbaums. */
+    private long _benchmarkOrdnerId;
+
+
+    /**
+     * Startet Spring-Kontext, legt Testdaten an und erzeugt {@link MockMvc}.
+     */
+    @Setup( Level.Trial )
+    public void starten() {
+
+        _kontext = BenchmarkUmgebung.starten( datenbank, snapshot, true );
+        _benchmarkOrdnerId = BenchmarkUmgebung.baumAnlegen( _kontext, breite, tiefe, lesezeichenProOrdner );
+        _ordnerIds         = BenchmarkUmgebung.alleOrdnerIds( _kontext );
+
+        _mockMvc = MockMvcBuilders.webAppContextSetup( (WebApplicationContext) _kontext ).build();
+    }
+
+
+    /**
+     * Schließt Spring-Kontext.
+     */
+    @TearDown( Level.Trial )
+    public void beenden() {
+
+        _kontext.close();
+    }
+
+
+    /**
+     * GET-Request absetzen und gerenderte Seite zurückgeben.
+     */
+    private String abrufen( String pfad ) throws Exception {
+
+        return _mockMvc.perform( get( pfad ) ).andReturn().getResponse().getContentAsString();
+    }
+
+
+    /** Seite für einzelnen, zufällig ausgewählten Ordner. */
+    @Benchmark
+    public String ordnerDetails() throws Exception {
+
+        final long ordnerId = _ordnerIds[ ThreadLocalRandom.current().nextInt( _ordnerIds.length ) ];
+
+        return abrufen( "/app/ordner/" + ordnerId );
+    }
+
+
+    /** Seite für Wurzelordner. */
+    @Benchmark
+    public String wurzelOrdner() throws Exception {
+
+        return abrufen( "/app/ordner/wurzel" );
+    }
+
+
+    /** Erste Seite der Ordnerliste. */
+    @Benchmark
+    public String ordnerListe() throws Exception {
+
+        return abrufen( "/app/ordnerliste" );
+    }
+
+
+    /** Erste Seite der Lesezeichenliste. */
+    @Benchmark
+    public String lesezeichenListe() throws Exception {
+
+        return abrufen( "/app/lesezeichenliste" );
+    }
+
+
+    /** Ganzer Benchmark-Teilbaum mit allen Lesezeichen. */
+    @Benchmark
+    public String teilbaum() throws Exception {
+
+        return abrufen( "/app/ordner/" + _benchmarkOrdnerId + "/baum" );
+    }
+
+}
@@ -0,0 +1,247 @@
+package de.eldecker.dhbw.spring.weblesezeichen.benchmark;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import de.eldecker.dhbw.spring.weblesezeichen.db.entities.LesezeichenEntity;
+import de.eldecker.dhbw.spring.weblesezeichen.db.entities.OrdnerEntity;
+
+
+/**
+ * JMH-Benchmark für Operationen auf Hash-Containern mit Ordnern aus tiefen
+ * Bäumen. Verglichen werden die aktuellen {@code equals()}/{@code hashCode()}
+ * von {@link OrdnerEntity} (konstante Zeit, nur Schlüssel) mit der früheren
+ * Implementierung, die über Name, Vaterordner und alle Lesezeichen ging.
+ * Die frühere Implementierung wird mit {@link AlteIdentitaet} nachgebildet;
+ * der Rückverweis vom Lesezeichen auf den Ordner wird dabei ausgelassen, weil
+ * er bei Objekten im Speicher zu einer Endlosrekursion führen würde.
+ * <br><br>
+ *
+ * Es wird ein Baum mit {@code tiefe} Ebenen und {@code breite} Unterordnern
+ * pro Ordner sowie {@code lesezeichenProOrdner} Lesezeichen pro Ordner im
+ * Speicher (ohne Datenbank) aufgebaut.
+ * <br><br>
+ *
+ * Aufruf: {@code mvn -Pbenchmark -DskipTests verify -Djmh.benchmarks=EntityIdentitaetBenchmark}
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( 1 )
+public class EntityIdentitaetBenchmark {
+
+    /** Anzahl Ebenen des Baums. */
+    @Param( { "4", "16", "64" } )
+    public int tiefe;
+
+    /** Anzahl Unterordner pro Ordner; bei 1 ist der Baum eine Kette. */
+    @Param( { "1", "2" } )
+    public int breite;
+
+    /** Anzahl Lesezeichen pro Ordner. */
+    @Param( { "20" } )
+    public int lesezeichenProOrdner;
+
+    /** Alle Ordner des Baums. */
+    private List<OrdnerEntity> _ordnerListe;
+
+    /** Alle Ordner mit früherer Implementierung von equals/hashCode. */
+    private List<AlteIdentitaet> _alteOrdnerListe;
+
+    /** Set mit allen Ordnern für Abfragen. */
+    private Set<OrdnerEntity> _ordnerSet;
+
+    /** Set mit allen Ordnern (frühere Implementierung) für Abfragen. */
+    private Set<AlteIdentitaet> _alteOrdnerSet;
+
+
+    /**
+     * Baut den Baum auf. Bei {@code breite > 1} wächst der Baum exponentiell,
+     * deshalb wird die Anzahl der Ordner auf 5000 begrenzt.
+     */
+    @Setup( Level.Trial )
+    public void aufbauen() {
+
+        _ordnerListe = new ArrayList<>();
+
+        final OrdnerEntity wurzel = new OrdnerEntity( "Wurzel" );
+        _ordnerListe.add( wurzel );
+
+        List<OrdnerEntity> ebene = List.of( wurzel );
+        for ( int i = 1; i < tiefe && _ordnerListe.size() < 5_000; i++ ) {
+
+            final List<OrdnerEntity> naechsteEbene = new ArrayList<>();
+            for ( OrdnerEntity vater : ebene ) {
+
+                for ( int j = 0; j < breite && _ordnerListe.size() < 5_000; j++ ) {
+
+                    final OrdnerEntity ordner = new OrdnerEntity( vater.getName() + "." + j, vater );
+                    naechsteEbene.add( ordner );
+                    _ordnerListe.add( ordner );
+                }
+            }
+            ebene = naechsteEbene;
+        }
+
+        for ( OrdnerEntity ordner : _ordnerListe ) {
+
+            for ( int i = 0; i < lesezeichenProOrdner; i++ ) {
+
+                ordner.getLesezeichen().add( new LesezeichenEntity( "Lesezeichen " + i,
+                                                                    "https://example.com/" + i, ordner ) );
+            }
+        }
+
+        _alteOrdnerListe = _ordnerListe.stream().map( AlteIdentitaet::new ).toList();
+
+        _ordnerSet     = new HashSet<>( _ordnerListe     );
+        _alteOrdnerSet = new HashSet<>( _alteOrdnerListe );
+    }
+
+
+    /** Alle Ordner in ein neues {@code HashSet} einfügen (aktuelle Implementierung). */
+    @Benchmark
+    public Set<OrdnerEntity> hashSetEinfuegenNeu() {
+
+        return new HashSet<>( _ordnerListe );
+    }
+
+
+    /** Alle Ordner in ein neues {@code HashSet} einfügen (frühere Implementierung). */
+    @Benchmark
+    public Set<AlteIdentitaet> hashSetEinfuegenAlt() {
+
+        return new HashSet<>( _alteOrdnerListe );
+    }
+
+
+    /** Für alle Ordner prüfen, ob sie im Set enthalten sind (aktuelle Implementierung). */
+    @Benchmark
+    public void hashSetEnthaeltNeu( Blackhole blackhole ) {
+
+        for ( OrdnerEntity ordner : _ordnerListe ) {
+
+            blackhole.consume( _ordnerSet.contains( ordner ) );
+        }
+    }
+
+
+    /** Für alle Ordner prüfen, ob sie im Set enthalten sind (frühere Implementierung). */
+    @Benchmark
+    public void hashSetEnthaeltAlt( Blackhole blackhole ) {
+
+        for ( AlteIdentitaet ordner : _alteOrdnerListe ) {
+
+            blackhole.consume( _alteOrdnerSet.contains( ordner ) );
+        }
+    }
+
+
+    /** Map von Ordner auf Anzahl Lesezeichen aufbauen (aktuelle Implementierung). */
+    @Benchmark
+    public Map<OrdnerEntity, Integer> hashMapAufbauenNeu() {
+
+        final Map<OrdnerEntity, Integer> map = new HashMap<>();
+        for ( OrdnerEntity ordner : _ordnerListe ) {
+
+            map.put( ordner, ordner.getLesezeichen().size() );
+        }
+
+        return map;
+    }
+
+
+    /** Map von Ordner auf Anzahl Lesezeichen aufbauen (frühere Implementierung). */
+    @Benchmark
+    public Map<AlteIdentitaet, Integer> hashMapAufbauenAlt() {
+
+        final Map<AlteIdentitaet, Integer> map = new HashMap<>();
+        for ( AlteIdentitaet ordner : _alteOrdnerListe ) {
+
+            map.put( ordner, ordner.ordner().getLesezeichen().size() );
+        }
+
+        return map;
+    }
+
+
+    /**
+     * Nachbildung der früheren Implementierung von {@code equals()} und
+     * {@code hashCode()} in {@link OrdnerEntity}: Name, Vaterordner (rekursiv
+     * bis zur Wurzel) und alle Lesezeichen (mit Name und URL).
+     *
+     * @param ordner Eingepackter Ordner
+     */
+    public record AlteIdentitaet( OrdnerEntity ordner ) {
+
+        @Override
+        public int hashCode() {
+
+            return Objects.hash( ordner.getName(),
+                                 ordner.getVater() == null ? null : new AlteIdentitaet( ordner.getVater() ),
+                                 ordner.getLesezeichen().stream()
+                                       .map( l -> Objects.hash( l.getName(), l.getUrl() ) )
+                                       .toList() );
+        }
+
+        @Override
+        public boolean equals( Object obj ) {
+
+            if ( this == obj ) { return true; }
+
+            if ( obj instanceof AlteIdentitaet andere ) {
+
+                final OrdnerEntity o1 = ordner;
+                final OrdnerEntity o2 = andere.ordner;
+
+                if ( o1 == o2 ) { return true; }
+
+                return Objects.equals( o1.getName(), o2.getName() ) &&
+                       Objects.equals( o1.getVater() == null ? null : new AlteIdentitaet( o1.getVater() ),
+                                       o2.getVater() == null ? null : new AlteIdentitaet( o2.getVater() ) ) &&
+                       lesezeichenGleich( o1.getLesezeichen(), o2.getLesezeichen() );
+            }
+
+            return false;
+        }
+
+        private static boolean lesezeichenGleich( List<LesezeichenEntity> liste1, List<LesezeichenEntity> liste2 ) {
+
+            if ( liste1.size() != liste2.size() ) { return false; }
+
+            for ( int i = 0; i < liste1.size(); i++ ) {
+
+                if ( !Objects.equals( liste1.get( i ).getName(), liste2.get( i ).getName() ) ||
+                     !Objects.equals( liste1.get( i ).getUrl() , liste2.get( i ).getUrl()  ) ) {
+
+                    return false;
+                }
+            }
+
+            return true;
+        }
+    }
+
+}
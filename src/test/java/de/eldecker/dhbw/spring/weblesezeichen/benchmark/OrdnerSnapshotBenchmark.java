@@ -0,0 +1,204 @@
+package de.eldecker.dhbw.spring.weblesezeichen.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.ui.ExtendedModelMap;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import de.eldecker.dhbw.spring.weblesezeichen.db.entities.LesezeichenEntity;
+import de.eldecker.dhbw.spring.weblesezeichen.db.repos.LesezeichenRepo;
+import de.eldecker.dhbw.spring.weblesezeichen.web.ThymeleafController;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+
+/**
+ * JMH-Benchmark, der die lesenden Methoden von {@link ThymeleafController}
+ * einmal mit dem Snapshot des Ordnerbaums im Speicher ({@code snapshot=true})
+ * und einmal über JPA aus der Datenbank ({@code snapshot=false}) misst.
+ * Gemessen werden Durchsatz und Verteilung der Antwortzeiten.
+ * <br><br>
+ *
+ * Pro Lauf wird ein Spring-Kontext mit eigener In-Memory-Datenbank gestartet
+ * und mit einem Baum mit {@code breite} Unterordnern pro Ordner,
+ * {@code tiefe} Ebenen und {@code lesezeichenProOrdner} Lesezeichen
+ * pro Ordner befüllt.
+ * <br><br>
+ *
+ * Aufruf: {@code mvn -Pbenchmark -DskipTests verify -Djmh.benchmarks=OrdnerSnapshotBenchmark}
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( { Mode.Throughput, Mode.SampleTime } )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( 1 )
+public class OrdnerSnapshotBenchmark {
+
+    /** {@code true}: Lesen aus Snapshot; {@code false}: Lesen über JPA. */
+    @Param( { "true", "false" } )
+    public boolean snapshot;
+
+    /** Anzahl Unterordner pro Ordner. */
+    @Param( { "6" } )
+    public int breite;
+
+    /** Anzahl Ebenen unterhalb des Import-Ordners. */
+    @Param( { "4" } )
+    public int tiefe;
+
+    /** Anzahl Lesezeichen pro Ordner. */
+    @Param( { "10" } )
+    public int lesezeichenProOrdner;
+
+    private ConfigurableApplicationContext _kontext;
+
+    private EntityManagerFactory _emf;
+
+    private ThymeleafController _controller;
+
+    /** IDs aller Ordner, für zufällige Auswahl. */
+    private long[] _ordnerIds;
+
+    /** Cursor (Name und ID) verteilt über die ganze Lesezeichenliste. */
+    private List<LesezeichenEntity> _lesezeichenCursor;
+
+
+    /**
+     * Startet Spring-Kontext und legt Testdaten an.
+     */
+    @Setup( Level.Trial )
+    public void starten() {
+
+        _kontext = BenchmarkUmgebung.starten( "mem", snapshot, false );
+
+        _emf        = _kontext.getBean( EntityManagerFactory.class );
+        _controller = _kontext.getBean( ThymeleafController.class );
+
+        BenchmarkUmgebung.baumAnlegen( _kontext, breite, tiefe, lesezeichenProOrdner );
+
+        _ordnerIds = BenchmarkUmgebung.alleOrdnerIds( _kontext );
+
+        final List<LesezeichenEntity> alleLesezeichen = _kontext.getBean( LesezeichenRepo.class ).findAllByOrderByNameAsc();
+        _lesezeichenCursor = new ArrayList<>();
+        for ( int i = 0; i < alleLesezeichen.size(); i += 97 ) {
+
+            _lesezeichenCursor.add( alleLesezeichen.get( i ) );
+        }
+    }
+
+
+    /**
+     * Schließt Spring-Kontext.
+     */
+    @TearDown( Level.Trial )
+    public void beenden() {
+
+        _kontext.close();
+    }
+
+
+    /**
+     * Führt {@code aufruf} wie bei einem HTTP-Request mit
+     * <i>Open EntityManager in View</i> aus, damit Lazy Loading im JPA-Fall
+     * funktioniert.
+     */
+    private <T> T wieRequest( Callable<T> aufruf ) throws Exception {
+
+        final EntityManager em = _emf.createEntityManager();
+        TransactionSynchronizationManager.bindResource( _emf, new EntityManagerHolder( em ) );
+        try {
+
+            return aufruf.call();
+
+        } finally {
+
+            TransactionSynchronizationManager.unbindResource( _emf );
+            em.close();
+        }
+    }
+
+
+    /**
+     * Request ohne {@code If-None-Match}, damit die Seite immer komplett
+     * aufgebaut wird.
+     */
+    private static ServletWebRequest neuerRequest() {
+
+        return new ServletWebRequest( new MockHttpServletRequest( "GET", "/app/ordner" ), new MockHttpServletResponse() );
+    }
+
+
+    /** Einzelner Ordner (zufällig ausgewählt) mit Unterordnern, Lesezeichen und Pfad. */
+    @Benchmark
+    public void zeigeOrdner( Blackhole blackhole ) throws Exception {
+
+        final long             ordnerId = _ordnerIds[ ThreadLocalRandom.current().nextInt( _ordnerIds.length ) ];
+        final ExtendedModelMap model    = new ExtendedModelMap();
+
+        blackhole.consume( wieRequest( () -> _controller.zeigeOrdner( ordnerId, model, neuerRequest() ) ) );
+        blackhole.consume( model );
+    }
+
+
+    /** Wurzelordner. */
+    @Benchmark
+    public void zeigeWurzelOrdner( Blackhole blackhole ) throws Exception {
+
+        final ExtendedModelMap model = new ExtendedModelMap();
+
+        blackhole.consume( wieRequest( () -> _controller.zeigeWurzelOrdner( model, neuerRequest() ) ) );
+        blackhole.consume( model );
+    }
+
+
+    /** Erste Seite der flachen Ordnerliste. */
+    @Benchmark
+    public void ordnerListe( Blackhole blackhole ) throws Exception {
+
+        final ExtendedModelMap model = new ExtendedModelMap();
+
+        blackhole.consume( wieRequest( () -> _controller.ordnerListe( null, null, null, null, model ) ) );
+        blackhole.consume( model );
+    }
+
+
+    /** Seite der Lesezeichenliste nach einem zufällig ausgewählten Cursor. */
+    @Benchmark
+    public void lesezeichenListe( Blackhole blackhole ) throws Exception {
+
+        final LesezeichenEntity cursor =
+                _lesezeichenCursor.get( ThreadLocalRandom.current().nextInt( _lesezeichenCursor.size() ) );
+        final ExtendedModelMap model = new ExtendedModelMap();
+
+        blackhole.consume( wieRequest( () -> _controller.lesezeichenListe( cursor.getName(), cursor.getId(),
+                                                                           null, null, model ) ) );
+        blackhole.consume( model );
+    }
+
+}
@@ -0,0 +1,143 @@
+package de.eldecker.dhbw.spring.weblesezeichen.benchmark;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.context.ConfigurableApplicationContext;
+
+import de.eldecker.dhbw.spring.weblesezeichen.db.entities.LesezeichenEntity;
+import de.eldecker.dhbw.spring.weblesezeichen.db.entities.OrdnerEntity;
+import de.eldecker.dhbw.spring.weblesezeichen.db.repos.LesezeichenRepo;
+import de.eldecker.dhbw.spring.weblesezeichen.db.repos.OrdnerRepo;
+import de.eldecker.dhbw.spring.weblesezeichen.logik.OrdnerService;
+
+
+/**
+ * JMH-Benchmark für Repo- und Service-Methoden, die von den Seiten der
+ * Anwendung verwendet werden, mit verschiedenen Baumformen und mit
+ * In-Memory-Datenbank oder Datenbank-Datei.
+ * <br><br>
+ *
+ * Aufruf: {@code mvn -Pbenchmark -DskipTests verify -Djmh.benchmarks=RepoBenchmark}
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( 1 )
+public class RepoBenchmark {
+
+    /** {@code mem}: H2 In-Memory; {@code file}: H2 mit Datei unter {@code target/}. */
+    @Param( { "mem", "file" } )
+    public String datenbank;
+
+    /** Anzahl Unterordner pro Ordner. */
+    @Param( { "4" } )
+    public int breite;
+
+    /** Anzahl Ebenen unterhalb des Benchmark-Ordners. */
+    @Param( { "5" } )
+    public int tiefe;
+
+    /** Anzahl Lesezeichen pro Ordner. */
+    @Param( { "10" } )
+    public int lesezeichenProOrdner;
+
+    private ConfigurableApplicationContext _kontext;
+
+    private OrdnerRepo _ordnerRepo;
+
+    private LesezeichenRepo _lesezeichenRepo;
+
+    private OrdnerService _ordnerService;
+
+    /** IDs aller Ordner, für zufällige Auswahl. */
+    private long[] _ordnerIds;
+
+    /** Ordner auf unterster Ebene, für Pfad zur Wurzel. */
+    private List<OrdnerEntity> _tiefsteOrdner;
+
+
+    /**
+     * Startet Spring-Kontext und legt Testdaten an.
+     */
+    @Setup( Level.Trial )
+    public void starten() {
+
+        _kontext = BenchmarkUmgebung.starten( datenbank, false, false );
+        BenchmarkUmgebung.baumAnlegen( _kontext, breite, tiefe, lesezeichenProOrdner );
+
+        _ordnerRepo      = _kontext.getBean( OrdnerRepo.class      );
+        _lesezeichenRepo = _kontext.getBean( LesezeichenRepo.class );
+        _ordnerService   = _kontext.getBean( OrdnerService.class   );
+
+        _ordnerIds = BenchmarkUmgebung.alleOrdnerIds( _kontext );
+
+        final long[] tiefsteIds = BenchmarkUmgebung.tiefsteOrdnerIds( _kontext );
+        _tiefsteOrdner = _ordnerRepo.findAllById( Arrays.stream( tiefsteIds ).boxed().toList() );
+    }
+
+
+    /**
+     * Schließt Spring-Kontext.
+     */
+    @TearDown( Level.Trial )
+    public void beenden() {
+
+        _kontext.close();
+    }
+
+
+    /** Pfad von einem zufälligen Ordner auf der untersten Ebene bis zur Wurzel. */
+    @Benchmark
+    public List<OrdnerEntity> getPfadZurWurzel() {
+
+        final OrdnerEntity ordner = _tiefsteOrdner.get( ThreadLocalRandom.current().nextInt( _tiefsteOrdner.size() ) );
+
+        return _ordnerService.getPfadZurWurzel( ordner );
+    }
+
+
+    /** Unterordner eines zufälligen Ordners. */
+    @Benchmark
+    public List<OrdnerEntity> findByVater_IdOrderByNameAsc() {
+
+        final long ordnerId = _ordnerIds[ ThreadLocalRandom.current().nextInt( _ordnerIds.length ) ];
+
+        return _ordnerRepo.findByVater_IdOrderByNameAsc( ordnerId );
+    }
+
+
+    /** Alle Ordner sortiert nach Name. */
+    @Benchmark
+    public List<OrdnerEntity> findAllByOrderByNameIgnoreCase() {
+
+        return _ordnerRepo.findAllByOrderByNameIgnoreCase();
+    }
+
+
+    /** Alle Lesezeichen sortiert nach Name. */
+    @Benchmark
+    public List<LesezeichenEntity> findAllByOrderByNameAsc() {
+
+        return _lesezeichenRepo.findAllByOrderByNameAsc();
+    }
+
+}
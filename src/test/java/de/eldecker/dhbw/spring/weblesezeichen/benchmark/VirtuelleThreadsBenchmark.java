@@ -0,0 +1,154 @@
+package de.eldecker.dhbw.spring.weblesezeichen.benchmark;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.context.ConfigurableApplicationContext;
+
+
+/**
+ * Lasttest als JMH-Benchmark: Vergleicht die Request-Verarbeitung mit
+ * virtuellen Threads ({@code virtuell=true}) und mit Plattform-Threads von
+ * Tomcat ({@code virtuell=false}, höchstens {@code tomcatThreads} Threads).
+ * <br><br>
+ *
+ * Eine Operation ist ein "Burst" von {@code gleichzeitig} gleichzeitigen
+ * HTTP-Requests auf zufällig ausgewählte Ordnerseiten über einen echten
+ * Socket; gemessen wird die Zeit, bis alle beantwortet sind. Der Snapshot ist
+ * abgeschaltet und die Datenbank liegt in einer Datei, damit jeder Request
+ * auf die Datenbank wartet. Der Connection-Pool ist in beiden Fällen gleich
+ * groß, damit nur der Unterschied der Threads gemessen wird.
+ * <br><br>
+ *
+ * Aufruf: {@code mvn -Pbenchmark -DskipTests verify -Djmh.benchmarks=VirtuelleThreadsBenchmark}
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@Warmup( iterations = 3, time = 5 )
+@Measurement( iterations = 5, time = 5 )
+@Fork( 1 )
+public class VirtuelleThreadsBenchmark {
+
+    /** {@code true}: virtuelle Threads; {@code false}: Plattform-Threads. */
+    @Param( { "true", "false" } )
+    public boolean virtuell;
+
+    /** Anzahl gleichzeitiger Requests pro Burst. */
+    @Param( { "50", "500" } )
+    public int gleichzeitig;
+
+    /** Maximale Anzahl Plattform-Threads von Tomcat. */
+    @Param( { "50" } )
+    public int tomcatThreads;
+
+    private ConfigurableApplicationContext _kontext;
+
+    private HttpClient _httpClient;
+
+    /** Virtuelle Threads für die Clients, damit der Client nicht begrenzt. */
+    private ExecutorService _clientExecutor;
+
+    /** URLs aller Ordnerseiten. */
+    private List<URI> _uriListe;
+
+
+    /**
+     * Startet Anwendung mit Web-Server und legt Testdaten an.
+     */
+    @Setup( Level.Trial )
+    public void starten() {
+
+        _kontext = BenchmarkUmgebung.starten( "file", false, true,
+                                              "spring.threads.virtual.enabled=" + virtuell,
+                                              "server.tomcat.threads.max=" + tomcatThreads,
+                                              "server.tomcat.accept-count=" + 10 * gleichzeitig,
+                                              "spring.datasource.hikari.maximum-pool-size=10",
+                                              "spring.datasource.hikari.connection-timeout=60000",
+                                              "lesezeichen.sql-statistik.aktiv=false" );
+
+        BenchmarkUmgebung.baumAnlegen( _kontext, 5, 3, 10 );
+
+        final int port = _kontext.getEnvironment().getRequiredProperty( "local.server.port", Integer.class );
+
+        _uriListe = new ArrayList<>();
+        for ( long ordnerId : BenchmarkUmgebung.alleOrdnerIds( _kontext ) ) {
+
+            _uriListe.add( URI.create( "http://localhost:" + port + "/app/ordner/" + ordnerId ) );
+        }
+
+        _clientExecutor = Executors.newVirtualThreadPerTaskExecutor();
+        _httpClient     = HttpClient.newBuilder()
+                                    .version( HttpClient.Version.HTTP_1_1 )
+                                    .executor( _clientExecutor )
+                                    .build();
+    }
+
+
+    /**
+     * Beendet Client und Anwendung.
+     */
+    @TearDown( Level.Trial )
+    public void beenden() {
+
+        _httpClient.close();
+        _clientExecutor.shutdownNow();
+        _kontext.close();
+    }
+
+
+    /**
+     * Ein Burst mit {@code gleichzeitig} Requests; schlägt fehl, wenn ein
+     * Request nicht mit HTTP-Status 200 beantwortet wurde.
+     *
+     * @return Summe der Längen aller Antworten
+     */
+    @Benchmark
+    public long burst() throws Exception {
+
+        final List<Future<HttpResponse<byte[]>>> futureListe = new ArrayList<>( gleichzeitig );
+        for ( int i = 0; i < gleichzeitig; i++ ) {
+
+            final URI uri = _uriListe.get( ThreadLocalRandom.current().nextInt( _uriListe.size() ) );
+            futureListe.add( _httpClient.sendAsync( HttpRequest.newBuilder( uri ).GET().build(),
+                                                    HttpResponse.BodyHandlers.ofByteArray() ) );
+        }
+
+        long laenge = 0;
+        for ( Future<HttpResponse<byte[]>> future : futureListe ) {
+
+            final HttpResponse<byte[]> response = future.get();
+            if ( response.statusCode() != 200 ) {
+
+                throw new IllegalStateException( "HTTP-Status " + response.statusCode() + " für " + response.uri() );
+            }
+            laenge += response.body().length;
+        }
+
+        return laenge;
+    }
+
+}
@@ -0,0 +1,104 @@
+package de.eldecker.dhbw.spring.weblesezeichen.db.entities;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import de.eldecker.dhbw.spring.weblesezeichen.db.repos.OrdnerRepo;
+import de.eldecker.dhbw.spring.weblesezeichen.logik.OrdnerService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+
+/**
+ * Tests für {@link OrdnerEntity#equals(Object)} und {@link OrdnerEntity#hashCode()}:
+ * stabil über das Speichern hinweg und konsistent zwischen geladenem Objekt
+ * und Hibernate-Proxy.
+ */
+@SpringBootTest
+@ActiveProfiles( "test" )
+class EntityIdentitaetTest {
+
+    @Autowired
+    private EntityManagerFactory _emf;
+
+    @Autowired
+    private OrdnerRepo _ordnerRepo;
+
+    @Autowired
+    private OrdnerService _ordnerService;
+
+
+    /**
+     * Ein neues Objekt bleibt nach dem Speichern in einem {@code HashSet}
+     * auffindbar und ist gleich zu dem später geladenen Objekt.
+     */
+    @Test
+    void stabilUeberSpeichern() {
+
+        final OrdnerEntity wurzel = _ordnerRepo.findByVaterIsNull().orElseThrow();
+        final OrdnerEntity neu    = new OrdnerEntity( "Identität stabil", wurzel );
+
+        final Set<OrdnerEntity> menge = new HashSet<>();
+        menge.add( neu );
+        final int hashVorher = neu.hashCode();
+
+        final OrdnerEntity gespeichert = _ordnerRepo.save( neu );
+
+        assertEquals( hashVorher, neu.hashCode() );
+        assertTrue( menge.contains( neu ) );
+        assertTrue( menge.contains( gespeichert ) );
+
+        final OrdnerEntity geladen = _ordnerRepo.findById( gespeichert.getId() ).orElseThrow();
+        assertEquals( gespeichert, geladen );
+        assertEquals( hashVorher, geladen.hashCode() );
+    }
+
+
+    /**
+     * Ein Proxy aus {@code getReference()} ist gleich zum geladenen Objekt
+     * (in beide Richtungen) und hat denselben Hashcode. Er wird dafür
+     * initialisiert, wegen des Second-Level-Caches aber ohne SQL-Statement.
+     */
+    @Test
+    void proxyGleichZuGeladenemObjekt() {
+
+        final OrdnerEntity wurzel = _ordnerRepo.findByVaterIsNull().orElseThrow();
+        final long         id     = _ordnerService.neuerOrdner( "Identität Proxy", wurzel ).getId();
+
+        final OrdnerEntity geladen;
+        try ( EntityManager em = _emf.createEntityManager() ) {
+
+            geladen = em.find( OrdnerEntity.class, id ); // füllt Second-Level-Cache
+        }
+
+        final Statistics statistik = _emf.unwrap( SessionFactory.class ).getStatistics();
+        try ( EntityManager em = _emf.createEntityManager() ) {
+
+            final OrdnerEntity proxy = em.getReference( OrdnerEntity.class, id );
+            assertFalse( Hibernate.isInitialized( proxy ) );
+
+            statistik.clear();
+
+            assertEquals( geladen.hashCode(), proxy.hashCode() );
+            assertTrue( geladen.equals( proxy ) );
+            assertTrue( proxy.equals( geladen ) );
+            assertEquals( 0, statistik.getPrepareStatementCount(), "SQL für Proxy-Initialisierung" );
+
+            assertNotEquals( wurzel, proxy );
+        }
+    }
+
+}
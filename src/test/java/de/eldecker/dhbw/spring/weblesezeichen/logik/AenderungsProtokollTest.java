@@ -0,0 +1,124 @@
+package de.eldecker.dhbw.spring.weblesezeichen.logik;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import de.eldecker.dhbw.spring.weblesezeichen.db.entities.OrdnerEntity;
+import de.eldecker.dhbw.spring.weblesezeichen.db.repos.OrdnerRepo;
+import de.eldecker.dhbw.spring.weblesezeichen.model.Aenderung;
+import de.eldecker.dhbw.spring.weblesezeichen.model.AenderungsSeite;
+
+
+/**
+ * Tests für {@link AenderungsProtokoll}: Blättern mit dem Token aus Revision
+ * und ID sowie Kompaktierung. Im Profil "test" ist der Abstand 0, bei der
+ * Kompaktierung wird also das ganze Protokoll betrachtet.
+ */
+@SpringBootTest
+@ActiveProfiles( "test" )
+class AenderungsProtokollTest {
+
+    @Autowired
+    private AenderungsProtokoll _cut;
+
+    @Autowired
+    private OrdnerService _ordnerService;
+
+    @Autowired
+    private OrdnerRepo _ordnerRepo;
+
+    @Autowired
+    private TransactionTemplate _transactionTemplate;
+
+
+    /**
+     * Holt alle Änderungen nach {@code token} seitenweise.
+     */
+    private List<Aenderung> alleNach( String token, int seitengroesse ) throws LesezeichenException {
+
+        final List<Aenderung> ergebnis = new ArrayList<>();
+
+        AenderungsSeite seite;
+        do {
+
+            seite = _cut.getAenderungen( token, seitengroesse );
+            assertTrue( seite.aenderungen().size() <= seitengroesse );
+
+            ergebnis.addAll( seite.aenderungen() );
+            token = seite.token();
+        }
+        while ( seite.weitere() );
+
+        return ergebnis;
+    }
+
+
+    /**
+     * Die Seitengrenzen liegen auch innerhalb einer Revision (zwei Ordner in
+     * einer Transaktion); jede Änderung wird genau einmal und in der
+     * Reihenfolge des Anlegens geliefert.
+     */
+    @Test
+    void blaetternMitTokenOhneLueckenUndDoppelte() throws LesezeichenException {
+
+        final String       tokenVorher = _cut.getAenderungen( null, 10 ).token();
+        final OrdnerEntity wurzel      = _ordnerRepo.findByVaterIsNull().orElseThrow();
+
+        final List<Long> erwartet = new ArrayList<>();
+        erwartet.add( _ordnerService.neuerOrdner( "Protokoll A", wurzel ).getId() );
+        _transactionTemplate.executeWithoutResult( status -> {
+
+            erwartet.add( _ordnerService.neuerOrdner( "Protokoll B", wurzel ).getId() );
+            erwartet.add( _ordnerService.neuerOrdner( "Protokoll C", wurzel ).getId() );
+        });
+        erwartet.add( _ordnerService.neuerOrdner( "Protokoll D", wurzel ).getId() );
+
+        final List<Aenderung> aenderungen = alleNach( tokenVorher, 1 );
+
+        assertEquals( erwartet, aenderungen.stream().map( Aenderung::id ).toList() );
+        assertEquals( aenderungen.get( 1 ).rev(), aenderungen.get( 2 ).rev(), "Nicht in einer Revision" );
+        assertTrue( aenderungen.get( 0 ).rev() < aenderungen.get( 1 ).rev() );
+    }
+
+
+    /**
+     * Nach der Kompaktierung ist für einen zweimal umbenannten Ordner nur
+     * noch der neueste Eintrag (mit dem letzten Namen) vorhanden.
+     */
+    @Test
+    void kompaktierenBehaeltNeuestenEintrag() throws LesezeichenException {
+
+        final String       tokenVorher = _cut.getAenderungen( null, 10 ).token();
+        final OrdnerEntity wurzel      = _ordnerRepo.findByVaterIsNull().orElseThrow();
+        final long         ordnerId    = _ordnerService.neuerOrdner( "Kompakt 1", wurzel ).getId();
+
+        for ( String name : new String[] { "Kompakt 2", "Kompakt 3" } ) {
+
+            _transactionTemplate.executeWithoutResult( status -> {
+
+                final OrdnerEntity ordner = _ordnerRepo.findById( ordnerId ).orElseThrow();
+                ordner.setName( name );
+                _cut.ordnerGeaendert( ordner );
+            });
+        }
+        assertEquals( 3, alleNach( tokenVorher, 100 ).size() );
+
+        _cut.kompaktieren();
+
+        final List<Aenderung> aenderungen = alleNach( tokenVorher, 100 );
+        assertEquals( 1, aenderungen.size() );
+        assertEquals( ordnerId   , aenderungen.get( 0 ).id()     );
+        assertEquals( "GEAENDERT", aenderungen.get( 0 ).aktion() );
+        assertEquals( "Kompakt 3", aenderungen.get( 0 ).name()   );
+    }
+
+}
@@ -0,0 +1,102 @@
+package de.eldecker.dhbw.spring.weblesezeichen.logik;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import de.eldecker.dhbw.spring.weblesezeichen.db.entities.LesezeichenEntity;
+import de.eldecker.dhbw.spring.weblesezeichen.db.repos.LesezeichenRepo;
+
+
+/**
+ * Tests für {@link AufrufZaehler}: Aufrufe, die während des Schreibens
+ * gezählt werden, dürfen nicht verloren gehen.
+ */
+@SpringBootTest
+@ActiveProfiles( "test" )
+class AufrufZaehlerTest {
+
+    /** Anzahl Threads, die gleichzeitig zählen. */
+    private static final int ANZAHL_THREADS = 4;
+
+    /** Anzahl Aufrufe pro Thread. */
+    private static final int AUFRUFE_PRO_THREAD = 20_000;
+
+    @Autowired
+    private AufrufZaehler _cut;
+
+    @Autowired
+    private LesezeichenRepo _lesezeichenRepo;
+
+    @Autowired
+    private JdbcTemplate _jdbcTemplate;
+
+
+    /**
+     * Summe der Aufrufe aller Lesezeichen in der Datenbank.
+     */
+    private long summeInDatenbank() {
+
+        return _jdbcTemplate.queryForObject( "SELECT COALESCE( SUM( anzahl ), 0 ) FROM Aufruf", Long.class );
+    }
+
+
+    /**
+     * Mehrere Threads zählen, während immer wieder geschrieben wird; am Ende
+     * steht jeder Aufruf genau einmal in der Datenbank.
+     */
+    @Test
+    void keineAufrufeVerlorenBeimSchreiben() throws Exception {
+
+        final List<Long> idListe = _lesezeichenRepo.findAll().stream().limit( 3 ).map( LesezeichenEntity::getId ).toList();
+
+        _cut.schreiben();
+        final long summeVorher = summeInDatenbank();
+
+        final ExecutorService executor = Executors.newFixedThreadPool( ANZAHL_THREADS );
+        try {
+
+            final Future<?>[] futures = new Future<?>[ ANZAHL_THREADS ];
+            for ( int t = 0; t < ANZAHL_THREADS; t++ ) {
+
+                futures[ t ] = executor.submit( () -> {
+
+                    for ( int i = 0; i < AUFRUFE_PRO_THREAD; i++ ) {
+
+                        _cut.zaehlen( idListe.get( i % idListe.size() ) );
+                    }
+                });
+            }
+
+            boolean fertig = false;
+            while ( !fertig ) {
+
+                _cut.schreiben();
+
+                fertig = true;
+                for ( Future<?> future : futures ) { fertig &= future.isDone(); }
+            }
+            for ( Future<?> future : futures ) { future.get(); }
+
+        } finally {
+
+            executor.shutdown();
+        }
+
+        // zweimal, damit auch späte Erhöhungen in der ausgetauschten Map geschrieben werden
+        _cut.schreiben();
+        _cut.schreiben();
+
+        assertEquals( (long) ANZAHL_THREADS * AUFRUFE_PRO_THREAD, summeInDatenbank() - summeVorher );
+    }
+
+}
@@ -0,0 +1,103 @@
+package de.eldecker.dhbw.spring.weblesezeichen.logik;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import tools.jackson.databind.ObjectMapper;
+
+
+/**
+ * Unit-Tests für {@link ChromeJsonParser} mit Dateien wie von Chrome
+ * geschrieben (Attribute alphabetisch sortiert).
+ */
+class ChromeJsonParserTest {
+
+    private final ChromeJsonParser _cut = new ChromeJsonParser( new ObjectMapper() );
+
+
+    private List<String> lesen( String json ) throws Exception {
+
+        final ProtokollEmpfaenger empfaenger = new ProtokollEmpfaenger();
+        _cut.parse( new ByteArrayInputStream( json.getBytes( UTF_8 ) ), empfaenger );
+
+        return empfaenger._protokoll;
+    }
+
+
+    /**
+     * Verschachtelte Ordner, bei denen der Name erst nach {@code children}
+     * kommt: der Name wird mit {@code ordnerEnde} nachgeliefert. Einträge mit
+     * anderem Typ und {@code meta_info} werden übersprungen.
+     */
+    @Test
+    void verschachtelteOrdnerNameNachChildren() throws Exception {
+
+        final String json = """
+                { "checksum": "abc",
+                  "roots": {
+                    "bookmark_bar": {
+                      "children": [
+                        { "date_added": "1", "id": "2", "name": "heise", "type": "url", "url": "https://www.heise.de/" },
+                        { "children": [
+                            { "id": "4", "meta_info": { "url": "https://falsch.example/" }, "name": "Spiegel",
+                              "type": "url", "url": "https://www.spiegel.de/" },
+                            { "children": [], "id": "5", "name": "Leer", "type": "folder" } ],
+                          "id": "3", "name": "Nachrichten", "type": "folder" },
+                        { "id": "6", "name": "Trenner", "type": "separator", "url": "https://trenner.example/" } ],
+                      "id": "1", "name": "Lesezeichenleiste", "type": "folder" },
+                    "other": { "children": [], "id": "7", "name": "Weitere", "type": "folder" } },
+                  "version": 1 }
+                """;
+
+        assertEquals( List.of( "ordnerBeginn null",
+                               "lesezeichen heise https://www.heise.de/",
+                               "ordnerBeginn null",
+                               "lesezeichen Spiegel https://www.spiegel.de/",
+                               "ordnerBeginn null",
+                               "ordnerEnde Leer",
+                               "ordnerEnde Nachrichten",
+                               "ordnerEnde Lesezeichenleiste",
+                               "ordnerBeginn null",
+                               "ordnerEnde Weitere" ),
+                      lesen( json ) );
+    }
+
+
+    /**
+     * Steht der Name vor {@code children} (wie beim eigenen Export), dann
+     * wird er schon mit {@code ordnerBeginn} gemeldet.
+     */
+    @Test
+    void nameVorChildren() throws Exception {
+
+        assertEquals( List.of( "ordnerBeginn Musik", "lesezeichen Noten https://noten.example/", "ordnerEnde null" ),
+                      lesen( "{\"roots\":{\"bookmark_bar\":{\"name\":\"Musik\",\"children\":[" +
+                             "{\"name\":\"Noten\",\"url\":\"https://noten.example/\"}]}}}" ) );
+    }
+
+
+    /**
+     * Abgeschnittene Datei und Datei ohne Objekt auf oberster Ebene führen
+     * zu einem Fehler.
+     */
+    @Test
+    void unvollstaendigeDatei() {
+
+        final String json = "{ \"roots\": { \"bookmark_bar\": { \"children\": [ " +
+                            "{ \"name\": \"heise\", \"type\": \"url\", \"url\": \"https://www.heise.de/\" }";
+
+        for ( int laenge : new int[] { json.length(), json.length() / 2, 1 } ) {
+
+            assertThrows( LesezeichenException.class, () -> lesen( json.substring( 0, laenge ) ),
+                          "Länge " + laenge );
+        }
+        assertThrows( LesezeichenException.class, () -> lesen( "[ 1, 2 ]" ) );
+    }
+
+}
@@ -0,0 +1,53 @@
+package de.eldecker.dhbw.spring.weblesezeichen.logik;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import de.eldecker.dhbw.spring.weblesezeichen.db.entities.OrdnerEntity;
+import de.eldecker.dhbw.spring.weblesezeichen.db.repos.OrdnerRepo;
+
+
+/**
+ * Tests für {@link DomainIndex}: neue Lesezeichen werden unter ihrer Domain
+ * und allen übergeordneten Domains gezählt.
+ */
+@SpringBootTest
+@ActiveProfiles( "test" )
+class DomainIndexTest {
+
+    @Autowired
+    private DomainIndex _cut;
+
+    @Autowired
+    private LesezeichenService _lesezeichenService;
+
+    @Autowired
+    private OrdnerRepo _ordnerRepo;
+
+
+    /**
+     * Abfrage mit Platzhalter für Subdomains, nach genauer Domain und
+     * Anzahl pro Subdomain.
+     */
+    @Test
+    void subdomainsWerdenGezaehlt() {
+
+        final OrdnerEntity wurzel = _ordnerRepo.findByVaterIsNull().orElseThrow();
+
+        _lesezeichenService.neuesLesezeichen( "Domain 1", "https://www.trie-test.example/a", wurzel );
+        _lesezeichenService.neuesLesezeichen( "Domain 2", "https://docs.trie-test.example/b", wurzel );
+
+        assertEquals( 2, _cut.abfrage( "*.trie-test.example", 10, 0, 10 ).lesezeichen().size() );
+        assertEquals( 1, _cut.abfrage( "docs.trie-test.example", 10, 0, 10 ).anzahl() );
+        assertTrue( _cut.abfrage( "example", 10, 0, 10 ).unterdomains().stream()
+                        .anyMatch( unterdomain -> unterdomain.domain().equals( "trie-test.example" ) &&
+                                                  unterdomain.anzahl() == 2 ),
+                    "Subdomain fehlt" );
+    }
+
+}
@@ -0,0 +1,51 @@
+package de.eldecker.dhbw.spring.weblesezeichen.logik;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import de.eldecker.dhbw.spring.weblesezeichen.db.entities.OrdnerEntity;
+import de.eldecker.dhbw.spring.weblesezeichen.db.repos.OrdnerRepo;
+
+
+/**
+ * Tests für die Suche nach Duplikaten in {@link LesezeichenService} über die
+ * kanonische URL (siehe {@link UrlNormalisierung}).
+ */
+@SpringBootTest
+@ActiveProfiles( "test" )
+class DuplikatTest {
+
+    @Autowired
+    private LesezeichenService _cut;
+
+    @Autowired
+    private OrdnerRepo _ordnerRepo;
+
+
+    /**
+     * URLs, die sich nur in Schreibweise von Schema und Host, Standard-Port,
+     * "www.", Reihenfolge der Parameter und Tracking-Parametern unterscheiden,
+     * sind Duplikate; ein anders geschriebener Pfad nicht.
+     */
+    @Test
+    void duplikateUeberKanonischeUrl() {
+
+        final OrdnerEntity wurzel = _ordnerRepo.findByVaterIsNull().orElseThrow();
+
+        _cut.neuesLesezeichen( "Duplikat 1", "https://www.duplikat-test.de/seite/?b=2&a=1", wurzel );
+        _cut.neuesLesezeichen( "Duplikat 2", "HTTPS://Duplikat-Test.de/seite?a=1&utm_source=rss&b=2", wurzel );
+
+        assertEquals( 2, _cut.duplikateSuchen( "https://duplikat-test.de:443/seite?a=1&b=2" ).size() );
+        assertEquals( 0, _cut.duplikateSuchen( "https://duplikat-test.de/Seite?a=1&b=2" ).size() );
+
+        assertTrue( _cut.duplikatBericht( 100 ).gruppen().stream()
+                        .anyMatch( gruppe -> gruppe.kanonischeUrl().equals( "https://duplikat-test.de/seite?a=1&b=2" ) ),
+                    "Gruppe fehlt im Bericht" );
+    }
+
+}
@@ -0,0 +1,134 @@
+package de.eldecker.dhbw.spring.weblesezeichen.logik;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import tools.jackson.databind.ObjectMapper;
+
+
+/**
+ * Unit-Tests für {@link NetscapeHtmlExport} und {@link ChromeJsonExport}
+ * ohne Datenbank: ein exportierter Baum wird mit dem passenden Parser wieder
+ * gelesen, Sonderzeichen müssen dabei erhalten bleiben.
+ */
+class ExportTest {
+
+    /** Name mit Zeichen, die in HTML bzw. JSON maskiert werden müssen. */
+    private static final String NAME_SONDERZEICHEN = "<b>Tom & \"Jerry\"</b> \\ Grüße";
+
+    /** URL mit Query-Parametern, {@code &} muss in HTML maskiert werden. */
+    private static final String URL_PARAMETER = "https://example.org/suche?q=a&b=\"c\"";
+
+    /** Protokoll, das ein Parser für den Baum aus {@link #baumSchreiben} melden muss. */
+    private static final List<String> PROTOKOLL_ERWARTET = List.of(
+            "ordnerBeginn Wurzel",
+            "lesezeichen Startseite https://example.org/",
+            "ordnerBeginn " + NAME_SONDERZEICHEN,
+            "lesezeichen " + NAME_SONDERZEICHEN + " " + URL_PARAMETER,
+            "ordnerBeginn Leer",
+            "ordnerEnde null",
+            "ordnerEnde null",
+            "lesezeichen Ende https://example.org/ende",
+            "ordnerEnde null" );
+
+
+    /**
+     * Schreibt einen Baum mit zwei Ebenen Unterordnern (einer davon leer).
+     */
+    private static void baumSchreiben( ExportAusgabe ausgabe ) throws IOException {
+
+        ausgabe.beginn();
+        ausgabe.ordnerBeginn( 1, "Wurzel" );
+        ausgabe.lesezeichen( 10, "Startseite", "https://example.org/" );
+        ausgabe.ordnerBeginn( 2, NAME_SONDERZEICHEN );
+        ausgabe.lesezeichen( 11, NAME_SONDERZEICHEN, URL_PARAMETER );
+        ausgabe.ordnerBeginn( 3, "Leer" );
+        ausgabe.ordnerEnde();
+        ausgabe.ordnerEnde();
+        ausgabe.lesezeichen( 12, "Ende", "https://example.org/ende" );
+        ausgabe.ordnerEnde();
+        ausgabe.ende();
+    }
+
+
+    /**
+     * Liest den Export mit {@code parser} und liefert das Protokoll.
+     */
+    private static List<String> lesen( ImportParser parser, String export ) throws Exception {
+
+        final ProtokollEmpfaenger empfaenger = new ProtokollEmpfaenger();
+        parser.parse( new ByteArrayInputStream( export.getBytes( UTF_8 ) ), empfaenger );
+
+        return empfaenger._protokoll;
+    }
+
+
+    /**
+     * Export als HTML wird von {@link NetscapeHtmlParser} wieder so gelesen,
+     * wie er geschrieben wurde; Sonderzeichen sind als Entities maskiert.
+     */
+    @Test
+    void htmlHinUndZurueck() throws Exception {
+
+        final StringWriter writer = new StringWriter();
+        baumSchreiben( new NetscapeHtmlExport( writer ) );
+        final String html = writer.toString();
+
+        assertTrue( html.startsWith( "<!DOCTYPE NETSCAPE-Bookmark-file-1>" ) );
+        assertFalse( html.contains( "<b>" ), "Name nicht maskiert" );
+        assertTrue( html.contains( "&lt;b&gt;Tom &amp; &quot;Jerry&quot;&lt;/b&gt;" ), "Name falsch maskiert" );
+        assertTrue( html.contains( "HREF=\"https://example.org/suche?q=a&amp;b=&quot;c&quot;\"" ), "URL falsch maskiert" );
+
+        assertEquals( PROTOKOLL_ERWARTET, lesen( new NetscapeHtmlParser(), html ) );
+    }
+
+
+    /**
+     * Export als JSON wird von {@link ChromeJsonParser} wieder so gelesen,
+     * wie er geschrieben wurde; Anführungszeichen und Backslash sind maskiert.
+     */
+    @Test
+    void jsonHinUndZurueck() throws Exception {
+
+        final ObjectMapper objectMapper = new ObjectMapper();
+
+        final StringWriter writer = new StringWriter();
+        baumSchreiben( new ChromeJsonExport( objectMapper, writer ) );
+        final String json = writer.toString();
+
+        assertTrue( json.startsWith( "{\"roots\":{\"bookmark_bar\":{" ) );
+        assertTrue( json.contains( "\"name\":\"<b>Tom & \\\"Jerry\\\"</b> \\\\ Grüße\"" ), "Name falsch maskiert" );
+        assertTrue( json.endsWith( "\"version\":1}" ) );
+
+        assertEquals( PROTOKOLL_ERWARTET, lesen( new ChromeJsonParser( objectMapper ), json ) );
+    }
+
+
+    /**
+     * Ohne Ordner ist {@code bookmark_bar} leer ({@code null}); die Datei ist
+     * trotzdem gültig und enthält für den Parser nichts.
+     */
+    @Test
+    void jsonOhneOrdner() throws Exception {
+
+        final ObjectMapper objectMapper = new ObjectMapper();
+
+        final StringWriter writer = new StringWriter();
+        final ChromeJsonExport export = new ChromeJsonExport( objectMapper, writer );
+        export.beginn();
+        export.ende();
+
+        assertEquals( "{\"roots\":{\"bookmark_bar\":null},\"version\":1}", writer.toString() );
+        assertTrue( lesen( new ChromeJsonParser( objectMapper ), writer.toString() ).isEmpty() );
+    }
+
+}
@@ -0,0 +1,134 @@
+package de.eldecker.dhbw.spring.weblesezeichen.logik;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import de.eldecker.dhbw.spring.weblesezeichen.db.entities.OrdnerEntity;
+import de.eldecker.dhbw.spring.weblesezeichen.db.repos.OrdnerRepo;
+
+import jakarta.persistence.EntityManager;
+
+
+/**
+ * Tests für {@link ImportSchreiber}, der hier direkt (ohne Parser) mit
+ * Ordnern und Lesezeichen aufgerufen wird.
+ */
+@SpringBootTest
+@ActiveProfiles( "test" )
+class ImportSchreiberTest {
+
+    @Autowired
+    private EntityManager _em;
+
+    @Autowired
+    private PlatformTransactionManager _txManager;
+
+    @Autowired
+    private ApplicationEventPublisher _eventPublisher;
+
+    @Autowired
+    private AenderungsProtokoll _aenderungsProtokoll;
+
+    @Autowired
+    private OrdnerRepo _ordnerRepo;
+
+    @Autowired
+    private OrdnerService _ordnerService;
+
+    @Autowired
+    private LesezeichenService _lesezeichenService;
+
+
+    private ImportSchreiber neuerSchreiber() {
+
+        return new ImportSchreiber( _em, _txManager, _eventPublisher, _aenderungsProtokoll,
+                                    new ImportAuftrag( "test", "test.html", 0 ) );
+    }
+
+
+    /**
+     * Vorhandene Namen (auch in anderer Schreibweise) und Namen aus demselben
+     * Import bekommen eine laufende Nummer.
+     */
+    @Test
+    void namenWerdenEindeutig() {
+
+        final long wurzelId = _ordnerRepo.findByVaterIsNull().orElseThrow().getId();
+
+        final ImportSchreiber schreiber = neuerSchreiber();
+        final long importOrdnerId = schreiber.beginnen( wurzelId, "Import Eindeutig" );
+        schreiber.ordnerBeginn( "WURZEL" );
+        schreiber.ordnerEnde( null );
+        schreiber.ordnerBeginn( "Import eindeutig" );
+        schreiber.ordnerEnde( null );
+        schreiber.abschliessen();
+
+        assertEquals( "Import Eindeutig", _ordnerRepo.findById( importOrdnerId ).orElseThrow().getName() );
+        assertTrue( _ordnerRepo.findAll().stream().anyMatch( o -> o.getName().equals( "WURZEL (2)"           ) ) );
+        assertTrue( _ordnerRepo.findAll().stream().anyMatch( o -> o.getName().equals( "Import eindeutig (2)" ) ) );
+    }
+
+
+    /**
+     * Ein Ordner, dessen Name erst nach seinem Inhalt kommt, ist nach einem
+     * Abbruch nicht mit seinem vorläufigen Namen in der Datenbank, auch wenn
+     * er in einem schon committeten Block angelegt wurde.
+     */
+    @Test
+    void keinVorlaeufigerNameNachAbbruch() {
+
+        final long wurzelId = _ordnerRepo.findByVaterIsNull().orElseThrow().getId();
+
+        final ImportSchreiber schreiber = neuerSchreiber();
+        schreiber.beginnen( wurzelId, "Import Abbruch" );
+        schreiber.ordnerBeginn( null );
+        for ( int i = 0; i < ImportSchreiber.BLOCKGROESSE + 10; i++ ) {
+
+            schreiber.lesezeichen( "Abbruch " + i, "https://abbruch.example/" + i );
+        }
+        schreiber.abbrechen();
+
+        for ( OrdnerEntity ordner : _ordnerRepo.findAll() ) {
+
+            assertFalse( ordner.getName().startsWith( "~import~" ), "Vorläufiger Name: " + ordner.getName() );
+        }
+        assertTrue( _ordnerRepo.findAll().stream().anyMatch( o -> o.getName().startsWith( "Unbenannter Ordner" ) ) );
+    }
+
+
+    /**
+     * Ein Lesezeichen, das während eines Imports (in einer anderen
+     * Transaktion) im Ordner angelegt wird, in den importiert wird, führt
+     * nicht zum Abbruch des Imports; die Version wird von beiden hochgezählt.
+     */
+    @Test
+    void lesezeichenWaehrendImport() throws Exception {
+
+        final OrdnerEntity wurzel        = _ordnerRepo.findByVaterIsNull().orElseThrow();
+        final OrdnerEntity ziel          = _ordnerService.neuerOrdner( "Import Parallel", wurzel );
+        final long         versionVorher = _ordnerRepo.findById( ziel.getId() ).orElseThrow().getVersion();
+
+        final ImportSchreiber schreiber = neuerSchreiber();
+        final long importOrdnerId = schreiber.beginnen( ziel.getId(), "Import Parallel Inhalt" );
+        schreiber.lesezeichen( "Importiert", "https://parallel-import.example/" );
+
+        // eigener Thread, sonst würde die Transaktion des Imports verwendet
+        CompletableFuture.runAsync( () -> _lesezeichenService.neuesLesezeichen( "Manuell", "https://manuell.example/",
+                                                                                ziel ) ).get();
+        schreiber.abschliessen();
+
+        assertEquals( versionVorher + 2, _ordnerRepo.findById( ziel.getId() ).orElseThrow().getVersion() );
+        assertTrue( _ordnerRepo.findById( importOrdnerId ).isPresent() );
+    }
+
+}
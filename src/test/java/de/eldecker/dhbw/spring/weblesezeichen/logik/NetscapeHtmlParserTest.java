@@ -0,0 +1,90 @@
+package de.eldecker.dhbw.spring.weblesezeichen.logik;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Unit-Tests für {@link NetscapeHtmlParser} mit Dateien, wie sie Browser beim
+ * Export schreiben.
+ */
+class NetscapeHtmlParserTest {
+
+    private final NetscapeHtmlParser _cut = new NetscapeHtmlParser();
+
+
+    private List<String> lesen( String html ) throws Exception {
+
+        final ProtokollEmpfaenger empfaenger = new ProtokollEmpfaenger();
+        _cut.parse( new ByteArrayInputStream( html.getBytes( UTF_8 ) ), empfaenger );
+
+        return empfaenger._protokoll;
+    }
+
+
+    /**
+     * Verschachtelte Ordner mit Attributen wie von Firefox, Entities in
+     * Namen und URL, Tags in Kleinschreibung; das äußerste {@code DL} ist
+     * kein Ordner.
+     */
+    @Test
+    void verschachtelteOrdner() throws Exception {
+
+        final String html = """
+                <!DOCTYPE NETSCAPE-Bookmark-file-1>
+                <TITLE>Bookmarks</TITLE>
+                <H1>Bookmarks</H1>
+                <DL><p>
+                    <DT><H3 ADD_DATE="1" PERSONAL_TOOLBAR_FOLDER="true">Lesezeichen&shy;leiste</H3>
+                    <DL><p>
+                        <DT><A HREF="https://www.heise.de/" ADD_DATE="2" ICON="data:image/png;base64,AAA">heise online</A>
+                        <dt><h3>Tom &amp; Jerry</h3>
+                        <dl><p>
+                            <dt><a href="https://example.org/?a=1&amp;b=2">&lt;Beispiel&gt;</a>
+                        </dl><p>
+                    </DL><p>
+                    <DT><A HREF="https://oben.example/">Oben</A>
+                </DL><p>
+                """;
+
+        assertEquals( List.of( "ordnerBeginn Lesezeichen­leiste",
+                               "lesezeichen heise online https://www.heise.de/",
+                               "ordnerBeginn Tom & Jerry",
+                               "lesezeichen <Beispiel> https://example.org/?a=1&b=2",
+                               "ordnerEnde null",
+                               "ordnerEnde null",
+                               "lesezeichen Oben https://oben.example/" ),
+                      lesen( html ) );
+    }
+
+
+    /**
+     * Bei einer abgeschnittenen Datei werden die bis dahin gelesenen
+     * Lesezeichen gemeldet und alle offenen Ordner beendet.
+     */
+    @Test
+    void abgeschnitteneDatei() throws Exception {
+
+        final String html = """
+                <DL><p>
+                    <DT><H3>Außen</H3>
+                    <DL><p>
+                        <DT><H3>Innen</H3>
+                        <DL><p>
+                            <DT><A HREF="https://innen.example/">Innen 1</A>
+                            <DT><A HREF="https://abgeschnit""";
+
+        assertEquals( List.of( "ordnerBeginn Außen",
+                               "ordnerBeginn Innen",
+                               "lesezeichen Innen 1 https://innen.example/",
+                               "ordnerEnde null",
+                               "ordnerEnde null" ),
+                      lesen( html ) );
+    }
+
+}
@@ -0,0 +1,149 @@
+package de.eldecker.dhbw.spring.weblesezeichen.logik;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import de.eldecker.dhbw.spring.weblesezeichen.model.LesezeichenMitOrdner;
+import de.eldecker.dhbw.spring.weblesezeichen.model.OrdnerKnoten;
+import de.eldecker.dhbw.spring.weblesezeichen.model.OrdnerKurzInfo;
+import de.eldecker.dhbw.spring.weblesezeichen.model.OrdnerMitAnzahl;
+
+
+/**
+ * Unit-Tests für {@link OrdnerBaumSnapshot} ohne Datenbank: der Snapshot
+ * wird direkt aus Knoten aufgebaut und dann mit den {@code mit...}-Methoden
+ * ergänzt.
+ */
+class OrdnerBaumSnapshotTest {
+
+    /**
+     * Snapshot mit Wurzel (ID 1, Version 4) und Unterordner "Musik" (ID 2)
+     * mit einem Lesezeichen.
+     */
+    private static OrdnerBaumSnapshot aufbauen() {
+
+        final LesezeichenMitOrdner lesezeichen = lesezeichen( 10, "Noten", 2, "Musik" );
+
+        return OrdnerBaumSnapshot.aufbauen( List.of(
+                new OrdnerKnoten( 1L, "Wurzel", null, "/1/", 4L,
+                                  List.of( new OrdnerKurzInfo( 2L, "Musik" ) ), List.of() ),
+                new OrdnerKnoten( 2L, "Musik", 1L, "/1/2/", 1L, List.of(), List.of( lesezeichen ) ) ) );
+    }
+
+
+    private static LesezeichenMitOrdner lesezeichen( long id, String name, long ordnerId, String ordnerName ) {
+
+        return new LesezeichenMitOrdner( id, name, "https://example.org/" + id, ordnerId, ordnerName );
+    }
+
+
+    /**
+     * Neue Ordner und Lesezeichen werden nach Name sortiert eingefügt, und
+     * die Version des betroffenen Ordners wird hochgezählt.
+     */
+    @Test
+    void einfuegenSortiertUndZaehltVersionHoch() {
+
+        OrdnerBaumSnapshot snapshot = aufbauen();
+        snapshot = snapshot.mitOrdner( 3L, "Arbeit", 1L, "/1/3/", 0L );
+        snapshot = snapshot.mitLesezeichen( lesezeichen( 11, "Akkorde", 2, "Musik" ) );
+        snapshot = snapshot.mitLesezeichen( lesezeichen( 12, "Zeitplan", 3, "Arbeit" ) );
+
+        assertEquals( 4, snapshot.getVersion() );
+        assertEquals( 1L, snapshot.getWurzelId() );
+
+        final OrdnerKnoten wurzel = snapshot.getOrdner( 1L );
+        assertEquals( List.of( "Arbeit", "Musik" ), wurzel.unterordner().stream().map( OrdnerKurzInfo::name ).toList() );
+        assertEquals( 5L, wurzel.version() );
+
+        final OrdnerKnoten musik = snapshot.getOrdner( 2L );
+        assertEquals( List.of( "Akkorde", "Noten" ), musik.lesezeichen().stream().map( LesezeichenMitOrdner::name ).toList() );
+        assertEquals( 2L, musik.version() );
+        assertEquals( 1L, snapshot.getOrdner( 3L ).version() );
+
+        assertEquals( List.of( "Arbeit", "Musik", "Wurzel" ),
+                      snapshot.getOrdnerNach( null, null, 10 ).stream().map( OrdnerMitAnzahl::name ).toList() );
+        assertEquals( List.of( "Akkorde", "Noten", "Zeitplan" ),
+                      snapshot.getLesezeichenNach( null, null, 10 ).stream().map( LesezeichenMitOrdner::name ).toList() );
+        assertEquals( List.of( "Wurzel", "Musik" ),
+                      snapshot.getPfadVonWurzel( 2L ).stream().map( OrdnerKurzInfo::name ).toList() );
+    }
+
+
+    /**
+     * Ein schon enthaltener Ordner oder ein schon enthaltenes Lesezeichen
+     * (z.B. wenn das Ereignis nach einem Neuaufbau noch einmal ankommt) ändert
+     * den Snapshot nicht; ebenso ein Eintrag in einem unbekannten Ordner.
+     */
+    @Test
+    void doppelteUndUnbekannteOrdnerIgnorieren() {
+
+        final OrdnerBaumSnapshot snapshot = aufbauen();
+
+        assertSame( snapshot, snapshot.mitOrdner( 2L, "Musik", 1L, "/1/2/", 1L ) );
+        assertSame( snapshot, snapshot.mitLesezeichen( lesezeichen( 10, "Noten", 2, "Musik" ) ) );
+        assertSame( snapshot, snapshot.mitOrdner( 5L, "Waise", 99L, "/1/99/5/", 0L ) );
+        assertSame( snapshot, snapshot.mitLesezeichen( lesezeichen( 13, "Waise", 99, "Unbekannt" ) ) );
+
+        assertEquals( 2, snapshot.getAnzahlOrdner() );
+        assertEquals( 1, snapshot.getAnzahlLesezeichen() );
+        assertNull( snapshot.getOrdner( 99L ) );
+    }
+
+
+    /**
+     * Nach einem Import wird der Snapshot neu aufgebaut; der neue Snapshot
+     * enthält die importierten Einträge, der alte bleibt unverändert.
+     */
+    @Test
+    void neuaufbauNachImport() {
+
+        final OrdnerBaumSnapshot alt = aufbauen();
+
+        final OrdnerBaumSnapshot neu = OrdnerBaumSnapshot.aufbauen( List.of(
+                new OrdnerKnoten( 1L, "Wurzel", null, "/1/", 5L,
+                                  List.of( new OrdnerKurzInfo( 2L, "Musik" ), new OrdnerKurzInfo( 2000L, "Import" ) ),
+                                  List.of() ),
+                new OrdnerKnoten( 2L, "Musik", 1L, "/1/2/", 1L, List.of(),
+                                  List.of( lesezeichen( 10, "Noten", 2, "Musik" ) ) ),
+                new OrdnerKnoten( 2000L, "Import", 1L, "/1/2000/", 3L, List.of(),
+                                  List.of( lesezeichen( 20, "Importiert", 2000, "Import" ) ) ) ) );
+
+        assertEquals( 3, neu.getAnzahlOrdner() );
+        assertEquals( 2, neu.getAnzahlLesezeichen() );
+        assertEquals( 3L, neu.getOrdner( 2000L ).version() );
+        assertEquals( List.of( "Importiert", "Noten" ),
+                      neu.getLesezeichenNach( null, null, 10 ).stream().map( LesezeichenMitOrdner::name ).toList() );
+
+        assertNull( alt.getOrdner( 2000L ) );
+        assertEquals( 1, alt.getAnzahlLesezeichen() );
+    }
+
+
+    /**
+     * Die Liste aller Ordner ist ohne Groß-/Kleinschreibung sortiert (wie die
+     * Spalte {@code name_klein} in der Datenbank), die Unterordner nicht.
+     */
+    @Test
+    void ordnerlisteOhneGrossKleinschreibung() {
+
+        OrdnerBaumSnapshot snapshot = aufbauen();
+        snapshot = snapshot.mitOrdner( 3L, "bücher", 1L, "/1/3/", 0L );
+        snapshot = snapshot.mitOrdner( 4L, "Zeitung", 1L, "/1/4/", 0L );
+
+        assertEquals( List.of( "bücher", "Musik", "Wurzel", "Zeitung" ),
+                      snapshot.getOrdnerNach( null, null, 10 ).stream().map( OrdnerMitAnzahl::name ).toList() );
+        assertEquals( List.of( "Wurzel", "Zeitung" ),
+                      snapshot.getOrdnerNach( "Musik", 2L, 10 ).stream().map( OrdnerMitAnzahl::name ).toList() );
+        assertEquals( List.of( "Musik", "bücher" ),
+                      snapshot.getOrdnerVor( "wurzel", 1L, 10 ).stream().map( OrdnerMitAnzahl::name ).toList() );
+        assertEquals( List.of( "Musik", "Zeitung", "bücher" ),
+                      snapshot.getOrdner( 1L ).unterordner().stream().map( OrdnerKurzInfo::name ).toList() );
+    }
+
+}
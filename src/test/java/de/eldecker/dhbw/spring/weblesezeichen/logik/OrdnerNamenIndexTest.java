@@ -0,0 +1,56 @@
+package de.eldecker.dhbw.spring.weblesezeichen.logik;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import de.eldecker.dhbw.spring.weblesezeichen.db.entities.OrdnerEntity;
+import de.eldecker.dhbw.spring.weblesezeichen.db.repos.OrdnerRepo;
+import de.eldecker.dhbw.spring.weblesezeichen.model.OrdnerVorschlag;
+
+
+/**
+ * Tests für {@link OrdnerNamenIndex}: Vorschläge für Ordnernamen.
+ */
+@SpringBootTest
+@ActiveProfiles( "test" )
+class OrdnerNamenIndexTest {
+
+    @Autowired
+    private OrdnerNamenIndex _cut;
+
+    @Autowired
+    private OrdnerService _ordnerService;
+
+    @Autowired
+    private OrdnerRepo _ordnerRepo;
+
+
+    /**
+     * Neuer Ordner wird gefunden, auch unabhängig von Groß-/Kleinschreibung
+     * und mit Pfad ab der Wurzel.
+     */
+    @Test
+    void neuerOrdnerWirdVorgeschlagen() {
+
+        final OrdnerEntity wurzel = _ordnerRepo.findByVaterIsNull().orElseThrow();
+        final OrdnerEntity vater  = _ordnerService.neuerOrdner( "Vorschlag Vater", wurzel );
+        final OrdnerEntity kind   = _ordnerService.neuerOrdner( "Vorschlag Kind" , vater  );
+
+        final List<OrdnerVorschlag> vorschlagListe = _cut.vorschlaege( "VORSCHLAG", 10 );
+        assertEquals( List.of( "Vorschlag Kind", "Vorschlag Vater" ),
+                      vorschlagListe.stream().map( OrdnerVorschlag::name ).toList() );
+        assertEquals( kind.getId(), vorschlagListe.get( 0 ).id() );
+        assertEquals( wurzel.getName() + " / Vorschlag Vater / Vorschlag Kind", vorschlagListe.get( 0 ).pfad() );
+
+        assertTrue( _cut.enthaelt( "vorschlag vater" ), "Ordnername nicht gefunden" );
+        assertTrue( _cut.vorschlaege( "Vorschlag X", 10 ).isEmpty(), "Unerwarteter Vorschlag" );
+    }
+
+}
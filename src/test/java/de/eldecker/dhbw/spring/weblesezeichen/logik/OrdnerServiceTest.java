@@ -0,0 +1,51 @@
+package de.eldecker.dhbw.spring.weblesezeichen.logik;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import de.eldecker.dhbw.spring.weblesezeichen.db.entities.OrdnerEntity;
+import de.eldecker.dhbw.spring.weblesezeichen.db.repos.OrdnerRepo;
+
+
+/**
+ * Tests für {@link OrdnerService}.
+ */
+@SpringBootTest
+@ActiveProfiles( "test" )
+class OrdnerServiceTest {
+
+    @Autowired
+    private OrdnerService _cut;
+
+    @Autowired
+    private OrdnerRepo _ordnerRepo;
+
+
+    /**
+     * Direkte und indirekte Unterordner liegen unterhalb eines Ordners, der
+     * Ordner selbst und ein Ordner aus einem anderen Zweig nicht.
+     */
+    @Test
+    void istUnterordnerVon() {
+
+        final OrdnerEntity wurzel  = _ordnerRepo.findByVaterIsNull().orElseThrow();
+        final OrdnerEntity vater   = _cut.neuerOrdner( "Unterordner-Test Vater" , wurzel );
+        final OrdnerEntity kind    = _cut.neuerOrdner( "Unterordner-Test Kind"  , vater  );
+        final OrdnerEntity enkel   = _cut.neuerOrdner( "Unterordner-Test Enkel" , kind   );
+        final OrdnerEntity fremder = _cut.neuerOrdner( "Unterordner-Test Fremd" , wurzel );
+
+        assertTrue ( _cut.istUnterordnerVon( kind.getId()   , vater.getId()  ), "Direkter Unterordner" );
+        assertTrue ( _cut.istUnterordnerVon( enkel.getId()  , vater.getId()  ), "Indirekter Unterordner" );
+        assertTrue ( _cut.istUnterordnerVon( enkel.getId()  , wurzel.getId() ), "Unterhalb der Wurzel" );
+        assertFalse( _cut.istUnterordnerVon( vater.getId()  , vater.getId()  ), "Ordner selbst" );
+        assertFalse( _cut.istUnterordnerVon( vater.getId()  , kind.getId()   ), "Vater unterhalb vom Kind" );
+        assertFalse( _cut.istUnterordnerVon( fremder.getId(), vater.getId()  ), "Ordner aus anderem Zweig" );
+        assertFalse( _cut.istUnterordnerVon( kind.getId()   , fremder.getId() ), "Ordner aus anderem Zweig" );
+    }
+
+}
@@ -0,0 +1,137 @@
+package de.eldecker.dhbw.spring.weblesezeichen.logik;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Unit-Tests für {@link PersistenteSortierteListe}; als Referenz dient ein
+ * {@link TreeSet} mit derselben Sortierung.
+ */
+class PersistenteSortierteListeTest {
+
+    /** So viele Elemente, dass Blätter und innere Knoten geteilt werden müssen. */
+    private static final int ANZAHL = 100_000;
+
+    private static final Comparator<Integer> SORTIERUNG = Comparator.naturalOrder();
+
+
+    /**
+     * Blättert mit {@link PersistenteSortierteListe#nach(Object, int)} vom
+     * Anfang bis zum Ende durch die ganze Liste.
+     */
+    private static List<Integer> alleVorwaerts( PersistenteSortierteListe<Integer> liste, int seitengroesse ) {
+
+        final List<Integer> ergebnis = new ArrayList<>();
+
+        Integer cursor = null;
+        List<Integer> seite;
+        do {
+
+            seite = liste.nach( cursor, seitengroesse );
+            ergebnis.addAll( seite );
+            if ( !seite.isEmpty() ) { cursor = seite.get( seite.size() - 1 ); }
+        }
+        while ( seite.size() == seitengroesse );
+
+        return ergebnis;
+    }
+
+
+    /**
+     * Elemente in zufälliger Reihenfolge eingefügt (mit Teilung von Blättern
+     * und inneren Knoten) sind danach vollständig und sortiert.
+     */
+    @Test
+    void zufaelligeReihenfolgeWirdSortiert() {
+
+        final Random random = new Random( 42 );
+
+        final TreeSet<Integer> referenz = new TreeSet<>( SORTIERUNG );
+        PersistenteSortierteListe<Integer> liste = PersistenteSortierteListe.aus( List.of(), SORTIERUNG );
+        for ( int i = 0; i < ANZAHL; i++ ) {
+
+            final int element = random.nextInt( 10 * ANZAHL );
+            referenz.add( element );
+            liste = liste.einfuegen( element );
+        }
+
+        assertEquals( referenz.size(), liste.groesse() );
+        assertEquals( new ArrayList<>( referenz ), alleVorwaerts( liste, 1_000 ) );
+    }
+
+
+    /**
+     * Ein Element, das laut Sortierung schon enthalten ist, wird nicht noch
+     * einmal eingefügt; dabei entsteht keine neue Liste.
+     */
+    @Test
+    void doppelteWerdenIgnoriert() {
+
+        final PersistenteSortierteListe<Integer> liste =
+                PersistenteSortierteListe.aus( List.of( 1, 3, 5 ), SORTIERUNG ).einfuegen( 4 );
+
+        assertSame( liste, liste.einfuegen( 3 ) );
+        assertSame( liste, liste.einfuegen( 4 ) );
+        assertEquals( 4, liste.groesse() );
+        assertEquals( List.of( 1, 3, 4, 5 ), liste.nach( null, 10 ) );
+    }
+
+
+    /**
+     * Die alte Liste bleibt beim Einfügen unverändert.
+     */
+    @Test
+    void alteListeBleibtUnveraendert() {
+
+        final List<Integer> sortiert = new ArrayList<>();
+        for ( int i = 0; i < ANZAHL; i += 2 ) { sortiert.add( i ); }
+
+        final PersistenteSortierteListe<Integer> alt = PersistenteSortierteListe.aus( sortiert, SORTIERUNG );
+
+        PersistenteSortierteListe<Integer> neu = alt;
+        for ( int i = 1; i < ANZAHL; i += 2 ) { neu = neu.einfuegen( i ); }
+
+        assertEquals( sortiert, alleVorwaerts( alt, 777 ) );
+        assertEquals( ANZAHL, neu.groesse() );
+        assertEquals( ANZAHL, alleVorwaerts( neu, 777 ).size() );
+    }
+
+
+    /**
+     * Seiten vor und nach einem Cursor, der selbst nicht in der Liste
+     * enthalten sein muss; "vor" liefert absteigend sortiert.
+     */
+    @Test
+    void seitenVorUndNachCursor() {
+
+        final List<Integer> sortiert = new ArrayList<>();
+        for ( int i = 0; i < ANZAHL; i += 10 ) { sortiert.add( i ); }
+
+        final PersistenteSortierteListe<Integer> liste = PersistenteSortierteListe.aus( sortiert, SORTIERUNG );
+
+        assertEquals( List.of( 5010, 5020, 5030 ), liste.nach( 5000, 3 ) );
+        assertEquals( List.of( 5010, 5020, 5030 ), liste.nach( 5005, 3 ) );
+        assertEquals( List.of( 4990, 4980, 4970 ), liste.vor( 5000, 3 ) );
+        assertEquals( List.of( 5000, 4990, 4980 ), liste.vor( 5005, 3 ) );
+
+        assertEquals( List.of( 10, 0 ), liste.vor( 20, 5 ) );
+        assertTrue( liste.vor( 0, 5 ).isEmpty() );
+        assertTrue( liste.nach( ANZAHL, 5 ).isEmpty() );
+
+        final List<Integer> letzte = new ArrayList<>( sortiert.subList( sortiert.size() - 3, sortiert.size() ) );
+        Collections.reverse( letzte );
+        assertEquals( letzte, liste.vor( Integer.MAX_VALUE, 3 ) );
+    }
+
+}
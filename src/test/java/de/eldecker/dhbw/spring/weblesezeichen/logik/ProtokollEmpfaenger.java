@@ -0,0 +1,37 @@
+package de.eldecker.dhbw.spring.weblesezeichen.logik;
+
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * {@link ImportEmpfaenger} für Tests, der alle Aufrufe eines Parsers als
+ * Text in einer Liste protokolliert, z.B. {@code "ordnerBeginn Musik"}.
+ */
+class ProtokollEmpfaenger implements ImportEmpfaenger {
+
+    /** Ein Eintrag pro Aufruf in der Reihenfolge der Aufrufe. */
+    final List<String> _protokoll = new ArrayList<>();
+
+
+    @Override
+    public void ordnerBeginn( String name ) {
+
+        _protokoll.add( "ordnerBeginn " + name );
+    }
+
+
+    @Override
+    public void ordnerEnde( String name ) {
+
+        _protokoll.add( "ordnerEnde " + name );
+    }
+
+
+    @Override
+    public void lesezeichen( String name, String url ) {
+
+        _protokoll.add( "lesezeichen " + name + " " + url );
+    }
+
+}
@@ -0,0 +1,105 @@
+package de.eldecker.dhbw.spring.weblesezeichen.logik;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Unit-Tests für {@link SpaceSavingZaehler}; als Referenz dienen die exakten
+ * Anzahlen in einer {@link HashMap}.
+ */
+class SpaceSavingZaehlerTest {
+
+    /** Kapazität für den Test mit zufälligem Datenstrom. */
+    private static final int KAPAZITAET = 20;
+
+    /** Länge des zufälligen Datenstroms. */
+    private static final int ANZAHL_EREIGNISSE = 100_000;
+
+    /** Anzahl verschiedener Elemente im zufälligen Datenstrom. */
+    private static final int ANZAHL_ELEMENTE = 1_000;
+
+
+    /**
+     * Ist kein Zähler frei, dann übernimmt das neue Element den kleinsten
+     * Zähler; dessen Anzahl wird zum Fehler des neuen Elements.
+     */
+    @Test
+    void kleinsterZaehlerWirdVerdraengt() {
+
+        final SpaceSavingZaehler<String> zaehler = new SpaceSavingZaehler<>( 2 );
+        zaehler.erhoehen( 1, "a", 3 );
+        zaehler.erhoehen( 2, "b", 1 );
+        zaehler.erhoehen( 3, "c", 1 );
+
+        final List<SpaceSavingZaehler.Eintrag<String>> top = zaehler.top( 10 );
+        assertEquals( List.of( 1L, 3L ), top.stream().map( SpaceSavingZaehler.Eintrag::getId ).toList() );
+
+        final SpaceSavingZaehler.Eintrag<String> neu = top.get( 1 );
+        assertEquals( "c", neu.getWert()   );
+        assertEquals( 2  , neu.getAnzahl() );
+        assertEquals( 1  , neu.getFehler() );
+
+        zaehler.erhoehen( 1, "a2", 1 );
+        assertEquals( "a2", zaehler.top( 1 ).get( 0 ).getWert() );
+        assertEquals( 4   , zaehler.top( 1 ).get( 0 ).getAnzahl() );
+        assertEquals( 0   , zaehler.top( 1 ).get( 0 ).getFehler() );
+    }
+
+
+    /**
+     * Bei einem schiefen Datenstrom mit viel mehr Elementen als Zählern gilt
+     * für jeden Zähler: {@code anzahl - fehler <= exakt <= anzahl} und
+     * {@code fehler <= N / kapazitaet}; jedes Element mit mehr als
+     * {@code N / kapazitaet} Ereignissen ist enthalten.
+     */
+    @Test
+    void fehlerschrankeEingehalten() {
+
+        final Random                      random  = new Random( 42 );
+        final Map<Long, Long>             exakt   = new HashMap<>();
+        final SpaceSavingZaehler<Integer> zaehler = new SpaceSavingZaehler<>( KAPAZITAET );
+
+        for ( int i = 0; i < ANZAHL_EREIGNISSE; i++ ) {
+
+            // Quadrat einer Zufallszahl aus [0,1) bevorzugt kleine IDs
+            final double zufall = random.nextDouble();
+            final long   id     = (long) ( zufall * zufall * ANZAHL_ELEMENTE );
+
+            exakt.merge( id, 1L, Long::sum );
+            zaehler.erhoehen( id, i, 1 );
+        }
+
+        final long schranke = ANZAHL_EREIGNISSE / KAPAZITAET;
+
+        final List<SpaceSavingZaehler.Eintrag<Integer>> top = zaehler.top( Integer.MAX_VALUE );
+        assertEquals( KAPAZITAET, top.size() );
+
+        for ( SpaceSavingZaehler.Eintrag<Integer> eintrag : top ) {
+
+            final long anzahlExakt = exakt.get( eintrag.getId() );
+            assertTrue( eintrag.getAnzahl() >= anzahlExakt, "Anzahl zu klein für ID " + eintrag.getId() );
+            assertTrue( eintrag.getAnzahl() - eintrag.getFehler() <= anzahlExakt,
+                        "Untergrenze zu groß für ID " + eintrag.getId() );
+            assertTrue( eintrag.getFehler() <= schranke, "Fehler zu groß für ID " + eintrag.getId() );
+        }
+
+        exakt.forEach( ( id, anzahl ) -> {
+
+            if ( anzahl > schranke ) {
+
+                assertTrue( top.stream().anyMatch( eintrag -> eintrag.getId() == id ), "ID " + id + " fehlt" );
+            }
+        });
+
+        assertEquals( 3, zaehler.top( 3 ).size() );
+    }
+
+}
@@ -0,0 +1,95 @@
+package de.eldecker.dhbw.spring.weblesezeichen.logik;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import de.eldecker.dhbw.spring.weblesezeichen.model.LesezeichenMitOrdner;
+import de.eldecker.dhbw.spring.weblesezeichen.model.SuchErgebnis;
+import de.eldecker.dhbw.spring.weblesezeichen.model.SuchTreffer;
+
+
+/**
+ * Unit-Tests für {@link SuchIndex} ohne Datenbank: die Lesezeichen werden
+ * direkt mit {@link SuchIndex#hinzufuegen(LesezeichenMitOrdner)} aufgenommen.
+ */
+class SuchIndexTest {
+
+    /** Anzahl Lesezeichen mit dem Wort "nachrichten". */
+    private static final int ANZAHL = 95;
+
+    private SuchIndex _cut;
+
+
+    @BeforeEach
+    void indexBefuellen() {
+
+        _cut = new SuchIndex( null );
+
+        for ( long id = 1; id <= ANZAHL; id++ ) {
+
+            // jedes dritte Lesezeichen hat das Wort im Namen und damit mehr Punkte
+            final String name = id % 3 == 0 ? "Nachrichten " + id : "Seite " + id;
+            _cut.hinzufuegen( new LesezeichenMitOrdner( id, name, "https://example.org/nachrichten/" + id,
+                                                        1L, "Wurzel" ) );
+        }
+    }
+
+
+    /**
+     * Alle Seiten hintereinander ergeben dieselbe Reihenfolge wie die Suche
+     * mit einer einzigen großen Seite.
+     */
+    @Test
+    void seitenErgebenGesamtsortierung() {
+
+        final List<SuchTreffer> alle = _cut.suche( "nachrichten", 0, 1_000 ).treffer();
+        assertEquals( ANZAHL, alle.size() );
+
+        final List<SuchTreffer> seitenweise = new ArrayList<>();
+        for ( int seite = 0; seite * 10 < ANZAHL; seite++ ) {
+
+            final SuchErgebnis ergebnis = _cut.suche( "nachrichten", seite, 10 );
+            assertEquals( ANZAHL, ergebnis.anzahlTreffer() );
+            seitenweise.addAll( ergebnis.treffer() );
+        }
+
+        assertEquals( alle, seitenweise );
+        assertTrue( alle.get( 0 ).punkte() > alle.get( ANZAHL - 1 ).punkte(), "Nicht nach Relevanz sortiert" );
+    }
+
+
+    /**
+     * Seitennummern, bei denen {@code seite * seitengroesse} nicht mehr in
+     * einen {@code int} passt, liefern eine leere Seite statt einer Exception.
+     */
+    @Test
+    void grosseSeitennummerOhneUeberlauf() {
+
+        for ( int seite : new int[] { Integer.MAX_VALUE, 107_374_183 } ) {
+
+            final SuchErgebnis ergebnis = _cut.suche( "nachrichten", seite, 20 );
+
+            assertEquals( ANZAHL, ergebnis.anzahlTreffer() );
+            assertTrue( ergebnis.treffer().isEmpty(), "Treffer auf Seite " + seite );
+            assertTrue( !ergebnis.hatNaechste(), "Nächste Seite nach Seite " + seite );
+        }
+    }
+
+
+    /** Negative Seitennummer und Seitengröße 0 werden korrigiert. */
+    @Test
+    void ungueltigeSeitenparameter() {
+
+        final SuchErgebnis ergebnis = _cut.suche( "nachrichten", -5, 0 );
+
+        assertEquals( 0, ergebnis.seite() );
+        assertEquals( 1, ergebnis.treffer().size() );
+    }
+
+}
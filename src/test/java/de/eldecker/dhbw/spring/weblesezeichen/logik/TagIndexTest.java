@@ -0,0 +1,87 @@
+package de.eldecker.dhbw.spring.weblesezeichen.logik;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import de.eldecker.dhbw.spring.weblesezeichen.db.entities.LesezeichenEntity;
+import de.eldecker.dhbw.spring.weblesezeichen.db.repos.LesezeichenRepo;
+
+
+/**
+ * Tests für {@link TagIndex}: Syntax der Abfragen über Tags und Treffer
+ * nach dem Setzen von Tags.
+ */
+@SpringBootTest
+@ActiveProfiles( "test" )
+class TagIndexTest {
+
+    @Autowired
+    private TagIndex _cut;
+
+    @Autowired
+    private LesezeichenService _lesezeichenService;
+
+    @Autowired
+    private LesezeichenRepo _lesezeichenRepo;
+
+
+    /**
+     * Operatoren zwischen bzw. vor Tags sind gültig, auch in Kleinschreibung
+     * und als Symbol.
+     */
+    @Test
+    void gueltigeAbfragen() {
+
+        for ( String anfrage : new String[] { "java", "java AND spring", "java spring NOT deprecated",
+                                              "java OR kotlin", "java && !alt || kotlin -alt", "NOT alt java" } ) {
+
+            assertDoesNotThrow( () -> _cut.suche( anfrage, null, 0, 10 ), anfrage );
+        }
+    }
+
+
+    /**
+     * Ein Operator ohne Tag davor bzw. danach führt zu einem Fehler, statt
+     * stillschweigend ignoriert zu werden.
+     */
+    @Test
+    void operatorOhneTagAbgelehnt() {
+
+        for ( String anfrage : new String[] { "java OR", "OR java", "AND java", "java AND", "java NOT",
+                                              "java AND OR kotlin", "java OR OR kotlin", "java NOT NOT alt",
+                                              "java -" } ) {
+
+            assertThrows( LesezeichenException.class, () -> _cut.suche( anfrage, null, 0, 10 ), anfrage );
+        }
+    }
+
+
+    /**
+     * Gesetzte Tags werden normalisiert (Kleinschreibung, ohne "#") und sind
+     * sofort im Index; ein ausgeschlossenes Tag entfernt Treffer.
+     */
+    @Test
+    void abfrageMitAusschluss() throws Exception {
+
+        final List<LesezeichenEntity> lesezeichenListe = _lesezeichenRepo.findAll();
+        final LesezeichenEntity       mitTags          = lesezeichenListe.get( 0 );
+        final LesezeichenEntity       ausgeschlossen   = lesezeichenListe.get( 1 );
+
+        _lesezeichenService.tagsSetzen( mitTags.getId()       , List.of( "#Index-Test", "spring" ) );
+        _lesezeichenService.tagsSetzen( ausgeschlossen.getId(), List.of( "index-test", "veraltet" ) );
+
+        assertEquals( List.of( mitTags.getId() ),
+                      _cut.suche( "index-test NOT veraltet", null, 0, 10 ).treffer().stream()
+                          .map( treffer -> treffer.id() ).toList() );
+        assertEquals( 2, _cut.suche( "index-test", null, 0, 10 ).anzahlTreffer() );
+    }
+
+}
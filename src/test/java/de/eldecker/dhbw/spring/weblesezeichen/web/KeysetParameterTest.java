@@ -0,0 +1,179 @@
+package de.eldecker.dhbw.spring.weblesezeichen.web;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import de.eldecker.dhbw.spring.weblesezeichen.db.entities.OrdnerEntity;
+import de.eldecker.dhbw.spring.weblesezeichen.db.repos.OrdnerRepo;
+import de.eldecker.dhbw.spring.weblesezeichen.logik.OrdnerService;
+
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+
+
+/**
+ * Tests für die Cursor-Parameter von {@code /rest/ordner/search/seite}:
+ * Name und ID nur zusammen, ohne Parameter die erste Seite, mit dem letzten
+ * Ordner einer Seite die Folgeseite (sortiert ohne Groß-/Kleinschreibung).
+ */
+@SpringBootTest
+@ActiveProfiles( "test" )
+class KeysetParameterTest {
+
+    private static final String PFAD = "/rest/ordner/search/seite";
+
+    @Autowired
+    private WebApplicationContext _kontext;
+
+    @Autowired
+    private KeysetParameterFilter _filter;
+
+    @Autowired
+    private OrdnerRepo _ordnerRepo;
+
+    @Autowired
+    private OrdnerService _ordnerService;
+
+    private MockMvc _mockMvc;
+
+    /** Für Auswertung der JSON-Antworten. */
+    private final ObjectMapper _objectMapper = new ObjectMapper();
+
+    /**
+     * Ordner einer Seite.
+     *
+     * @param name Name des Ordners
+     *
+     * @param id ID des Ordners
+     */
+    private record Ordner( String name, long id ) {}
+
+
+    @BeforeEach
+    void mockMvcErzeugen() {
+
+        _mockMvc = MockMvcBuilders.webAppContextSetup( _kontext ).addFilters( _filter ).build();
+    }
+
+
+    /**
+     * Nur ID oder nur Name führt zu HTTP-Status 400 mit Fehlermeldung.
+     */
+    @Test
+    void cursorNurAlsPaar() throws Exception {
+
+        final MockHttpServletResponse nurId = _mockMvc.perform( get( PFAD ).param( "nachId", "5" ) )
+                                                      .andReturn().getResponse();
+        assertEquals( 400, nurId.getStatus() );
+        assertTrue( nurId.getContentAsString().contains( "fehlermeldung" ) );
+
+        assertEquals( 400, _mockMvc.perform( get( PFAD ).param( "nachName", "Musik" ) )
+                                   .andReturn().getResponse().getStatus() );
+    }
+
+
+    /**
+     * Holt eine Seite und liefert deren Ordner in der Reihenfolge der Antwort.
+     *
+     * @param nachName Name des letzten Ordners der vorherigen Seite; {@code null} für erste Seite
+     *
+     * @param nachId ID des letzten Ordners der vorherigen Seite
+     *
+     * @param groesse Seitengröße
+     */
+    private List<Ordner> holeSeite( String nachName, long nachId, int groesse ) throws Exception {
+
+        MockHttpServletRequestBuilder request = get( PFAD ).param( "size", Integer.toString( groesse ) )
+                                                           .param( "projection", "inlineLesezeichen" );
+        if ( nachName != null ) {
+
+            request = request.param( "nachName", nachName ).param( "nachId", Long.toString( nachId ) );
+        }
+
+        final MockHttpServletResponse response = _mockMvc.perform( request ).andReturn().getResponse();
+        assertEquals( 200, response.getStatus() );
+
+        final List<Ordner> ergebnisListe = new ArrayList<>();
+
+        final JsonNode eingebettet = _objectMapper.readTree( response.getContentAsString() ).path( "_embedded" );
+        for ( JsonNode liste : eingebettet ) {
+
+            for ( JsonNode ordner : liste ) {
+
+                ergebnisListe.add( new Ordner( ordner.path( "name" ).asString(), ordner.path( "id" ).asLong() ) );
+            }
+        }
+
+        return ergebnisListe;
+    }
+
+
+    /**
+     * Prüft, ob {@code a} in der Sortierung (kleingeschriebener Name, dann ID)
+     * vor {@code b} liegt.
+     */
+    private static boolean liegtVor( Ordner a, Ordner b ) {
+
+        final int vergleich = a.name().toLowerCase( Locale.ROOT ).compareTo( b.name().toLowerCase( Locale.ROOT ) );
+
+        return vergleich < 0 || ( vergleich == 0 && a.id() < b.id() );
+    }
+
+
+    /**
+     * Ohne Cursor kommt die erste Seite; mit Name und ID des letzten Ordners
+     * als Cursor beginnt die Folgeseite direkt danach, ohne Überschneidung.
+     */
+    @Test
+    void ohneCursorErsteSeite() throws Exception {
+
+        final List<Ordner> ersteSeite = holeSeite( null, 0, 2 );
+        assertEquals( 2, ersteSeite.size(), "Erste Seite unvollständig" );
+        assertTrue( liegtVor( ersteSeite.get( 0 ), ersteSeite.get( 1 ) ), "Erste Seite nicht sortiert" );
+
+        assertEquals( ersteSeite, holeSeite( "", 0, 2 ) );
+
+        final Ordner       letzter     = ersteSeite.get( 1 );
+        final List<Ordner> zweiteSeite = holeSeite( letzter.name(), letzter.id(), 2 );
+        assertFalse( zweiteSeite.isEmpty(), "Zweite Seite ist leer" );
+        for ( Ordner ordner : zweiteSeite ) {
+
+            assertFalse( ersteSeite.contains( ordner ), "Überschneidung mit erster Seite: " + ordner );
+            assertTrue( liegtVor( letzter, ordner ), "Nicht nach Cursor: " + ordner );
+        }
+    }
+
+
+    /**
+     * Die Reihenfolge hängt nicht von Groß-/Kleinschreibung ab, auch nicht
+     * beim Namen im Cursor.
+     */
+    @Test
+    void ohneGrossKleinschreibung() throws Exception {
+
+        final OrdnerEntity wurzel = _ordnerRepo.findByVaterIsNull().orElseThrow();
+        _ordnerService.neuerOrdner( "keyset-test b", wurzel );
+        _ordnerService.neuerOrdner( "Keyset-Test A", wurzel );
+
+        assertEquals( List.of( "Keyset-Test A", "keyset-test b" ),
+                      holeSeite( "KEYSET-TEST", 0, 2 ).stream().map( Ordner::name ).toList() );
+    }
+
+}
@@ -0,0 +1,198 @@
+package de.eldecker.dhbw.spring.weblesezeichen.web;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import de.eldecker.dhbw.spring.weblesezeichen.db.entities.OrdnerEntity;
+import de.eldecker.dhbw.spring.weblesezeichen.db.repos.OrdnerRepo;
+import de.eldecker.dhbw.spring.weblesezeichen.logik.OrdnerService;
+
+
+/**
+ * Tests für das ETag der Ordnerseite: nach dem Anlegen eines Lesezeichens
+ * oder Unterordners über die Web-Oberfläche muss sich das ETag ändern, und
+ * das alte ETag darf nicht mehr zu HTTP-Status 304 führen. Die Requests
+ * laufen wie im Betrieb mit <i>Open EntityManager in View</i>, der Ordner
+ * ist beim Schreiben also schon im Persistenzkontext.
+ * <br><br>
+ *
+ * Jeder Test legt einen eigenen Ordner an, damit die Tests nicht von der
+ * Reihenfolge abhängen.
+ */
+@SpringBootTest
+@ActiveProfiles( "test" )
+class OrdnerEtagTest {
+
+    @Autowired
+    private WebApplicationContext _kontext;
+
+    @Autowired
+    private OrdnerRepo _ordnerRepo;
+
+    @Autowired
+    private OrdnerService _ordnerService;
+
+    private MockMvc _mockMvc;
+
+
+    @BeforeEach
+    void mockMvcErzeugen() {
+
+        _mockMvc = MockMvcBuilders.webAppContextSetup( _kontext ).build();
+    }
+
+
+    /**
+     * Legt einen Testordner unter der Wurzel an.
+     *
+     * @param name Eindeutiger Name des Ordners
+     *
+     * @return ID des neuen Ordners
+     */
+    private long testOrdnerAnlegen( String name ) {
+
+        final OrdnerEntity wurzel = _ordnerRepo.findByVaterIsNull().orElseThrow();
+
+        return _ordnerService.neuerOrdner( name, wurzel ).getId();
+    }
+
+
+    /**
+     * Führt schreibenden Request aus und prüft HTTP-Status 200.
+     */
+    private void schreiben( MockHttpServletRequestBuilder request ) throws Exception {
+
+        assertEquals( 200, _mockMvc.perform( request ).andReturn().getResponse().getStatus() );
+    }
+
+
+    /**
+     * Ruft die Ordnerseite ab und liefert das ETag.
+     */
+    private String holeEtag( String url ) throws Exception {
+
+        final String etag = _mockMvc.perform( get( url ) ).andReturn().getResponse().getHeader( HttpHeaders.ETAG );
+        assertNotNull( etag, "ETag fehlt für " + url );
+
+        return etag;
+    }
+
+
+    /**
+     * Ruft die Ordnerseite mit {@code If-None-Match} ab.
+     *
+     * @return HTTP-Status
+     */
+    private int holeStatusMitEtag( String url, String etag ) throws Exception {
+
+        return _mockMvc.perform( get( url ).header( HttpHeaders.IF_NONE_MATCH, etag ) )
+                       .andReturn().getResponse().getStatus();
+    }
+
+
+    @Test
+    void etagAendertSichMitNeuemLesezeichen() throws Exception {
+
+        final long   ordnerId   = testOrdnerAnlegen( "ETag-Test Lesezeichen" );
+        final String url        = "/app/ordner/" + ordnerId;
+        final String etagVorher = holeEtag( url );
+
+        assertEquals( 304, holeStatusMitEtag( url, etagVorher ) );
+
+        schreiben( post( "/app/lesezeichen/neu" ).param( "anzeigename", "ETag-Test"                   )
+                                                 .param( "url"        , "https://etag-test.example/a" )
+                                                 .param( "ordnerId"   , Long.toString( ordnerId )     ) );
+
+        final String etagNachher = holeEtag( url );
+
+        assertNotEquals( etagVorher, etagNachher, "ETag nach neuem Lesezeichen unverändert" );
+        assertEquals( 200, holeStatusMitEtag( url, etagVorher  ), "Altes ETag liefert noch 304" );
+        assertEquals( 304, holeStatusMitEtag( url, etagNachher ) );
+    }
+
+
+    @Test
+    void etagAendertSichMitNeuemUnterordner() throws Exception {
+
+        final long   ordnerId   = testOrdnerAnlegen( "ETag-Test Unterordner" );
+        final String url        = "/app/ordner/" + ordnerId;
+        final String etagVorher = holeEtag( url );
+
+        schreiben( post( "/app/ordner/neu" ).param( "ordnerId"  , Long.toString( ordnerId ) )
+                                            .param( "ordnername", "ETag-Test Kind"          ) );
+
+        final String etagNachher = holeEtag( url );
+
+        assertNotEquals( etagVorher, etagNachher, "ETag nach neuem Unterordner unverändert" );
+        assertEquals( 200, holeStatusMitEtag( url, etagVorher  ), "Altes ETag liefert noch 304" );
+        assertEquals( 304, holeStatusMitEtag( url, etagNachher ) );
+    }
+
+
+    /**
+     * Gleichzeitig angelegte Lesezeichen im selben Ordner: alle Requests sind
+     * erfolgreich (keine {@code OptimisticLockException}), und die Version
+     * des Ordners wird für jedes Lesezeichen genau einmal hochgezählt.
+     */
+    @Test
+    void gleichzeitigeLesezeichenImSelbenOrdner() throws Exception {
+
+        final int anzahlThreads = 4;
+        final int proThread     = 10;
+
+        final long   ordnerId      = testOrdnerAnlegen( "ETag-Test Parallel" );
+        final long   versionVorher = _ordnerRepo.findById( ordnerId ).orElseThrow().getVersion();
+        final String etagVorher    = holeEtag( "/app/ordner/" + ordnerId );
+
+        final ExecutorService executor = Executors.newFixedThreadPool( anzahlThreads );
+        try {
+
+            final List<Future<?>> futureListe = new ArrayList<>();
+            for ( int t = 0; t < anzahlThreads; t++ ) {
+
+                final int thread = t;
+                futureListe.add( executor.submit( () -> {
+
+                    for ( int i = 0; i < proThread; i++ ) {
+
+                        final String nr = thread + "-" + i;
+                        schreiben( post( "/app/lesezeichen/neu" ).param( "anzeigename", "Parallel " + nr )
+                                                                 .param( "url"        , "https://parallel.example/" + nr )
+                                                                 .param( "ordnerId"   , Long.toString( ordnerId ) ) );
+                    }
+                    return null;
+                }));
+            }
+            for ( Future<?> future : futureListe ) { future.get(); }
+        }
+        finally {
+
+            executor.shutdown();
+        }
+
+        final long versionNachher = _ordnerRepo.findById( ordnerId ).orElseThrow().getVersion();
+        assertEquals( versionVorher + anzahlThreads * proThread, versionNachher );
+        assertEquals( 200, holeStatusMitEtag( "/app/ordner/" + ordnerId, etagVorher ), "Altes ETag liefert noch 304" );
+    }
+
+}
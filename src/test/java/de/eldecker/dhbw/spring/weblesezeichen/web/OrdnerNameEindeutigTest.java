@@ -0,0 +1,64 @@
+package de.eldecker.dhbw.spring.weblesezeichen.web;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.ui.ExtendedModelMap;
+
+import de.eldecker.dhbw.spring.weblesezeichen.db.entities.OrdnerEntity;
+import de.eldecker.dhbw.spring.weblesezeichen.db.repos.OrdnerRepo;
+import de.eldecker.dhbw.spring.weblesezeichen.logik.LesezeichenException;
+import de.eldecker.dhbw.spring.weblesezeichen.logik.OrdnerService;
+
+
+/**
+ * Tests dafür, dass es jeden Ordnernamen unabhängig von Groß-/Kleinschreibung
+ * nur einmal gibt, auch wenn {@code OrdnerNamenIndex} umgangen wird (wie beim
+ * gleichzeitigen Anlegen oder während eines Imports).
+ */
+@SpringBootTest
+@ActiveProfiles( "test" )
+class OrdnerNameEindeutigTest {
+
+    @Autowired
+    private ThymeleafController _cut;
+
+    @Autowired
+    private OrdnerService _ordnerService;
+
+    @Autowired
+    private OrdnerRepo _ordnerRepo;
+
+
+    /**
+     * Die Datenbank lehnt einen Namen ab, den es in anderer Schreibweise schon gibt.
+     */
+    @Test
+    void datenbankLehntAndereSchreibweiseAb() {
+
+        final OrdnerEntity wurzel = _ordnerRepo.findByVaterIsNull().orElseThrow();
+        _ordnerService.neuerOrdner( "Eindeutig DB", wurzel );
+
+        assertThrows( DataIntegrityViolationException.class,
+                      () -> _ordnerService.neuerOrdner( "EINDEUTIG db", wurzel ) );
+    }
+
+
+    /**
+     * Der Controller meldet einen schon vorhandenen Namen als fachlichen Fehler.
+     */
+    @Test
+    void controllerLehntAndereSchreibweiseAb() throws LesezeichenException {
+
+        final long wurzelId = _ordnerRepo.findByVaterIsNull().orElseThrow().getId();
+        _cut.ordnerNeu( wurzelId, "Eindeutig Web", new ExtendedModelMap() );
+
+        assertThrows( LesezeichenException.class,
+                      () -> _cut.ordnerNeu( wurzelId, "eindeutig WEB", new ExtendedModelMap() ) );
+    }
+
+}
@@ -0,0 +1,245 @@
+package de.eldecker.dhbw.spring.weblesezeichen.web;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import de.eldecker.dhbw.spring.weblesezeichen.db.entities.OrdnerEntity;
+import de.eldecker.dhbw.spring.weblesezeichen.db.repos.OrdnerRepo;
+import de.eldecker.dhbw.spring.weblesezeichen.logik.ImportAuftrag;
+import de.eldecker.dhbw.spring.weblesezeichen.logik.ImportBeendetEreignis;
+import de.eldecker.dhbw.spring.weblesezeichen.logik.OrdnerService;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+
+/**
+ * Tests für {@link SeitenCacheFilter}: Seiten kommen beim zweiten Aufruf aus
+ * dem Cache (gezählt über die Metrik {@code cache.gets} des Caches "seiten"),
+ * nach einer Änderung wird die Seite neu gerendert und bekommt ein neues ETag.
+ * <br><br>
+ *
+ * Wegen {@code lesezeichen.seiten-cache.aktiv=true} bekommt die Klasse einen
+ * eigenen Anwendungskontext und deshalb auch eine eigene Datenbank. Jeder
+ * Test legt einen eigenen Ordner an, damit die Tests nicht von der
+ * Reihenfolge abhängen.
+ */
+@SpringBootTest( properties = {
+        "spring.datasource.url=jdbc:h2:mem:lesezeichen_seitencache_test;DB_CLOSE_DELAY=-1",
+        "lesezeichen.seiten-cache.aktiv=true"
+})
+@ActiveProfiles( "test" )
+class SeitenCacheFilterTest {
+
+    @Autowired
+    private WebApplicationContext _kontext;
+
+    @Autowired
+    private SeitenCacheFilter _seitenCacheFilter;
+
+    @Autowired
+    private MeterRegistry _meterRegistry;
+
+    @Autowired
+    private ApplicationEventPublisher _eventPublisher;
+
+    @Autowired
+    private OrdnerRepo _ordnerRepo;
+
+    @Autowired
+    private OrdnerService _ordnerService;
+
+    private MockMvc _mockMvc;
+
+
+    @BeforeEach
+    void mockMvcErzeugen() {
+
+        _mockMvc = MockMvcBuilders.webAppContextSetup( _kontext )
+                                  .addFilters( _seitenCacheFilter )
+                                  .build();
+    }
+
+
+    /**
+     * Legt einen Testordner unter der Wurzel an.
+     *
+     * @param name Eindeutiger Name des Ordners
+     *
+     * @return ID des neuen Ordners
+     */
+    private long testOrdnerAnlegen( String name ) {
+
+        final OrdnerEntity wurzel = _ordnerRepo.findByVaterIsNull().orElseThrow();
+
+        return _ordnerService.neuerOrdner( name, wurzel ).getId();
+    }
+
+
+    /**
+     * Führt schreibenden Request aus und prüft HTTP-Status 200.
+     */
+    private void schreiben( MockHttpServletRequestBuilder request ) throws Exception {
+
+        assertEquals( 200, _mockMvc.perform( request ).andReturn().getResponse().getStatus() );
+    }
+
+
+    /**
+     * Ruft eine Seite ab und prüft HTTP-Status 200.
+     */
+    private MockHttpServletResponse hole( String url ) throws Exception {
+
+        final MockHttpServletResponse response = _mockMvc.perform( get( url ) ).andReturn().getResponse();
+        assertEquals( 200, response.getStatus(), url );
+
+        return response;
+    }
+
+
+    /**
+     * Anzahl Treffer im Cache "seiten" seit dem Start der Anwendung.
+     */
+    private double anzahlTreffer() {
+
+        return _meterRegistry.get( "cache.gets" )
+                             .tag( "cache" , "seiten" )
+                             .tag( "result", "hit"    )
+                             .functionCounter()
+                             .count();
+    }
+
+
+    /**
+     * Zweiter Aufruf einer Ordnerseite kommt aus dem Cache, auch mit
+     * HTTP-Status 304 für das gespeicherte ETag; nach einem neuen Lesezeichen
+     * wird die Seite neu gerendert und enthält das Lesezeichen.
+     */
+    @Test
+    void ordnerseiteNachNeuemLesezeichen() throws Exception {
+
+        final long   ordnerId = testOrdnerAnlegen( "Seiten-Cache Lesezeichen" );
+        final String url      = "/app/ordner/" + ordnerId;
+
+        final MockHttpServletResponse vorher = hole( url );
+        final String etagVorher = vorher.getHeader( HttpHeaders.ETAG );
+        assertNotNull( etagVorher );
+
+        double treffer = anzahlTreffer();
+        assertEquals( vorher.getContentAsString(), hole( url ).getContentAsString() );
+        assertEquals( treffer + 1, anzahlTreffer(), "Zweiter Aufruf nicht aus Cache" );
+
+        final int status = _mockMvc.perform( get( url ).header( HttpHeaders.IF_NONE_MATCH, etagVorher ) )
+                                   .andReturn().getResponse().getStatus();
+        assertEquals( 304, status );
+        assertEquals( treffer + 2, anzahlTreffer(), "304 nicht aus Cache" );
+
+        schreiben( post( "/app/lesezeichen/neu" ).param( "anzeigename", "Seiten-Cache-Test"               )
+                                                 .param( "url"        , "https://seiten-cache.example/a" )
+                                                 .param( "ordnerId"   , Long.toString( ordnerId )        ) );
+
+        treffer = anzahlTreffer();
+        final MockHttpServletResponse nachher = hole( url );
+        assertEquals( treffer, anzahlTreffer(), "Veraltete Seite aus Cache geliefert" );
+        assertTrue( nachher.getContentAsString().contains( "Seiten-Cache-Test" ), "Neues Lesezeichen fehlt" );
+        assertNotEquals( etagVorher, nachher.getHeader( HttpHeaders.ETAG ), "ETag unverändert" );
+    }
+
+
+    /**
+     * Ein neuer Unterordner macht die Seite des Vaterordners und die Listen
+     * ungültig, aber nicht die Seiten anderer Ordner.
+     */
+    @Test
+    void neuerUnterordner() throws Exception {
+
+        final long   ordnerId   = testOrdnerAnlegen( "Seiten-Cache Unterordner" );
+        final long   andererId  = testOrdnerAnlegen( "Seiten-Cache Anderer" );
+        final String url        = "/app/ordner/" + ordnerId;
+        final String urlAnderer = "/app/ordner/" + andererId;
+        final String urlListe   = "/app/ordnerliste";
+
+        hole( url );
+        hole( urlAnderer );
+        hole( urlListe );
+
+        schreiben( post( "/app/ordner/neu" ).param( "ordnerId"  , Long.toString( ordnerId ) )
+                                            .param( "ordnername", "Seiten-Cache Kind"       ) );
+
+        final double treffer = anzahlTreffer();
+        assertTrue( hole( url ).getContentAsString().contains( "Seiten-Cache Kind" ), "Neuer Unterordner fehlt" );
+        assertEquals( treffer, anzahlTreffer(), "Veraltete Seite des Vaterordners aus Cache geliefert" );
+
+        hole( urlListe );
+        assertEquals( treffer, anzahlTreffer(), "Veraltete Ordnerliste aus Cache geliefert" );
+
+        hole( urlAnderer );
+        assertEquals( treffer + 1, anzahlTreffer(), "Seite eines anderen Ordners nicht mehr im Cache" );
+    }
+
+
+    /**
+     * Ein neues Lesezeichen macht auch die Lesezeichenliste ungültig.
+     */
+    @Test
+    void lesezeichenlisteNachNeuemLesezeichen() throws Exception {
+
+        final long   ordnerId = testOrdnerAnlegen( "Seiten-Cache Liste" );
+        final String urlListe = "/app/lesezeichenliste";
+
+        hole( urlListe );
+        double treffer = anzahlTreffer();
+        hole( urlListe );
+        assertEquals( treffer + 1, anzahlTreffer(), "Zweiter Aufruf nicht aus Cache" );
+
+        schreiben( post( "/app/lesezeichen/neu" ).param( "anzeigename", "Seiten-Cache Listeneintrag"      )
+                                                 .param( "url"        , "https://seiten-cache.example/b" )
+                                                 .param( "ordnerId"   , Long.toString( ordnerId )        ) );
+
+        treffer = anzahlTreffer();
+        hole( urlListe );
+        assertEquals( treffer, anzahlTreffer(), "Veraltete Lesezeichenliste aus Cache geliefert" );
+    }
+
+
+    /**
+     * Nach einem Import sind alle Seiten ungültig, auch ohne Ereignis für
+     * einzelne Ordner.
+     */
+    @Test
+    void nachImportAllesUngueltig() throws Exception {
+
+        final long   ordnerId = testOrdnerAnlegen( "Seiten-Cache Import" );
+        final String url      = "/app/ordner/" + ordnerId;
+
+        hole( url );
+        double treffer = anzahlTreffer();
+        hole( url );
+        assertEquals( treffer + 1, anzahlTreffer(), "Zweiter Aufruf nicht aus Cache" );
+
+        _eventPublisher.publishEvent(
+                new ImportBeendetEreignis( new ImportAuftrag( "test", "test.html", 0 ).getFortschritt() ) );
+
+        treffer = anzahlTreffer();
+        assertFalse( hole( url ).getContentAsString().isEmpty() );
+        assertEquals( treffer, anzahlTreffer(), "Seite nach Import aus Cache geliefert" );
+    }
+
+}
@@ -0,0 +1,206 @@
+package de.eldecker.dhbw.spring.weblesezeichen.web;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import de.eldecker.dhbw.spring.weblesezeichen.db.entities.LesezeichenEntity;
+import de.eldecker.dhbw.spring.weblesezeichen.db.entities.OrdnerEntity;
+import de.eldecker.dhbw.spring.weblesezeichen.db.repos.LesezeichenRepo;
+import de.eldecker.dhbw.spring.weblesezeichen.db.repos.OrdnerRepo;
+import de.eldecker.dhbw.spring.weblesezeichen.logik.LesezeichenService;
+
+
+/**
+ * Tests, die für Seiten unter {@code /app/} und Endpunkte unter {@code /rest/}
+ * eine Obergrenze ("Budget") für die Anzahl der JDBC-Statements pro Request
+ * prüfen, damit z.B. ein N+1-Problem (eine Query pro Lesezeichen oder Ordner)
+ * den Build fehlschlagen lässt. Gezählt wird mit {@link SqlStatistikFilter}
+ * über den ganzen Request inkl. Rendern des Templates.
+ * <br><br>
+ *
+ * Der Snapshot des Ordnerbaums ist abgeschaltet, damit die Zugriffe über JPA
+ * geprüft werden; der Wurzelordner enthält bei den Beispieldaten mehrere
+ * Unterordner und Lesezeichen. Wegen dieser Property bekommt die Klasse
+ * einen eigenen Anwendungskontext und deshalb auch eine eigene Datenbank.
+ */
+@SpringBootTest( properties = {
+        "spring.datasource.url=jdbc:h2:mem:lesezeichen_budget_test;DB_CLOSE_DELAY=-1",
+        "lesezeichen.snapshot.aktiv=false"
+})
+@ActiveProfiles( "test" )
+class SqlBudgetTest {
+
+    @Autowired
+    private WebApplicationContext _kontext;
+
+    @Autowired
+    private SqlStatistikFilter _sqlStatistikFilter;
+
+    @Autowired
+    private OrdnerRepo _ordnerRepo;
+
+    @Autowired
+    private LesezeichenRepo _lesezeichenRepo;
+
+    @Autowired
+    private LesezeichenService _lesezeichenService;
+
+    private MockMvc _mockMvc;
+
+
+    @BeforeEach
+    void mockMvcErzeugen() {
+
+        _mockMvc = MockMvcBuilders.webAppContextSetup( _kontext )
+                                  .addFilters( _sqlStatistikFilter )
+                                  .build();
+    }
+
+
+    /**
+     * Führt GET-Request aus und prüft, dass höchstens {@code budget}
+     * JDBC-Statements abgesetzt wurden.
+     *
+     * @param url Pfad, z.B. {@code /app/ordnerliste}
+     *
+     * @param budget Maximale Anzahl Statements
+     */
+    private void pruefeBudget( String url, long budget ) throws Exception {
+
+        final MockHttpServletResponse response = _mockMvc.perform( get( url ) ).andReturn().getResponse();
+        assertEquals( 200, response.getStatus(), "HTTP-Status für " + url );
+
+        final String header = response.getHeader( SqlStatistikFilter.HEADER_STATEMENTS );
+        assertNotNull( header, "Header " + SqlStatistikFilter.HEADER_STATEMENTS + " fehlt für " + url );
+
+        final long anzahlStatements = Long.parseLong( header );
+        assertTrue( anzahlStatements <= budget,
+                    "Zu viele SQL-Statements für " + url + ": " + anzahlStatements + " > " + budget );
+    }
+
+
+    /**
+     * Ordner mit ID, Lesezeichen (Collection), Unterordnern und Vorfahren für
+     * den Pfad: je ein Statement, unabhängig von der Anzahl der Einträge.
+     */
+    @Test
+    void ordnerSeite() throws Exception {
+
+        final OrdnerEntity wurzel = _ordnerRepo.findByVaterIsNull().orElseThrow();
+
+        pruefeBudget( "/app/ordner/" + wurzel.getId(), 4 );
+    }
+
+    /**
+     * Zweiter Abruf der Ordnerseite mit dem ETag des ersten: HTTP-Status 304
+     * ohne Body; dafür wird höchstens der Ordner selbst gelesen, nicht aber
+     * Lesezeichen, Unterordner und Pfad.
+     */
+    @Test
+    void ordnerSeiteNichtGeaendert() throws Exception {
+
+        final OrdnerEntity wurzel = _ordnerRepo.findByVaterIsNull().orElseThrow();
+        final String       url    = "/app/ordner/" + wurzel.getId();
+
+        final String etag = _mockMvc.perform( get( url ) ).andReturn().getResponse().getHeader( HttpHeaders.ETAG );
+        assertNotNull( etag, "ETag fehlt für " + url );
+
+        final MockHttpServletResponse response =
+                _mockMvc.perform( get( url ).header( HttpHeaders.IF_NONE_MATCH, etag ) ).andReturn().getResponse();
+
+        assertEquals( 304, response.getStatus(), "HTTP-Status für " + url + " mit If-None-Match" );
+        assertEquals( 0, response.getContentAsByteArray().length, "Body bei HTTP-Status 304" );
+
+        final long anzahlStatements = Long.parseLong( response.getHeader( SqlStatistikFilter.HEADER_STATEMENTS ) );
+        assertTrue( anzahlStatements <= 1, "Zu viele SQL-Statements für 304: " + anzahlStatements );
+    }
+
+    /**
+     * Abfrage über Tags: die Treffer kommen aus dem Index im Speicher, nur
+     * Name und Ordner der Treffer auf der Seite werden mit einer Query gelesen.
+     */
+    @Test
+    void tagAbfrage() throws Exception {
+
+        final List<LesezeichenEntity> lesezeichenListe = _lesezeichenRepo.findAll();
+
+        _lesezeichenService.tagsSetzen( lesezeichenListe.get( 0 ).getId(), List.of( "budget-test", "spring" ) );
+        _lesezeichenService.tagsSetzen( lesezeichenListe.get( 1 ).getId(), List.of( "budget-test", "veraltet" ) );
+
+        pruefeBudget( "/app/tags?q=budget-test+-veraltet", 1 );
+    }
+
+    /**
+     * Duplikate: der Bericht ist eine Query für alle Gruppen.
+     */
+    @Test
+    void duplikate() throws Exception {
+
+        final OrdnerEntity wurzel = _ordnerRepo.findByVaterIsNull().orElseThrow();
+
+        _lesezeichenService.neuesLesezeichen( "Duplikat 1", "https://www.budget-duplikat.de/seite", wurzel );
+        _lesezeichenService.neuesLesezeichen( "Duplikat 2", "https://budget-duplikat.de/seite/", wurzel );
+
+        pruefeBudget( "/app/duplikate", 1 );
+    }
+
+    /**
+     * Domains: Anzahlen und Subdomains kommen aus dem Trie im Speicher, nur
+     * die Lesezeichen der Seite werden mit einer Query gelesen.
+     */
+    @Test
+    void domains() throws Exception {
+
+        final OrdnerEntity wurzel = _ordnerRepo.findByVaterIsNull().orElseThrow();
+
+        _lesezeichenService.neuesLesezeichen( "Domain 1", "https://www.budget-trie.example/a", wurzel );
+        _lesezeichenService.neuesLesezeichen( "Domain 2", "https://docs.budget-trie.example/b", wurzel );
+
+        pruefeBudget( "/app/domains?domain=budget-trie.example", 1 );
+    }
+
+    @Test
+    void ordnerListe() throws Exception {
+
+        pruefeBudget( "/app/ordnerliste", 1 );
+    }
+
+    @Test
+    void lesezeichenListe() throws Exception {
+
+        pruefeBudget( "/app/lesezeichenliste", 1 );
+    }
+
+    /** Seite mit Entities und COUNT-Query für die Gesamtzahl. */
+    @Test
+    void restLesezeichen() throws Exception {
+
+        pruefeBudget( "/rest/lesezeichenEntities", 2 );
+    }
+
+    /**
+     * Seite mit Entities, COUNT-Query und eine Query für die Lesezeichen aller
+     * Ordner der Seite (Projektion {@code InlineLesezeichen}).
+     */
+    @Test
+    void restOrdner() throws Exception {
+
+        pruefeBudget( "/rest/ordner", 3 );
+    }
+
+}
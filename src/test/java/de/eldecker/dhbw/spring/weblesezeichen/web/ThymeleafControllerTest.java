@@ -0,0 +1,54 @@
+package de.eldecker.dhbw.spring.weblesezeichen.web;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.ui.ExtendedModelMap;
+
+import jakarta.persistence.EntityManagerFactory;
+
+
+/**
+ * Tests für {@link ThymeleafController}, die die Anzahl der abgesetzten
+ * SQL-Statements über die Hibernate-Statistik prüfen (eingeschaltet im
+ * Profil "test").
+ * <br><br>
+ *
+ * Der Snapshot des Ordnerbaums ist abgeschaltet, damit die Liste wirklich
+ * über JPA gelesen wird. Die Properties sind dieselben wie bei
+ * {@link SqlBudgetTest}, deshalb teilen sich beide Klassen einen
+ * Anwendungskontext (und die Datenbank).
+ */
+@SpringBootTest( properties = {
+        "spring.datasource.url=jdbc:h2:mem:lesezeichen_budget_test;DB_CLOSE_DELAY=-1",
+        "lesezeichen.snapshot.aktiv=false"
+})
+@ActiveProfiles( "test" )
+class ThymeleafControllerTest {
+
+    @Autowired
+    private ThymeleafController _cut;
+
+    @Autowired
+    private EntityManagerFactory _entityManagerFactory;
+
+
+    @Test
+    void lesezeichenListeMitKonstanterAnzahlQueries() {
+
+        final Statistics statistik = _entityManagerFactory.unwrap( SessionFactory.class ).getStatistics();
+        statistik.clear();
+
+        _cut.lesezeichenListe( null, null, null, null, new ExtendedModelMap() );
+
+        final long anzahlStatements = statistik.getPrepareStatementCount();
+        assertTrue( anzahlStatements <= 1,
+                    "Zu viele SQL-Statements für Lesezeichenliste: " + anzahlStatements );
+    }
+
+}
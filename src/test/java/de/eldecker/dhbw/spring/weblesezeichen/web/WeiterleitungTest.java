@@ -0,0 +1,86 @@
+package de.eldecker.dhbw.spring.weblesezeichen.web;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import de.eldecker.dhbw.spring.weblesezeichen.db.entities.LesezeichenEntity;
+import de.eldecker.dhbw.spring.weblesezeichen.db.repos.LesezeichenRepo;
+import de.eldecker.dhbw.spring.weblesezeichen.logik.AufrufZaehler;
+import de.eldecker.dhbw.spring.weblesezeichen.logik.TopLesezeichen;
+
+
+/**
+ * Tests für die Weiterleitung über {@code /app/go/{id}}: die URL kommt aus
+ * dem Suchindex, der Request setzt also kein SQL-Statement ab (gezählt mit
+ * {@link SqlStatistikFilter}); der Aufruf wird erst später gebündelt
+ * geschrieben und danach in die Rangliste der meistbenutzten Lesezeichen
+ * eingetragen.
+ */
+@SpringBootTest
+@ActiveProfiles( "test" )
+class WeiterleitungTest {
+
+    @Autowired
+    private WebApplicationContext _kontext;
+
+    @Autowired
+    private SqlStatistikFilter _sqlStatistikFilter;
+
+    @Autowired
+    private LesezeichenRepo _lesezeichenRepo;
+
+    @Autowired
+    private AufrufZaehler _aufrufZaehler;
+
+    @Autowired
+    private TopLesezeichen _topLesezeichen;
+
+    private MockMvc _mockMvc;
+
+
+    @BeforeEach
+    void mockMvcErzeugen() {
+
+        _mockMvc = MockMvcBuilders.webAppContextSetup( _kontext )
+                                  .addFilters( _sqlStatistikFilter )
+                                  .build();
+    }
+
+
+    /**
+     * Weiterleitung auf die URL des Lesezeichens ohne SQL-Statement; nach
+     * dem Schreiben der Aufrufe ist das Lesezeichen in der Rangliste.
+     */
+    @Test
+    void weiterleitungOhneSql() throws Exception {
+
+        final LesezeichenEntity lesezeichen = _lesezeichenRepo.findAll().get( 0 );
+        final String            url         = "/app/go/" + lesezeichen.getId();
+
+        final MockHttpServletResponse response = _mockMvc.perform( get( url ) ).andReturn().getResponse();
+
+        assertEquals( 302, response.getStatus(), "HTTP-Status für " + url );
+        assertEquals( lesezeichen.getUrl(), response.getHeader( HttpHeaders.LOCATION ) );
+
+        final long anzahlStatements = Long.parseLong( response.getHeader( SqlStatistikFilter.HEADER_STATEMENTS ) );
+        assertEquals( 0, anzahlStatements, "SQL-Statements für " + url );
+
+        assertTrue( _aufrufZaehler.schreiben() >= 1, "Aufruf wurde nicht geschrieben" );
+        assertTrue( _topLesezeichen.getTop( null, 10 ).stream()
+                                   .anyMatch( eintrag -> eintrag.lesezeichen().id().equals( lesezeichen.getId() ) ),
+                    "Lesezeichen fehlt in Rangliste" );
+    }
+
+}